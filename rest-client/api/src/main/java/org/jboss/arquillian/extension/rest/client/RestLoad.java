@@ -0,0 +1,118 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives load against a deployment through a resource injected by Arquillian.
+ * <p/>
+ * Inject it in place of the resource, e.g. {@code @ArquillianResteasyResource("rest") RestLoad<CustomerResource>},
+ * configure the load and {@link #run(Call) run} a call repeatedly against the resource:
+ * <ul>
+ * <li>{@link #atRate(double)} issues calls at a fixed rate; latency is measured from the time a call was scheduled
+ * to start, so calls held back by slow responses are accounted for (no coordinated omission)</li>
+ * <li>otherwise every one of {@link #withConcurrency(int)} threads issues a call as soon as its previous one
+ * returned; latencies are corrected for the calls a stalled thread could not issue only if
+ * {@link #withExpectedInterval(long, TimeUnit)} tells at which interval a thread is expected to call, otherwise they are
+ * reported as observed</li>
+ * </ul>
+ * The expected interval of back to back calls is not derived from the measured latencies: a run dominated by stalls
+ * would correct itself against the stalls and hide them.
+ * Instances are immutable, the configuring methods return a new instance.
+ */
+public interface RestLoad<T> {
+
+    /**
+     * @return the injected resource calls are run against
+     */
+    T getResource();
+
+    /**
+     * @param requestsPerSecond calls to start per second, across all threads
+     */
+    RestLoad<T> atRate(double requestsPerSecond);
+
+    /**
+     * @param concurrency threads issuing calls, i.e. the most calls in flight at once
+     */
+    RestLoad<T> withConcurrency(int concurrency);
+
+    RestLoad<T> during(long duration, TimeUnit unit);
+
+    /**
+     * @param interval interval at which every thread is expected to call when calling back to back, latencies larger
+     * than it are corrected for the calls the thread could not issue meanwhile; ignored at a fixed rate
+     */
+    RestLoad<T> withExpectedInterval(long interval, TimeUnit unit);
+
+    /**
+     * Runs given call against the resource until the configured duration elapsed and waits for the calls in flight.
+     */
+    Report run(Call<T> call);
+
+    interface Call<T> {
+
+        void call(T resource) throws Exception;
+    }
+
+    /**
+     * Outcome of a {@link #run(Call) run}, latencies are in microseconds.
+     */
+    interface Report {
+
+        long getCallCount();
+
+        /**
+         * @return number of calls that threw an exception
+         */
+        long getErrorCount();
+
+        /**
+         * @return first exception thrown by a call or null if all calls succeeded
+         */
+        Throwable getFirstError();
+
+        /**
+         * @return completed calls per second
+         */
+        double getThroughput();
+
+        /**
+         * @return whether the latencies are corrected for coordinated omission, false for back to back calls without
+         * an expected interval
+         */
+        boolean isCorrected();
+
+        double getMeanLatency();
+
+        long getMaxLatency();
+
+        /**
+         * @param percentile between 0 and 100
+         * @return latency at given percentile, corrected for coordinated omission if {@link #isCorrected()}
+         */
+        long getLatencyAtPercentile(double percentile);
+
+        /**
+         * @param percentile between 0 and 100
+         * @return latency at given percentile as observed by the calls, without correction for coordinated omission
+         */
+        long getUncorrectedLatencyAtPercentile(double percentile);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client.benchmark;
+
+import org.jboss.arquillian.extension.rest.app.CustomerResource;
+import org.jboss.arquillian.extension.rest.client.ClassModifier;
+import org.jboss.arquillian.extension.rest.client.GeneratedClassCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import java.lang.annotation.Annotation;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link ClassModifier#getModifiedClass(Class, Annotation[])} when the generated class is cached, when it has
+ * to be generated and of computing the cache key alone.
+ * <p/>
+ * Every {@link #generateModifiedClass(ColdCache)} invocation defines a new class that is never unloaded, so keep the
+ * measurement short when running it on its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ClassModifierBenchmark {
+
+    private Annotation[] substitutions;
+
+    private ClassLoader classLoader;
+
+    @Setup
+    public void setUp() throws Exception {
+        substitutions = Substitutions.class.getAnnotations();
+        classLoader = Thread.currentThread().getContextClassLoader();
+        ClassModifier.getModifiedClass(CustomerResource.class, substitutions);
+    }
+
+    @Benchmark
+    public Class<?> cachedModifiedClass() throws Exception {
+        return ClassModifier.getModifiedClass(CustomerResource.class, substitutions);
+    }
+
+    @Benchmark
+    public Class<?> generateModifiedClass(ColdCache coldCache) throws Exception {
+        return ClassModifier.getModifiedClass(CustomerResource.class, substitutions);
+    }
+
+    @Benchmark
+    public GeneratedClassCache.Key cacheKey() {
+        return GeneratedClassCache.keyFor(CustomerResource.class, classLoader, substitutions);
+    }
+
+    @State(Scope.Thread)
+    public static class ColdCache {
+
+        @Setup(Level.Invocation)
+        public void clear() {
+            ClassModifier.getCache().clear();
+        }
+    }
+
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_XML)
+    private static class Substitutions {
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.jboss.arquillian.extension.rest.app.Customer;
+
+import javax.ws.rs.core.MediaType;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-process stand-in for the test-app deployment.
+ * <p/>
+ * Serves {@code GET} and {@code POST} of {@code /app/rest/customer/{id}} the way
+ * {@link org.jboss.arquillian.extension.rest.app.CustomerResourceImpl} does, with representations marshalled once up
+ * front, so that a round trip measures the client side and the loopback socket rather than a container.
+ */
+final class CustomerStandIn {
+
+    static final String CONTEXT = "/app/rest/customer";
+
+    private static final Pattern ID = Pattern.compile(CONTEXT + "/([1-9][0-9]*)/?");
+
+    private final Map<Long, byte[]> customers = new HashMap<Long, byte[]>();
+
+    private final Map<Long, byte[]> bannedCustomers = new HashMap<Long, byte[]>();
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    private CustomerStandIn(HttpServer server, ExecutorService executor) {
+        this.server = server;
+        this.executor = executor;
+    }
+
+    static CustomerStandIn start() throws IOException {
+        // headers and body go out in separate writes, without this each exchange waits for the delayed ACK
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        final ExecutorService executor = Executors.newCachedThreadPool();
+        final CustomerStandIn standIn = new CustomerStandIn(server, executor);
+        standIn.add(new Customer(1, "Acme Corporation"));
+        standIn.add(new Customer(2, "Don"));
+        server.createContext(CONTEXT, standIn.new CustomerHandler());
+        server.setExecutor(executor);
+        server.start();
+        return standIn;
+    }
+
+    int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void add(Customer customer) throws IOException {
+        customers.put(customer.getId(), marshal(customer));
+        customer.setBanned(true);
+        bannedCustomers.put(customer.getId(), marshal(customer));
+    }
+
+    private static byte[] marshal(Customer customer) throws IOException {
+        try {
+            final Marshaller marshaller = JAXBContext.newInstance(Customer.class).createMarshaller();
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            marshaller.marshal(customer, out);
+            return out.toByteArray();
+        } catch (JAXBException e) {
+            throw new IOException("Cannot marshal " + customer.getName(), e);
+        }
+    }
+
+    private class CustomerHandler implements HttpHandler {
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                drain(exchange.getRequestBody());
+                final Matcher matcher = ID.matcher(exchange.getRequestURI().getPath());
+                final boolean post = "POST".equals(exchange.getRequestMethod());
+                if (!matcher.matches() || !(post || "GET".equals(exchange.getRequestMethod()))) {
+                    exchange.sendResponseHeaders(404, -1);
+                    return;
+                }
+                final Long id = Long.valueOf(matcher.group(1));
+                final byte[] body = post ? bannedCustomers.get(id) : customers.get(id);
+                if (null == body) {
+                    exchange.sendResponseHeaders(204, -1);
+                    return;
+                }
+                exchange.getResponseHeaders().set("Content-Type", MediaType.APPLICATION_XML);
+                exchange.sendResponseHeaders(200, body.length);
+                final OutputStream out = exchange.getResponseBody();
+                out.write(body);
+                out.close();
+            } finally {
+                exchange.close();
+            }
+        }
+
+        private void drain(InputStream in) throws IOException {
+            final byte[] buffer = new byte[512];
+            while (in.read(buffer) != -1) {
+                // discard
+            }
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client.benchmark;
+
+import org.jboss.arquillian.container.spi.client.protocol.metadata.HTTPContext;
+import org.jboss.arquillian.container.spi.client.protocol.metadata.ProtocolMetaData;
+import org.jboss.arquillian.container.spi.client.protocol.metadata.Servlet;
+import org.jboss.arquillian.extension.rest.client.BaseRestEnricher;
+import org.jboss.arquillian.extension.rest.client.RestClientConfiguration;
+import org.jboss.arquillian.extension.rest.client.RestClientLifecycle;
+import org.jboss.arquillian.extension.rest.client.RestClientMetricsRecorder;
+import org.jboss.arquillian.extension.rest.client.RestEnricher;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+
+/**
+ * Wires the {@link RestEnricher} of the implementation on the benchmark classpath the way the Arquillian core would,
+ * pointing it at a deployment served under {@code /app} on the given port.
+ */
+final class EnricherFixture {
+
+    private final RestEnricher enricher = new RestEnricher();
+
+    private final StubInstance<RestClientLifecycle> lifecycleInst = new StubInstance<RestClientLifecycle>(null);
+
+    private final RestClientMetricsRecorder metricsRecorder;
+
+    EnricherFixture(int port, Map<String, String> properties) {
+        final ProtocolMetaData metaData =
+            new ProtocolMetaData().addContext(new HTTPContext("127.0.0.1", port).add(new Servlet("benchmark", "/app")));
+        final RestClientConfiguration configuration = RestClientConfiguration.fromProperties(properties);
+        metricsRecorder = configuration.isMetrics() ? new RestClientMetricsRecorder() : null;
+        inject("metaDataInst", new StubInstance<ProtocolMetaData>(metaData));
+        inject("responseInst", new StubInstance<Object>(null));
+        inject("configurationInst", new StubInstance<RestClientConfiguration>(configuration));
+        inject("lifecycleInst", lifecycleInst);
+        inject("metricsRecorderInst", new StubInstance<RestClientMetricsRecorder>(metricsRecorder));
+    }
+
+    RestEnricher getEnricher() {
+        return enricher;
+    }
+
+    /**
+     * Does what the lifecycle observer does after each test.
+     */
+    void afterTest() {
+        final RestClientLifecycle lifecycle = lifecycleInst.get();
+        if (null != lifecycle) {
+            lifecycle.closeTestClients();
+        }
+        if (null != metricsRecorder) {
+            metricsRecorder.drain();
+        }
+    }
+
+    /**
+     * Does what the lifecycle observer does after undeployment.
+     */
+    void close() {
+        final RestClientLifecycle lifecycle = lifecycleInst.get();
+        if (null != lifecycle) {
+            lifecycle.closeAll();
+        }
+    }
+
+    private void inject(String fieldName, Object value) {
+        try {
+            final Field field = BaseRestEnricher.class.getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(enricher, value);
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot inject " + fieldName + " into " + enricher, e);
+        }
+    }
+}
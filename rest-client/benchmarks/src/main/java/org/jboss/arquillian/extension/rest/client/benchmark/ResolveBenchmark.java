@@ -0,0 +1,87 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link org.jboss.arquillian.extension.rest.client.BaseRestEnricher#resolve(java.lang.reflect.Method)},
+ * i.e. of creating the proxy or web target injected into a test method, for the implementation selected by the
+ * build profile.
+ * <p/>
+ * With {@code freshClientPerTest} the client is created and closed for every invocation, otherwise the one created
+ * for the deployment is reused as it is between test methods.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ResolveBenchmark {
+
+    @Param({"bytecode", "proxy"})
+    public String annotationSubstitution;
+
+    @Param({"false", "true"})
+    public boolean freshClientPerTest;
+
+    private EnricherFixture fixture;
+
+    @Setup
+    public void setUp() {
+        final Map<String, String> properties = new HashMap<String, String>();
+        properties.put("annotationSubstitution", annotationSubstitution);
+        properties.put("freshClientPerTest", String.valueOf(freshClientPerTest));
+        fixture = new EnricherFixture(8080, properties);
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public Object[] resolvePlain() {
+        final Object[] resolved = fixture.getEnricher().resolve(Injections.PLAIN);
+        fixture.afterTest();
+        return resolved;
+    }
+
+    @Benchmark
+    public Object[] resolveSubstituted() {
+        final Object[] resolved = fixture.getEnricher().resolve(Injections.SUBSTITUTED);
+        fixture.afterTest();
+        return resolved;
+    }
+}
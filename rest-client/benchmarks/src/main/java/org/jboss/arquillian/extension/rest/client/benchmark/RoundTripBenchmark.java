@@ -0,0 +1,115 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trip through an injected client against the in-process {@link CustomerStandIn}.
+ * <p/>
+ * {@link #httpUrlConnection()} fetches the same representation without any REST client, the difference to it is the
+ * overhead of the implementation selected by the build profile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RoundTripBenchmark {
+
+    @Param({"bytecode", "proxy"})
+    public String annotationSubstitution;
+
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    private CustomerStandIn standIn;
+
+    private EnricherFixture fixture;
+
+    private Object injected;
+
+    private URL customerUrl;
+
+    @Setup
+    public void setUp() throws IOException {
+        standIn = CustomerStandIn.start();
+        final Map<String, String> properties = new HashMap<String, String>();
+        properties.put("annotationSubstitution", annotationSubstitution);
+        properties.put("metrics", String.valueOf(metrics));
+        fixture = new EnricherFixture(standIn.getPort(), properties);
+        injected = fixture.getEnricher().resolve(Injections.SUBSTITUTED)[0];
+        customerUrl = new URL("http", "127.0.0.1", standIn.getPort(), CustomerStandIn.CONTEXT + "/1");
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.close();
+        standIn.stop();
+    }
+
+    @Benchmark
+    public String getCustomer() {
+        return Injections.getCustomerName(injected, 1);
+    }
+
+    @Benchmark
+    public String resolveAndGetCustomer() {
+        final Object resolved = fixture.getEnricher().resolve(Injections.SUBSTITUTED)[0];
+        final String name = Injections.getCustomerName(resolved, 1);
+        fixture.afterTest();
+        return name;
+    }
+
+    @Benchmark
+    public int httpUrlConnection() throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) customerUrl.openConnection();
+        connection.setRequestProperty("Accept", "application/xml");
+        final InputStream in = connection.getInputStream();
+        try {
+            final byte[] buffer = new byte[512];
+            int read = 0;
+            for (int n; (n = in.read(buffer)) != -1; ) {
+                read += n;
+            }
+            return read;
+        } finally {
+            in.close();
+        }
+    }
+}
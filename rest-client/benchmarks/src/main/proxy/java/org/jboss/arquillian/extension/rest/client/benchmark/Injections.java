@@ -0,0 +1,63 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client.benchmark;
+
+import org.jboss.arquillian.extension.rest.app.CustomerResource;
+import org.jboss.arquillian.extension.rest.client.ArquillianResteasyResource;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import java.lang.reflect.Method;
+
+/**
+ * Injection points of the implementations that inject {@link CustomerResource} proxies, i.e. RESTEasy 2.x, RESTEasy
+ * 3.x and Jersey.
+ */
+public class Injections {
+
+    /**
+     * Injection point without annotations to substitute.
+     */
+    static final Method PLAIN = method("plain");
+
+    /**
+     * Injection point overriding the media types of the resource interface.
+     */
+    static final Method SUBSTITUTED = method("substituted");
+
+    public void plain(@ArquillianResteasyResource("rest") CustomerResource customerResource) {
+    }
+
+    @Consumes(MediaType.APPLICATION_XML)
+    @Produces(MediaType.APPLICATION_XML)
+    public void substituted(@ArquillianResteasyResource("rest") CustomerResource customerResource) {
+    }
+
+    static String getCustomerName(Object injected, long id) {
+        return ((CustomerResource) injected).getCustomerById(id).getName();
+    }
+
+    private static Method method(String name) {
+        try {
+            return Injections.class.getMethod(name, CustomerResource.class);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
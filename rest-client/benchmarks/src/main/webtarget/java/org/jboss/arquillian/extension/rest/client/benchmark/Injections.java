@@ -0,0 +1,68 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client.benchmark;
+
+import org.jboss.arquillian.extension.rest.app.Customer;
+import org.jboss.arquillian.extension.rest.client.ArquillianResteasyResource;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
+import java.lang.reflect.Method;
+
+/**
+ * Injection points of the plain JAX-RS 2 implementation, which injects {@link WebTarget}s only.
+ */
+public class Injections {
+
+    /**
+     * Injection point without annotations to substitute.
+     */
+    static final Method PLAIN = method("plain");
+
+    /**
+     * Injection point carrying media type annotations, which only cost the injection plan here since a
+     * {@link WebTarget} is never substituted.
+     */
+    static final Method SUBSTITUTED = method("substituted");
+
+    public void plain(@ArquillianResteasyResource("rest") WebTarget webTarget) {
+    }
+
+    @Consumes(MediaType.APPLICATION_XML)
+    @Produces(MediaType.APPLICATION_XML)
+    public void substituted(@ArquillianResteasyResource("rest") WebTarget webTarget) {
+    }
+
+    static String getCustomerName(Object injected, long id) {
+        return ((WebTarget) injected).path("customer")
+            .path(String.valueOf(id))
+            .request(MediaType.APPLICATION_XML)
+            .get(Customer.class)
+            .getName();
+    }
+
+    private static Method method(String name) {
+        try {
+            return Injections.class.getMethod(name, WebTarget.class);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client;
+
+import org.apache.http.client.HttpClient;
+import org.jboss.resteasy.client.ClientRequest;
+import org.jboss.resteasy.client.ClientResponse;
+import org.jboss.resteasy.client.core.executors.ApacheHttpClient4Executor;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import java.net.URI;
+import java.util.Map;
+
+/**
+ * Executor of resource proxies adding the headers of a test method and, with {@link AnnotationSubstitution#PROXY},
+ * applying its media types to the requests. Reports every request to the {@link RestClientMetricsRecorder} if metrics
+ * are enabled; latency is measured until the response headers have been received and received bytes are taken from
+ * the Content-Length of the response, sent bytes are not known at this level.
+ */
+public class OverridingExecutor extends ApacheHttpClient4Executor {
+
+    private final Map<String, String> headers;
+
+    private final MediaType contentType;
+
+    private final String[] accept;
+
+    private final RestClientMetricsRecorder metricsRecorder;
+
+    public OverridingExecutor(HttpClient httpClient, Map<String, String> headers, MediaTypeOverrides overrides,
+        RestClientMetricsRecorder metricsRecorder) {
+        super(httpClient);
+        this.headers = headers;
+        this.metricsRecorder = metricsRecorder;
+        if (null != overrides && null != overrides.getContentType()) {
+            this.contentType = MediaType.valueOf(overrides.getContentType());
+        } else {
+            this.contentType = null;
+        }
+        this.accept = null != overrides ? overrides.getAccept().toArray(new String[0]) : new String[0];
+    }
+
+    @Override
+    public ClientResponse execute(ClientRequest request) throws Exception {
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            request.header(entry.getKey(), entry.getValue());
+        }
+        if (null != contentType && null != request.getBody()) {
+            request.body(contentType, request.getBody(), request.getBodyType(), request.getBodyGenericType(),
+                request.getBodyAnnotations());
+        }
+        if (accept.length > 0) {
+            request.getHeadersAsObjects().remove(HttpHeaders.ACCEPT);
+            for (String mediaType : accept) {
+                request.accept(mediaType);
+            }
+        }
+        if (null == metricsRecorder) {
+            return super.execute(request);
+        }
+        final long start = System.nanoTime();
+        final ClientResponse response = super.execute(request);
+        metricsRecorder.record(request.getHttpMethod(), URI.create(request.getUri()).getPath(), response.getStatus(), 0,
+            contentLength(response), System.nanoTime() - start);
+        return response;
+    }
+
+    private static long contentLength(ClientResponse response) {
+        final Object contentLength = response.getHeaders().getFirst(HttpHeaders.CONTENT_LENGTH);
+        if (null == contentLength) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(contentLength.toString().trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
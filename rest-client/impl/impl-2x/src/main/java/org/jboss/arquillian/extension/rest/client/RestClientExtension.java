@@ -31,5 +31,7 @@ public class RestClientExtension implements LoadableExtension {
     @Override
     public void register(ExtensionBuilder builder) {
         builder.service(TestEnricher.class, RestEnricher.class);
+        builder.observer(RestClientLifecycleObserver.class);
+        builder.observer(RestClientMetricsObserver.class);
     }
 }
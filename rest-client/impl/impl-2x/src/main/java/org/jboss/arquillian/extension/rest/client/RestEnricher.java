@@ -17,19 +17,25 @@
  */
 package org.jboss.arquillian.extension.rest.client;
 
+import org.apache.http.client.HttpClient;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
 import org.jboss.arquillian.test.spi.TestEnricher;
 import org.jboss.resteasy.client.ClientRequest;
 import org.jboss.resteasy.client.ClientRequestFactory;
-import org.jboss.resteasy.client.ClientResponse;
 import org.jboss.resteasy.client.ProxyBuilder;
-import org.jboss.resteasy.client.core.executors.ApacheHttpClient4Executor;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
-import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * RestEnricher
@@ -45,45 +51,96 @@ public class RestEnricher extends BaseRestEnricher implements TestEnricher {
         Object value;
         final String resourcePath = annotation.value();
         if (ClientRequest.class.isAssignableFrom(clazz)) {
+            final OverridingExecutor executor = new OverridingExecutor(getClient(new HttpClientFactory()),
+                Collections.<String, String>emptyMap(), null, getMetricsRecorder());
             final ClientRequest clientRequest =
-                new ClientRequestFactory(getBaseURL()).createRelativeRequest(resourcePath);
+                new ClientRequestFactory(executor, getBaseURL()).createRelativeRequest(resourcePath);
             final Map<String, String> headers = getHeaders(clazz, method);
             if (!headers.isEmpty()) {
                 clientRequest.registerInterceptor(new HeaderFilter(headers));
             }
             value = clientRequest;
         } else {
-            final Class<?> parameterType;
-            try {
-                final Annotation[] methodDeclaredAnnotations = method.getDeclaredAnnotations();
-                //                                This is test method so if it only contains @Test annotation then we don't need to hassel with substitutions
-                parameterType = methodDeclaredAnnotations.length <= 1 ? clazz
-                    : ClassModifier.getModifiedClass(clazz, methodDeclaredAnnotations);
-            } catch (Exception e) {
-                throw new RuntimeException("Cannot substitute annotations for method " + method.getName(), e);
-            }
-            final ProxyBuilder<?> proxyBuilder = ProxyBuilder.build(parameterType, getBaseURL() + resourcePath);
-            final Map<String, String> headers = getHeaders(clazz, method);
-            if (!headers.isEmpty()) {
-                proxyBuilder.executor(new ApacheHttpClient4Executor() {
-                    @Override
-                    public ClientResponse execute(ClientRequest request) throws Exception {
-                        for (Map.Entry<String, String> entry : headers.entrySet()) {
-                            request.header(entry.getKey(), entry.getValue());
-                        }
-                        return super.execute(request);
-                    }
-                });
-            }
-            if (null != consumes && consumes.value().length > 0) {
-                proxyBuilder.serverConsumes(MediaType.valueOf(consumes.value()[0]));
+            final ResourceProxyKey key = new ResourceProxyKey(getProxyType(clazz, method), getBaseURL() + resourcePath,
+                getHeaders(clazz, method), consumes, produces, getMediaTypeOverrides(method));
+            value = getResourceProxy(clazz, key, new ProxyFactory(key));
+        }
+        return value;
+    }
+
+    private HttpClient createHttpClient() {
+        final RestClientConfiguration configuration = getConfiguration();
+        final ThreadSafeClientConnManager connectionManager;
+        if (RestClientConfiguration.isSet(configuration.getKeepAliveTimeout())) {
+            connectionManager = new ThreadSafeClientConnManager(SchemeRegistryFactory.createDefault(),
+                configuration.getKeepAliveTimeout(), TimeUnit.MILLISECONDS);
+        } else {
+            connectionManager = new ThreadSafeClientConnManager();
+        }
+        if (RestClientConfiguration.isSet(configuration.getMaxConnections())) {
+            connectionManager.setMaxTotal(configuration.getMaxConnections());
+        }
+        if (RestClientConfiguration.isSet(configuration.getMaxConnectionsPerRoute())) {
+            connectionManager.setDefaultMaxPerRoute(configuration.getMaxConnectionsPerRoute());
+        }
+        // responseBufferSize is not supported, RESTEasy 2 has no setting for the buffer responses are read through
+        final HttpParams params = new BasicHttpParams();
+        if (RestClientConfiguration.isSet(configuration.getConnectTimeout())) {
+            HttpConnectionParams.setConnectionTimeout(params, configuration.getConnectTimeout());
+        }
+        if (RestClientConfiguration.isSet(configuration.getSocketTimeout())) {
+            HttpConnectionParams.setSoTimeout(params, configuration.getSocketTimeout());
+        }
+        return new DefaultHttpClient(connectionManager, params);
+    }
+
+    /**
+     * Creates the HTTP client injected {@link ClientRequest}s and resource proxies are executed with, shared by the
+     * tests of a deployment.
+     */
+    private final class HttpClientFactory implements RestClientFactory<HttpClient> {
+
+        @Override
+        public HttpClient create(RestClientConfiguration configuration) {
+            return createHttpClient();
+        }
+
+        @Override
+        public void close(HttpClient httpClient) {
+            httpClient.getConnectionManager().shutdown();
+        }
+    }
+
+    /**
+     * Creates the proxy of a resource on the HTTP client shared by the tests of a deployment, the proxy holds no
+     * resources of its own.
+     */
+    private final class ProxyFactory implements RestClientFactory<Object> {
+
+        private final ResourceProxyKey key;
+
+        private ProxyFactory(ResourceProxyKey key) {
+            this.key = key;
+        }
+
+        @Override
+        public Object create(RestClientConfiguration configuration) {
+            final ProxyBuilder<?> proxyBuilder = ProxyBuilder.build(key.getType(), key.getTarget());
+            proxyBuilder.executor(new OverridingExecutor(getClient(new HttpClientFactory()), key.getHeaders(),
+                key.getMediaTypeOverrides(), getMetricsRecorder()));
+            if (null != key.getConsumes() && key.getConsumes().value().length > 0) {
+                proxyBuilder.serverConsumes(MediaType.valueOf(key.getConsumes().value()[0]));
             }
-            if (null != produces && produces.value().length > 0) {
-                proxyBuilder.serverProduces(MediaType.valueOf(produces.value()[0]));
+            if (null != key.getProduces() && key.getProduces().value().length > 0) {
+                proxyBuilder.serverProduces(MediaType.valueOf(key.getProduces().value()[0]));
             }
-            value = proxyBuilder.now();
+            return proxyBuilder.now();
+        }
+
+        @Override
+        public void close(Object proxy) {
+            // the shared HTTP client is shut down with the deployment
         }
-        return value;
     }
 
     @Override
@@ -0,0 +1,109 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.extension.rest.app.Customer;
+import org.jboss.arquillian.extension.rest.app.CustomerResource;
+import org.jboss.arquillian.extension.rest.client.ArquillianResteasyResource;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.resteasy.client.ClientResponseFailure;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs with annotationSubstitution set to proxy in arquillian-proxy.xml, so the media types of the test methods are
+ * applied to the requests of the injected proxies instead of to generated resource interfaces.
+ */
+@RunWith(Arquillian.class)
+public class ProxySubstitutionTestCase {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Deployment(testable = false)
+    public static WebArchive create() {
+        return ShrinkWrap.create(WebArchive.class).addPackage(Customer.class.getPackage());
+    }
+
+    @Test
+    @Produces(MediaType.APPLICATION_XML)
+    public void proxyImplementsResourceInterface(@ArquillianResteasyResource CustomerResource customerResource) {
+        //        Given
+
+        //        When
+        final Class<?>[] interfaces = customerResource.getClass().getInterfaces();
+
+        //        Then
+        assertTrue(Arrays.asList(interfaces).contains(CustomerResource.class));
+    }
+
+    /**
+     * CustomerResource.createCustomer consumes and produces JSON first, the test method makes the proxy send JSON and
+     * accept XML only.
+     *
+     * @param customerResource
+     *     configured resource ready for use, injected by Arquillian
+     */
+    @Test
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_XML)
+    public void createCustomer(@ArquillianResteasyResource CustomerResource customerResource) {
+        //        Given
+        final String name = "Jack";
+
+        //        When
+        final Customer result = customerResource.createCustomer(new Customer(name));
+
+        //        Then
+        assertNotNull(result);
+        assertNotNull(result.getId());
+        assertEquals(name, result.getName());
+    }
+
+    /**
+     * CustomerResource.getCustomerById only produces XML, so accepting nothing but plain text has to be refused.
+     *
+     * @param customerResource
+     *     configured resource ready for use, injected by Arquillian
+     */
+    @Test
+    @Produces(MediaType.TEXT_PLAIN)
+    public void getCustomerByIdAcceptingUnsupportedMediaType(
+        @ArquillianResteasyResource CustomerResource customerResource) {
+        //        Given
+        expectedException.expect(ClientResponseFailure.class);
+        expectedException.expectMessage("Error status 406 Not Acceptable returned");
+
+        //        When
+        customerResource.getCustomerById(1L);
+    }
+}
@@ -26,9 +26,9 @@ import javax.ws.rs.Consumes;
 import javax.ws.rs.Produces;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.WebTarget;
-import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * RestEnricher
@@ -41,36 +41,109 @@ public class RestEnricher extends BaseRestEnricher implements TestEnricher {
     @Override
     protected Object enrichByType(Class<?> clazz, Method method, ArquillianResteasyResource annotation, Consumes consumes,
         Produces produces) {
-        Object value;
-        Client client = ResteasyClientBuilder.newClient();
-        WebTarget webTarget = client.target(getBaseURL() + annotation.value());
+        final String target = getBaseURL() + annotation.value();
         final Map<String, String> headers = getHeaders(clazz, method);
+        if (WebTarget.class.isAssignableFrom(clazz)) {
+            return createWebTarget(getClient(new ClientFactory()), target, headers);
+        }
+        final ResourceProxyKey key = new ResourceProxyKey(getProxyType(clazz, method), target, headers, consumes,
+            produces, getMediaTypeOverrides(method));
+        return getResourceProxy(clazz, key, new ProxyFactory(clazz, key));
+    }
+
+    private static ResteasyWebTarget createWebTarget(Client client, String target, Map<String, String> headers) {
+        final WebTarget webTarget = client.target(target);
         if (!headers.isEmpty()) {
             webTarget.register(new HeaderFilter(headers));
         }
-        ResteasyWebTarget resteasyWebTarget = (ResteasyWebTarget) webTarget;
-        if (WebTarget.class.isAssignableFrom(clazz)) {
-            value = resteasyWebTarget;
-        } else {
-            final Class<?> parameterType;
-            try {
-                final Annotation[] methodDeclaredAnnotations = method.getDeclaredAnnotations();
-                //                                This is test method so if it only contains @Test annotation then we don't need to hassel with substitutions
-                parameterType = methodDeclaredAnnotations.length <= 1 ? clazz
-                    : ClassModifier.getModifiedClass(clazz, methodDeclaredAnnotations);
-            } catch (Exception e) {
-                throw new RuntimeException("Cannot substitute annotations for method " + method.getName(), e);
+        return (ResteasyWebTarget) webTarget;
+    }
+
+    private Client createClient() {
+        final RestClientConfiguration configuration = getConfiguration();
+        final ResteasyClientBuilder clientBuilder = new ResteasyClientBuilder();
+        if (RestClientConfiguration.isSet(configuration.getMaxConnections())) {
+            clientBuilder.connectionPoolSize(configuration.getMaxConnections());
+        }
+        if (RestClientConfiguration.isSet(configuration.getMaxConnectionsPerRoute())) {
+            clientBuilder.maxPooledPerRoute(configuration.getMaxConnectionsPerRoute());
+        }
+        if (RestClientConfiguration.isSet(configuration.getKeepAliveTimeout())) {
+            clientBuilder.connectionTTL(configuration.getKeepAliveTimeout(), TimeUnit.MILLISECONDS);
+        }
+        if (RestClientConfiguration.isSet(configuration.getConnectTimeout())) {
+            clientBuilder.establishConnectionTimeout(configuration.getConnectTimeout(), TimeUnit.MILLISECONDS);
+        }
+        if (RestClientConfiguration.isSet(configuration.getSocketTimeout())) {
+            clientBuilder.socketTimeout(configuration.getSocketTimeout(), TimeUnit.MILLISECONDS);
+        }
+        if (RestClientConfiguration.isSet(configuration.getResponseBufferSize())) {
+            clientBuilder.responseBufferSize(configuration.getResponseBufferSize());
+        }
+        final RestClientMetricsRecorder metricsRecorder = getMetricsRecorder();
+        if (null != metricsRecorder) {
+            clientBuilder.register(new MetricsFilter(metricsRecorder));
+        }
+        return clientBuilder.build();
+    }
+
+    /**
+     * Creates the client injected {@link WebTarget}s and resource proxies are derived from, shared by the tests of a
+     * deployment.
+     */
+    private final class ClientFactory implements RestClientFactory<Client> {
+
+        @Override
+        public Client create(RestClientConfiguration configuration) {
+            return createClient();
+        }
+
+        @Override
+        public void close(Client client) {
+            client.close();
+        }
+    }
+
+    /**
+     * Creates the proxy of a resource on the client shared by the tests of a deployment, the proxy holds no resources
+     * of its own.
+     */
+    private final class ProxyFactory implements RestClientFactory<Object> {
+
+        private final Class<?> clazz;
+
+        private final ResourceProxyKey key;
+
+        private ProxyFactory(Class<?> clazz, ResourceProxyKey key) {
+            this.clazz = clazz;
+            this.key = key;
+        }
+
+        @Override
+        public Object create(RestClientConfiguration configuration) {
+            final ResteasyWebTarget webTarget =
+                createWebTarget(getClient(new ClientFactory()), key.getTarget(), key.getHeaders());
+            if (null != key.getMediaTypeOverrides()) {
+                webTarget.register(new MediaTypeFilter(key.getMediaTypeOverrides()));
             }
-            final ProxyBuilder<?> proxyBuilder = resteasyWebTarget.proxyBuilder(parameterType);
-            if (null != consumes && consumes.value().length > 0) {
-                proxyBuilder.defaultConsumes(consumes.value()[0]);
+            final ProxyBuilder<?> proxyBuilder = webTarget.proxyBuilder(key.getType());
+            if (key.getType() != clazz) {
+                // generated interfaces are not visible from the context class loader the proxy is defined in otherwise
+                proxyBuilder.classloader(key.getType().getClassLoader());
             }
-            if (null != produces && produces.value().length > 0) {
-                proxyBuilder.defaultProduces(produces.value()[0]);
+            if (null != key.getConsumes() && key.getConsumes().value().length > 0) {
+                proxyBuilder.defaultConsumes(key.getConsumes().value()[0]);
             }
-            value = proxyBuilder.build();
+            if (null != key.getProduces() && key.getProduces().value().length > 0) {
+                proxyBuilder.defaultProduces(key.getProduces().value()[0]);
+            }
+            return proxyBuilder.build();
+        }
+
+        @Override
+        public void close(Object proxy) {
+            // the shared client is closed with the deployment
         }
-        return value;
     }
 
     @Override
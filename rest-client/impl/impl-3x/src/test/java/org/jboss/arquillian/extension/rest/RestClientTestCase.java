@@ -25,6 +25,7 @@ import org.jboss.arquillian.extension.rest.client.ArquillianResteasyResource;
 import org.jboss.arquillian.extension.rest.client.ClassModifier;
 import org.jboss.arquillian.extension.rest.client.Header;
 import org.jboss.arquillian.extension.rest.client.Headers;
+import org.jboss.arquillian.extension.rest.client.RestLoad;
 import org.jboss.arquillian.junit.Arquillian;
 import org.jboss.arquillian.test.api.ArquillianResource;
 import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
@@ -50,9 +51,11 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.net.URL;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -75,6 +78,15 @@ public class RestClientTestCase {
     @ArquillianResource
     private URL deploymentURL;
 
+    /**
+     * Injected once and shared by all test methods of the class.
+     */
+    @ArquillianResteasyResource
+    private CustomerResource sharedCustomerResource;
+
+    @ArquillianResteasyResource("rest/customer")
+    private WebTarget sharedWebTarget;
+
     @Deployment(testable = false)
     public static WebArchive create() {
         return ShrinkWrap.create(WebArchive.class).addPackage(Customer.class.getPackage());
@@ -124,6 +136,56 @@ public class RestClientTestCase {
         assertEquals(name, result.getName());
     }
 
+    @Test
+    public void getCustomerByIdFromField() {
+        //        Given
+        final long customerId = 1L;
+
+        //        When
+        final Customer result = sharedCustomerResource.getCustomerById(customerId);
+        final Customer raw = sharedWebTarget.path("1").request(MediaType.APPLICATION_XML).get(Customer.class);
+
+        //        Then
+        assertNotNull(result);
+        assertEquals("Acme Corporation", result.getName());
+        assertEquals(result.getName(), raw.getName());
+    }
+
+    @Test
+    public void webTargetFieldSharesDeploymentClient(@ArquillianResteasyResource WebTarget webTarget) {
+        //        Given
+
+        //        When
+        final Client fieldClient = ((ResteasyWebTarget) sharedWebTarget).getResteasyClient();
+        final Client parameterClient = ((ResteasyWebTarget) webTarget).getResteasyClient();
+
+        //        Then
+        assertSame(fieldClient, parameterClient);
+    }
+
+    /**
+     * Smoke-tests throughput of the deployment through the same proxy.
+     *
+     * @param load
+     *     drives the configured resource, injected by Arquillian
+     */
+    @Test
+    public void getCustomerByIdUnderLoad(@ArquillianResteasyResource("rest") RestLoad<CustomerResource> load) {
+        //        When
+        final RestLoad.Report report = load.atRate(50).withConcurrency(4).during(1, TimeUnit.SECONDS)
+            .run(new RestLoad.Call<CustomerResource>() {
+                @Override
+                public void call(CustomerResource customerResource) {
+                    customerResource.getCustomerById(1L);
+                }
+            });
+
+        //        Then
+        assertEquals(50, report.getCallCount());
+        assertEquals(0, report.getErrorCount());
+        assertTrue(report.getLatencyAtPercentile(99) <= report.getMaxLatency());
+    }
+
     @Header(name = "Authorization", value = "abc")
     @Test
     @Consumes(MediaType.APPLICATION_JSON)
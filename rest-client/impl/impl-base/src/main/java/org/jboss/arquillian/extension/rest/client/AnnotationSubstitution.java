@@ -0,0 +1,37 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client;
+
+/**
+ * How annotations of a test method override the annotations of an injected resource interface.
+ */
+public enum AnnotationSubstitution {
+
+    /**
+     * {@link ClassModifier} generates a subinterface carrying the test method annotations. Supports any annotation but
+     * defines a new class per interface and annotation combination, unless the annotation processor of the
+     * {@code arquillian-rest-client-processor} artifact generated it at compile time already.
+     */
+    BYTECODE,
+
+    /**
+     * The interface is proxied as is and the {@link javax.ws.rs.Consumes} and {@link javax.ws.rs.Produces} of the test
+     * method are applied to the outgoing requests as Content-Type and Accept headers. No classes are generated.
+     */
+    PROXY
+}
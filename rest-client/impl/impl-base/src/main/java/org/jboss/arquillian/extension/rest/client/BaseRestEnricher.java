@@ -20,72 +20,118 @@ package org.jboss.arquillian.extension.rest.client;
 import org.jboss.arquillian.container.spi.client.protocol.metadata.HTTPContext;
 import org.jboss.arquillian.container.spi.client.protocol.metadata.ProtocolMetaData;
 import org.jboss.arquillian.container.spi.client.protocol.metadata.Servlet;
+import org.jboss.arquillian.container.spi.context.annotation.DeploymentScoped;
 import org.jboss.arquillian.core.api.Instance;
+import org.jboss.arquillian.core.api.InstanceProducer;
 import org.jboss.arquillian.core.api.annotation.Inject;
 import org.jboss.arquillian.test.spi.TestEnricher;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.Response;
-import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.net.URI;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 
 public abstract class BaseRestEnricher implements TestEnricher {
 
+    // HTTPContext is identity based and lives as long as its deployment
+    private static final Map<HTTPContext, URI> BASE_URLS =
+        Collections.synchronizedMap(new WeakHashMap<HTTPContext, URI>());
+
+    // enricher instances are not guaranteed to be singletons, the lifecycle has to be created once per deployment
+    private static final Object LIFECYCLE_LOCK = new Object();
+
     @Inject
     private Instance<ProtocolMetaData> metaDataInst;
 
     @Inject
     private Instance<Response> responseInst;
 
+    @Inject
+    private Instance<RestClientConfiguration> configurationInst;
+
+    @Inject
+    @DeploymentScoped
+    private InstanceProducer<RestClientLifecycle> lifecycleInst;
+
+    @Inject
+    private Instance<RestClientMetricsRecorder> metricsRecorderInst;
+
+    @Inject
+    private Instance<TestClassClients> testClassClientsInst;
+
+    /**
+     * Injects the fields annotated with {@link ArquillianResteasyResource}. Every field gets its value once per test
+     * class and deployment, so all test methods of the test class share it, and the value is closed after the test
+     * class, unless {@link RestClientConfiguration#isFreshClientPerTest()} is set.
+     * <p/>
+     * As there is no test method, the annotations of the resource interface are used as they are and only headers
+     * declared on the resource interface are sent.
+     */
     @Override
     public void enrich(Object testCase) {
+        for (Class<?> type = testCase.getClass(); null != type && Object.class != type; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                final ArquillianResteasyResource annotation = field.getAnnotation(ArquillianResteasyResource.class);
+                if (null != annotation) {
+                    final Object value = getFieldValue(testCase.getClass(), field, annotation);
+                    try {
+                        field.setAccessible(true);
+                        field.set(testCase, value);
+                    } catch (IllegalAccessException e) {
+                        throw new RuntimeException("Cannot inject field " + field.getName(), e);
+                    }
+                }
+            }
+        }
+    }
+
+    private Object getFieldValue(Class<?> testClass, Field field, ArquillianResteasyResource annotation) {
+        final FieldValueFactory factory = new FieldValueFactory(field, annotation);
+        final RestClientConfiguration configuration = getConfiguration();
+        final RestClientLifecycle lifecycle = getClientLifecycle();
+        if (configuration.isFreshClientPerTest()) {
+            return lifecycle.createTestClient(factory, configuration);
+        }
+        // the value is built on the clients of the current deployment, a redeployment has to get a new one
+        return testClassClientsInst.get().get(testClass, Arrays.<Object>asList(field, lifecycle), factory,
+            configuration);
     }
 
     @Override
     public Object[] resolve(Method method) {
-        Object[] values = new Object[method.getParameterTypes().length];
-        Class<?>[] parameterTypes = method.getParameterTypes();
-        final Consumes consumes = method.getDeclaringClass().getAnnotation(Consumes.class);
-        final Produces produces = method.getDeclaringClass().getAnnotation(Produces.class);
-        if (responseInst.get() != null) {
-            for (int i = 0; i < parameterTypes.length; i++) {
-                if (Response.class.isAssignableFrom(parameterTypes[i])) {
-                    values[i] = responseInst.get();
-                }
+        final InjectionPlan plan = InjectionPlan.of(method);
+        final Object[] values = new Object[plan.getParameterCount()];
+        final Response response = responseInst.get();
+        if (response != null) {
+            for (int index : plan.getResponseParameterIndices()) {
+                values[index] = response;
             }
         } else {
-            for (int i = 0; i < parameterTypes.length; i++) {
-                final Annotation[] parameterAnnotations = method.getParameterAnnotations()[i];
-                for (Annotation annotation : parameterAnnotations) {
-                    if (annotation instanceof ArquillianResteasyResource) {
-                        ArquillianResteasyResource arr = (ArquillianResteasyResource) annotation;
-                        Class<?> clazz = parameterTypes[i];
-                        if (isSupportedParameter(clazz)) {
-                            values[i] = enrichByType(clazz, method, arr, consumes, produces);
-                        } else {
-                            throw new RuntimeException("Not able to provide a client injection for type " + clazz);
-                        }
-                    }
+            for (InjectionPlan.InjectionPoint injectionPoint : plan.getInjectionPoints()) {
+                final Class<?> clazz = injectionPoint.getType();
+                if (isSupportedParameter(clazz)) {
+                    final Object value = enrichByType(clazz, method, injectionPoint.getAnnotation(),
+                        plan.getConsumes(), plan.getProduces());
+                    values[injectionPoint.getIndex()] = injectionPoint.isLoad() ? new RestLoadDriver<Object>(value)
+                        : value;
+                } else {
+                    throw new RuntimeException("Not able to provide a client injection for type " + clazz);
                 }
             }
         }
         return values;
     }
 
-    private void addHeaders(Map<String, String> headersMap, Header annotation) {
-        if (null != annotation) {
-            headersMap.put(annotation.name(), annotation.value());
-        }
-    }
-
     protected boolean allInSameContext(List<Servlet> servlets) {
         Set<String> context = new HashSet<String>();
         for (Servlet servlet : servlets) {
@@ -94,36 +140,176 @@ public abstract class BaseRestEnricher implements TestEnricher {
         return context.size() == 1;
     }
 
+    /**
+     * Creates the value to inject. Clients the value is based on have to be obtained through
+     * {@link #getClient(RestClientFactory)} or {@link #getResourceProxy(Class, ResourceProxyKey, RestClientFactory)},
+     * so {@link RestClientLifecycle} closes them.
+     *
+     * @param method
+     *     test method the value is injected into or null if it is injected into a field
+     */
     protected abstract Object enrichByType(Class<?> clazz, Method method, ArquillianResteasyResource annotation,
         Consumes consumes, Produces produces);
 
+    /**
+     * Returns a client for the current deployment. The client is shared by all tests running against the deployment
+     * unless {@link RestClientConfiguration#isFreshClientPerTest()} is set, in which case a new client is created and
+     * closed after the test.
+     */
+    protected <C> C getClient(RestClientFactory<C> factory) {
+        return getClient(factory.getClass(), factory);
+    }
+
+    /**
+     * Returns the resource proxy {@code factory} creates, the factory is expected to build it on a client obtained
+     * through {@link #getClient(RestClientFactory)}. Injections with an equal
+     * {@link ResourceProxyKey} share the proxy for the rest of the deployment unless
+     * {@link RestClientConfiguration#isFreshClientPerTest()} is set. Proxies of interfaces generated for the
+     * annotations of a test method are created and closed per test, so they don't keep the generated classes loaded.
+     */
+    protected <P> P getResourceProxy(Class<?> clazz, ResourceProxyKey key, RestClientFactory<P> factory) {
+        if (clazz != key.getType()) {
+            return getClientLifecycle().createTestClient(factory, getConfiguration());
+        }
+        return getClient(key, factory);
+    }
+
+    private <C> C getClient(Object key, RestClientFactory<C> factory) {
+        final RestClientConfiguration configuration = getConfiguration();
+        final RestClientLifecycle lifecycle = getClientLifecycle();
+        if (configuration.isFreshClientPerTest()) {
+            return lifecycle.createTestClient(factory, configuration);
+        }
+        return lifecycle.getDeploymentClient(key, factory, configuration);
+    }
+
+    /**
+     * Returns the type to create the client proxy for. With {@link AnnotationSubstitution#BYTECODE} this is a
+     * subinterface generated by {@link ClassModifier} carrying the annotations of the test method, with
+     * {@link AnnotationSubstitution#PROXY} the resource interface itself and {@link #getMediaTypeOverrides(Method)}
+     * have to be applied to the requests instead.
+     */
+    protected Class<?> getProxyType(Class<?> clazz, Method method) {
+        if (null == method) {
+            return clazz;
+        }
+        final InjectionPlan plan = InjectionPlan.of(method);
+        if (AnnotationSubstitution.PROXY == getConfiguration().getAnnotationSubstitution()
+            || !plan.hasSubstitutions()) {
+            return clazz;
+        }
+        try {
+            return ClassModifier.getModifiedClass(clazz, method, plan.getSubstitutions());
+        } catch (Exception e) {
+            throw new RuntimeException("Cannot substitute annotations for method " + method.getName(), e);
+        }
+    }
+
+    /**
+     * @return media types of the test method to apply to proxy requests or null if there is nothing to apply, either
+     * because the method declares none or because {@link AnnotationSubstitution#BYTECODE} already took care of them
+     */
+    protected MediaTypeOverrides getMediaTypeOverrides(Method method) {
+        if (null == method || AnnotationSubstitution.PROXY != getConfiguration().getAnnotationSubstitution()) {
+            return null;
+        }
+        final MediaTypeOverrides overrides = InjectionPlan.of(method).getMediaTypeOverrides();
+        return overrides.isEmpty() ? null : overrides;
+    }
+
+    /**
+     * @return recorder injected clients have to report their requests to or null if metrics are disabled
+     */
+    protected RestClientMetricsRecorder getMetricsRecorder() {
+        return metricsRecorderInst.get();
+    }
+
+    protected RestClientConfiguration getConfiguration() {
+        final RestClientConfiguration configuration = configurationInst.get();
+        return null != configuration ? configuration : new RestClientConfiguration();
+    }
+
+    private RestClientLifecycle getClientLifecycle() {
+        synchronized (LIFECYCLE_LOCK) {
+            RestClientLifecycle lifecycle = lifecycleInst.get();
+            if (null == lifecycle) {
+                lifecycle = new RestClientLifecycle();
+                lifecycleInst.set(lifecycle);
+            }
+            return lifecycle;
+        }
+    }
+
     // Currently no way to share @ArquillianResource URL (URLResourceProvider) logic internally, copied logic
     protected URI getBaseURL() {
         HTTPContext context = metaDataInst.get().getContext(HTTPContext.class);
+        URI baseURL = BASE_URLS.get(context);
+        if (null != baseURL) {
+            return baseURL;
+        }
         if (allInSameContext(context.getServlets())) {
-            return context.getServlets().get(0).getBaseURI();
+            baseURL = context.getServlets().get(0).getBaseURI();
+            BASE_URLS.put(context, baseURL);
+            return baseURL;
         }
         throw new IllegalStateException("No baseURL found in HTTPContext");
     }
 
+    /**
+     * @return unmodifiable headers declared on the parameter type merged with the ones declared on the test method, if
+     * there is one
+     */
     protected Map<String, String> getHeaders(Class<?> clazz, Method method) {
+        if (null == method) {
+            return Collections.unmodifiableMap(getHeaders(clazz));
+        }
+        final InjectionPlan.InjectionPoint injectionPoint = InjectionPlan.of(method).getInjectionPoint(clazz);
+        if (null != injectionPoint) {
+            return injectionPoint.getHeaders();
+        }
         final Map<String, String> headers = getHeaders(clazz);
         headers.putAll(getHeaders(method));
-        return headers;
+        return Collections.unmodifiableMap(headers);
     }
 
     protected Map<String, String> getHeaders(AnnotatedElement annotatedElement) {
-        final Map<String, String> headersMap = new HashMap<String, String>();
-        final Headers headersAnnotation = annotatedElement.getAnnotation(Headers.class);
-        if (null != headersAnnotation && null != headersAnnotation.value()) {
-            for (Header header : headersAnnotation.value()) {
-                addHeaders(headersMap, header);
+        return InjectionPlan.readHeaders(annotatedElement);
+    }
+
+    protected abstract boolean isSupportedParameter(Class<?> clazz);
+
+    /**
+     * Creates the value of an injected field. It has nothing to close itself, {@link #enrichByType} obtains the clients
+     * and proxies the value is based on from {@link RestClientLifecycle}, which closes them with the deployment, or
+     * after the test if {@link RestClientConfiguration#isFreshClientPerTest()} is set.
+     */
+    private final class FieldValueFactory implements RestClientFactory<Object> {
+
+        private final Field field;
+
+        private final ArquillianResteasyResource annotation;
+
+        private FieldValueFactory(Field field, ArquillianResteasyResource annotation) {
+            this.field = field;
+            this.annotation = annotation;
+        }
+
+        @Override
+        public Object create(RestClientConfiguration configuration) {
+            final boolean load = RestLoad.class == field.getType();
+            final Class<?> clazz = load ? InjectionPlan.getLoadedType("field " + field.getName(), field.getGenericType())
+                : field.getType();
+            if (!isSupportedParameter(clazz)) {
+                throw new RuntimeException("Not able to provide a client injection for type " + clazz);
             }
+            final Class<?> testClass = field.getDeclaringClass();
+            final Object value = enrichByType(clazz, null, annotation, testClass.getAnnotation(Consumes.class),
+                testClass.getAnnotation(Produces.class));
+            return load ? new RestLoadDriver<Object>(value) : value;
         }
-        addHeaders(headersMap, annotatedElement.getAnnotation(Header.class));
 
-        return headersMap;
+        @Override
+        public void close(Object value) {
+        }
     }
-
-    protected abstract boolean isSupportedParameter(Class<?> clazz);
 }
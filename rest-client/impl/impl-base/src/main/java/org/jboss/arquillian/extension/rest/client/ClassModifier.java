@@ -18,9 +18,11 @@
 package org.jboss.arquillian.extension.rest.client;
 
 import javassist.CannotCompileException;
+import javassist.ClassClassPath;
 import javassist.ClassPool;
 import javassist.CtClass;
 import javassist.CtMethod;
+import javassist.LoaderClassPath;
 import javassist.NotFoundException;
 import javassist.bytecode.AnnotationsAttribute;
 import javassist.bytecode.ClassFile;
@@ -40,16 +42,42 @@ import javassist.bytecode.annotation.MemberValue;
 import javassist.bytecode.annotation.ShortMemberValue;
 import javassist.bytecode.annotation.StringMemberValue;
 
+import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Generates subinterfaces of resource interfaces with the annotations of a test method substituted.
+ * <p/>
+ * Interfaces generated ahead of time by the annotation processor are looked up in {@link PrecompiledSubstitutions}
+ * first, see {@link #getModifiedClass(Class, Method, Annotation[])}.
+ * <p/>
+ * Safe for concurrent use: generated classes are cached by {@link GeneratedClassCache}, cache hits don't wait for
+ * running generations and every generation works on its own {@link ClassPool} instead of the global default pool.
+ * <p/>
+ * Subinterfaces of public interfaces are defined in a {@link GeneratedClassLoader} per test class, which
+ * {@link #release(Class)} drops together with the cache entries once the test class has finished, so the generated
+ * classes can be unloaded. Classes generated without a test class are defined in the context class loader and stay
+ * loaded.
+ */
 public final class ClassModifier {
 
     private static final LongHolder COUNTER = new LongHolder();
 
+    private static final GeneratedClassCache CACHE = new GeneratedClassCache(GeneratedClassCache.DEFAULT_MAXIMUM_SIZE);
+
+    private static final Object GENERATION_LOCK = new Object();
+
+    // test class -> parent class loader -> loader of the classes generated for the test class
+    private static final Map<Class<?>, Map<ClassLoader, GeneratedClassLoader>> SCOPES =
+        new HashMap<Class<?>, Map<ClassLoader, GeneratedClassLoader>>();
+
     private ClassModifier() {
     }
 
@@ -91,10 +119,96 @@ public final class ClassModifier {
         return attr;
     }
 
-    @SuppressWarnings("unchecked")
+    public static GeneratedClassCache getCache() {
+        return CACHE;
+    }
+
+    /**
+     * Prefers the subinterface generated at compile time for given test method, if the annotation processor listed
+     * one in {@link PrecompiledSubstitutions#INDEX}, over generating it.
+     */
+    public static <T> Class<T> getModifiedClass(Class<T> clazz, Method method, Annotation[] add)
+        throws javassist.NotFoundException, CannotCompileException, InvocationTargetException, IllegalAccessException {
+        final Class<T> precompiled =
+            PrecompiledSubstitutions.find(clazz, method, Thread.currentThread().getContextClassLoader());
+        return null != precompiled ? precompiled : getModifiedClass(clazz, method.getDeclaringClass(), add);
+    }
+
     public static <T> Class<T> getModifiedClass(Class<T> clazz, Annotation[] add)
         throws javassist.NotFoundException, CannotCompileException, InvocationTargetException, IllegalAccessException {
-        ClassPool pool = ClassPool.getDefault();
+        return getModifiedClass(clazz, (Class<?>) null, add);
+    }
+
+    /**
+     * Releases the classes generated for given test class, they are unloaded once no proxy refers to them anymore.
+     */
+    public static void release(Class<?> testClass) {
+        final Map<ClassLoader, GeneratedClassLoader> loaders;
+        synchronized (SCOPES) {
+            loaders = SCOPES.remove(testClass);
+        }
+        if (null != loaders) {
+            for (GeneratedClassLoader loader : loaders.values()) {
+                CACHE.removeAll(loader);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Class<T> getModifiedClass(Class<T> clazz, Class<?> testClass, Annotation[] add)
+        throws javassist.NotFoundException, CannotCompileException, InvocationTargetException, IllegalAccessException {
+        final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        final ClassLoader parent = null != contextClassLoader ? contextClassLoader : clazz.getClassLoader();
+        // a subinterface of a package private interface must be defined by the same loader to access it
+        final ClassLoader classLoader =
+            null != testClass && isPublic(clazz) ? getClassLoader(testClass, parent) : parent;
+        final GeneratedClassCache.Key key = GeneratedClassCache.keyFor(clazz, classLoader, add);
+        Class<?> modified = CACHE.get(key);
+        if (modified == null) {
+            synchronized (GENERATION_LOCK) {
+                // another thread may have generated the class while we were waiting
+                modified = CACHE.peek(key);
+                if (modified == null) {
+                    modified = generateModifiedClass(clazz, add, classLoader);
+                    CACHE.put(key, modified);
+                }
+            }
+        }
+        return (Class<T>) modified;
+    }
+
+    private static GeneratedClassLoader getClassLoader(Class<?> testClass, ClassLoader parent) {
+        synchronized (SCOPES) {
+            Map<ClassLoader, GeneratedClassLoader> loaders = SCOPES.get(testClass);
+            if (null == loaders) {
+                loaders = new HashMap<ClassLoader, GeneratedClassLoader>(2);
+                SCOPES.put(testClass, loaders);
+            }
+            GeneratedClassLoader loader = loaders.get(parent);
+            if (null == loader) {
+                loader = new GeneratedClassLoader(parent);
+                loaders.put(parent, loader);
+            }
+            return loader;
+        }
+    }
+
+    private static boolean isPublic(Class<?> clazz) {
+        for (Class<?> type = clazz; null != type; type = type.getDeclaringClass()) {
+            if (!Modifier.isPublic(type.getModifiers())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Class<?> generateModifiedClass(Class<?> clazz, Annotation[] add, ClassLoader classLoader)
+        throws javassist.NotFoundException, CannotCompileException, InvocationTargetException, IllegalAccessException {
+        final ClassPool pool = new ClassPool(true);
+        pool.appendClassPath(new ClassClassPath(clazz));
+        if (null != classLoader) {
+            pool.appendClassPath(new LoaderClassPath(classLoader));
+        }
         CtClass cc = pool.get(clazz.getCanonicalName());
         for (CtMethod method : cc.getDeclaredMethods()) {
             ClassFile ccFile = cc.getClassFile();
@@ -105,7 +219,17 @@ public final class ClassModifier {
         }
         cc.setName(cc.getName() + "$ClassModifier$" + COUNTER.increment());
         cc.setSuperclass(pool.get(clazz.getCanonicalName()));
-        return cc.toClass();
+        try {
+            if (classLoader instanceof GeneratedClassLoader) {
+                return ((GeneratedClassLoader) classLoader).define(cc.getName(), cc.toBytecode());
+            }
+            return cc.toClass(null != classLoader ? classLoader : clazz.getClassLoader());
+        } catch (IOException e) {
+            throw new CannotCompileException(e);
+        } finally {
+            // nothing refers to the pool afterwards, detaching drops the class file model right away
+            cc.detach();
+        }
     }
 
     private static CtClass getType(Object value, Class<?> valueType, ClassPool classPool) throws NotFoundException {
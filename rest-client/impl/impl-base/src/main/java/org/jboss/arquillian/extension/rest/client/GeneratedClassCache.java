@@ -0,0 +1,228 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU cache of classes generated by {@link ClassModifier}.
+ * <p/>
+ * Entries are keyed by the resource interface, the class loader the generated class is defined in and a canonical
+ * fingerprint of the substituted annotations, so test methods sharing the same interface and the same annotation
+ * combination reuse a single generated class instead of defining a new one each time.
+ */
+public final class GeneratedClassCache {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 256;
+
+    private static final Comparator<Annotation> BY_TYPE_NAME = new Comparator<Annotation>() {
+        @Override
+        public int compare(Annotation a, Annotation b) {
+            return a.annotationType().getName().compareTo(b.annotationType().getName());
+        }
+    };
+
+    private static final Comparator<Method> BY_NAME = new Comparator<Method>() {
+        @Override
+        public int compare(Method a, Method b) {
+            return a.getName().compareTo(b.getName());
+        }
+    };
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final Map<Key, Class<?>> entries;
+
+    public GeneratedClassCache(final int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum cache size must be positive, was " + maximumSize);
+        }
+        this.entries = new LinkedHashMap<Key, Class<?>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Class<?>> eldest) {
+                if (size() > maximumSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public synchronized Class<?> get(Key key) {
+        final Class<?> cached = entries.get(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return cached;
+    }
+
+    /**
+     * Same as {@link #get(Key)} but doesn't count as a hit or a miss.
+     */
+    public synchronized Class<?> peek(Key key) {
+        return entries.get(key);
+    }
+
+    public synchronized void put(Key key, Class<?> generated) {
+        entries.put(key, generated);
+    }
+
+    /**
+     * Removes the classes defined in given class loader.
+     */
+    public synchronized void removeAll(ClassLoader classLoader) {
+        final Iterator<Key> keys = entries.keySet().iterator();
+        while (keys.hasNext()) {
+            if (keys.next().classLoader == classLoader) {
+                keys.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public static Key keyFor(Class<?> clazz, ClassLoader classLoader, Annotation[] annotations) {
+        return new Key(clazz, classLoader, fingerprint(annotations));
+    }
+
+    static String fingerprint(Annotation[] annotations) {
+        final Annotation[] sorted = annotations.clone();
+        Arrays.sort(sorted, BY_TYPE_NAME);
+        final StringBuilder builder = new StringBuilder();
+        for (Annotation annotation : sorted) {
+            appendAnnotation(builder, annotation);
+        }
+        return builder.toString();
+    }
+
+    private static void appendAnnotation(StringBuilder builder, Annotation annotation) {
+        builder.append('@').append(annotation.annotationType().getName()).append('(');
+        final Method[] members = annotation.annotationType().getDeclaredMethods();
+        Arrays.sort(members, BY_NAME);
+        for (int i = 0; i < members.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(members[i].getName()).append('=');
+            try {
+                members[i].setAccessible(true);
+                appendValue(builder, members[i].invoke(annotation));
+            } catch (Exception e) {
+                throw new IllegalStateException("Cannot read member " + members[i].getName() + " of " + annotation, e);
+            }
+        }
+        builder.append(')');
+    }
+
+    private static void appendValue(StringBuilder builder, Object value) {
+        if (value instanceof Annotation) {
+            appendAnnotation(builder, (Annotation) value);
+        } else if (value instanceof Class) {
+            builder.append(((Class<?>) value).getName()).append(".class");
+        } else if (value instanceof Enum) {
+            builder.append(((Enum<?>) value).getDeclaringClass().getName()).append('.').append(((Enum<?>) value).name());
+        } else if (value instanceof String) {
+            builder.append('"').append(((String) value).replace("\"", "\\\"")).append('"');
+        } else if (value != null && value.getClass().isArray()) {
+            builder.append('{');
+            final int length = Array.getLength(value);
+            for (int i = 0; i < length; i++) {
+                if (i > 0) {
+                    builder.append(',');
+                }
+                appendValue(builder, Array.get(value, i));
+            }
+            builder.append('}');
+        } else {
+            builder.append(value);
+        }
+    }
+
+    public static final class Key {
+
+        private final Class<?> clazz;
+
+        private final ClassLoader classLoader;
+
+        private final String fingerprint;
+
+        private final int hashCode;
+
+        private Key(Class<?> clazz, ClassLoader classLoader, String fingerprint) {
+            this.clazz = clazz;
+            this.classLoader = classLoader;
+            this.fingerprint = fingerprint;
+            this.hashCode = 31 * (31 * clazz.hashCode() + System.identityHashCode(classLoader)) + fingerprint.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return clazz == other.clazz && classLoader == other.classLoader && fingerprint.equals(other.fingerprint);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public String toString() {
+            return clazz.getName() + fingerprint;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Response;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Immutable description of what {@link BaseRestEnricher} has to inject into the parameters of a test method.
+ * <p/>
+ * Everything that can be derived from the method signature alone (parameter types, {@link ArquillianResteasyResource}
+ * annotations, merged {@link Header}s, class level media types, annotations to substitute) is computed once per method
+ * and cached, so repeated invocations only have to look up the client. The plans of a test class are evicted by
+ * {@link #release(Class)} once the test class has finished, so the cache doesn't keep its class loader reachable.
+ */
+public final class InjectionPlan {
+
+    private static final ConcurrentMap<Method, InjectionPlan> PLANS = new ConcurrentHashMap<Method, InjectionPlan>();
+
+    private final int parameterCount;
+
+    private final int[] responseParameterIndices;
+
+    private final List<InjectionPoint> injectionPoints;
+
+    private final Consumes consumes;
+
+    private final Produces produces;
+
+    private final Annotation[] substitutions;
+
+    private final MediaTypeOverrides mediaTypeOverrides;
+
+    private InjectionPlan(Method method) {
+        final Class<?>[] parameterTypes = method.getParameterTypes();
+        final Type[] genericParameterTypes = method.getGenericParameterTypes();
+        final Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+        final Map<String, String> methodHeaders = readHeaders(method);
+        final List<Integer> responseIndices = new ArrayList<Integer>();
+        final List<InjectionPoint> points = new ArrayList<InjectionPoint>();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (Response.class.isAssignableFrom(parameterTypes[i])) {
+                responseIndices.add(i);
+            }
+            for (Annotation annotation : parameterAnnotations[i]) {
+                if (annotation instanceof ArquillianResteasyResource) {
+                    final boolean load = RestLoad.class == parameterTypes[i];
+                    final Class<?> type = load
+                        ? getLoadedType("parameter of method " + method.getName(), genericParameterTypes[i])
+                        : parameterTypes[i];
+                    final Map<String, String> headers = readHeaders(type);
+                    headers.putAll(methodHeaders);
+                    points.add(new InjectionPoint(i, type, load, (ArquillianResteasyResource) annotation,
+                        Collections.unmodifiableMap(headers)));
+                }
+            }
+        }
+        this.parameterCount = parameterTypes.length;
+        this.responseParameterIndices = new int[responseIndices.size()];
+        for (int i = 0; i < responseParameterIndices.length; i++) {
+            responseParameterIndices[i] = responseIndices.get(i);
+        }
+        this.injectionPoints = Collections.unmodifiableList(points);
+        this.consumes = method.getDeclaringClass().getAnnotation(Consumes.class);
+        this.produces = method.getDeclaringClass().getAnnotation(Produces.class);
+        this.substitutions = method.getDeclaredAnnotations();
+        this.mediaTypeOverrides = MediaTypeOverrides.of(method);
+    }
+
+    public static InjectionPlan of(Method method) {
+        InjectionPlan plan = PLANS.get(method);
+        if (null == plan) {
+            plan = new InjectionPlan(method);
+            final InjectionPlan existing = PLANS.putIfAbsent(method, plan);
+            if (null != existing) {
+                plan = existing;
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Evicts the plans of the methods declared by given test class or its superclasses.
+     */
+    public static void release(Class<?> testClass) {
+        for (Iterator<Method> methods = PLANS.keySet().iterator(); methods.hasNext(); ) {
+            if (methods.next().getDeclaringClass().isAssignableFrom(testClass)) {
+                methods.remove();
+            }
+        }
+    }
+
+    /**
+     * @return resource type of a {@link RestLoad} parameter or field
+     */
+    static Class<?> getLoadedType(String injectionPoint, Type type) {
+        if (type instanceof ParameterizedType) {
+            final Type loaded = ((ParameterizedType) type).getActualTypeArguments()[0];
+            if (loaded instanceof Class) {
+                return (Class<?>) loaded;
+            } else if (loaded instanceof ParameterizedType) {
+                return (Class<?>) ((ParameterizedType) loaded).getRawType();
+            }
+        }
+        throw new RuntimeException("RestLoad " + injectionPoint + " must declare the resource type");
+    }
+
+    static Map<String, String> readHeaders(AnnotatedElement annotatedElement) {
+        final Map<String, String> headersMap = new HashMap<String, String>();
+        final Headers headersAnnotation = annotatedElement.getAnnotation(Headers.class);
+        if (null != headersAnnotation && null != headersAnnotation.value()) {
+            for (Header header : headersAnnotation.value()) {
+                addHeader(headersMap, header);
+            }
+        }
+        addHeader(headersMap, annotatedElement.getAnnotation(Header.class));
+        return headersMap;
+    }
+
+    private static void addHeader(Map<String, String> headersMap, Header annotation) {
+        if (null != annotation) {
+            headersMap.put(annotation.name(), annotation.value());
+        }
+    }
+
+    public int getParameterCount() {
+        return parameterCount;
+    }
+
+    /**
+     * @return indices of the parameters a JAX-RS {@link Response} can be injected into
+     */
+    public int[] getResponseParameterIndices() {
+        return responseParameterIndices.clone();
+    }
+
+    public List<InjectionPoint> getInjectionPoints() {
+        return injectionPoints;
+    }
+
+    /**
+     * @return injection point of the first parameter of given type or null if there is none
+     */
+    public InjectionPoint getInjectionPoint(Class<?> type) {
+        for (InjectionPoint injectionPoint : injectionPoints) {
+            if (injectionPoint.getType() == type) {
+                return injectionPoint;
+            }
+        }
+        return null;
+    }
+
+    public Consumes getConsumes() {
+        return consumes;
+    }
+
+    public Produces getProduces() {
+        return produces;
+    }
+
+    /**
+     * This is a test method so if it only carries the @Test annotation there is nothing to substitute.
+     */
+    public boolean hasSubstitutions() {
+        return substitutions.length > 1;
+    }
+
+    /**
+     * @return annotations of the test method to substitute on the resource interface
+     */
+    public Annotation[] getSubstitutions() {
+        return substitutions.clone();
+    }
+
+    public MediaTypeOverrides getMediaTypeOverrides() {
+        return mediaTypeOverrides;
+    }
+
+    /**
+     * Single {@link ArquillianResteasyResource} annotated parameter of a test method.
+     */
+    public static final class InjectionPoint {
+
+        private final int index;
+
+        private final Class<?> type;
+
+        private final boolean load;
+
+        private final ArquillianResteasyResource annotation;
+
+        private final Map<String, String> headers;
+
+        private InjectionPoint(int index, Class<?> type, boolean load, ArquillianResteasyResource annotation,
+            Map<String, String> headers) {
+            this.index = index;
+            this.type = type;
+            this.load = load;
+            this.annotation = annotation;
+            this.headers = headers;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * @return type of the resource to inject, for a {@link RestLoad} parameter its type argument
+         */
+        public Class<?> getType() {
+            return type;
+        }
+
+        /**
+         * @return whether the resource is to be injected wrapped in a {@link RestLoad}
+         */
+        public boolean isLoad() {
+            return load;
+        }
+
+        public ArquillianResteasyResource getAnnotation() {
+            return annotation;
+        }
+
+        /**
+         * @return resource path relative to the deployment base URL
+         */
+        public String getPath() {
+            return annotation.value();
+        }
+
+        /**
+         * @return unmodifiable headers declared on the parameter type merged with (and overridden by) the ones declared
+         * on the test method
+         */
+        public Map<String, String> getHeaders() {
+            return headers;
+        }
+    }
+}
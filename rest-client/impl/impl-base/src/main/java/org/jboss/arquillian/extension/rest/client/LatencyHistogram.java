@@ -0,0 +1,187 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with HDR style log-linear buckets.
+ * <p/>
+ * Values below 64 are counted exactly, larger values fall into one of 32 linear sub-buckets per power of two which
+ * bounds the relative error of reported percentiles to about 3%. Recording never allocates or blocks so it can happen
+ * on the request path of any number of threads.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int EXACT_LIMIT = SUB_BUCKETS << 1;
+
+    private static final int EXACT_LIMIT_BITS = SUB_BUCKET_BITS + 1;
+
+    private static final int BUCKETS = EXACT_LIMIT + (Long.SIZE - 1 - EXACT_LIMIT_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong sum = new AtomicLong();
+
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        record(value, 1);
+    }
+
+    /**
+     * Records given value as many times as given.
+     */
+    public void record(long value, long times) {
+        final long recorded = Math.max(0, value);
+        counts.addAndGet(indexOf(recorded), times);
+        count.addAndGet(times);
+        sum.addAndGet(recorded * times);
+        updateMin(recorded);
+        updateMax(recorded);
+    }
+
+    /**
+     * Adds all values recorded by given histogram to this one.
+     */
+    public void add(LatencyHistogram other) {
+        if (other.getCount() == 0) {
+            return;
+        }
+        for (int i = 0; i < BUCKETS; i++) {
+            final long bucketCount = other.counts.get(i);
+            if (bucketCount > 0) {
+                counts.addAndGet(i, bucketCount);
+            }
+        }
+        count.addAndGet(other.getCount());
+        sum.addAndGet(other.sum.get());
+        updateMin(other.getMin());
+        updateMax(other.getMax());
+    }
+
+    /**
+     * Returns a copy with the values a stalled caller failed to record filled in.
+     * <p/>
+     * A caller recording one value per call every {@code expectedInterval} would have recorded values decreasing by
+     * that interval while it waited for a value larger than the interval, so those are added for every such value,
+     * the same way HdrHistogram corrects for coordinated omission. Recorded values are replaced by the highest value
+     * equivalent to them.
+     */
+    public LatencyHistogram copyCorrectedForCoordinatedOmission(long expectedInterval) {
+        final LatencyHistogram corrected = new LatencyHistogram();
+        for (int i = 0; i < BUCKETS; i++) {
+            final long bucketCount = counts.get(i);
+            if (bucketCount == 0) {
+                continue;
+            }
+            final long value = Math.min(highestEquivalentValue(i), getMax());
+            corrected.record(value, bucketCount);
+            if (expectedInterval > 0) {
+                for (long missing = value - expectedInterval; missing >= expectedInterval; missing -= expectedInterval) {
+                    corrected.record(missing, bucketCount);
+                }
+            }
+        }
+        return corrected;
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @return smallest recorded value or 0 if nothing has been recorded
+     */
+    public long getMin() {
+        return getCount() == 0 ? 0 : min.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        final long recorded = getCount();
+        return recorded == 0 ? 0 : (double) sum.get() / recorded;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return highest value equivalent to the value at given percentile or 0 if nothing has been recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        final long recorded = getCount();
+        if (recorded == 0) {
+            return 0;
+        }
+        final double bounded = Math.min(100.0, Math.max(0.0, percentile));
+        final long target = Math.max(1, (long) Math.ceil(bounded / 100.0 * recorded));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            cumulative += counts.get(i);
+            if (cumulative >= target) {
+                return Math.min(highestEquivalentValue(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    static int indexOf(long value) {
+        if (value < EXACT_LIMIT) {
+            return (int) value;
+        }
+        final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        final int shift = exponent - SUB_BUCKET_BITS;
+        final int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return EXACT_LIMIT + (exponent - EXACT_LIMIT_BITS) * SUB_BUCKETS + subBucket;
+    }
+
+    static long highestEquivalentValue(int index) {
+        if (index < EXACT_LIMIT) {
+            return index;
+        }
+        final int offset = index - EXACT_LIMIT;
+        final int shift = offset / SUB_BUCKETS + EXACT_LIMIT_BITS - SUB_BUCKET_BITS;
+        final long lowest = (long) (SUB_BUCKETS + offset % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    private void updateMin(long value) {
+        long current = min.get();
+        while (value < current && !min.compareAndSet(current, value)) {
+            current = min.get();
+        }
+    }
+
+    private void updateMax(long value) {
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Media types a test method declares for the requests of its injected resource proxies, applied when
+ * {@link AnnotationSubstitution#PROXY} is used.
+ */
+public final class MediaTypeOverrides {
+
+    private final String contentType;
+
+    private final List<String> accept;
+
+    private MediaTypeOverrides(String contentType, List<String> accept) {
+        this.contentType = contentType;
+        this.accept = accept;
+    }
+
+    public static MediaTypeOverrides of(Method method) {
+        final Consumes consumes = method.getAnnotation(Consumes.class);
+        final Produces produces = method.getAnnotation(Produces.class);
+        final String contentType = null != consumes && consumes.value().length > 0 ? consumes.value()[0] : null;
+        final List<String> accept = null != produces && produces.value().length > 0
+            ? Collections.unmodifiableList(Arrays.asList(produces.value().clone()))
+            : Collections.<String>emptyList();
+        return new MediaTypeOverrides(contentType, accept);
+    }
+
+    /**
+     * @return media type of request entities or null if the one of the resource method should be kept
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * @return acceptable response media types, empty if the ones of the resource method should be kept
+     */
+    public List<String> getAccept() {
+        return accept;
+    }
+
+    public boolean isEmpty() {
+        return null == contentType && accept.isEmpty();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MediaTypeOverrides)) {
+            return false;
+        }
+        final MediaTypeOverrides that = (MediaTypeOverrides) o;
+        return (null == contentType ? null == that.contentType : contentType.equals(that.contentType))
+            && accept.equals(that.accept);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (null == contentType ? 0 : contentType.hashCode()) + accept.hashCode();
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Metrics of the requests sent to a single resource path.
+ */
+public final class PathMetrics {
+
+    private final AtomicLong requests = new AtomicLong();
+
+    private final AtomicLong bytesOut = new AtomicLong();
+
+    private final AtomicLong bytesIn = new AtomicLong();
+
+    private final AtomicLongArray statusClasses = new AtomicLongArray(6);
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    /**
+     * @param bytesOut    size of the request entity, 0 if there is none or it is unknown
+     * @param bytesIn     size of the response entity as announced by the server, 0 if there is none or it is unknown
+     * @param latencyNanos time from sending the request until the response headers have been received
+     */
+    public void record(int status, long bytesOut, long bytesIn, long latencyNanos) {
+        requests.incrementAndGet();
+        this.bytesOut.addAndGet(Math.max(0, bytesOut));
+        this.bytesIn.addAndGet(Math.max(0, bytesIn));
+        statusClasses.incrementAndGet(statusClassOf(status));
+        latency.record(latencyNanos / 1000);
+    }
+
+    public void add(PathMetrics other) {
+        requests.addAndGet(other.getRequestCount());
+        bytesOut.addAndGet(other.getBytesOut());
+        bytesIn.addAndGet(other.getBytesIn());
+        for (int i = 0; i < statusClasses.length(); i++) {
+            statusClasses.addAndGet(i, other.statusClasses.get(i));
+        }
+        latency.add(other.latency);
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public long getBytesOut() {
+        return bytesOut.get();
+    }
+
+    public long getBytesIn() {
+        return bytesIn.get();
+    }
+
+    /**
+     * @param statusClass 1 to 5 for 1xx to 5xx responses, 0 for anything else
+     */
+    public long getStatusCount(int statusClass) {
+        return statusClasses.get(statusClass);
+    }
+
+    /**
+     * @return latency of the requests in microseconds
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public String toString() {
+        return "requests=" + getRequestCount() + ", bytesOut=" + getBytesOut() + ", bytesIn=" + getBytesIn()
+            + ", 2xx=" + getStatusCount(2) + ", 3xx=" + getStatusCount(3) + ", 4xx=" + getStatusCount(4)
+            + ", 5xx=" + getStatusCount(5) + ", latency[us] p50=" + latency.getValueAtPercentile(50)
+            + " p99=" + latency.getValueAtPercentile(99) + " max=" + latency.getMax();
+    }
+
+    private static int statusClassOf(int status) {
+        final int statusClass = status / 100;
+        return statusClass >= 1 && statusClass <= 5 ? statusClass : 0;
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.Properties;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Index of the subinterfaces generated at compile time by the rest client annotation processor, which carry the
+ * annotations of a test method the same way {@link ClassModifier} would substitute them at runtime.
+ * <p/>
+ * The processor lists the generated interfaces in {@link #INDEX} resources, keyed by {@link #keyFor(String, String,
+ * String)}. Loading a listed interface replaces parsing and defining a new class with javassist, test methods without
+ * an entry fall back to {@link ClassModifier}.
+ */
+public final class PrecompiledSubstitutions {
+
+    public static final String INDEX = "META-INF/arquillian-rest-client/substitutions.properties";
+
+    // one index per class loader the test classes are loaded by
+    private static final Map<ClassLoader, PrecompiledSubstitutions> INDEXES =
+        Collections.synchronizedMap(new WeakHashMap<ClassLoader, PrecompiledSubstitutions>());
+
+    private static final Class<?> NONE = Void.class;
+
+    // weak references only, the index must not keep the class loader it is the value of reachable
+    private final WeakReference<ClassLoader> classLoader;
+
+    private final Properties names;
+
+    private final ConcurrentMap<String, WeakReference<Class<?>>> classes =
+        new ConcurrentHashMap<String, WeakReference<Class<?>>>();
+
+    private PrecompiledSubstitutions(ClassLoader classLoader, Properties names) {
+        this.classLoader = new WeakReference<ClassLoader>(classLoader);
+        this.names = names;
+    }
+
+    /**
+     * @return key of the interface substituting the annotations of given test method on given resource interface
+     */
+    public static String keyFor(String testClassName, String methodName, String interfaceName) {
+        return testClassName + '#' + methodName + '@' + interfaceName;
+    }
+
+    /**
+     * @return interface generated at compile time for given test method and resource interface or null if there is
+     * none
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Class<T> find(Class<T> clazz, Method method, ClassLoader classLoader) {
+        final ClassLoader loader = null != classLoader ? classLoader : method.getDeclaringClass().getClassLoader();
+        if (null == loader) {
+            return null;
+        }
+        return (Class<T>) forClassLoader(loader).find(clazz, method);
+    }
+
+    private static PrecompiledSubstitutions forClassLoader(ClassLoader classLoader) {
+        synchronized (INDEXES) {
+            PrecompiledSubstitutions substitutions = INDEXES.get(classLoader);
+            if (null == substitutions) {
+                substitutions = new PrecompiledSubstitutions(classLoader, readIndex(classLoader));
+                INDEXES.put(classLoader, substitutions);
+            }
+            return substitutions;
+        }
+    }
+
+    private static Properties readIndex(ClassLoader classLoader) {
+        final Properties names = new Properties();
+        try {
+            final Enumeration<URL> resources = classLoader.getResources(INDEX);
+            while (resources.hasMoreElements()) {
+                final InputStream stream = resources.nextElement().openStream();
+                try {
+                    names.load(stream);
+                } finally {
+                    stream.close();
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot read " + INDEX, e);
+        }
+        return names;
+    }
+
+    private Class<?> find(Class<?> clazz, Method method) {
+        if (names.isEmpty()) {
+            return null;
+        }
+        final String key = keyFor(method.getDeclaringClass().getName(), method.getName(), clazz.getName());
+        final WeakReference<Class<?>> reference = classes.get(key);
+        Class<?> generated = null != reference ? reference.get() : null;
+        if (null == generated) {
+            generated = load(clazz, names.getProperty(key));
+            classes.put(key, new WeakReference<Class<?>>(generated));
+        }
+        return NONE == generated ? null : generated;
+    }
+
+    private Class<?> load(Class<?> clazz, String name) {
+        final ClassLoader loader = classLoader.get();
+        if (null == name || null == loader) {
+            return NONE;
+        }
+        try {
+            final Class<?> generated = Class.forName(name, false, loader);
+            // a stale entry of an interface that has changed since is ignored
+            return clazz.isAssignableFrom(generated) && clazz != generated && overridesAll(generated, clazz) ? generated
+                : NONE;
+        } catch (ClassNotFoundException e) {
+            return NONE;
+        } catch (LinkageError e) {
+            return NONE;
+        }
+    }
+
+    /**
+     * @return whether {@code generated} overrides exactly the methods {@code clazz} declares, as the interfaces
+     * generated at compile time do
+     */
+    private static boolean overridesAll(Class<?> generated, Class<?> clazz) {
+        int overridden = 0;
+        for (Method method : clazz.getDeclaredMethods()) {
+            if (isOverridable(method)) {
+                try {
+                    if (method.getReturnType() != generated.getDeclaredMethod(method.getName(),
+                        method.getParameterTypes()).getReturnType()) {
+                        return false;
+                    }
+                } catch (NoSuchMethodException e) {
+                    return false;
+                }
+                overridden++;
+            }
+        }
+        for (Method method : generated.getDeclaredMethods()) {
+            if (isOverridable(method)) {
+                overridden--;
+            }
+        }
+        return 0 == overridden;
+    }
+
+    private static boolean isOverridable(Method method) {
+        return !Modifier.isStatic(method.getModifiers()) && !method.isSynthetic();
+    }
+}
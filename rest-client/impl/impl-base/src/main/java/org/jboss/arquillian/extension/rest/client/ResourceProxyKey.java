@@ -0,0 +1,124 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import java.util.Map;
+
+/**
+ * Everything a resource proxy created by an enricher depends on: the proxied type, the target URL, the headers and the
+ * media types of the requests. Injections with equal keys get the same proxy, see
+ * {@link BaseRestEnricher#getResourceProxy(Class, ResourceProxyKey, RestClientFactory)}.
+ */
+public final class ResourceProxyKey {
+
+    private final Class<?> type;
+
+    private final String target;
+
+    private final Map<String, String> headers;
+
+    private final Consumes consumes;
+
+    private final Produces produces;
+
+    private final MediaTypeOverrides mediaTypeOverrides;
+
+    private final int hashCode;
+
+    public ResourceProxyKey(Class<?> type, String target, Map<String, String> headers, Consumes consumes,
+        Produces produces, MediaTypeOverrides mediaTypeOverrides) {
+        this.type = type;
+        this.target = target;
+        this.headers = headers;
+        this.consumes = consumes;
+        this.produces = produces;
+        this.mediaTypeOverrides = mediaTypeOverrides;
+        this.hashCode = 31 * (31 * (31 * (31 * (31 * type.hashCode() + target.hashCode()) + headers.hashCode())
+            + hashCode(consumes)) + hashCode(produces)) + hashCode(mediaTypeOverrides);
+    }
+
+    /**
+     * @return type of the proxy, the resource interface or the subinterface generated for the test method
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * @return default media type of request entities, declared on the test class
+     */
+    public Consumes getConsumes() {
+        return consumes;
+    }
+
+    /**
+     * @return default acceptable media type, declared on the test class
+     */
+    public Produces getProduces() {
+        return produces;
+    }
+
+    /**
+     * @return media types of the test method to apply to the requests or null if there are none
+     */
+    public MediaTypeOverrides getMediaTypeOverrides() {
+        return mediaTypeOverrides;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ResourceProxyKey)) {
+            return false;
+        }
+        final ResourceProxyKey that = (ResourceProxyKey) o;
+        return hashCode == that.hashCode && type == that.type && target.equals(that.target)
+            && headers.equals(that.headers) && equals(consumes, that.consumes) && equals(produces, that.produces)
+            && equals(mediaTypeOverrides, that.mediaTypeOverrides);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return type.getName() + " at " + target;
+    }
+
+    private static boolean equals(Object a, Object b) {
+        return null == a ? null == b : a.equals(b);
+    }
+
+    private static int hashCode(Object o) {
+        return null == o ? 0 : o.hashCode();
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client;
+
+/**
+ * Event fired after all tests of a class when metrics are enabled, summarizing the metrics of all its tests.
+ */
+public class RestClientClassMetrics {
+
+    private final Class<?> testClass;
+
+    private final RestClientMetrics metrics;
+
+    public RestClientClassMetrics(Class<?> testClass, RestClientMetrics metrics) {
+        this.testClass = testClass;
+        this.metrics = metrics;
+    }
+
+    public Class<?> getTestClass() {
+        return testClass;
+    }
+
+    public RestClientMetrics getMetrics() {
+        return metrics;
+    }
+}
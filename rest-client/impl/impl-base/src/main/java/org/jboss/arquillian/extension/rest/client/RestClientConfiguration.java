@@ -0,0 +1,223 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Configuration of the REST client extension, read from the {@code rest-client} extension block of arquillian.xml:
+ * <pre>
+ * &lt;extension qualifier="rest-client"&gt;
+ *     &lt;property name="freshClientPerTest"&gt;true&lt;/property&gt;
+ *     &lt;property name="annotationSubstitution"&gt;proxy&lt;/property&gt;
+ *     &lt;property name="metrics"&gt;true&lt;/property&gt;
+ *     &lt;property name="maxConnections"&gt;50&lt;/property&gt;
+ *     &lt;property name="maxConnectionsPerRoute"&gt;50&lt;/property&gt;
+ *     &lt;property name="keepAliveTimeout"&gt;30000&lt;/property&gt;
+ *     &lt;property name="connectTimeout"&gt;5000&lt;/property&gt;
+ *     &lt;property name="socketTimeout"&gt;60000&lt;/property&gt;
+ *     &lt;property name="responseBufferSize"&gt;8192&lt;/property&gt;
+ * &lt;/extension&gt;
+ * </pre>
+ * Durations are in milliseconds and sizes in bytes. Connection settings left negative ({@link #NOT_SET}) keep the default of
+ * the underlying client implementation.
+ */
+public class RestClientConfiguration {
+
+    public static final String EXTENSION_QUALIFIER = "rest-client";
+
+    public static final int NOT_SET = -1;
+
+    public static final int DEFAULT_MAX_CONNECTIONS = 20;
+
+    private boolean freshClientPerTest;
+
+    private boolean metrics;
+
+    private AnnotationSubstitution annotationSubstitution = AnnotationSubstitution.BYTECODE;
+
+    private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+
+    private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS;
+
+    private int keepAliveTimeout = NOT_SET;
+
+    private int connectTimeout = NOT_SET;
+
+    private int socketTimeout = NOT_SET;
+
+    private int responseBufferSize = NOT_SET;
+
+    public static RestClientConfiguration fromProperties(Map<String, String> properties) {
+        final RestClientConfiguration configuration = new RestClientConfiguration();
+        final String freshClientPerTest = properties.get("freshClientPerTest");
+        if (null != freshClientPerTest) {
+            configuration.setFreshClientPerTest(Boolean.parseBoolean(freshClientPerTest.trim()));
+        }
+        final String metrics = properties.get("metrics");
+        if (null != metrics) {
+            configuration.setMetrics(Boolean.parseBoolean(metrics.trim()));
+        }
+        final String annotationSubstitution = properties.get("annotationSubstitution");
+        if (null != annotationSubstitution) {
+            configuration.setAnnotationSubstitution(parseAnnotationSubstitution(annotationSubstitution));
+        }
+        configuration.setMaxConnections(
+            parseInt(properties, "maxConnections", configuration.getMaxConnections()));
+        configuration.setMaxConnectionsPerRoute(
+            parseInt(properties, "maxConnectionsPerRoute", configuration.getMaxConnectionsPerRoute()));
+        configuration.setKeepAliveTimeout(
+            parseInt(properties, "keepAliveTimeout", configuration.getKeepAliveTimeout()));
+        configuration.setConnectTimeout(
+            parseInt(properties, "connectTimeout", configuration.getConnectTimeout()));
+        configuration.setSocketTimeout(
+            parseInt(properties, "socketTimeout", configuration.getSocketTimeout()));
+        configuration.setResponseBufferSize(
+            parseInt(properties, "responseBufferSize", configuration.getResponseBufferSize()));
+        return configuration;
+    }
+
+    private static AnnotationSubstitution parseAnnotationSubstitution(String value) {
+        try {
+            return AnnotationSubstitution.valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Property annotationSubstitution of extension " + EXTENSION_QUALIFIER
+                + " must be one of " + Arrays.toString(AnnotationSubstitution.values()) + ", was " + value, e);
+        }
+    }
+
+    private static int parseInt(Map<String, String> properties, String name, int defaultValue) {
+        final String value = properties.get(name);
+        if (null == value) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                "Property " + name + " of extension " + EXTENSION_QUALIFIER + " must be a number, was " + value, e);
+        }
+    }
+
+    /**
+     * @return true if every test gets its own client which is closed after the test, false if a single client is
+     * shared by all tests running against the same deployment
+     */
+    public boolean isFreshClientPerTest() {
+        return freshClientPerTest;
+    }
+
+    public void setFreshClientPerTest(boolean freshClientPerTest) {
+        this.freshClientPerTest = freshClientPerTest;
+    }
+
+    /**
+     * @return true if injected clients record request metrics, published as {@link RestClientTestMetrics} and
+     * {@link RestClientClassMetrics} events
+     */
+    public boolean isMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(boolean metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return how annotations of test methods override the annotations of injected resource interfaces
+     */
+    public AnnotationSubstitution getAnnotationSubstitution() {
+        return annotationSubstitution;
+    }
+
+    public void setAnnotationSubstitution(AnnotationSubstitution annotationSubstitution) {
+        this.annotationSubstitution = annotationSubstitution;
+    }
+
+    /**
+     * @return maximum number of connections a client keeps open in total
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    /**
+     * @return maximum number of connections a client keeps open to a single host
+     */
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    }
+
+    /**
+     * @return how long an idle connection may be kept alive for reuse, in milliseconds
+     */
+    public int getKeepAliveTimeout() {
+        return keepAliveTimeout;
+    }
+
+    public void setKeepAliveTimeout(int keepAliveTimeout) {
+        this.keepAliveTimeout = keepAliveTimeout;
+    }
+
+    /**
+     * @return timeout for establishing a connection, in milliseconds
+     */
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    /**
+     * @return timeout for waiting on response data, in milliseconds
+     */
+    public int getSocketTimeout() {
+        return socketTimeout;
+    }
+
+    public void setSocketTimeout(int socketTimeout) {
+        this.socketTimeout = socketTimeout;
+    }
+
+    /**
+     * @return size of the buffer responses are read through, in bytes
+     */
+    public int getResponseBufferSize() {
+        return responseBufferSize;
+    }
+
+    public void setResponseBufferSize(int responseBufferSize) {
+        this.responseBufferSize = responseBufferSize;
+    }
+
+    public static boolean isSet(int value) {
+        return value >= 0;
+    }
+}
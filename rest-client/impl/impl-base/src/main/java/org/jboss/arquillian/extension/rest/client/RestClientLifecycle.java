@@ -0,0 +1,116 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps track of the clients created for a single deployment.
+ * <p/>
+ * One client per {@link RestClientFactory}, or per key given by the enricher, is shared by all tests running against the
+ * deployment and closed once the deployment is undeployed. Clients created in "fresh client per test" mode are closed after the test. As tests may
+ * run in parallel, those are tracked per test thread and only the ones created by the finishing test are closed.
+ */
+public class RestClientLifecycle {
+
+    private static final Logger log = Logger.getLogger(RestClientLifecycle.class.getName());
+
+    private final Map<Object, ManagedClient<?>> deploymentClients = new LinkedHashMap<Object, ManagedClient<?>>();
+
+    private final Map<Thread, List<ManagedClient<?>>> testClients = new HashMap<Thread, List<ManagedClient<?>>>();
+
+    public <C> C getDeploymentClient(RestClientFactory<C> factory, RestClientConfiguration configuration) {
+        return getDeploymentClient(factory.getClass(), factory, configuration);
+    }
+
+    /**
+     * Returns the client created for given key, {@code factory} is only used if there is none yet.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <C> C getDeploymentClient(Object key, RestClientFactory<C> factory,
+        RestClientConfiguration configuration) {
+        ManagedClient<C> managedClient = (ManagedClient<C>) deploymentClients.get(key);
+        if (null == managedClient) {
+            managedClient = new ManagedClient<C>(factory, factory.create(configuration));
+            deploymentClients.put(key, managedClient);
+        }
+        return managedClient.client;
+    }
+
+    public synchronized <C> C createTestClient(RestClientFactory<C> factory, RestClientConfiguration configuration) {
+        final ManagedClient<C> managedClient = new ManagedClient<C>(factory, factory.create(configuration));
+        List<ManagedClient<?>> clients = testClients.get(Thread.currentThread());
+        if (null == clients) {
+            clients = new ArrayList<ManagedClient<?>>();
+            testClients.put(Thread.currentThread(), clients);
+        }
+        clients.add(managedClient);
+        return managedClient.client;
+    }
+
+    /**
+     * Closes the test clients created by the current thread.
+     */
+    public synchronized void closeTestClients() {
+        final List<ManagedClient<?>> clients = testClients.remove(Thread.currentThread());
+        if (null != clients) {
+            closeAll(clients);
+        }
+    }
+
+    public synchronized void closeAll() {
+        for (List<ManagedClient<?>> clients : testClients.values()) {
+            closeAll(clients);
+        }
+        testClients.clear();
+        closeAll(deploymentClients.values());
+        deploymentClients.clear();
+    }
+
+    private static void closeAll(Iterable<ManagedClient<?>> clients) {
+        for (ManagedClient<?> client : clients) {
+            try {
+                client.close();
+            } catch (RuntimeException e) {
+                log.log(Level.WARNING, "Unable to close REST client " + client.client, e);
+            }
+        }
+    }
+
+    private static final class ManagedClient<C> {
+
+        private final RestClientFactory<C> factory;
+
+        private final C client;
+
+        private ManagedClient(RestClientFactory<C> factory, C client) {
+            this.factory = factory;
+            this.client = client;
+        }
+
+        private void close() {
+            factory.close(client);
+        }
+    }
+}
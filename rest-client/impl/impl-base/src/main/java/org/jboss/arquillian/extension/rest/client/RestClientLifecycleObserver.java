@@ -0,0 +1,89 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client;
+
+import org.jboss.arquillian.config.descriptor.api.ArquillianDescriptor;
+import org.jboss.arquillian.config.descriptor.api.ExtensionDef;
+import org.jboss.arquillian.container.spi.event.container.AfterUnDeploy;
+import org.jboss.arquillian.core.api.Instance;
+import org.jboss.arquillian.core.api.InstanceProducer;
+import org.jboss.arquillian.core.api.annotation.ApplicationScoped;
+import org.jboss.arquillian.core.api.annotation.Inject;
+import org.jboss.arquillian.core.api.annotation.Observes;
+import org.jboss.arquillian.test.spi.event.suite.After;
+import org.jboss.arquillian.test.spi.event.suite.AfterClass;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Reads the {@link RestClientConfiguration} and closes the clients tracked by {@link RestClientLifecycle} after each
+ * test and after the deployment has been undeployed. Closes the field values tracked by {@link TestClassClients},
+ * evicts the {@link InjectionPlan}s and releases the classes {@link ClassModifier} generated for a test class after
+ * the test class.
+ */
+public class RestClientLifecycleObserver {
+
+    @Inject
+    @ApplicationScoped
+    private InstanceProducer<RestClientConfiguration> configurationInst;
+
+    @Inject
+    @ApplicationScoped
+    private InstanceProducer<TestClassClients> testClassClientsInst;
+
+    @Inject
+    private Instance<RestClientLifecycle> lifecycleInst;
+
+    public void configure(@Observes ArquillianDescriptor descriptor) {
+        Map<String, String> properties = Collections.emptyMap();
+        for (ExtensionDef extension : descriptor.getExtensions()) {
+            if (RestClientConfiguration.EXTENSION_QUALIFIER.equals(extension.getExtensionName())) {
+                properties = extension.getExtensionProperties();
+            }
+        }
+        configurationInst.set(RestClientConfiguration.fromProperties(properties));
+        if (null == testClassClientsInst.get()) {
+            testClassClientsInst.set(new TestClassClients());
+        }
+    }
+
+    public void closeTestClients(@Observes After event) {
+        final RestClientLifecycle lifecycle = lifecycleInst.get();
+        if (null != lifecycle) {
+            lifecycle.closeTestClients();
+        }
+    }
+
+    public void releaseTestClass(@Observes AfterClass event) {
+        final Class<?> testClass = event.getTestClass().getJavaClass();
+        final TestClassClients testClassClients = testClassClientsInst.get();
+        if (null != testClassClients) {
+            testClassClients.close(testClass);
+        }
+        InjectionPlan.release(testClass);
+        ClassModifier.release(testClass);
+    }
+
+    public void closeDeploymentClients(@Observes AfterUnDeploy event) {
+        final RestClientLifecycle lifecycle = lifecycleInst.get();
+        if (null != lifecycle) {
+            lifecycle.closeAll();
+        }
+    }
+}
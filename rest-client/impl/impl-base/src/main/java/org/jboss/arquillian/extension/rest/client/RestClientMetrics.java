@@ -0,0 +1,90 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Request metrics of injected REST clients grouped by HTTP method and resource path, e.g. {@code GET /app/rest/customer}.
+ */
+public final class RestClientMetrics {
+
+    private final ConcurrentMap<String, PathMetrics> paths = new ConcurrentHashMap<String, PathMetrics>();
+
+    public void record(String httpMethod, String path, int status, long bytesOut, long bytesIn, long latencyNanos) {
+        getOrCreate(httpMethod + " " + path).record(status, bytesOut, bytesIn, latencyNanos);
+    }
+
+    public void add(RestClientMetrics other) {
+        for (Map.Entry<String, PathMetrics> entry : other.paths.entrySet()) {
+            getOrCreate(entry.getKey()).add(entry.getValue());
+        }
+    }
+
+    /**
+     * @return sorted HTTP method and path pairs requests have been recorded for
+     */
+    public Set<String> getPaths() {
+        return Collections.unmodifiableSet(new TreeSet<String>(paths.keySet()));
+    }
+
+    /**
+     * @return metrics of given HTTP method and path pair or null if no request has been recorded for it
+     */
+    public PathMetrics getPathMetrics(String path) {
+        return paths.get(path);
+    }
+
+    public long getRequestCount() {
+        long requests = 0;
+        for (PathMetrics pathMetrics : paths.values()) {
+            requests += pathMetrics.getRequestCount();
+        }
+        return requests;
+    }
+
+    public boolean isEmpty() {
+        return paths.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        for (String path : getPaths()) {
+            builder.append(path).append(": ").append(paths.get(path)).append('\n');
+        }
+        return builder.toString();
+    }
+
+    private PathMetrics getOrCreate(String key) {
+        PathMetrics pathMetrics = paths.get(key);
+        if (null == pathMetrics) {
+            pathMetrics = new PathMetrics();
+            final PathMetrics existing = paths.putIfAbsent(key, pathMetrics);
+            if (null != existing) {
+                pathMetrics = existing;
+            }
+        }
+        return pathMetrics;
+    }
+}
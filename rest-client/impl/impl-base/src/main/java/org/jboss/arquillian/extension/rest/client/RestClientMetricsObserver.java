@@ -0,0 +1,88 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client;
+
+import org.jboss.arquillian.core.api.Event;
+import org.jboss.arquillian.core.api.InstanceProducer;
+import org.jboss.arquillian.core.api.annotation.ApplicationScoped;
+import org.jboss.arquillian.core.api.annotation.Inject;
+import org.jboss.arquillian.core.api.annotation.Observes;
+import org.jboss.arquillian.test.spi.event.suite.After;
+import org.jboss.arquillian.test.spi.event.suite.AfterClass;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Provides the {@link RestClientMetricsRecorder} when metrics are enabled and publishes the recorded metrics as
+ * {@link RestClientTestMetrics} after each test and {@link RestClientClassMetrics} after each test class.
+ */
+public class RestClientMetricsObserver {
+
+    private static final Logger log = Logger.getLogger(RestClientMetricsObserver.class.getName());
+
+    @Inject
+    @ApplicationScoped
+    private InstanceProducer<RestClientMetricsRecorder> recorderInst;
+
+    @Inject
+    private Event<RestClientTestMetrics> testMetricsEvent;
+
+    @Inject
+    private Event<RestClientClassMetrics> classMetricsEvent;
+
+    private final Map<Class<?>, RestClientMetrics> classMetrics = new ConcurrentHashMap<Class<?>, RestClientMetrics>();
+
+    public void createRecorder(@Observes RestClientConfiguration configuration) {
+        if (configuration.isMetrics() && null == recorderInst.get()) {
+            recorderInst.set(new RestClientMetricsRecorder());
+        }
+    }
+
+    public void publishTestMetrics(@Observes After event) {
+        final RestClientMetricsRecorder recorder = recorderInst.get();
+        if (null == recorder) {
+            return;
+        }
+        final RestClientMetrics metrics = recorder.drain();
+        final Class<?> testClass = event.getTestClass().getJavaClass();
+        synchronized (classMetrics) {
+            RestClientMetrics summary = classMetrics.get(testClass);
+            if (null == summary) {
+                summary = new RestClientMetrics();
+                classMetrics.put(testClass, summary);
+            }
+            summary.add(metrics);
+        }
+        testMetricsEvent.fire(new RestClientTestMetrics(testClass, event.getTestMethod(), metrics));
+    }
+
+    public void publishClassMetrics(@Observes AfterClass event) {
+        if (null == recorderInst.get()) {
+            return;
+        }
+        final Class<?> testClass = event.getTestClass().getJavaClass();
+        final RestClientMetrics summary = classMetrics.remove(testClass);
+        if (null == summary || summary.isEmpty()) {
+            return;
+        }
+        log.info("REST client metrics of " + testClass.getName() + "\n" + summary);
+        classMetricsEvent.fire(new RestClientClassMetrics(testClass, summary));
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Collects the metrics of all injected clients while metrics are enabled, see
+ * {@link RestClientConfiguration#isMetrics()}. Metrics are drained after every test, so requests of tests running in
+ * parallel are attributed to whichever of them finishes first.
+ * <p/>
+ * Recording takes no lock: a request is recorded into the current metrics once the recording thread has registered
+ * itself as their writer, and retried on the new metrics if they have been swapped meanwhile. Draining swaps the
+ * metrics and waits for the writers still registered on the drained ones, so no request is recorded into metrics that
+ * have already been drained. Only the thread draining waits, clients never do.
+ */
+public class RestClientMetricsRecorder {
+
+    private final AtomicReference<Recording> current = new AtomicReference<Recording>(new Recording());
+
+    public void record(String httpMethod, String path, int status, long bytesOut, long bytesIn, long latencyNanos) {
+        Recording recording = current.get();
+        while (true) {
+            recording.writers.incrementAndGet();
+            final Recording latest = current.get();
+            if (latest == recording) {
+                break;
+            }
+            recording.writers.decrementAndGet();
+            recording = latest;
+        }
+        try {
+            recording.metrics.record(httpMethod, path, status, bytesOut, bytesIn, latencyNanos);
+        } finally {
+            recording.writers.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return metrics recorded since the previous call
+     */
+    public RestClientMetrics drain() {
+        final Recording drained = current.getAndSet(new Recording());
+        while (0 != drained.writers.get()) {
+            Thread.yield();
+        }
+        return drained.metrics;
+    }
+
+    private static final class Recording {
+
+        private final RestClientMetrics metrics = new RestClientMetrics();
+
+        private final AtomicLong writers = new AtomicLong();
+    }
+}
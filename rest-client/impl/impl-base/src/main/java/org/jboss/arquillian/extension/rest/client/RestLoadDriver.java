@@ -0,0 +1,331 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link RestLoad} running calls on a fixed pool of threads.
+ * <p/>
+ * At a fixed rate call {@code n} is due {@code n / rate} seconds after the start. Threads take the next due call,
+ * wait for its time if it hasn't come yet and measure latency from that time, so a response holding up the following
+ * calls makes their latency grow instead of silently lowering the rate. Without a rate every thread calls back to
+ * back and the latencies are corrected afterwards against the expected interval given by the caller, or reported as
+ * observed if there is none.
+ */
+public final class RestLoadDriver<T> implements RestLoad<T> {
+
+    public static final int DEFAULT_CONCURRENCY = 8;
+
+    public static final long DEFAULT_DURATION_SECONDS = 10;
+
+    private static final long TERMINATION_GRACE_SECONDS = 60;
+
+    private static final AtomicInteger DRIVERS = new AtomicInteger();
+
+    private final T resource;
+
+    private final double rate;
+
+    private final int concurrency;
+
+    private final long durationNanos;
+
+    private final long expectedIntervalNanos;
+
+    public RestLoadDriver(T resource) {
+        this(resource, 0, DEFAULT_CONCURRENCY, TimeUnit.SECONDS.toNanos(DEFAULT_DURATION_SECONDS), 0);
+    }
+
+    private RestLoadDriver(T resource, double rate, int concurrency, long durationNanos, long expectedIntervalNanos) {
+        this.resource = resource;
+        this.rate = rate;
+        this.concurrency = concurrency;
+        this.durationNanos = durationNanos;
+        this.expectedIntervalNanos = expectedIntervalNanos;
+    }
+
+    @Override
+    public T getResource() {
+        return resource;
+    }
+
+    @Override
+    public RestLoad<T> atRate(double requestsPerSecond) {
+        if (!(requestsPerSecond > 0)) {
+            throw new IllegalArgumentException("Rate must be positive, was " + requestsPerSecond);
+        }
+        return new RestLoadDriver<T>(resource, requestsPerSecond, concurrency, durationNanos, expectedIntervalNanos);
+    }
+
+    @Override
+    public RestLoad<T> withConcurrency(int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be positive, was " + concurrency);
+        }
+        return new RestLoadDriver<T>(resource, rate, concurrency, durationNanos, expectedIntervalNanos);
+    }
+
+    @Override
+    public RestLoad<T> during(long duration, TimeUnit unit) {
+        if (duration <= 0) {
+            throw new IllegalArgumentException("Duration must be positive, was " + duration + " " + unit);
+        }
+        return new RestLoadDriver<T>(resource, rate, concurrency, unit.toNanos(duration), expectedIntervalNanos);
+    }
+
+    @Override
+    public RestLoad<T> withExpectedInterval(long interval, TimeUnit unit) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Expected interval must be positive, was " + interval + " " + unit);
+        }
+        return new RestLoadDriver<T>(resource, rate, concurrency, durationNanos, unit.toNanos(interval));
+    }
+
+    @Override
+    public Report run(final Call<T> call) {
+        final Run run = new Run(call);
+        final ExecutorService executor = Executors.newFixedThreadPool(concurrency, new LoadThreadFactory());
+        final List<Future<?>> workers = new ArrayList<Future<?>>();
+        try {
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(executor.submit(rate > 0 ? run.new FixedRate() : run.new BackToBack()));
+            }
+            executor.shutdown();
+            if (!executor.awaitTermination(durationNanos + TimeUnit.SECONDS.toNanos(TERMINATION_GRACE_SECONDS),
+                TimeUnit.NANOSECONDS)) {
+                throw new IllegalStateException("Calls still running " + TERMINATION_GRACE_SECONDS
+                    + " seconds after the load ended, consider setting a socket timeout");
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while running load", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Load driver failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return run.report();
+    }
+
+    @Override
+    public String toString() {
+        return "RestLoad[" + (rate > 0 ? rate + " calls/s, " : "") + concurrency + " threads, "
+            + TimeUnit.NANOSECONDS.toMillis(durationNanos) + " ms]";
+    }
+
+    /**
+     * State of a single {@link #run(Call)}.
+     */
+    private final class Run {
+
+        private final Call<T> call;
+
+        private final long start = System.nanoTime();
+
+        private final long end = start + durationNanos;
+
+        private final double intervalNanos = rate > 0 ? TimeUnit.SECONDS.toNanos(1) / rate : 0;
+
+        private final AtomicLong nextCall = new AtomicLong();
+
+        private final AtomicLong lastCompletion = new AtomicLong(start);
+
+        private final AtomicLong errors = new AtomicLong();
+
+        private final AtomicReference<Throwable> firstError = new AtomicReference<Throwable>();
+
+        private final LatencyHistogram serviceTimes = new LatencyHistogram();
+
+        private final LatencyHistogram latencies = new LatencyHistogram();
+
+        private Run(Call<T> call) {
+            this.call = call;
+        }
+
+        /**
+         * @param due time the call should have started at
+         */
+        private void execute(long due) {
+            final long started = System.nanoTime();
+            try {
+                call.call(resource);
+            } catch (Throwable t) {
+                errors.incrementAndGet();
+                firstError.compareAndSet(null, t);
+            }
+            final long completed = System.nanoTime();
+            serviceTimes.record(TimeUnit.NANOSECONDS.toMicros(completed - started));
+            latencies.record(TimeUnit.NANOSECONDS.toMicros(completed - due));
+            long last = lastCompletion.get();
+            while (completed > last && !lastCompletion.compareAndSet(last, completed)) {
+                last = lastCompletion.get();
+            }
+        }
+
+        private Report report() {
+            final LatencyHistogram corrected;
+            if (rate > 0) {
+                corrected = latencies;
+            } else if (expectedIntervalNanos > 0) {
+                corrected = serviceTimes.copyCorrectedForCoordinatedOmission(
+                    Math.max(1, TimeUnit.NANOSECONDS.toMicros(expectedIntervalNanos)));
+            } else {
+                corrected = null;
+            }
+            return new LoadReport(serviceTimes, corrected, errors.get(), firstError.get(),
+                lastCompletion.get() - start);
+        }
+
+        private final class FixedRate implements Runnable {
+
+            @Override
+            public void run() {
+                while (!Thread.currentThread().isInterrupted()) {
+                    final long due = start + (long) (nextCall.getAndIncrement() * intervalNanos);
+                    if (due - end >= 0) {
+                        return;
+                    }
+                    for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    execute(due);
+                }
+            }
+        }
+
+        private final class BackToBack implements Runnable {
+
+            @Override
+            public void run() {
+                for (long now = System.nanoTime(); now - end < 0 && !Thread.currentThread().isInterrupted();
+                    now = System.nanoTime()) {
+                    execute(now);
+                }
+            }
+        }
+    }
+
+    private static final class LoadReport implements Report {
+
+        private final LatencyHistogram observed;
+
+        // null if the latencies are not corrected
+        private final LatencyHistogram corrected;
+
+        private final long errors;
+
+        private final Throwable firstError;
+
+        private final long elapsedNanos;
+
+        private LoadReport(LatencyHistogram observed, LatencyHistogram corrected, long errors, Throwable firstError,
+            long elapsedNanos) {
+            this.observed = observed;
+            this.corrected = corrected;
+            this.errors = errors;
+            this.firstError = firstError;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        @Override
+        public long getCallCount() {
+            return observed.getCount();
+        }
+
+        @Override
+        public long getErrorCount() {
+            return errors;
+        }
+
+        @Override
+        public Throwable getFirstError() {
+            return firstError;
+        }
+
+        @Override
+        public double getThroughput() {
+            return elapsedNanos <= 0 ? 0 : getCallCount() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        }
+
+        @Override
+        public boolean isCorrected() {
+            return null != corrected;
+        }
+
+        @Override
+        public double getMeanLatency() {
+            return getLatencies().getMean();
+        }
+
+        @Override
+        public long getMaxLatency() {
+            return getLatencies().getMax();
+        }
+
+        @Override
+        public long getLatencyAtPercentile(double percentile) {
+            return getLatencies().getValueAtPercentile(percentile);
+        }
+
+        @Override
+        public long getUncorrectedLatencyAtPercentile(double percentile) {
+            return observed.getValueAtPercentile(percentile);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("calls=%d errors=%d throughput=%.1f/s latency(us) p50=%d p90=%d p99=%d p99.9=%d max=%d",
+                getCallCount(), errors, getThroughput(), getLatencyAtPercentile(50.0), getLatencyAtPercentile(90.0),
+                getLatencyAtPercentile(99.0), getLatencyAtPercentile(99.9), getMaxLatency())
+                + (isCorrected() ? "" : " (uncorrected)");
+        }
+
+        private LatencyHistogram getLatencies() {
+            return null != corrected ? corrected : observed;
+        }
+    }
+
+    private static final class LoadThreadFactory implements ThreadFactory {
+
+        private final int driver = DRIVERS.incrementAndGet();
+
+        private final AtomicInteger threads = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(runnable, "rest-load-" + driver + "-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
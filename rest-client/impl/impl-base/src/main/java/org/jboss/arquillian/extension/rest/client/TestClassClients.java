@@ -0,0 +1,53 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps track of the values injected into the fields of test classes. A value is shared by all tests of its test class
+ * and closed after the test class, no matter how the deployments it runs against are scoped or when they are deployed.
+ */
+public class TestClassClients {
+
+    private final Map<Class<?>, RestClientLifecycle> lifecycles = new HashMap<Class<?>, RestClientLifecycle>();
+
+    /**
+     * Returns the value created for given test class and key, {@code factory} is only used if there is none yet.
+     */
+    public synchronized <C> C get(Class<?> testClass, Object key, RestClientFactory<C> factory,
+        RestClientConfiguration configuration) {
+        RestClientLifecycle lifecycle = lifecycles.get(testClass);
+        if (null == lifecycle) {
+            lifecycle = new RestClientLifecycle();
+            lifecycles.put(testClass, lifecycle);
+        }
+        return lifecycle.getDeploymentClient(key, factory, configuration);
+    }
+
+    public void close(Class<?> testClass) {
+        final RestClientLifecycle lifecycle;
+        synchronized (this) {
+            lifecycle = lifecycles.remove(testClass);
+        }
+        if (null != lifecycle) {
+            lifecycle.closeAll();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client;
+
+import org.junit.Test;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ClassModifierTestCase {
+
+    @Test
+    public void shouldReuseClassForSameAnnotations() throws Exception {
+        //        Given
+        final long misses = ClassModifier.getCache().getMissCount();
+        final long hits = ClassModifier.getCache().getHitCount();
+
+        //        When
+        final Class<SampleResource> first =
+            ClassModifier.getModifiedClass(SampleResource.class, PlainToXml.class.getAnnotations());
+        final Class<SampleResource> second =
+            ClassModifier.getModifiedClass(SampleResource.class, PlainToXmlReordered.class.getAnnotations());
+
+        //        Then
+        assertSame(first, second);
+        assertTrue(SampleResource.class.isAssignableFrom(first));
+        assertEquals(misses + 1, ClassModifier.getCache().getMissCount());
+        assertEquals(hits + 1, ClassModifier.getCache().getHitCount());
+        assertEquals(MediaType.APPLICATION_XML,
+            first.getDeclaredMethod("get").getAnnotation(Produces.class).value()[0]);
+    }
+
+    @Test
+    public void shouldGenerateNewClassForDifferentAnnotations() throws Exception {
+        //        When
+        final Class<SampleResource> xml =
+            ClassModifier.getModifiedClass(SampleResource.class, JsonToXml.class.getAnnotations());
+        final Class<SampleResource> json =
+            ClassModifier.getModifiedClass(SampleResource.class, XmlToJson.class.getAnnotations());
+
+        //        Then
+        assertNotSame(xml, json);
+        assertEquals(MediaType.APPLICATION_JSON,
+            json.getDeclaredMethod("get").getAnnotation(Produces.class).value()[0]);
+    }
+
+    @Test
+    public void shouldReleaseClassesOfTestClass() throws Exception {
+        //        Given
+        final Method method = ReleasedTestCase.class.getDeclaredMethod("test");
+        final Class<SampleResource> first =
+            ClassModifier.getModifiedClass(SampleResource.class, method, method.getAnnotations());
+
+        //        When
+        final Class<SampleResource> second =
+            ClassModifier.getModifiedClass(SampleResource.class, method, method.getAnnotations());
+        ClassModifier.release(ReleasedTestCase.class);
+        final Class<SampleResource> third =
+            ClassModifier.getModifiedClass(SampleResource.class, method, method.getAnnotations());
+
+        //        Then
+        assertSame(first, second);
+        assertTrue(first.getClassLoader() instanceof GeneratedClassLoader);
+        assertNotSame(first, third);
+        assertNotSame(first.getClassLoader(), third.getClassLoader());
+        assertEquals(MediaType.APPLICATION_JSON, third.getDeclaredMethod("get").getAnnotation(Produces.class).value()[0]);
+        ClassModifier.release(ReleasedTestCase.class);
+    }
+
+    @Test
+    public void shouldUnloadReleasedClasses() throws Exception {
+        //        Given
+        final WeakReference<ClassLoader> loader = generateClassLoader(ReleasedTestCase.class.getDeclaredMethod("test"));
+
+        //        When
+        ClassModifier.release(ReleasedTestCase.class);
+
+        //        Then
+        assertTrue(isCollected(loader));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedEntry() {
+        //        Given
+        final GeneratedClassCache cache = new GeneratedClassCache(1);
+        final ClassLoader loader = getClass().getClassLoader();
+        final GeneratedClassCache.Key first =
+            GeneratedClassCache.keyFor(SampleResource.class, loader, JsonToXml.class.getAnnotations());
+        final GeneratedClassCache.Key second =
+            GeneratedClassCache.keyFor(SampleResource.class, loader, XmlToJson.class.getAnnotations());
+
+        //        When
+        cache.put(first, SampleResource.class);
+        cache.put(second, SampleResource.class);
+
+        //        Then
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertNull(cache.get(first));
+        assertSame(SampleResource.class, cache.get(second));
+    }
+
+    private static WeakReference<ClassLoader> generateClassLoader(Method method) throws Exception {
+        final Class<SampleResource> modified =
+            ClassModifier.getModifiedClass(SampleResource.class, method, method.getAnnotations());
+        modified.getDeclaredMethod("get").getAnnotation(Produces.class);
+        return new WeakReference<ClassLoader>(modified.getClassLoader());
+    }
+
+    private static boolean isCollected(WeakReference<?> reference) throws InterruptedException {
+        for (int i = 0; i < 20 && null != reference.get(); i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        return null == reference.get();
+    }
+
+    private static class ReleasedTestCase {
+
+        @Test
+        @Produces(MediaType.APPLICATION_JSON)
+        public void test() {
+        }
+    }
+
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_XML)
+    private static class JsonToXml {
+    }
+
+    @Consumes(MediaType.TEXT_PLAIN)
+    @Produces(MediaType.APPLICATION_XML)
+    private static class PlainToXml {
+    }
+
+    @Produces(MediaType.APPLICATION_XML)
+    @Consumes(MediaType.TEXT_PLAIN)
+    private static class PlainToXmlReordered {
+    }
+
+    @Consumes(MediaType.APPLICATION_XML)
+    @Produces(MediaType.APPLICATION_JSON)
+    private static class XmlToJson {
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client;
+
+import org.jboss.arquillian.container.spi.client.protocol.metadata.HTTPContext;
+import org.jboss.arquillian.container.spi.client.protocol.metadata.ProtocolMetaData;
+import org.jboss.arquillian.container.spi.client.protocol.metadata.Servlet;
+import org.jboss.arquillian.core.api.InstanceProducer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentResolveTestCase {
+
+    private static final int THREADS = 32;
+
+    private static final int ITERATIONS = 20;
+
+    private ExecutorService executor;
+
+    private StubInstance<RestClientConfiguration> configurationInst;
+
+    private StubInstance<RestClientLifecycle> lifecycleInst;
+
+    private CountingFactory factory;
+
+    private ProxyEnricher enricher;
+
+    @Before
+    public void setUp() throws Exception {
+        executor = Executors.newFixedThreadPool(THREADS);
+        final ProtocolMetaData metaData =
+            new ProtocolMetaData().addContext(new HTTPContext("localhost", 8080).add(new Servlet("test", "/app")));
+        configurationInst = new StubInstance<RestClientConfiguration>(new RestClientConfiguration());
+        lifecycleInst = new StubInstance<RestClientLifecycle>(null);
+        factory = new CountingFactory();
+        enricher = new ProxyEnricher(factory);
+        inject(enricher, "metaDataInst", new StubInstance<ProtocolMetaData>(metaData));
+        inject(enricher, "responseInst", new StubInstance<Object>(null));
+        inject(enricher, "configurationInst", configurationInst);
+        inject(enricher, "lifecycleInst", lifecycleInst);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void shouldInjectProxiesFromManyThreads() throws Exception {
+        //        Given
+        final Method[] methods = {
+            ResourceTests.class.getMethod("json", SampleResource.class),
+            ResourceTests.class.getMethod("xml", SampleResource.class),
+            ResourceTests.class.getMethod("plain", SampleResource.class)
+        };
+        final String[] expected = {
+            "http://localhost:8080/app/json " + MediaType.APPLICATION_JSON,
+            "http://localhost:8080/app/xml " + MediaType.APPLICATION_XML,
+            "http://localhost:8080/app/plain " + MediaType.TEXT_PLAIN
+        };
+        final Class<?>[][] generated = new Class<?>[methods.length][THREADS * ITERATIONS];
+
+        //        When
+        runConcurrently(new Work() {
+            @Override
+            public void run(int thread, int iteration) {
+                final int index = (thread + iteration) % methods.length;
+                final SampleResource resource = (SampleResource) enricher.resolve(methods[index])[0];
+                assertEquals(expected[index], resource.get());
+                generated[index][thread * ITERATIONS + iteration] = resource.getClass().getInterfaces()[0];
+            }
+        });
+
+        //        Then
+        for (Class<?>[] classes : generated) {
+            Class<?> first = null;
+            for (Class<?> clazz : classes) {
+                if (null != clazz) {
+                    first = null == first ? clazz : first;
+                    assertSame(first, clazz);
+                }
+            }
+        }
+        assertEquals(1, factory.created.get());
+    }
+
+    @Test
+    public void shouldOnlyCloseClientsOfFinishedTest() throws Exception {
+        //        Given
+        configurationInst.set(
+            RestClientConfiguration.fromProperties(Collections.singletonMap("freshClientPerTest", "true")));
+        final Method method = ResourceTests.class.getMethod("json", SampleResource.class);
+
+        //        When
+        runConcurrently(new Work() {
+            @Override
+            public void run(int thread, int iteration) {
+                final SampleResource resource = (SampleResource) enricher.resolve(method)[0];
+                Thread.yield();
+                // fails if another test thread closed our client
+                resource.get();
+                lifecycleInst.get().closeTestClients();
+            }
+        });
+
+        //        Then
+        assertEquals(THREADS * ITERATIONS, factory.closed.get());
+    }
+
+    private void runConcurrently(final Work work) throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+        for (int i = 0; i < THREADS; i++) {
+            final int thread = i;
+            futures.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    start.await();
+                    for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+                        work.run(thread, iteration);
+                    }
+                    return null;
+                }
+            }));
+        }
+        start.countDown();
+        for (Future<Void> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+    }
+
+    private static void inject(Object target, String fieldName, Object value) throws Exception {
+        final Field field = BaseRestEnricher.class.getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    private interface Work {
+
+        void run(int thread, int iteration);
+    }
+
+    public static class ResourceTests {
+
+        @Produces(MediaType.APPLICATION_JSON)
+        public void json(@ArquillianResteasyResource("json") SampleResource resource) {
+        }
+
+        @Produces(MediaType.APPLICATION_XML)
+        public void xml(@ArquillianResteasyResource("xml") SampleResource resource) {
+        }
+
+        @Consumes(MediaType.TEXT_PLAIN)
+        @Produces(MediaType.TEXT_PLAIN)
+        public void plain(@ArquillianResteasyResource("plain") SampleResource resource) {
+        }
+    }
+
+    /**
+     * Stands in for a real client proxy, answers with the target URL and the substituted media type.
+     */
+    private static class ProxyEnricher extends BaseRestEnricher {
+
+        private final CountingFactory factory;
+
+        private ProxyEnricher(CountingFactory factory) {
+            this.factory = factory;
+        }
+
+        @Override
+        protected Object enrichByType(Class<?> clazz, Method method, ArquillianResteasyResource annotation,
+            Consumes consumes, Produces produces) {
+            final Class<?> type;
+            try {
+                type = ClassModifier.getModifiedClass(clazz, method.getDeclaredAnnotations());
+            } catch (Exception e) {
+                throw new RuntimeException("Cannot substitute annotations for method " + method.getName(), e);
+            }
+            final CountingClient client = getClient(factory);
+            final String target = getBaseURL() + annotation.value();
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method invoked, Object[] args) throws Throwable {
+                    assertTrue("Client closed while in use", !client.closed);
+                    return target + " " + type.getMethod(invoked.getName()).getAnnotation(Produces.class).value()[0];
+                }
+            });
+        }
+
+        @Override
+        protected boolean isSupportedParameter(Class<?> clazz) {
+            return true;
+        }
+    }
+
+    private static class CountingClient {
+
+        private volatile boolean closed;
+    }
+
+    private static class CountingFactory implements RestClientFactory<CountingClient> {
+
+        private final AtomicInteger created = new AtomicInteger();
+
+        private final AtomicInteger closed = new AtomicInteger();
+
+        @Override
+        public CountingClient create(RestClientConfiguration configuration) {
+            created.incrementAndGet();
+            return new CountingClient();
+        }
+
+        @Override
+        public void close(CountingClient client) {
+            client.closed = true;
+            closed.incrementAndGet();
+        }
+    }
+
+    private static class StubInstance<T> implements InstanceProducer<T> {
+
+        private volatile T value;
+
+        private StubInstance(T value) {
+            this.value = value;
+        }
+
+        @Override
+        public T get() {
+            return value;
+        }
+
+        @Override
+        public void set(T value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client;
+
+import org.junit.Test;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class InjectionPlanTestCase {
+
+    @Test
+    public void shouldReusePlanForSameMethod() throws Exception {
+        //        Given
+        final Method method = SampleTest.class.getMethod("withResource", String.class, SampleResource.class);
+
+        //        When
+        final InjectionPlan first = InjectionPlan.of(method);
+        final InjectionPlan second = InjectionPlan.of(method);
+
+        //        Then
+        assertSame(first, second);
+    }
+
+    @Test
+    public void shouldEvictPlansOfReleasedTestClass() throws Exception {
+        //        Given
+        final Method method = SampleTest.class.getMethod("withResource", String.class, SampleResource.class);
+        final InjectionPlan plan = InjectionPlan.of(method);
+
+        //        When
+        InjectionPlan.release(SampleTest.class);
+
+        //        Then
+        assertNotSame(plan, InjectionPlan.of(method));
+    }
+
+    @Test
+    public void shouldCollectInjectionPoints() throws Exception {
+        //        Given
+        final Method method = SampleTest.class.getMethod("withResource", String.class, SampleResource.class);
+
+        //        When
+        final InjectionPlan plan = InjectionPlan.of(method);
+
+        //        Then
+        assertEquals(2, plan.getParameterCount());
+        assertEquals(1, plan.getInjectionPoints().size());
+        final InjectionPlan.InjectionPoint injectionPoint = plan.getInjectionPoints().get(0);
+        assertEquals(1, injectionPoint.getIndex());
+        assertSame(SampleResource.class, injectionPoint.getType());
+        assertEquals("customers", injectionPoint.getPath());
+        assertEquals(MediaType.APPLICATION_JSON, plan.getConsumes().value()[0]);
+        assertEquals(MediaType.APPLICATION_XML, plan.getProduces().value()[0]);
+    }
+
+    @Test
+    public void shouldMergeHeadersOfTypeAndMethod() throws Exception {
+        //        Given
+        final Method method = SampleTest.class.getMethod("withHeaders", AuthorizedResource.class);
+
+        //        When
+        final InjectionPlan.InjectionPoint injectionPoint = InjectionPlan.of(method).getInjectionPoint(
+            AuthorizedResource.class);
+
+        //        Then
+        assertEquals(3, injectionPoint.getHeaders().size());
+        assertEquals("Basic method", injectionPoint.getHeaders().get("Authorization"));
+        assertEquals("type", injectionPoint.getHeaders().get("X-Type"));
+        assertEquals("method", injectionPoint.getHeaders().get("X-Method"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldNotExposeModifiableHeaders() throws Exception {
+        //        Given
+        final Method method = SampleTest.class.getMethod("withHeaders", AuthorizedResource.class);
+
+        //        When
+        InjectionPlan.of(method).getInjectionPoints().get(0).getHeaders().put("X-Other", "value");
+    }
+
+    @Test
+    public void shouldFindResponseParameters() throws Exception {
+        //        Given
+        final Method method = SampleTest.class.getMethod("withResponse", String.class, Response.class);
+
+        //        When
+        final InjectionPlan plan = InjectionPlan.of(method);
+
+        //        Then
+        assertArrayEquals(new int[] {1}, plan.getResponseParameterIndices());
+        assertEquals(0, plan.getInjectionPoints().size());
+    }
+
+    @Test
+    public void shouldCollectMediaTypeOverrides() throws Exception {
+        //        Given
+        final Method method = SampleTest.class.getMethod("withMediaTypes", SampleResource.class);
+
+        //        When
+        final InjectionPlan plan = InjectionPlan.of(method);
+
+        //        Then
+        assertTrue(plan.hasSubstitutions());
+        assertEquals(MediaType.TEXT_PLAIN, plan.getMediaTypeOverrides().getContentType());
+        assertEquals(Arrays.asList(MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML),
+            plan.getMediaTypeOverrides().getAccept());
+    }
+
+    @Test
+    public void shouldHaveNothingToSubstituteWithoutMethodAnnotations() throws Exception {
+        //        Given
+        final Method method = SampleTest.class.getMethod("withResource", String.class, SampleResource.class);
+
+        //        When
+        final InjectionPlan plan = InjectionPlan.of(method);
+
+        //        Then
+        assertFalse(plan.hasSubstitutions());
+        assertTrue(plan.getMediaTypeOverrides().isEmpty());
+    }
+
+    @Test
+    public void shouldInjectLoadedResourceType() throws Exception {
+        //        Given
+        final Method method = SampleTest.class.getMethod("withLoad", RestLoad.class);
+
+        //        When
+        final InjectionPlan.InjectionPoint injectionPoint = InjectionPlan.of(method).getInjectionPoints().get(0);
+
+        //        Then
+        assertTrue(injectionPoint.isLoad());
+        assertSame(AuthorizedResource.class, injectionPoint.getType());
+        assertEquals("type", injectionPoint.getHeaders().get("X-Type"));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void shouldRejectLoadWithoutResourceType() throws Exception {
+        //        Given
+        final Method method = SampleTest.class.getMethod("withRawLoad", RestLoad.class);
+
+        //        When
+        InjectionPlan.of(method);
+    }
+
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_XML)
+    public static class SampleTest {
+
+        public void withResource(String other, @ArquillianResteasyResource("customers") SampleResource resource) {
+        }
+
+        @Headers({@Header(name = "Authorization", value = "Basic method"), @Header(name = "X-Method", value = "method")})
+        public void withHeaders(@ArquillianResteasyResource AuthorizedResource resource) {
+        }
+
+        public void withResponse(String other, Response response) {
+        }
+
+        @Deprecated
+        @Consumes(MediaType.TEXT_PLAIN)
+        @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
+        public void withMediaTypes(@ArquillianResteasyResource SampleResource resource) {
+        }
+
+        public void withLoad(@ArquillianResteasyResource RestLoad<AuthorizedResource> load) {
+        }
+
+        @SuppressWarnings("rawtypes")
+        public void withRawLoad(@ArquillianResteasyResource RestLoad load) {
+        }
+    }
+
+    @Header(name = "Authorization", value = "Basic type")
+    @Headers(@Header(name = "X-Type", value = "type"))
+    public interface AuthorizedResource {
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTestCase {
+
+    @Test
+    public void shouldCountSmallValuesExactly() {
+        //        Given
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        //        When
+        for (int i = 1; i <= 50; i++) {
+            histogram.record(i);
+        }
+
+        //        Then
+        assertEquals(50, histogram.getCount());
+        assertEquals(1, histogram.getMin());
+        assertEquals(50, histogram.getMax());
+        assertEquals(25.5, histogram.getMean(), 0.001);
+        assertEquals(25, histogram.getValueAtPercentile(50));
+        assertEquals(50, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void shouldBoundRelativeErrorOfLargeValues() {
+        //        Given
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        //        When
+        for (long value = 1000; value <= 1000000; value += 1000) {
+            histogram.record(value);
+        }
+
+        //        Then
+        final long median = histogram.getValueAtPercentile(50);
+        assertTrue("median " + median, Math.abs(median - 500000) <= 500000 * 0.035);
+        final long p99 = histogram.getValueAtPercentile(99);
+        assertTrue("p99 " + p99, Math.abs(p99 - 990000) <= 990000 * 0.035);
+        assertEquals(1000000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void shouldMapEveryValueIntoItsBucket() {
+        for (long value : new long[] {0, 63, 64, 65, 127, 128, 1000, 123456789L, Long.MAX_VALUE}) {
+            final int index = LatencyHistogram.indexOf(value);
+            assertTrue(value + " above bucket", value <= LatencyHistogram.highestEquivalentValue(index));
+            if (index > 0) {
+                assertTrue(value + " below bucket", value > LatencyHistogram.highestEquivalentValue(index - 1));
+            }
+        }
+    }
+
+    @Test
+    public void shouldAddHistograms() {
+        //        Given
+        final LatencyHistogram first = new LatencyHistogram();
+        final LatencyHistogram second = new LatencyHistogram();
+        first.record(10);
+        second.record(5000);
+
+        //        When
+        first.add(second);
+
+        //        Then
+        assertEquals(2, first.getCount());
+        assertEquals(10, first.getMin());
+        assertEquals(5000, first.getMax());
+    }
+
+    @Test
+    public void shouldFillInValuesOmittedByStalledCaller() {
+        //        Given
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(10, 99);
+        histogram.record(1000);
+
+        //        When
+        final LatencyHistogram corrected = histogram.copyCorrectedForCoordinatedOmission(10);
+
+        //        Then
+        assertEquals(100, histogram.getCount());
+        assertEquals(10, histogram.getValueAtPercentile(99));
+        assertEquals(199, corrected.getCount());
+        assertTrue("p90 " + corrected.getValueAtPercentile(90), corrected.getValueAtPercentile(90) > 500);
+        assertEquals(1000, corrected.getMax());
+    }
+}
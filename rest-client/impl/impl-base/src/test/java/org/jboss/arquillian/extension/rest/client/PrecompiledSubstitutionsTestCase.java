@@ -0,0 +1,135 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Properties;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PrecompiledSubstitutionsTestCase {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldFindIndexedInterface() throws Exception {
+        //        Given
+        final Method method = IndexedTestCase.class.getDeclaredMethod("test");
+        final ClassLoader loader = createIndexedClassLoader(method);
+
+        //        When
+        final Class<SampleResource> found = PrecompiledSubstitutions.find(SampleResource.class, method, loader);
+
+        //        Then
+        assertSame(XmlSampleResource.class, found);
+        assertNull(PrecompiledSubstitutions.find(SampleResource.class, IndexedTestCase.class.getDeclaredMethod("other"),
+            loader));
+    }
+
+    @Test
+    public void shouldIgnoreInterfaceNotOverridingAllMethods() throws Exception {
+        //        Given
+        final Method method = IndexedTestCase.class.getDeclaredMethod("test");
+        final ClassLoader loader = createIndexedClassLoader(method, StaleSampleResource.class);
+
+        //        When
+        final Class<SampleResource> found = PrecompiledSubstitutions.find(SampleResource.class, method, loader);
+
+        //        Then
+        assertNull(found);
+    }
+
+    @Test
+    public void shouldNotKeepClassLoaderReachable() throws Exception {
+        //        Given
+        final WeakReference<ClassLoader> loader = findThroughClassLoader(IndexedTestCase.class.getDeclaredMethod("test"));
+
+        //        When
+        for (int i = 0; i < 20 && null != loader.get(); i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        //        Then
+        assertNull(loader.get());
+    }
+
+    private WeakReference<ClassLoader> findThroughClassLoader(Method method) throws Exception {
+        final ClassLoader loader = createIndexedClassLoader(method);
+        assertSame(XmlSampleResource.class, PrecompiledSubstitutions.find(SampleResource.class, method, loader));
+        return new WeakReference<ClassLoader>(loader);
+    }
+
+    private ClassLoader createIndexedClassLoader(Method method) throws Exception {
+        return createIndexedClassLoader(method, XmlSampleResource.class);
+    }
+
+    private ClassLoader createIndexedClassLoader(Method method, Class<?> generated) throws Exception {
+        final File root = folder.newFolder();
+        final File index = new File(root, PrecompiledSubstitutions.INDEX);
+        assertTrue(index.getParentFile().mkdirs());
+        final Properties names = new Properties();
+        names.setProperty(PrecompiledSubstitutions.keyFor(method.getDeclaringClass().getName(), method.getName(),
+            SampleResource.class.getName()), generated.getName());
+        final OutputStream stream = new FileOutputStream(index);
+        try {
+            names.store(stream, null);
+        } finally {
+            stream.close();
+        }
+        return new URLClassLoader(new URL[] {root.toURI().toURL()}, getClass().getClassLoader());
+    }
+
+    public interface XmlSampleResource extends SampleResource {
+
+        @Override
+        @Produces(MediaType.APPLICATION_XML)
+        String get();
+    }
+
+    /**
+     * Generated before {@link SampleResource#get()} was added.
+     */
+    public interface StaleSampleResource extends SampleResource {
+    }
+
+    private static class IndexedTestCase {
+
+        @Produces(MediaType.APPLICATION_XML)
+        public void test() {
+        }
+
+        public void other() {
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RestClientConfigurationTestCase {
+
+    @Test
+    public void shouldUseDefaultsWhenNothingConfigured() {
+        //        When
+        final RestClientConfiguration result =
+            RestClientConfiguration.fromProperties(Collections.<String, String>emptyMap());
+
+        //        Then
+        assertEquals(RestClientConfiguration.DEFAULT_MAX_CONNECTIONS, result.getMaxConnections());
+        assertEquals(RestClientConfiguration.DEFAULT_MAX_CONNECTIONS, result.getMaxConnectionsPerRoute());
+        assertFalse(RestClientConfiguration.isSet(result.getKeepAliveTimeout()));
+        assertFalse(RestClientConfiguration.isSet(result.getConnectTimeout()));
+        assertFalse(RestClientConfiguration.isSet(result.getSocketTimeout()));
+        assertFalse(RestClientConfiguration.isSet(result.getResponseBufferSize()));
+        assertEquals(AnnotationSubstitution.BYTECODE, result.getAnnotationSubstitution());
+    }
+
+    @Test
+    public void shouldReadAnnotationSubstitution() {
+        //        Given
+        final Map<String, String> properties = new HashMap<String, String>();
+        properties.put("annotationSubstitution", "proxy");
+
+        //        When
+        final RestClientConfiguration result = RestClientConfiguration.fromProperties(properties);
+
+        //        Then
+        assertEquals(AnnotationSubstitution.PROXY, result.getAnnotationSubstitution());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnknownAnnotationSubstitution() {
+        //        Given
+        final Map<String, String> properties = new HashMap<String, String>();
+        properties.put("annotationSubstitution", "cglib");
+
+        //        When
+        RestClientConfiguration.fromProperties(properties);
+    }
+
+    @Test
+    public void shouldReadConnectionProperties() {
+        //        Given
+        final Map<String, String> properties = new HashMap<String, String>();
+        properties.put("maxConnections", "50");
+        properties.put("maxConnectionsPerRoute", " 25 ");
+        properties.put("keepAliveTimeout", "30000");
+        properties.put("connectTimeout", "5000");
+        properties.put("socketTimeout", "0");
+        properties.put("responseBufferSize", "8192");
+
+        //        When
+        final RestClientConfiguration result = RestClientConfiguration.fromProperties(properties);
+
+        //        Then
+        assertEquals(50, result.getMaxConnections());
+        assertEquals(25, result.getMaxConnectionsPerRoute());
+        assertEquals(30000, result.getKeepAliveTimeout());
+        assertEquals(5000, result.getConnectTimeout());
+        assertTrue(RestClientConfiguration.isSet(result.getSocketTimeout()));
+        assertEquals(8192, result.getResponseBufferSize());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonNumericValue() {
+        //        Given
+        final Map<String, String> properties = new HashMap<String, String>();
+        properties.put("connectTimeout", "5s");
+
+        //        When
+        RestClientConfiguration.fromProperties(properties);
+    }
+}
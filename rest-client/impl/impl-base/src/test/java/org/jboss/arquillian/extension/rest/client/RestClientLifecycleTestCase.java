@@ -0,0 +1,155 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client;
+
+import org.junit.Test;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RestClientLifecycleTestCase {
+
+    private final RestClientConfiguration configuration = new RestClientConfiguration();
+
+    @Test
+    public void shouldShareDeploymentClientUntilClosed() {
+        //        Given
+        final RecordingFactory factory = new RecordingFactory();
+        final RestClientLifecycle lifecycle = new RestClientLifecycle();
+
+        //        When
+        final Object first = lifecycle.getDeploymentClient(factory, configuration);
+        final Object second = lifecycle.getDeploymentClient(factory, configuration);
+        lifecycle.closeTestClients();
+
+        //        Then
+        assertSame(first, second);
+        assertTrue(factory.closed.isEmpty());
+
+        //        When
+        lifecycle.closeAll();
+
+        //        Then
+        assertEquals(1, factory.closed.size());
+        assertSame(first, factory.closed.get(0));
+        assertNotSame(first, lifecycle.getDeploymentClient(factory, configuration));
+    }
+
+    @Test
+    public void shouldShareDeploymentClientOfEqualKey() {
+        //        Given
+        final RecordingFactory factory = new RecordingFactory();
+        final RestClientLifecycle lifecycle = new RestClientLifecycle();
+        final Map<String, String> headers = new HashMap<String, String>();
+        headers.put("Authorization", "abc");
+        final ResourceProxyKey key = new ResourceProxyKey(SampleResource.class, "http://localhost/rest", headers, null,
+            null, null);
+        final ResourceProxyKey equalKey = new ResourceProxyKey(SampleResource.class, "http://localhost/rest",
+            Collections.singletonMap("Authorization", "abc"), null, null, null);
+        final ResourceProxyKey otherKey = new ResourceProxyKey(SampleResource.class, "http://localhost/rest", headers,
+            null, Xml.class.getAnnotation(Produces.class), null);
+
+        //        When
+        final Object first = lifecycle.getDeploymentClient(key, factory, configuration);
+        final Object second = lifecycle.getDeploymentClient(equalKey, factory, configuration);
+        final Object third = lifecycle.getDeploymentClient(otherKey, factory, configuration);
+        lifecycle.closeAll();
+
+        //        Then
+        assertSame(first, second);
+        assertNotSame(first, third);
+        assertEquals(2, factory.closed.size());
+    }
+
+    @Test
+    public void shouldCloseTestClientsAfterTest() {
+        //        Given
+        final RecordingFactory factory = new RecordingFactory();
+        final RestClientLifecycle lifecycle = new RestClientLifecycle();
+
+        //        When
+        final Object first = lifecycle.createTestClient(factory, configuration);
+        final Object second = lifecycle.createTestClient(factory, configuration);
+        lifecycle.closeTestClients();
+
+        //        Then
+        assertNotSame(first, second);
+        assertEquals(2, factory.closed.size());
+    }
+
+    @Test
+    public void shouldCloseTestClassClientsAfterTestClass() {
+        //        Given
+        final RecordingFactory factory = new RecordingFactory();
+        final TestClassClients testClassClients = new TestClassClients();
+
+        //        When
+        final Object first = testClassClients.get(Xml.class, "field", factory, configuration);
+        final Object second = testClassClients.get(Xml.class, "field", factory, configuration);
+        final Object other = testClassClients.get(SampleResource.class, "field", factory, configuration);
+        testClassClients.close(Xml.class);
+
+        //        Then
+        assertSame(first, second);
+        assertNotSame(first, other);
+        assertEquals(1, factory.closed.size());
+        assertSame(first, factory.closed.get(0));
+    }
+
+    @Test
+    public void shouldReadFreshClientPerTestProperty() {
+        //        Given
+        final Map<String, String> properties = new HashMap<String, String>();
+        properties.put("freshClientPerTest", "true");
+
+        //        When
+        final RestClientConfiguration result = RestClientConfiguration.fromProperties(properties);
+
+        //        Then
+        assertTrue(result.isFreshClientPerTest());
+    }
+
+    @Produces(MediaType.APPLICATION_XML)
+    private static class Xml {
+    }
+
+    private static class RecordingFactory implements RestClientFactory<Object> {
+
+        private final List<Object> closed = new ArrayList<Object>();
+
+        @Override
+        public Object create(RestClientConfiguration configuration) {
+            return new Object();
+        }
+
+        @Override
+        public void close(Object client) {
+            closed.add(client);
+        }
+    }
+}
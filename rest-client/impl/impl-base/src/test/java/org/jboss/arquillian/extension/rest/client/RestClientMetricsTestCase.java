@@ -0,0 +1,119 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RestClientMetricsTestCase {
+
+    @Test
+    public void shouldGroupRequestsByMethodAndPath() {
+        //        Given
+        final RestClientMetrics metrics = new RestClientMetrics();
+
+        //        When
+        metrics.record("GET", "/app/rest/customer", 200, 0, 120, 2000000);
+        metrics.record("GET", "/app/rest/customer", 404, 0, 0, 1000000);
+        metrics.record("POST", "/app/rest/customer", 201, 80, 0, 3000000);
+
+        //        Then
+        assertEquals(Arrays.asList("GET /app/rest/customer", "POST /app/rest/customer"),
+            Arrays.asList(metrics.getPaths().toArray()));
+        assertEquals(3, metrics.getRequestCount());
+        final PathMetrics get = metrics.getPathMetrics("GET /app/rest/customer");
+        assertEquals(2, get.getRequestCount());
+        assertEquals(120, get.getBytesIn());
+        assertEquals(1, get.getStatusCount(2));
+        assertEquals(1, get.getStatusCount(4));
+        assertEquals(2000, get.getLatency().getMax());
+        assertEquals(80, metrics.getPathMetrics("POST /app/rest/customer").getBytesOut());
+    }
+
+    @Test
+    public void shouldDrainRecordedMetrics() {
+        //        Given
+        final RestClientMetricsRecorder recorder = new RestClientMetricsRecorder();
+        recorder.record("GET", "/app/rest/customer", 200, 0, 0, 1000);
+
+        //        When
+        final RestClientMetrics drained = recorder.drain();
+
+        //        Then
+        assertEquals(1, drained.getRequestCount());
+        assertTrue(recorder.drain().isEmpty());
+    }
+
+    @Test
+    public void shouldNotLoseRequestsRecordedWhileDraining() throws Exception {
+        //        Given
+        final RestClientMetricsRecorder recorder = new RestClientMetricsRecorder();
+        final int requestsPerThread = 20000;
+        final Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < requestsPerThread; j++) {
+                        recorder.record("GET", "/app/rest/customer", 200, 0, 0, 1000);
+                    }
+                }
+            });
+        }
+
+        //        When
+        long drained = 0;
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            while (thread.isAlive()) {
+                drained += recorder.drain().getRequestCount();
+            }
+            thread.join();
+        }
+        drained += recorder.drain().getRequestCount();
+
+        //        Then
+        assertEquals(threads.length * requestsPerThread, drained);
+    }
+
+    @Test
+    public void shouldSummarizeMetrics() {
+        //        Given
+        final RestClientMetrics summary = new RestClientMetrics();
+        final RestClientMetrics first = new RestClientMetrics();
+        first.record("GET", "/app/rest/customer", 200, 0, 10, 1000);
+        final RestClientMetrics second = new RestClientMetrics();
+        second.record("GET", "/app/rest/customer", 500, 0, 20, 1000);
+
+        //        When
+        summary.add(first);
+        summary.add(second);
+
+        //        Then
+        final PathMetrics pathMetrics = summary.getPathMetrics("GET /app/rest/customer");
+        assertEquals(2, pathMetrics.getRequestCount());
+        assertEquals(30, pathMetrics.getBytesIn());
+        assertEquals(1, pathMetrics.getStatusCount(5));
+    }
+}
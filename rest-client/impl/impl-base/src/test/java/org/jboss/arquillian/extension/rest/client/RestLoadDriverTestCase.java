@@ -0,0 +1,155 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RestLoadDriverTestCase {
+
+    @Test
+    public void shouldCallAtFixedRate() {
+        //        Given
+        final AtomicInteger counter = new AtomicInteger();
+        final RestLoad<AtomicInteger> load =
+            new RestLoadDriver<AtomicInteger>(counter).atRate(200).withConcurrency(4).during(500, TimeUnit.MILLISECONDS);
+
+        //        When
+        final RestLoad.Report report = load.run(new RestLoad.Call<AtomicInteger>() {
+            @Override
+            public void call(AtomicInteger resource) {
+                resource.incrementAndGet();
+            }
+        });
+
+        //        Then
+        assertEquals(100, counter.get());
+        assertEquals(100, report.getCallCount());
+        assertEquals(0, report.getErrorCount());
+    }
+
+    @Test
+    public void shouldMeasureLatencyOfHeldBackCallsFromTheirDueTime() {
+        //        Given
+        final RestLoad<AtomicInteger> load = new RestLoadDriver<AtomicInteger>(new AtomicInteger()).atRate(100)
+            .withConcurrency(1)
+            .during(1, TimeUnit.SECONDS);
+
+        //        When
+        final RestLoad.Report report = load.run(new StallingCall(300));
+
+        //        Then
+        assertEquals(100, report.getCallCount());
+        assertTrue("p90 " + report.getLatencyAtPercentile(90), report.getLatencyAtPercentile(90) > 100000);
+        assertTrue("uncorrected p90 " + report.getUncorrectedLatencyAtPercentile(90),
+            report.getUncorrectedLatencyAtPercentile(90) < 50000);
+    }
+
+    @Test
+    public void shouldCorrectLatencyOfBackToBackCalls() {
+        //        Given
+        final RestLoad<AtomicInteger> load =
+            new RestLoadDriver<AtomicInteger>(new AtomicInteger()).withConcurrency(1).during(300, TimeUnit.MILLISECONDS)
+                .withExpectedInterval(1, TimeUnit.MILLISECONDS);
+
+        //        When
+        final RestLoad.Report report = load.run(new StallingCall(100) {
+            @Override
+            public void call(AtomicInteger resource) throws Exception {
+                super.call(resource);
+                Thread.sleep(1);
+            }
+        });
+
+        //        Then
+        assertTrue(report.isCorrected());
+        assertTrue("uncorrected p90 " + report.getUncorrectedLatencyAtPercentile(90),
+            report.getUncorrectedLatencyAtPercentile(90) < 10000);
+        assertTrue("p90 " + report.getLatencyAtPercentile(90), report.getLatencyAtPercentile(90) > 10000);
+        assertTrue(report.getMaxLatency() >= 100000);
+    }
+
+    @Test
+    public void shouldNotCorrectBackToBackCallsWithoutExpectedInterval() {
+        //        Given
+        final RestLoad<AtomicInteger> load =
+            new RestLoadDriver<AtomicInteger>(new AtomicInteger()).withConcurrency(1).during(100, TimeUnit.MILLISECONDS);
+
+        //        When
+        final RestLoad.Report report = load.run(new StallingCall(50));
+
+        //        Then
+        assertFalse(report.isCorrected());
+        assertEquals(report.getUncorrectedLatencyAtPercentile(90), report.getLatencyAtPercentile(90));
+    }
+
+    @Test
+    public void shouldCountFailedCalls() {
+        //        Given
+        final IllegalStateException failure = new IllegalStateException("every other call fails");
+        final RestLoad<AtomicInteger> load = new RestLoadDriver<AtomicInteger>(new AtomicInteger()).atRate(100)
+            .withConcurrency(2)
+            .during(200, TimeUnit.MILLISECONDS);
+
+        //        When
+        final RestLoad.Report report = load.run(new RestLoad.Call<AtomicInteger>() {
+            @Override
+            public void call(AtomicInteger resource) {
+                if (resource.incrementAndGet() % 2 == 0) {
+                    throw failure;
+                }
+            }
+        });
+
+        //        Then
+        assertEquals(20, report.getCallCount());
+        assertEquals(10, report.getErrorCount());
+        assertSame(failure, report.getFirstError());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonPositiveRate() {
+        new RestLoadDriver<Object>(new Object()).atRate(0);
+    }
+
+    /**
+     * Stalls on the second call only.
+     */
+    private static class StallingCall implements RestLoad.Call<AtomicInteger> {
+
+        private final long stallMillis;
+
+        private StallingCall(long stallMillis) {
+            this.stallMillis = stallMillis;
+        }
+
+        @Override
+        public void call(AtomicInteger resource) throws Exception {
+            if (resource.incrementAndGet() == 2) {
+                Thread.sleep(stallMillis);
+            }
+        }
+    }
+}
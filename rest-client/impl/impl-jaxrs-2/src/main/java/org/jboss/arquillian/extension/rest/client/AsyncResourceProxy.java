@@ -0,0 +1,303 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.CookieParam;
+import javax.ws.rs.FormParam;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.MatrixParam;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.client.InvocationCallback;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Cookie;
+import javax.ws.rs.core.Form;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Client proxy for resource interfaces whose methods return a {@link java.util.concurrent.CompletionStage}.
+ * <p/>
+ * JAX-RS 2.0 has no client proxy API, so each call is turned into a request from the JAX-RS annotations of the
+ * interface and sent through the {@link javax.ws.rs.client.AsyncInvoker} of the injected web target. The returned
+ * stage completes from the invocation callback, so the calling thread never waits for the response. Methods declaring
+ * a synchronous return type are sent the same way and wait for their result.
+ * <p/>
+ * {@code @Consumes} and {@code @Produces} of the test method, or else of the test class, take precedence over those of
+ * the interface, the same as annotation substitution does for the proxies of the other implementations.
+ * <p/>
+ * Path, query, matrix, form, header and cookie parameters are supported. Calling a method with a parameter of any other
+ * JAX-RS parameter annotation, like {@code @BeanParam}, fails instead of sending the argument as the entity.
+ */
+final class AsyncResourceProxy implements InvocationHandler {
+
+    private static final String PARAMETER_ANNOTATION_PACKAGE = Path.class.getPackage().getName();
+
+    private final Class<?> resourceInterface;
+
+    private final WebTarget webTarget;
+
+    private final String contentType;
+
+    private final String[] accept;
+
+    private AsyncResourceProxy(Class<?> resourceInterface, WebTarget webTarget, String contentType, String[] accept) {
+        this.resourceInterface = resourceInterface;
+        final Path path = resourceInterface.getAnnotation(Path.class);
+        this.webTarget = null != path ? webTarget.path(path.value()) : webTarget;
+        this.contentType = contentType;
+        this.accept = accept;
+    }
+
+    /**
+     * @param contentType
+     *     media type of request entities overriding the ones of the interface or null to keep them
+     * @param accept
+     *     acceptable response media types overriding the ones of the interface or null to keep them
+     */
+    static Object create(Class<?> resourceInterface, WebTarget webTarget, String contentType, String[] accept) {
+        return Proxy.newProxyInstance(resourceInterface.getClassLoader(), new Class<?>[] {resourceInterface},
+            new AsyncResourceProxy(resourceInterface, webTarget, contentType, accept));
+    }
+
+    /**
+     * Tells whether the given type is an interface with at least one resource method returning a
+     * {@link java.util.concurrent.CompletionStage}, {@link CompletableFuture} or {@link java.util.concurrent.Future}.
+     */
+    static boolean isAsyncResource(Class<?> clazz) {
+        if (!clazz.isInterface()) {
+            return false;
+        }
+        for (Method method : clazz.getMethods()) {
+            if (null != getHttpMethod(method) && isAsync(method.getReturnType())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (Object.class == method.getDeclaringClass()) {
+            return invokeObjectMethod(proxy, method, args);
+        }
+        final String httpMethod = getHttpMethod(method);
+        if (null == httpMethod) {
+            throw new UnsupportedOperationException(method + " is not a resource method");
+        }
+        final CompletableFuture<Object> result = send(method, httpMethod, null == args ? new Object[0] : args);
+        if (isAsync(method.getReturnType())) {
+            return result;
+        }
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
+    private CompletableFuture<Object> send(Method method, String httpMethod, Object[] args) {
+        WebTarget target = webTarget;
+        final Path path = method.getAnnotation(Path.class);
+        if (null != path) {
+            target = target.path(path.value());
+        }
+        final Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+        Object entity = null;
+        Form form = null;
+        for (int i = 0; i < args.length; i++) {
+            final Annotation annotation = getParameterAnnotation(method, parameterAnnotations[i]);
+            if (annotation instanceof PathParam) {
+                target = target.resolveTemplate(((PathParam) annotation).value(), args[i]);
+            } else if (annotation instanceof QueryParam) {
+                target = target.queryParam(((QueryParam) annotation).value(), toValues(args[i]));
+            } else if (annotation instanceof MatrixParam) {
+                target = target.matrixParam(((MatrixParam) annotation).value(), toValues(args[i]));
+            } else if (annotation instanceof FormParam) {
+                form = null == form ? new Form() : form;
+                for (Object value : toValues(args[i])) {
+                    form.param(((FormParam) annotation).value(), String.valueOf(value));
+                }
+            } else if (null == annotation) {
+                entity = args[i];
+            }
+        }
+        final Invocation.Builder builder = target.request(getAccept(method));
+        for (int i = 0; i < args.length; i++) {
+            final Annotation annotation = getParameterAnnotation(method, parameterAnnotations[i]);
+            if (annotation instanceof HeaderParam) {
+                for (Object value : toValues(args[i])) {
+                    builder.header(((HeaderParam) annotation).value(), value);
+                }
+            } else if (annotation instanceof CookieParam) {
+                for (Object value : toValues(args[i])) {
+                    builder.cookie(value instanceof Cookie ? (Cookie) value
+                        : new Cookie(((CookieParam) annotation).value(), String.valueOf(value)));
+                }
+            }
+        }
+        final CompletableFuture<Object> result = new CompletableFuture<Object>();
+        final Type resultType = getResultType(method);
+        final InvocationCallback<Response> callback = new InvocationCallback<Response>() {
+            @Override
+            public void completed(Response response) {
+                try {
+                    result.complete(readResult(response, resultType));
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void failed(Throwable throwable) {
+                result.completeExceptionally(throwable);
+            }
+        };
+        if (null != entity) {
+            builder.async().method(httpMethod, Entity.entity(entity, getContentType(method)), callback);
+        } else if (null != form) {
+            builder.async().method(httpMethod, Entity.form(form), callback);
+        } else {
+            builder.async().method(httpMethod, callback);
+        }
+        return result;
+    }
+
+    private static Object readResult(Response response, Type resultType) {
+        if (Response.class == resultType) {
+            return response;
+        }
+        if (response.getStatus() >= 400) {
+            response.bufferEntity();
+            throw new WebApplicationException(response);
+        }
+        try {
+            if (Void.class == resultType || void.class == resultType || !response.hasEntity()) {
+                return null;
+            }
+            return response.readEntity(new GenericType<Object>(resultType));
+        } finally {
+            response.close();
+        }
+    }
+
+    private String[] getAccept(Method method) {
+        if (null != accept) {
+            return accept;
+        }
+        Produces declared = method.getAnnotation(Produces.class);
+        declared = null != declared ? declared : resourceInterface.getAnnotation(Produces.class);
+        return null != declared ? declared.value() : new String[0];
+    }
+
+    private String getContentType(Method method) {
+        if (null != contentType) {
+            return contentType;
+        }
+        Consumes declared = method.getAnnotation(Consumes.class);
+        declared = null != declared ? declared : resourceInterface.getAnnotation(Consumes.class);
+        return null != declared && declared.value().length > 0 ? declared.value()[0]
+            : MediaType.APPLICATION_OCTET_STREAM;
+    }
+
+    /**
+     * @return annotation telling where the argument goes or null if it is the entity
+     * @throws UnsupportedOperationException
+     *     if the parameter has a JAX-RS parameter annotation this proxy cannot send, like {@code @BeanParam}
+     */
+    private static Annotation getParameterAnnotation(Method method, Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof PathParam || annotation instanceof QueryParam
+                || annotation instanceof MatrixParam || annotation instanceof FormParam
+                || annotation instanceof HeaderParam || annotation instanceof CookieParam
+                || annotation instanceof Context) {
+                return annotation;
+            }
+            final Class<? extends Annotation> type = annotation.annotationType();
+            if (PARAMETER_ANNOTATION_PACKAGE.equals(type.getPackage().getName())
+                && type.getSimpleName().endsWith("Param")) {
+                throw new UnsupportedOperationException(
+                    "@" + type.getSimpleName() + " parameters are not supported by asynchronous resource proxies: "
+                        + method);
+            }
+        }
+        return null;
+    }
+
+    private static Object[] toValues(Object value) {
+        if (null == value) {
+            return new Object[0];
+        }
+        if (value instanceof Collection) {
+            return ((Collection<?>) value).toArray();
+        }
+        return new Object[] {value};
+    }
+
+    private static Type getResultType(Method method) {
+        if (!isAsync(method.getReturnType())) {
+            return method.getGenericReturnType();
+        }
+        final Type returnType = method.getGenericReturnType();
+        if (returnType instanceof ParameterizedType) {
+            return ((ParameterizedType) returnType).getActualTypeArguments()[0];
+        }
+        return Object.class;
+    }
+
+    private static boolean isAsync(Class<?> returnType) {
+        return Object.class != returnType && returnType.isAssignableFrom(CompletableFuture.class);
+    }
+
+    private static String getHttpMethod(Method method) {
+        for (Annotation annotation : method.getAnnotations()) {
+            final HttpMethod httpMethod = annotation.annotationType().getAnnotation(HttpMethod.class);
+            if (null != httpMethod) {
+                return httpMethod.value();
+            }
+        }
+        return null;
+    }
+
+    private Object invokeObjectMethod(Object proxy, Method method, Object[] args) {
+        if ("equals".equals(method.getName())) {
+            return proxy == args[0];
+        } else if ("hashCode".equals(method.getName())) {
+            return System.identityHashCode(proxy);
+        }
+        return resourceInterface.getName() + " proxy for " + webTarget.getUri();
+    }
+}
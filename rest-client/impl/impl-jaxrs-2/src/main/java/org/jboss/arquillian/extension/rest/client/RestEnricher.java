@@ -21,11 +21,15 @@ import org.jboss.arquillian.test.spi.TestEnricher;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.Produces;
+import javax.ws.rs.client.AsyncInvoker;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Invocation;
 import javax.ws.rs.client.WebTarget;
 import java.lang.reflect.Method;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * RestEnricher
@@ -37,6 +41,90 @@ import java.util.Map;
  */
 public class RestEnricher extends BaseRestEnricher implements TestEnricher {
 
+    private static final String JERSEY_CONNECT_TIMEOUT = "jersey.config.client.connectTimeout";
+
+    private static final String JERSEY_READ_TIMEOUT = "jersey.config.client.readTimeout";
+
+    private static final String RX_INVOKER = "javax.ws.rs.client.RxInvoker";
+
+    private static final String COMPLETION_STAGE_RX_INVOKER = "javax.ws.rs.client.CompletionStageRxInvoker";
+
+    private static final class ClientFactory implements RestClientFactory<Client> {
+
+        private final RestClientMetricsRecorder metricsRecorder;
+
+        private ClientFactory(RestClientMetricsRecorder metricsRecorder) {
+            this.metricsRecorder = metricsRecorder;
+        }
+
+        @Override
+        public Client create(RestClientConfiguration configuration) {
+            final ClientBuilder clientBuilder = ClientBuilder.newBuilder();
+            // JAX-RS 2.0 has no portable connection settings, so apply the ones the implementation on the classpath
+            // understands: RESTEasy builder methods and Jersey client properties
+            if (RestClientConfiguration.isSet(configuration.getMaxConnections())) {
+                invokeIfPresent(clientBuilder, "connectionPoolSize", configuration.getMaxConnections());
+            }
+            if (RestClientConfiguration.isSet(configuration.getMaxConnectionsPerRoute())) {
+                invokeIfPresent(clientBuilder, "maxPooledPerRoute", configuration.getMaxConnectionsPerRoute());
+            }
+            if (RestClientConfiguration.isSet(configuration.getKeepAliveTimeout())) {
+                invokeIfPresent(clientBuilder, "connectionTTL", configuration.getKeepAliveTimeout(),
+                    TimeUnit.MILLISECONDS);
+            }
+            if (RestClientConfiguration.isSet(configuration.getConnectTimeout())) {
+                invokeIfPresent(clientBuilder, "establishConnectionTimeout", configuration.getConnectTimeout(),
+                    TimeUnit.MILLISECONDS);
+                clientBuilder.property(JERSEY_CONNECT_TIMEOUT, configuration.getConnectTimeout());
+            }
+            if (RestClientConfiguration.isSet(configuration.getSocketTimeout())) {
+                invokeIfPresent(clientBuilder, "socketTimeout", configuration.getSocketTimeout(),
+                    TimeUnit.MILLISECONDS);
+                clientBuilder.property(JERSEY_READ_TIMEOUT, configuration.getSocketTimeout());
+            }
+            if (RestClientConfiguration.isSet(configuration.getResponseBufferSize())) {
+                invokeIfPresent(clientBuilder, "responseBufferSize", configuration.getResponseBufferSize());
+            }
+            if (null != metricsRecorder) {
+                clientBuilder.register(new MetricsFilter(metricsRecorder));
+            }
+            return clientBuilder.build();
+        }
+
+        @Override
+        public void close(Client client) {
+            client.close();
+        }
+    }
+
+    private static void invokeIfPresent(ClientBuilder clientBuilder, String methodName, int value) {
+        final Method method;
+        try {
+            method = clientBuilder.getClass().getMethod(methodName, int.class);
+        } catch (NoSuchMethodException e) {
+            return;
+        }
+        invoke(clientBuilder, method, value);
+    }
+
+    private static void invokeIfPresent(ClientBuilder clientBuilder, String methodName, long value, TimeUnit unit) {
+        final Method method;
+        try {
+            method = clientBuilder.getClass().getMethod(methodName, long.class, TimeUnit.class);
+        } catch (NoSuchMethodException e) {
+            return;
+        }
+        invoke(clientBuilder, method, value, unit);
+    }
+
+    private static void invoke(ClientBuilder clientBuilder, Method method, Object... args) {
+        try {
+            method.invoke(clientBuilder, args);
+        } catch (Exception e) {
+            throw new RuntimeException("Cannot configure " + method.getName() + " on " + clientBuilder.getClass(), e);
+        }
+    }
+
     @Override
     protected boolean isSupportedParameter(Class<?> clazz) {
         if (ClientBuilder.class.isAssignableFrom(clazz)) {
@@ -45,8 +133,12 @@ public class RestEnricher extends BaseRestEnricher implements TestEnricher {
             return true;
         } else if (WebTarget.class.isAssignableFrom(clazz)) {
             return true;
+        } else if (AsyncInvoker.class.isAssignableFrom(clazz)) {
+            return true;
+        } else if (isRxInvoker(clazz)) {
+            return true;
         } else {
-            return false;
+            return AsyncResourceProxy.isAsyncResource(clazz);
         }
     }
 
@@ -57,15 +149,86 @@ public class RestEnricher extends BaseRestEnricher implements TestEnricher {
         if (ClientBuilder.class.isAssignableFrom(clazz)) {
             result = ClientBuilder.newBuilder();
         } else if (Client.class.isAssignableFrom(clazz)) {
-            result = ClientBuilder.newClient();
+            result = getClient(new ClientFactory(getMetricsRecorder()));
         } else if (WebTarget.class.isAssignableFrom(clazz)) {
-            WebTarget webTarget = ClientBuilder.newClient().target(getBaseURL() + annotation.value());
-            final Map<String, String> headers = getHeaders(clazz, method);
-            if (!headers.isEmpty()) {
-                webTarget.register(new HeaderFilter(headers));
-            }
-            result = webTarget;
+            result = createWebTarget(clazz, method, annotation);
+        } else if (AsyncInvoker.class.isAssignableFrom(clazz)) {
+            result = createRequest(clazz, method, annotation, getAccept(method, produces)).async();
+        } else if (isRxInvoker(clazz)) {
+            result = createRxInvoker(clazz, createRequest(clazz, method, annotation, getAccept(method, produces)));
+        } else if (AsyncResourceProxy.isAsyncResource(clazz)) {
+            result = AsyncResourceProxy.create(clazz, createWebTarget(clazz, method, annotation),
+                getContentType(method, consumes), getAccept(method, produces));
         }
         return result;
     }
+
+    private WebTarget createWebTarget(Class<?> clazz, Method method, ArquillianResteasyResource annotation) {
+        WebTarget webTarget = getClient(new ClientFactory(getMetricsRecorder())).target(getBaseURL() + annotation.value());
+        final Map<String, String> headers = getHeaders(clazz, method);
+        if (!headers.isEmpty()) {
+            webTarget.register(new HeaderFilter(headers));
+        }
+        return webTarget;
+    }
+
+    private Invocation.Builder createRequest(Class<?> clazz, Method method, ArquillianResteasyResource annotation,
+        String[] accept) {
+        final WebTarget webTarget = createWebTarget(clazz, method, annotation);
+        return null != accept ? webTarget.request(accept) : webTarget.request();
+    }
+
+    /**
+     * @return media types {@code @Produces} of the test method or else of the test class declares, null if neither does
+     */
+    private static String[] getAccept(Method method, Produces produces) {
+        if (null != method) {
+            final List<String> accept = InjectionPlan.of(method).getMediaTypeOverrides().getAccept();
+            if (!accept.isEmpty()) {
+                return accept.toArray(new String[accept.size()]);
+            }
+        }
+        return null != produces ? produces.value() : null;
+    }
+
+    /**
+     * @return media type {@code @Consumes} of the test method or else of the test class declares, null if neither does
+     */
+    private static String getContentType(Method method, Consumes consumes) {
+        if (null != method) {
+            final String contentType = InjectionPlan.of(method).getMediaTypeOverrides().getContentType();
+            if (null != contentType) {
+                return contentType;
+            }
+        }
+        return null != consumes && consumes.value().length > 0 ? consumes.value()[0] : null;
+    }
+
+    /**
+     * RxInvokers came with JAX-RS 2.1, so they are only looked up when the API on the classpath has them.
+     */
+    private static boolean isRxInvoker(Class<?> clazz) {
+        for (Class<?> type = clazz; null != type; type = type.getSuperclass()) {
+            if (RX_INVOKER.equals(type.getName())) {
+                return true;
+            }
+            for (Class<?> implemented : type.getInterfaces()) {
+                if (isRxInvoker(implemented)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Object createRxInvoker(Class<?> clazz, Invocation.Builder builder) {
+        try {
+            if (COMPLETION_STAGE_RX_INVOKER.equals(clazz.getName())) {
+                return Invocation.Builder.class.getMethod("rx").invoke(builder);
+            }
+            return Invocation.Builder.class.getMethod("rx", Class.class).invoke(builder, clazz);
+        } catch (Exception e) {
+            throw new RuntimeException("Cannot create " + clazz.getName() + " from " + builder, e);
+        }
+    }
 }
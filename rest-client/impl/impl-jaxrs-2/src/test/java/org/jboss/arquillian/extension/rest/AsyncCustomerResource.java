@@ -0,0 +1,47 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest;
+
+import org.jboss.arquillian.extension.rest.app.Customer;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.concurrent.CompletionStage;
+
+@Path("/customer")
+public interface AsyncCustomerResource {
+
+    @GET
+    @Produces({MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON})
+    CompletionStage<Response> getAllCustomers();
+
+    @GET
+    @Produces(MediaType.APPLICATION_XML)
+    @Path("/{id:[1-9][0-9]*}")
+    CompletionStage<Customer> getCustomerById(@PathParam("id") long id);
+
+    @POST
+    @Produces(MediaType.APPLICATION_XML)
+    @Path("/{id:[1-9][0-9]*}")
+    CompletionStage<Customer> banCustomer(@PathParam("id") long id);
+}
@@ -32,6 +32,8 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.client.AsyncInvoker;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.Entity;
@@ -40,7 +42,10 @@ import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
@@ -255,4 +260,79 @@ public class RestClientTestCase {
         assertEquals(MediaType.APPLICATION_JSON, response.getMediaType().toString());
         assertEquals(HttpStatus.SC_OK, response.getStatus());
     }
-}
\ No newline at end of file
+
+    @Test
+    @Produces(MediaType.APPLICATION_XML)
+    public void getCustomerByIdAsync(@ArquillianResteasyResource("rest/customer/1") AsyncInvoker asyncInvoker)
+        throws Exception {
+        //        When
+        final Future<Customer> result = asyncInvoker.get(Customer.class);
+
+        //        Then
+        assertEquals("Acme Corporation", result.get().getName());
+    }
+
+    @Test
+    @Produces(MediaType.APPLICATION_JSON)
+    public void getAllCustomersAsJsonAsync(@ArquillianResteasyResource("rest/customer") AsyncInvoker asyncInvoker)
+        throws Exception {
+        //        When
+        final Response response = asyncInvoker.get().get();
+
+        //        Then
+        assertEquals(HttpStatus.SC_OK, response.getStatus());
+        assertEquals(MediaType.APPLICATION_JSON, response.getMediaType().toString());
+    }
+
+    /**
+     * {@code @Produces} of the test method takes precedence over the media types the interface accepts.
+     *
+     * @param customerResource
+     *     configured resource ready for use, injected by Arquillian
+     */
+    @Test
+    @Produces(MediaType.APPLICATION_JSON)
+    public void getAllCustomersAsJsonThroughProxy(
+        @ArquillianResteasyResource("rest") AsyncCustomerResource customerResource) {
+        //        When
+        final Response response = customerResource.getAllCustomers().toCompletableFuture().join();
+
+        //        Then
+        assertEquals(HttpStatus.SC_OK, response.getStatus());
+        assertEquals(MediaType.APPLICATION_JSON, response.getMediaType().toString());
+    }
+
+    /**
+     * Interfaces returning CompletionStage are proxied without blocking, so many requests can be in flight at once and
+     * joined at the end.
+     *
+     * @param customerResource
+     *     configured resource ready for use, injected by Arquillian
+     */
+    @Test
+    public void getCustomersConcurrently(@ArquillianResteasyResource("rest") AsyncCustomerResource customerResource) {
+        //        Given
+        final List<CompletableFuture<Customer>> results = new ArrayList<CompletableFuture<Customer>>();
+
+        //        When
+        for (int i = 0; i < 50; i++) {
+            results.add(customerResource.getCustomerById(1 + i % 2).toCompletableFuture());
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[results.size()])).join();
+
+        //        Then
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i % 2 == 0 ? "Acme Corporation" : "Don", results.get(i).join().getName());
+        }
+    }
+
+    @Header(name = "Authorization", value = "abc")
+    @Test
+    public void banCustomerAsync(@ArquillianResteasyResource("rest") AsyncCustomerResource customerResource) {
+        //        When
+        final Customer result = customerResource.banCustomer(1).toCompletableFuture().join();
+
+        //        Then
+        assertTrue(result.isBanned());
+    }
+}
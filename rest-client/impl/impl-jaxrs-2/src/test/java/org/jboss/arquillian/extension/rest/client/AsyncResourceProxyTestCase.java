@@ -0,0 +1,125 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.ws.rs.BeanParam;
+import javax.ws.rs.CookieParam;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.core.Cookie;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.util.concurrent.CompletionStage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AsyncResourceProxyTestCase {
+
+    private Client client;
+
+    private RecordingFilter filter;
+
+    @Before
+    public void createClient() {
+        filter = new RecordingFilter();
+        client = ClientBuilder.newClient().register(filter);
+    }
+
+    @After
+    public void closeClient() {
+        client.close();
+    }
+
+    @Test
+    public void shouldSendCookieParameterAsCookie() {
+        //        Given
+        final CookieResource resource = (CookieResource) AsyncResourceProxy.create(CookieResource.class,
+            client.target("http://localhost/rest"), null, null);
+
+        //        When
+        final Response response = resource.get("abc").toCompletableFuture().join();
+
+        //        Then
+        assertEquals(200, response.getStatus());
+        assertEquals("abc", filter.cookie.getValue());
+        assertFalse(filter.hasEntity);
+    }
+
+    @Test
+    public void shouldRejectBeanParameter() {
+        //        Given
+        final CookieResource resource = (CookieResource) AsyncResourceProxy.create(CookieResource.class,
+            client.target("http://localhost/rest"), null, null);
+
+        //        When
+        try {
+            resource.delete(new Query());
+            fail("@BeanParam must not be sent as the entity");
+        } catch (UnsupportedOperationException e) {
+            //        Then
+            assertTrue(e.getMessage().contains("@BeanParam"));
+            assertEquals(0, filter.requests);
+        }
+    }
+
+    @Path("/cookies")
+    public interface CookieResource {
+
+        @GET
+        CompletionStage<Response> get(@CookieParam("session") String session);
+
+        @DELETE
+        CompletionStage<Response> delete(@BeanParam Query query);
+    }
+
+    public static class Query {
+
+        @QueryParam("q")
+        private String q;
+    }
+
+    private static class RecordingFilter implements ClientRequestFilter {
+
+        private volatile int requests;
+
+        private volatile Cookie cookie;
+
+        private volatile boolean hasEntity;
+
+        @Override
+        public void filter(ClientRequestContext clientRequestContext) throws IOException {
+            requests++;
+            cookie = clientRequestContext.getCookies().get("session");
+            hasEntity = clientRequestContext.hasEntity();
+            clientRequestContext.abortWith(Response.ok().build());
+        }
+    }
+}
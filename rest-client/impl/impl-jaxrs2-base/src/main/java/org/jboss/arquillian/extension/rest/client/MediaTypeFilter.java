@@ -0,0 +1,52 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client;
+
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies the media types of a test method to the requests of a resource proxy, see
+ * {@link AnnotationSubstitution#PROXY}. Shared by the JAX-RS 2.0 based implementations.
+ */
+public class MediaTypeFilter implements ClientRequestFilter {
+
+    private final MediaType contentType;
+
+    private final List<Object> accept;
+
+    public MediaTypeFilter(MediaTypeOverrides overrides) {
+        this.contentType = null != overrides.getContentType() ? MediaType.valueOf(overrides.getContentType()) : null;
+        this.accept = new ArrayList<Object>(overrides.getAccept());
+    }
+
+    @Override
+    public void filter(ClientRequestContext clientRequestContext) throws IOException {
+        if (null != contentType && clientRequestContext.hasEntity()) {
+            clientRequestContext.getHeaders().putSingle(HttpHeaders.CONTENT_TYPE, contentType);
+        }
+        if (!accept.isEmpty()) {
+            clientRequestContext.getHeaders().put(HttpHeaders.ACCEPT, new ArrayList<Object>(accept));
+        }
+    }
+}
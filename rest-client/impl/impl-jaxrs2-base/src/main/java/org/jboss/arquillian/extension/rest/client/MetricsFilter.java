@@ -0,0 +1,101 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.client.ClientResponseContext;
+import javax.ws.rs.client.ClientResponseFilter;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Reports every request of a client to the {@link RestClientMetricsRecorder}. Latency is measured from the request
+ * filter until the response headers have been received, sent bytes are counted while the entity is written and
+ * received bytes are taken from the Content-Length of the response.
+ * <p/>
+ * Shared by the JAX-RS 2.0 based implementations.
+ */
+public class MetricsFilter implements ClientRequestFilter, ClientResponseFilter, WriterInterceptor {
+
+    private static final String START = MetricsFilter.class.getName() + ".start";
+
+    private static final String BYTES_OUT = MetricsFilter.class.getName() + ".bytesOut";
+
+    private final RestClientMetricsRecorder recorder;
+
+    public MetricsFilter(RestClientMetricsRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @Override
+    public void filter(ClientRequestContext clientRequestContext) throws IOException {
+        clientRequestContext.setProperty(START, System.nanoTime());
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext writerInterceptorContext)
+        throws IOException, WebApplicationException {
+        final CountingOutputStream outputStream = new CountingOutputStream(writerInterceptorContext.getOutputStream());
+        writerInterceptorContext.setOutputStream(outputStream);
+        try {
+            writerInterceptorContext.proceed();
+        } finally {
+            writerInterceptorContext.setProperty(BYTES_OUT, outputStream.count);
+        }
+    }
+
+    @Override
+    public void filter(ClientRequestContext clientRequestContext, ClientResponseContext clientResponseContext)
+        throws IOException {
+        final Object start = clientRequestContext.getProperty(START);
+        if (!(start instanceof Long)) {
+            return;
+        }
+        final long latency = System.nanoTime() - (Long) start;
+        final Object bytesOut = clientRequestContext.getProperty(BYTES_OUT);
+        recorder.record(clientRequestContext.getMethod(), clientRequestContext.getUri().getPath(),
+            clientResponseContext.getStatus(), bytesOut instanceof Long ? (Long) bytesOut : 0,
+            clientResponseContext.getLength(), latency);
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.jboss.arquillian.extension.rest.client;
 
+import org.glassfish.jersey.client.ClientProperties;
 import org.glassfish.jersey.client.JerseyClientBuilder;
 import org.glassfish.jersey.client.JerseyWebTarget;
 import org.glassfish.jersey.client.proxy.WebResourceFactory;
@@ -9,7 +10,6 @@ import javax.ws.rs.Consumes;
 import javax.ws.rs.Produces;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.WebTarget;
-import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.util.Map;
 
@@ -18,29 +18,86 @@ public class RestEnricher extends BaseRestEnricher implements TestEnricher {
     @Override
     protected Object enrichByType(Class<?> clazz, Method method, ArquillianResteasyResource annotation, Consumes consumes,
         Produces produces) {
-        Object value;
-        Client client = JerseyClientBuilder.newClient();
-        WebTarget webTarget = client.target(getBaseURL() + annotation.value());
+        final String target = getBaseURL() + annotation.value();
         final Map<String, String> headers = getHeaders(clazz, method);
+        if (WebTarget.class.isAssignableFrom(clazz)) {
+            return createWebTarget(getClient(new ClientFactory()), target, headers);
+        }
+        // WebResourceFactory takes the media types from the interface, consumes and produces don't affect the proxy
+        final ResourceProxyKey key = new ResourceProxyKey(getProxyType(clazz, method), target, headers, null, null,
+            getMediaTypeOverrides(method));
+        return getResourceProxy(clazz, key, new ProxyFactory(key));
+    }
+
+    private static JerseyWebTarget createWebTarget(Client client, String target, Map<String, String> headers) {
+        final WebTarget webTarget = client.target(target);
         if (!headers.isEmpty()) {
             webTarget.register(new HeaderFilter(headers));
         }
-        JerseyWebTarget jerseyWebTarget = (JerseyWebTarget) webTarget;
-        if (WebTarget.class.isAssignableFrom(clazz)) {
-            value = jerseyWebTarget;
-        } else {
-            final Class<?> parameterType;
-            try {
-                final Annotation[] methodDeclaredAnnotations = method.getDeclaredAnnotations();
-                //                                This is test method so if it only contains @Test annotation then we don't need to hassel with substitutions
-                parameterType = methodDeclaredAnnotations.length <= 1 ? clazz
-                    : ClassModifier.getModifiedClass(clazz, methodDeclaredAnnotations);
-            } catch (Exception e) {
-                throw new RuntimeException("Cannot substitute annotations for method " + method.getName(), e);
+        return (JerseyWebTarget) webTarget;
+    }
+
+    private Client createClient() {
+        final RestClientConfiguration configuration = getConfiguration();
+        final JerseyClientBuilder clientBuilder = new JerseyClientBuilder();
+        // The default HttpURLConnection based connector only honours timeouts per client, connection pooling and
+        // keep-alive are JVM wide (http.maxConnections, http.keepAlive system properties)
+        if (RestClientConfiguration.isSet(configuration.getConnectTimeout())) {
+            clientBuilder.property(ClientProperties.CONNECT_TIMEOUT, configuration.getConnectTimeout());
+        }
+        if (RestClientConfiguration.isSet(configuration.getSocketTimeout())) {
+            clientBuilder.property(ClientProperties.READ_TIMEOUT, configuration.getSocketTimeout());
+        }
+        final RestClientMetricsRecorder metricsRecorder = getMetricsRecorder();
+        if (null != metricsRecorder) {
+            clientBuilder.register(new MetricsFilter(metricsRecorder));
+        }
+        return clientBuilder.build();
+    }
+
+    /**
+     * Creates the client injected {@link WebTarget}s and resource proxies are derived from, shared by the tests of a
+     * deployment.
+     */
+    private final class ClientFactory implements RestClientFactory<Client> {
+
+        @Override
+        public Client create(RestClientConfiguration configuration) {
+            return createClient();
+        }
+
+        @Override
+        public void close(Client client) {
+            client.close();
+        }
+    }
+
+    /**
+     * Creates the proxy of a resource on the client shared by the tests of a deployment, the proxy holds no resources
+     * of its own.
+     */
+    private final class ProxyFactory implements RestClientFactory<Object> {
+
+        private final ResourceProxyKey key;
+
+        private ProxyFactory(ResourceProxyKey key) {
+            this.key = key;
+        }
+
+        @Override
+        public Object create(RestClientConfiguration configuration) {
+            final JerseyWebTarget webTarget =
+                createWebTarget(getClient(new ClientFactory()), key.getTarget(), key.getHeaders());
+            if (null != key.getMediaTypeOverrides()) {
+                webTarget.register(new MediaTypeFilter(key.getMediaTypeOverrides()));
             }
-            value = WebResourceFactory.newResource(parameterType, jerseyWebTarget);
+            return WebResourceFactory.newResource(key.getType(), webTarget);
+        }
+
+        @Override
+        public void close(Object proxy) {
+            // the shared client is closed with the deployment
         }
-        return value;
     }
 
     @Override
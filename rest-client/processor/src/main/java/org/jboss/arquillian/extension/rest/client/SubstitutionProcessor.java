@@ -0,0 +1,380 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.SimpleAnnotationValueVisitor8;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+
+/**
+ * Generates, at compile time of the tests, the subinterfaces {@link ClassModifier} would otherwise generate with
+ * javassist when a test method injecting a resource interface carries annotations to substitute.
+ * <p/>
+ * For every test method parameter annotated with {@link ArquillianResteasyResource} the resource interface is
+ * extended by a source file redeclaring each of its methods with the runtime annotations of the test method in place
+ * of the annotations of the same types. The generated interfaces are listed in {@link PrecompiledSubstitutions#INDEX}.
+ * Injection points that can't be generated (non public interfaces, generic interfaces, overloaded test methods, ...)
+ * are left to {@link ClassModifier} at runtime.
+ */
+@SupportedAnnotationTypes("org.jboss.arquillian.extension.rest.client.ArquillianResteasyResource")
+public class SubstitutionProcessor extends AbstractProcessor {
+
+    private static final String REST_LOAD = RestLoad.class.getName();
+
+    private static final String HTTP_METHOD = "javax.ws.rs.HttpMethod";
+
+    private final Map<String, String> index = new TreeMap<String, String>();
+
+    private final Set<String> generated = new LinkedHashSet<String>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        final TypeElement resource =
+            processingEnv.getElementUtils().getTypeElement(ArquillianResteasyResource.class.getName());
+        if (null != resource) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(resource)) {
+                if (ElementKind.PARAMETER == element.getKind()
+                    && ElementKind.METHOD == element.getEnclosingElement().getKind()) {
+                    process((ExecutableElement) element.getEnclosingElement(), element.asType());
+                }
+            }
+        }
+        if (roundEnv.processingOver() && !index.isEmpty()) {
+            writeIndex();
+        }
+        return false;
+    }
+
+    private void process(ExecutableElement method, TypeMirror parameterType) {
+        final TypeElement resource = getResourceType(parameterType);
+        final TypeElement testClass = (TypeElement) method.getEnclosingElement();
+        if (null == resource || !isSubstitutable(resource, testClass) || isOverloaded(method)) {
+            return;
+        }
+        final List<AnnotationMirror> substitutions = getSubstitutions(method, testClass);
+        // see InjectionPlan#hasSubstitutions(), a lone @Test doesn't substitute anything
+        if (null == substitutions || substitutions.size() < 2) {
+            return;
+        }
+        final String packageName = getPackage(testClass).getQualifiedName().toString();
+        final String testClassName = binaryName(testClass);
+        final String simpleName = testClassName.substring(testClassName.lastIndexOf('.') + 1) + '$'
+            + method.getSimpleName() + '$' + resource.getSimpleName();
+        final String name = packageName.isEmpty() ? simpleName : packageName + '.' + simpleName;
+        if (generated.add(name)) {
+            try {
+                writeSource(packageName, simpleName, resource, substitutions, testClass);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Cannot generate " + name + ": " + e.getMessage(), method);
+                return;
+            }
+        }
+        index.put(PrecompiledSubstitutions.keyFor(testClassName, method.getSimpleName().toString(),
+            binaryName(resource)), name);
+    }
+
+    private TypeElement getResourceType(TypeMirror type) {
+        if (TypeKind.DECLARED != type.getKind()) {
+            return null;
+        }
+        final DeclaredType declaredType = (DeclaredType) type;
+        final TypeElement element = (TypeElement) declaredType.asElement();
+        if (REST_LOAD.equals(element.getQualifiedName().toString())) {
+            return declaredType.getTypeArguments().size() == 1 ? getResourceType(declaredType.getTypeArguments().get(0))
+                : null;
+        }
+        return element;
+    }
+
+    private boolean isSubstitutable(TypeElement resource, TypeElement testClass) {
+        if (ElementKind.INTERFACE != resource.getKind() || !resource.getTypeParameters().isEmpty()
+            || !isAccessible(resource, testClass)) {
+            return false;
+        }
+        boolean resourceMethod = false;
+        for (ExecutableElement method : ElementFilter.methodsIn(resource.getEnclosedElements())) {
+            // default methods would have to be redeclared abstract
+            if (method.getModifiers().contains(Modifier.DEFAULT)) {
+                return false;
+            }
+            resourceMethod |= isResourceMethod(method);
+        }
+        return resourceMethod;
+    }
+
+    private boolean isResourceMethod(ExecutableElement method) {
+        for (AnnotationMirror annotation : method.getAnnotationMirrors()) {
+            for (AnnotationMirror meta : annotation.getAnnotationType().asElement().getAnnotationMirrors()) {
+                if (HTTP_METHOD.equals(qualifiedName(meta))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean isOverloaded(ExecutableElement method) {
+        int count = 0;
+        for (ExecutableElement candidate : ElementFilter.methodsIn(method.getEnclosingElement().getEnclosedElements())) {
+            if (candidate.getSimpleName().equals(method.getSimpleName())) {
+                count++;
+            }
+        }
+        return count > 1;
+    }
+
+    /**
+     * @return runtime annotations of the test method, null if any of them can't be referred to from the package of
+     * the test class
+     */
+    private List<AnnotationMirror> getSubstitutions(ExecutableElement method, TypeElement testClass) {
+        final List<AnnotationMirror> substitutions = new ArrayList<AnnotationMirror>();
+        for (AnnotationMirror annotation : method.getAnnotationMirrors()) {
+            final TypeElement type = (TypeElement) annotation.getAnnotationType().asElement();
+            if (isRuntime(type)) {
+                if (!isAccessible(type, testClass)) {
+                    return null;
+                }
+                substitutions.add(annotation);
+            }
+        }
+        return substitutions;
+    }
+
+    private boolean isRuntime(TypeElement annotationType) {
+        final Retention retention = annotationType.getAnnotation(Retention.class);
+        return null != retention && RetentionPolicy.RUNTIME == retention.value();
+    }
+
+    private boolean isAccessible(TypeElement type, TypeElement from) {
+        final boolean samePackage = getPackage(type).equals(getPackage(from));
+        for (Element element = type; element instanceof TypeElement; element = element.getEnclosingElement()) {
+            final Set<Modifier> modifiers = element.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE) || !samePackage && !modifiers.contains(Modifier.PUBLIC)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeSource(String packageName, String simpleName, TypeElement resource,
+        List<AnnotationMirror> substitutions, TypeElement testClass) throws IOException {
+        final Set<String> substituted = new LinkedHashSet<String>();
+        for (AnnotationMirror annotation : substitutions) {
+            substituted.add(qualifiedName(annotation));
+        }
+        final StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("/**\n * Generated by ").append(getClass().getName()).append(" from ")
+            .append(resource.getQualifiedName()).append(".\n */\n");
+        for (AnnotationMirror annotation : resource.getAnnotationMirrors()) {
+            if (isRuntime((TypeElement) annotation.getAnnotationType().asElement())) {
+                source.append(toSource(annotation)).append('\n');
+            }
+        }
+        source.append("public interface ").append(simpleName).append(" extends ").append(resource.getQualifiedName())
+            .append(" {\n");
+        for (ExecutableElement method : ElementFilter.methodsIn(resource.getEnclosedElements())) {
+            if (!method.getModifiers().contains(Modifier.STATIC)) {
+                source.append('\n');
+                appendMethod(source, method, substituted, substitutions);
+            }
+        }
+        source.append("}\n");
+        final Writer writer = processingEnv.getFiler().createSourceFile(
+            packageName.isEmpty() ? simpleName : packageName + '.' + simpleName, testClass, resource).openWriter();
+        try {
+            writer.write(source.toString());
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void appendMethod(StringBuilder source, ExecutableElement method, Set<String> substituted,
+        List<AnnotationMirror> substitutions) {
+        for (AnnotationMirror annotation : method.getAnnotationMirrors()) {
+            if (!substituted.contains(qualifiedName(annotation))) {
+                source.append("    ").append(toSource(annotation)).append('\n');
+            }
+        }
+        for (AnnotationMirror annotation : substitutions) {
+            source.append("    ").append(toSource(annotation)).append('\n');
+        }
+        source.append("    ");
+        if (!method.getTypeParameters().isEmpty()) {
+            source.append('<');
+            for (TypeParameterElement typeParameter : method.getTypeParameters()) {
+                if (source.charAt(source.length() - 1) != '<') {
+                    source.append(", ");
+                }
+                source.append(typeParameter.getSimpleName());
+                final List<? extends TypeMirror> bounds = typeParameter.getBounds();
+                if (!(bounds.size() == 1 && Object.class.getName().equals(bounds.get(0).toString()))) {
+                    for (int i = 0; i < bounds.size(); i++) {
+                        source.append(i == 0 ? " extends " : " & ").append(bounds.get(i));
+                    }
+                }
+            }
+            source.append("> ");
+        }
+        source.append(method.getReturnType()).append(' ').append(method.getSimpleName()).append('(');
+        final List<? extends VariableElement> parameters = method.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            final VariableElement parameter = parameters.get(i);
+            if (i > 0) {
+                source.append(", ");
+            }
+            for (AnnotationMirror annotation : parameter.getAnnotationMirrors()) {
+                source.append(toSource(annotation)).append(' ');
+            }
+            if (method.isVarArgs() && i == parameters.size() - 1) {
+                source.append(((ArrayType) parameter.asType()).getComponentType()).append("...");
+            } else {
+                source.append(parameter.asType());
+            }
+            source.append(' ').append(parameter.getSimpleName());
+        }
+        source.append(')');
+        final List<? extends TypeMirror> thrownTypes = method.getThrownTypes();
+        for (int i = 0; i < thrownTypes.size(); i++) {
+            source.append(i == 0 ? " throws " : ", ").append(thrownTypes.get(i));
+        }
+        source.append(";\n");
+    }
+
+    private String toSource(AnnotationMirror annotation) {
+        final StringBuilder source = new StringBuilder("@").append(qualifiedName(annotation));
+        final Map<? extends ExecutableElement, ? extends AnnotationValue> values = annotation.getElementValues();
+        if (!values.isEmpty()) {
+            source.append('(');
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+                if (source.charAt(source.length() - 1) != '(') {
+                    source.append(", ");
+                }
+                source.append(entry.getKey().getSimpleName()).append(" = ")
+                    .append(entry.getValue().accept(new ValueWriter(), null));
+            }
+            source.append(')');
+        }
+        return source.toString();
+    }
+
+    private void writeIndex() {
+        final Properties properties = new Properties();
+        properties.putAll(index);
+        try {
+            final OutputStream stream = processingEnv.getFiler()
+                .createResource(StandardLocation.CLASS_OUTPUT, "", PrecompiledSubstitutions.INDEX)
+                .openOutputStream();
+            try {
+                properties.store(stream, "Generated by " + getClass().getName());
+            } finally {
+                stream.close();
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                "Cannot write " + PrecompiledSubstitutions.INDEX + ": " + e.getMessage());
+        }
+    }
+
+    private PackageElement getPackage(Element element) {
+        return processingEnv.getElementUtils().getPackageOf(element);
+    }
+
+    private String binaryName(TypeElement type) {
+        return processingEnv.getElementUtils().getBinaryName(type).toString();
+    }
+
+    private static String qualifiedName(AnnotationMirror annotation) {
+        return ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString();
+    }
+
+    private class ValueWriter extends SimpleAnnotationValueVisitor8<String, Void> {
+
+        @Override
+        protected String defaultAction(Object value, Void parameter) {
+            return processingEnv.getElementUtils().getConstantExpression(value);
+        }
+
+        @Override
+        public String visitType(TypeMirror type, Void parameter) {
+            return processingEnv.getTypeUtils().erasure(type) + ".class";
+        }
+
+        @Override
+        public String visitEnumConstant(VariableElement constant, Void parameter) {
+            return ((TypeElement) constant.getEnclosingElement()).getQualifiedName() + "." + constant.getSimpleName();
+        }
+
+        @Override
+        public String visitAnnotation(AnnotationMirror annotation, Void parameter) {
+            return toSource(annotation);
+        }
+
+        @Override
+        public String visitArray(List<? extends AnnotationValue> values, Void parameter) {
+            final StringBuilder source = new StringBuilder("{");
+            for (AnnotationValue value : values) {
+                if (source.length() > 1) {
+                    source.append(", ");
+                }
+                source.append(value.accept(this, null));
+            }
+            return source.append('}').toString();
+        }
+    }
+}
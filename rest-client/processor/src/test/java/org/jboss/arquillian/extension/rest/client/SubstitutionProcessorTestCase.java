@@ -0,0 +1,162 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.client;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SubstitutionProcessorTestCase {
+
+    private static final String RESOURCE = "package sample;\n"
+        + "@javax.ws.rs.Path(\"/sample\")\n"
+        + "public interface SampleResource {\n"
+        + "    @javax.ws.rs.GET @javax.ws.rs.Produces(javax.ws.rs.core.MediaType.TEXT_PLAIN)\n"
+        + "    String get();\n"
+        + "    @javax.ws.rs.GET @javax.ws.rs.Path(\"/{id}\")\n"
+        + "    <T extends Number> java.util.List<String> get(@javax.ws.rs.PathParam(\"id\") T id) throws java.io.IOException;\n"
+        + "}\n";
+
+    private static final String TEST = "package sample;\n"
+        + "import org.jboss.arquillian.extension.rest.client.*;\n"
+        + "public class SampleTestCase {\n"
+        + "    @org.junit.Test @javax.ws.rs.Produces({\"application/json\", \"application/xml\"})\n"
+        + "    public void json(@ArquillianResteasyResource SampleResource resource) {}\n"
+        + "    @org.junit.Test @javax.ws.rs.Produces(\"application/xml\")\n"
+        + "    public void load(@ArquillianResteasyResource RestLoad<SampleResource> load) {}\n"
+        + "    @org.junit.Test\n"
+        + "    public void plain(@ArquillianResteasyResource SampleResource resource) {}\n"
+        + "    @org.junit.Test @javax.ws.rs.Produces(\"application/xml\")\n"
+        + "    public void overloaded(@ArquillianResteasyResource SampleResource resource) {}\n"
+        + "    public void overloaded() {}\n"
+        + "}\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ClassLoader classLoader;
+
+    @Before
+    public void compile() throws Exception {
+        final File output = folder.newFolder("classes");
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final List<String> options = Arrays.asList("-d", output.getPath(), "-s", folder.newFolder("sources").getPath(),
+            "-classpath", System.getProperty("java.class.path"));
+        final JavaCompiler.CompilationTask task = compiler.getTask(null, null, null, options, null,
+            Arrays.asList(new Source("sample/SampleResource", RESOURCE), new Source("sample/SampleTestCase", TEST)));
+        task.setProcessors(Collections.singletonList(new SubstitutionProcessor()));
+        assertTrue(task.call());
+        classLoader = new URLClassLoader(new URL[] {output.toURI().toURL()}, getClass().getClassLoader());
+    }
+
+    @Test
+    public void shouldGenerateSubstitutedInterface() throws Exception {
+        //        Given
+        final Class<?> resource = classLoader.loadClass("sample.SampleResource");
+        final Method method = classLoader.loadClass("sample.SampleTestCase").getMethod("json", resource);
+
+        //        When
+        final Class<?> generated = PrecompiledSubstitutions.find(resource, method, classLoader);
+
+        //        Then
+        assertNotNull(generated);
+        assertEquals("sample.SampleTestCase$json$SampleResource", generated.getName());
+        assertTrue(resource.isAssignableFrom(generated));
+        assertEquals("/sample", generated.getAnnotation(Path.class).value());
+        assertEquals(Arrays.asList(MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML),
+            Arrays.asList(generated.getDeclaredMethod("get").getAnnotation(Produces.class).value()));
+        final Method get = generated.getDeclaredMethod("get", Number.class);
+        assertEquals("/{id}", get.getAnnotation(Path.class).value());
+        assertEquals("id", ((PathParam) get.getParameterAnnotations()[0][0]).value());
+        assertEquals(MediaType.APPLICATION_JSON, get.getAnnotation(Produces.class).value()[0]);
+        assertNotNull(get.getAnnotation(Test.class));
+    }
+
+    @Test
+    public void shouldGenerateInterfaceOfRestLoad() throws Exception {
+        //        Given
+        final Class<?> resource = classLoader.loadClass("sample.SampleResource");
+        final Method method = classLoader.loadClass("sample.SampleTestCase").getMethod("load", RestLoad.class);
+
+        //        When
+        final Class<?> generated = PrecompiledSubstitutions.find(resource, method, classLoader);
+
+        //        Then
+        assertNotNull(generated);
+        assertSame(generated, PrecompiledSubstitutions.find(resource, method, classLoader));
+        assertEquals(MediaType.APPLICATION_XML,
+            generated.getDeclaredMethod("get").getAnnotation(Produces.class).value()[0]);
+    }
+
+    @Test
+    public void shouldSkipMethodsWithoutSubstitutionsAndOverloadedMethods() throws Exception {
+        //        Given
+        final Properties index = new Properties();
+        index.load(classLoader.getResourceAsStream(PrecompiledSubstitutions.INDEX));
+        final Class<?> resource = classLoader.loadClass("sample.SampleResource");
+        final Class<?> testClass = classLoader.loadClass("sample.SampleTestCase");
+
+        //        Then
+        assertEquals(2, index.size());
+        assertFalse(index.containsKey(PrecompiledSubstitutions.keyFor("sample.SampleTestCase", "plain",
+            "sample.SampleResource")));
+        assertNull(PrecompiledSubstitutions.find(resource, testClass.getMethod("plain", resource), classLoader));
+        assertNull(PrecompiledSubstitutions.find(resource, testClass.getMethod("overloaded", resource), classLoader));
+    }
+
+    private static class Source extends SimpleJavaFileObject {
+
+        private final String content;
+
+        private Source(String name, String content) {
+            super(URI.create("string:///" + name + Kind.SOURCE.extension), Kind.SOURCE);
+            this.content = content;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return content;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.warp.api;
+
+/**
+ * The bytes of an entity as they were read from the request or written to the response.
+ * <p/>
+ * Depending on the configured entity capture, the content holds the whole entity, only its beginning or nothing at all,
+ * while the size and the digest always cover the whole entity, so that large entities can be verified without being
+ * kept in memory.
+ */
+public interface CapturedEntity {
+
+    /**
+     * Retrieves the captured bytes of the entity.
+     *
+     * @return the captured bytes, empty if only the digest is captured
+     */
+    byte[] getContent();
+
+    /**
+     * Retrieves the number of bytes of the entity that went through the stream.
+     *
+     * @return the entity size in bytes
+     */
+    long getSize();
+
+    /**
+     * Returns whether the content holds only the beginning of the entity.
+     *
+     * @return true if not all the bytes of the entity have been captured
+     */
+    boolean isTruncated();
+
+    /**
+     * Retrieves the name of the digest algorithm.
+     *
+     * @return the digest algorithm
+     */
+    String getDigestAlgorithm();
+
+    /**
+     * Retrieves the digest of the whole entity.
+     *
+     * @return the lower case hexadecimal digest
+     */
+    String getDigest();
+}
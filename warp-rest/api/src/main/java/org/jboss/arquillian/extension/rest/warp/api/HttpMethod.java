@@ -19,10 +19,13 @@ package org.jboss.arquillian.extension.rest.warp.api;
 
 /**
  * Represents the http method.
+ * <p/>
+ * Requests using a method that isn't listed here are still captured, with their method available only as
+ * {@link HttpRequest#getMethodName()}.
  *
  * @author <a href="mailto:jmnarloch@gmail.com">Jakub Narloch</a>
  */
-public enum HttpMethod{
+public enum HttpMethod {
 
     /**
      * HTTP GET method.
@@ -47,5 +50,75 @@ public enum HttpMethod{
     /**
      * HTTP HEAD method.
      */
-    HEAD
+    HEAD,
+
+    /**
+     * HTTP OPTIONS method.
+     */
+    OPTIONS,
+
+    /**
+     * HTTP PATCH method.
+     */
+    PATCH,
+
+    /**
+     * HTTP TRACE method.
+     */
+    TRACE,
+
+    /**
+     * HTTP CONNECT method.
+     */
+    CONNECT;
+
+    /**
+     * Represents all the methods, since {@link #values()} copies them on each call.
+     */
+    private static final HttpMethod[] METHODS = values();
+
+    /**
+     * Retrieves the method of the given name, without allocating.
+     * <p/>
+     * The method names are case-sensitive, but since some clients send them in lower case, those are matched as well.
+     *
+     * @param name
+     *     the method name
+     *
+     * @return the method or null if the name is null or doesn't denote any of the known methods
+     */
+    public static HttpMethod fromName(String name) {
+
+        if (name == null) {
+            return null;
+        }
+
+        switch (name) {
+            case "GET":
+                return GET;
+            case "PUT":
+                return PUT;
+            case "POST":
+                return POST;
+            case "DELETE":
+                return DELETE;
+            case "HEAD":
+                return HEAD;
+            case "OPTIONS":
+                return OPTIONS;
+            case "PATCH":
+                return PATCH;
+            case "TRACE":
+                return TRACE;
+            case "CONNECT":
+                return CONNECT;
+            default:
+                for (HttpMethod method : METHODS) {
+                    if (method.name().equalsIgnoreCase(name)) {
+                        return method;
+                    }
+                }
+                return null;
+        }
     }
+}
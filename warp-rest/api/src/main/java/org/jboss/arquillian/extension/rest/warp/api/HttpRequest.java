@@ -29,10 +29,17 @@ public interface HttpRequest {
     /**
      * Retrieves the http method.
      *
-     * @return the http method.
+     * @return the http method or null if the request uses a method that isn't listed in {@link HttpMethod}
      */
     HttpMethod getMethod();
 
+    /**
+     * Retrieves the name of the http method, as it was received.
+     *
+     * @return the http method name
+     */
+    String getMethodName();
+
     /**
      * Retrieves the request content type.
      *
@@ -47,6 +54,13 @@ public interface HttpRequest {
      */
     Object getEntity();
 
+    /**
+     * Retrieves the bytes of the request entity, captured when the entity capture isn't set to full.
+     *
+     * @return the captured entity or null if the entity object itself is captured
+     */
+    CapturedEntity getCapturedEntity();
+
     /**
      * Retrieves the request http headers.
      *
@@ -48,6 +48,20 @@ public interface HttpResponse {
      */
     Object getEntity();
 
+    /**
+     * Retrieves the bytes of the response entity, captured when the entity capture isn't set to full.
+     *
+     * @return the captured entity or null if the entity object itself is captured
+     */
+    CapturedEntity getCapturedEntity();
+
+    /**
+     * Retrieves the timeline of the response stream, captured when the entity is streamed.
+     *
+     * @return the stream timeline or null if the response entity isn't streamed
+     */
+    StreamTimeline getStreamTimeline();
+
     /**
      * Retrieves the request http headers.
      *
@@ -28,6 +28,7 @@ import javax.ws.rs.core.Response;
  * @author <a href="mailto:jmnarloch@gmail.com">Jakub Narloch</a>
  * @see HttpRequest
  * @see HttpResponse
+ * @see Timing
  * @see ArquillianResource
  */
 public interface RestContext {
@@ -59,4 +60,11 @@ public interface RestContext {
      * @return security context
      */
     SecurityContext getSecurityContext();
+
+    /**
+     * Retrieves the server side timing of the request.
+     *
+     * @return the timing
+     */
+    Timing getTiming();
 }
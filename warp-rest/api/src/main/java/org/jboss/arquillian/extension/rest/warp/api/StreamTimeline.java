@@ -0,0 +1,92 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.warp.api;
+
+import java.util.List;
+
+/**
+ * The timeline of a streamed response entity, such as a {@code StreamingOutput} or server-sent events.
+ * <p/>
+ * The response stream is split into chunks at each flush, so the timeline shows whether the entity has been sent
+ * incrementally or held back until the end. The stream itself isn't buffered by the capture.
+ */
+public interface StreamTimeline {
+
+    /**
+     * Retrieves the number of chunks flushed to the client.
+     *
+     * @return the chunk count
+     */
+    long getChunkCount();
+
+    /**
+     * Retrieves the number of bytes written to the stream.
+     *
+     * @return the stream size in bytes
+     */
+    long getSize();
+
+    /**
+     * Retrieves the longest time between two consecutive chunks, or between the opening of the stream and the first
+     * chunk.
+     *
+     * @return the longest interval in nanoseconds
+     */
+    long getMaxInterval();
+
+    /**
+     * Retrieves the first chunks, up to the configured limit.
+     *
+     * @return the recorded chunks
+     */
+    List<Chunk> getChunks();
+
+    /**
+     * Returns whether more chunks have been flushed than recorded.
+     *
+     * @return true if not all chunks have been recorded
+     */
+    boolean isTruncated();
+
+    /**
+     * Retrieves the first bytes written to the stream, up to the configured limit.
+     *
+     * @return the first bytes of the stream
+     */
+    byte[] getHead();
+
+    /**
+     * A single chunk of the stream.
+     */
+    interface Chunk {
+
+        /**
+         * Retrieves the time at which the chunk was flushed.
+         *
+         * @return the nanoseconds elapsed since the stream was opened
+         */
+        long getTime();
+
+        /**
+         * Retrieves the number of bytes of the chunk.
+         *
+         * @return the chunk size in bytes
+         */
+        long getSize();
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.warp.api;
+
+/**
+ * The server side timing of the request, recorded by the interceptors at the boundaries of its processing phases.
+ * <p/>
+ * The timestamps are the values of {@link System#nanoTime()} in the server, so only the differences between them are
+ * meaningful. The durations exclude the network, which makes them suitable for asserting the latency budgets of the
+ * service.
+ */
+public interface Timing {
+
+    /**
+     * Retrieves the timestamp of the given mark.
+     *
+     * @param mark
+     *     the mark
+     *
+     * @return the timestamp in nanoseconds or -1 if the mark hasn't been recorded
+     */
+    long getTimestamp(Mark mark);
+
+    /**
+     * Retrieves the time spent reading the request entity.
+     *
+     * @return the duration in nanoseconds or -1 if no request entity has been read
+     */
+    long getDeserializationTime();
+
+    /**
+     * Retrieves the time spent in the resource method, from the end of the request processing, including the request
+     * entity if any, until the response is filtered.
+     *
+     * @return the duration in nanoseconds or -1 if the response hasn't been filtered
+     */
+    long getResourceTime();
+
+    /**
+     * Retrieves the time spent writing the response entity.
+     *
+     * @return the duration in nanoseconds or -1 if no response entity has been written
+     */
+    long getSerializationTime();
+
+    /**
+     * Retrieves the time from the request being filtered until the last recorded mark.
+     *
+     * @return the duration in nanoseconds or -1 if the request hasn't been filtered
+     */
+    long getTotalTime();
+
+    /**
+     * The boundaries of the request processing phases.
+     */
+    enum Mark {
+
+        /**
+         * The request is being filtered.
+         */
+        REQUEST,
+
+        /**
+         * The request entity starts being read.
+         */
+        REQUEST_ENTITY_START,
+
+        /**
+         * The request entity has been read.
+         */
+        REQUEST_ENTITY_END,
+
+        /**
+         * The response is being filtered.
+         */
+        RESPONSE,
+
+        /**
+         * The response entity starts being written.
+         */
+        RESPONSE_ENTITY_START,
+
+        /**
+         * The response entity has been written.
+         */
+        RESPONSE_ENTITY_END
+    }
+}
@@ -0,0 +1,4 @@
+package org.jboss.arquillian.extension.rest.warp.benchmark.generated;
+public class HeaderMapBenchmark_jmhType extends HeaderMapBenchmark_jmhType_B3 {
+}
+
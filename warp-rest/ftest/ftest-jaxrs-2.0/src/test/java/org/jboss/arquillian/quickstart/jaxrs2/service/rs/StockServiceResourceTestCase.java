@@ -55,6 +55,7 @@ import java.util.Date;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * The test case that uses RestEasy client API for calling the REST test.
@@ -177,6 +178,8 @@ public class StockServiceResourceTestCase {
                 assertEquals(200, restContext.getHttpResponse().getStatusCode());
                 assertEquals("application/json", restContext.getHttpResponse().getContentType());
                 assertNotNull(restContext.getHttpResponse().getEntity());
+                assertTrue(restContext.getTiming().getResourceTime() >= 0);
+                assertTrue(restContext.getTiming().getSerializationTime() >= 0);
             }
         });
     }
@@ -17,6 +17,8 @@
  */
 package org.jboss.arquillian.extension.rest.warp.impl.client;
 
+import org.jboss.arquillian.config.descriptor.api.ArquillianDescriptor;
+import org.jboss.arquillian.config.descriptor.api.ExtensionDef;
 import org.jboss.arquillian.container.test.spi.RemoteLoadableExtension;
 import org.jboss.arquillian.core.api.Instance;
 import org.jboss.arquillian.core.api.annotation.Inject;
@@ -25,13 +27,18 @@ import org.jboss.arquillian.core.spi.ServiceLoader;
 import org.jboss.arquillian.extension.rest.warp.api.RestContext;
 import org.jboss.arquillian.extension.rest.warp.impl.container.WarpRestRemoteExtension;
 import org.jboss.arquillian.extension.rest.warp.impl.provider.RestContextProvider;
+import org.jboss.arquillian.extension.rest.warp.spi.CapturePolicy;
 import org.jboss.arquillian.extension.rest.warp.spi.WarpRestInterceptorEnricher;
 import org.jboss.arquillian.warp.spi.WarpDeploymentEnrichmentExtension;
 import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
 import org.jboss.shrinkwrap.api.spec.JavaArchive;
 import org.jboss.shrinkwrap.api.spec.WebArchive;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.Collection;
+import java.util.Properties;
 
 /**
  * Warp Rest extension. This class is responsible for bootstrapping the core functionality,
@@ -47,6 +54,12 @@ public class WarpRestExtension implements LoadableExtension, WarpDeploymentEnric
     @Inject
     private Instance<ServiceLoader> serviceLoaderInstance;
 
+    /**
+     * {@link ArquillianDescriptor} instance.
+     */
+    @Inject
+    private Instance<ArquillianDescriptor> descriptorInstance;
+
     /**
      * {@inheritDoc}
      */
@@ -77,6 +90,12 @@ public class WarpRestExtension implements LoadableExtension, WarpDeploymentEnric
         // registers the extension
         archive.addAsServiceProvider(RemoteLoadableExtension.class, WarpRestRemoteExtension.class);
 
+        // passes the capture policy configuration to the container
+        Properties configuration = getConfiguration();
+        if (!configuration.isEmpty()) {
+            archive.addAsResource(new StringAsset(toString(configuration)), CapturePolicy.CONFIGURATION_RESOURCE);
+        }
+
         return archive;
     }
 
@@ -96,4 +115,45 @@ public class WarpRestExtension implements LoadableExtension, WarpDeploymentEnric
             enricher.enrichWebArchive(webArchive);
         }
     }
+
+    /**
+     * Retrieves the properties of the {@link CapturePolicy#EXTENSION_QUALIFIER} extension from arquillian.xml.
+     *
+     * @return the extension configuration, empty if none is given
+     */
+    private Properties getConfiguration() {
+
+        Properties properties = new Properties();
+        ArquillianDescriptor descriptor = descriptorInstance.get();
+
+        if (descriptor != null) {
+            for (ExtensionDef extension : descriptor.getExtensions()) {
+                if (CapturePolicy.EXTENSION_QUALIFIER.equals(extension.getExtensionName())) {
+                    properties.putAll(extension.getExtensionProperties());
+                }
+            }
+        }
+
+        return properties;
+    }
+
+    /**
+     * Stores the properties as a string.
+     *
+     * @param properties
+     *     the properties
+     *
+     * @return the properties in the properties file format
+     */
+    private static String toString(Properties properties) {
+
+        StringWriter writer = new StringWriter();
+        try {
+            properties.store(writer, null);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not store the " + CapturePolicy.EXTENSION_QUALIFIER
+                + " configuration", e);
+        }
+        return writer.toString();
+    }
 }
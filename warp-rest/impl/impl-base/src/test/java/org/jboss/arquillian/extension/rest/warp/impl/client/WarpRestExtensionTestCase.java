@@ -17,14 +17,17 @@
  */
 package org.jboss.arquillian.extension.rest.warp.impl.client;
 
+import org.jboss.arquillian.config.descriptor.api.ArquillianDescriptor;
 import org.jboss.arquillian.core.api.annotation.ApplicationScoped;
 import org.jboss.arquillian.core.spi.LoadableExtension;
 import org.jboss.arquillian.core.spi.ServiceLoader;
 import org.jboss.arquillian.test.test.AbstractTestTestBase;
+import org.jboss.arquillian.extension.rest.warp.spi.CapturePolicy;
 import org.jboss.arquillian.extension.rest.warp.spi.WarpRestInterceptorEnricher;
 import org.jboss.arquillian.warp.spi.WarpDeploymentEnrichmentExtension;
 import org.jboss.shrinkwrap.api.spec.JavaArchive;
 import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.jboss.shrinkwrap.descriptor.api.Descriptors;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -121,6 +124,26 @@ public class WarpRestExtensionTestCase extends AbstractTestTestBase {
 
         // then
         assertThat(archive).isNotNull();
+        assertThat(archive.contains(CapturePolicy.CONFIGURATION_RESOURCE)).isFalse();
+    }
+
+    /**
+     * Tests that the {@link WarpRestExtension#getEnrichmentLibrary()} method packages the capture policy
+     * configuration.
+     */
+    @Test
+    public void shouldPackageCapturePolicyConfiguration() {
+
+        // given
+        ArquillianDescriptor descriptor = Descriptors.create(ArquillianDescriptor.class);
+        descriptor.extension(CapturePolicy.EXTENSION_QUALIFIER).property(CapturePolicy.SAMPLING_RATE, "0.5");
+        bind(ApplicationScoped.class, ArquillianDescriptor.class, descriptor);
+
+        // when
+        JavaArchive archive = instance.getEnrichmentLibrary();
+
+        // then
+        assertThat(archive.contains(CapturePolicy.CONFIGURATION_RESOURCE)).isTrue();
     }
 
     /**
@@ -20,23 +20,11 @@ package org.jboss.arquillian.extension.rest.warp.impl.cxf.interceptor;
 import org.apache.cxf.jaxrs.ext.MessageContext;
 import org.apache.cxf.message.Message;
 import org.jboss.arquillian.container.spi.client.deployment.Validate;
-import org.jboss.arquillian.extension.rest.warp.api.HttpMethod;
-import org.jboss.arquillian.extension.rest.warp.api.HttpRequest;
-import org.jboss.arquillian.extension.rest.warp.api.HttpResponse;
 import org.jboss.arquillian.extension.rest.warp.api.RestContext;
-import org.jboss.arquillian.extension.rest.warp.api.SecurityContext;
-import org.jboss.arquillian.extension.rest.warp.spi.HttpRequestImpl;
-import org.jboss.arquillian.extension.rest.warp.spi.HttpResponseImpl;
-import org.jboss.arquillian.extension.rest.warp.spi.MultivaluedMapImpl;
-import org.jboss.arquillian.extension.rest.warp.spi.RestContextBuilder;
-import org.jboss.arquillian.extension.rest.warp.spi.RestContextImpl;
-import org.jboss.arquillian.extension.rest.warp.spi.SecurityContextImpl;
-import org.jboss.arquillian.extension.rest.warp.spi.WarpRestCommons;
+import org.jboss.arquillian.extension.rest.warp.spi.AbstractRestContextBuilder;
 
 import javax.servlet.ServletRequest;
-import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -47,22 +35,7 @@ import java.util.Map;
  *
  * @author <a href="mailto:jmnarloch@gmail.com">Jakub Narloch</a>
  */
-final class CxfContextBuilder implements RestContextBuilder {
-
-    /**
-     * Represents the name of the attribute used for storing the builder in the context.
-     */
-    private static final String BUILDER_ATTRIBUTE_NAME = CxfContextBuilder.class.getName();
-
-    /**
-     * Represents the servlet request.
-     */
-    private final ServletRequest servletRequest;
-
-    /**
-     * Represents the rest context
-     */
-    private final RestContextImpl restContext;
+final class CxfContextBuilder extends AbstractRestContextBuilder<CxfContextBuilder> {
 
     /**
      * Represents the request message.
@@ -87,14 +60,11 @@ final class CxfContextBuilder implements RestContextBuilder {
     /**
      * Creates new instance of {@link CxfContextBuilder} class.
      *
-     * @param servletRequest
-     *     the servlet request
+     * @param attributes
+     *     the attributes of the servlet request
      */
-    private CxfContextBuilder(ServletRequest servletRequest) {
-        Validate.notNull(servletRequest, "The 'servletRequest' can not be null.");
-
-        this.servletRequest = servletRequest;
-        this.restContext = getRestContext();
+    private CxfContextBuilder(Attributes attributes) {
+        super(attributes);
     }
 
     /**
@@ -110,7 +80,12 @@ final class CxfContextBuilder implements RestContextBuilder {
      */
     public static CxfContextBuilder buildContext(ServletRequest servletRequest) {
 
-        return getCxfContextBuilder(servletRequest);
+        Validate.notNull(servletRequest, "The 'servletRequest' can not be null.");
+
+        Attributes attributes = new ServletRequestAttributes(servletRequest);
+        CxfContextBuilder cxfContextBuilder = findBuilder(attributes, CxfContextBuilder.class);
+
+        return cxfContextBuilder != null ? cxfContextBuilder : new CxfContextBuilder(attributes);
     }
 
     /**
@@ -171,68 +146,33 @@ final class CxfContextBuilder implements RestContextBuilder {
      * {@inheritDoc}
      */
     @Override
-    public void build() {
-
-        restContext.setHttpRequest(buildHttpRequest());
-        restContext.setHttpResponse(buildHttpResponse());
-        restContext.setResponse(response);
-        restContext.setSecurityContext(buildSecurityContext());
-    }
-
-    /**
-     * Builds the http request.
-     *
-     * @return the http request
-     */
-    @SuppressWarnings("unchecked")
-    private HttpRequest buildHttpRequest() {
-
-        HttpRequestImpl request = new HttpRequestImpl();
-        if (requestMessage != null) {
-            request.setContentType((String) requestMessage.get(Message.CONTENT_TYPE));
-            request.setEntity(getRequestEntity());
-            request.setMethod(getRequestMethod((String) requestMessage.get(Message.HTTP_REQUEST_METHOD)));
-            request.setHeaders(getHeaders((Map<String, List<String>>) requestMessage.get(Message.PROTOCOL_HEADERS)));
-        }
-
-        return request;
-    }
-
-    /**
-     * Builds the http response.
-     *
-     * @return the http response
-     */
     @SuppressWarnings("unchecked")
-    private HttpResponse buildHttpResponse() {
-
-        HttpResponseImpl response = new HttpResponseImpl();
-
-        if (this.response != null) {
-            response.setContentType((String) responseMessage.get(Message.CONTENT_TYPE));
-            response.setStatusCode(this.response.getStatus());
-            response.setEntity(this.response.getEntity());
-            response.setHeaders(getHeaders((Map<String, List<Object>>)
-                this.responseMessage.get(Message.PROTOCOL_HEADERS)));
+    public void build(Phase phase) {
+
+        switch (phase) {
+            case REQUEST:
+                if (requestMessage != null) {
+                    captureRequest((String) requestMessage.get(Message.HTTP_REQUEST_METHOD),
+                        requestMessage.get(Message.CONTENT_TYPE),
+                        (Map<String, List<String>>) requestMessage.get(Message.PROTOCOL_HEADERS));
+                    captureRequestEntity(isRequestEntityCaptured() ? null : getRequestEntity());
+                }
+                if (messageContext != null) {
+                    captureSecurityContext(messageContext.getSecurityContext());
+                }
+                break;
+            case RESPONSE:
+                if (response != null) {
+                    captureResponse(response.getStatus(), responseMessage.get(Message.CONTENT_TYPE),
+                        (Map<String, List<Object>>) responseMessage.get(Message.PROTOCOL_HEADERS));
+                    captureResponseEntity(response.getEntity());
+                }
+                getRestContext().setResponse(response);
+                break;
+            default:
+                // the entities are captured together with the request and the response messages
+                break;
         }
-
-        return response;
-    }
-
-    /**
-     * Builds the {@link SecurityContext}.
-     *
-     * @return the {@link SecurityContext}
-     */
-    private SecurityContext buildSecurityContext() {
-
-        SecurityContextImpl securityContext = new SecurityContextImpl();
-
-        if (messageContext != null && messageContext.getSecurityContext() != null) {
-            securityContext.setPrincipal(messageContext.getSecurityContext().getUserPrincipal());
-            securityContext.setAuthenticationScheme(messageContext.getSecurityContext().getAuthenticationScheme());
-        }
-        return securityContext;
     }
 
     /**
@@ -247,77 +187,41 @@ final class CxfContextBuilder implements RestContextBuilder {
     }
 
     /**
-     * Maps the http method name to {@link HttpMethod}.
-     *
-     * @param methodName
-     *     the method name
-     *
-     * @return the {@link HttpMethod}
+     * The attributes stored in the servlet request.
      */
-    private HttpMethod getRequestMethod(String methodName) {
-
-        return Enum.valueOf(HttpMethod.class, methodName.toUpperCase());
-    }
+    private static final class ServletRequestAttributes implements Attributes {
 
-    /**
-     * Maps the headers object value map into simple string representation.
-     *
-     * @param httpHeaders
-     *     the http headers map
-     * @param <TKey>
-     *     the key type
-     * @param <TVal>
-     *     the value type
-     *
-     * @return the result map
-     */
-    private <TKey, TVal> MultivaluedMap<TKey, TVal> getHeaders(Map<TKey, List<TVal>> httpHeaders) {
+        /**
+         * Represents the servlet request.
+         */
+        private final ServletRequest servletRequest;
 
-        if (httpHeaders == null) {
-            return null;
+        /**
+         * Creates new instance of {@link ServletRequestAttributes} class.
+         *
+         * @param servletRequest
+         *     the servlet request
+         */
+        private ServletRequestAttributes(ServletRequest servletRequest) {
+            this.servletRequest = servletRequest;
         }
 
-        MultivaluedMap<TKey, TVal> result = new MultivaluedMapImpl<TKey, TVal>();
-        for (Map.Entry<TKey, List<TVal>> entry : httpHeaders.entrySet()) {
-            result.put(entry.getKey(), entry.getValue());
-        }
-        return result;
-    }
-
-    /**
-     * Retrieves the builder from the request.
-     *
-     * @return the {@link CxfContextBuilder} instance
-     */
-    private static CxfContextBuilder getCxfContextBuilder(ServletRequest servletRequest) {
-
-        CxfContextBuilder cxfContextBuilder = (CxfContextBuilder)
-            servletRequest.getAttribute(BUILDER_ATTRIBUTE_NAME);
-
-        if (cxfContextBuilder == null) {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Object getAttribute(String name) {
 
-            cxfContextBuilder = new CxfContextBuilder(servletRequest);
-            servletRequest.setAttribute(BUILDER_ATTRIBUTE_NAME, cxfContextBuilder);
+            return servletRequest.getAttribute(name);
         }
 
-        return cxfContextBuilder;
-    }
-
-    /**
-     * Retrieves the {@link RestContext} stored in the request. <p/> If non exists, then new one is being created.
-     *
-     * @return the rest context
-     */
-    private RestContextImpl getRestContext() {
-
-        RestContextImpl restContext = (RestContextImpl) servletRequest.getAttribute(WarpRestCommons.WARP_REST_ATTRIBUTE);
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setAttribute(String name, Object value) {
 
-        if (restContext == null) {
-
-            restContext = new RestContextImpl();
-            servletRequest.setAttribute(WarpRestCommons.WARP_REST_ATTRIBUTE, restContext);
+            servletRequest.setAttribute(name, value);
         }
-
-        return restContext;
     }
 }
@@ -24,10 +24,21 @@ import org.apache.cxf.jaxrs.model.ClassResourceInfo;
 import org.apache.cxf.jaxrs.model.OperationResourceInfo;
 import org.apache.cxf.message.Message;
 import org.jboss.arquillian.extension.rest.warp.api.RestContext;
+import org.jboss.arquillian.extension.rest.warp.api.Timing.Mark;
+import org.jboss.arquillian.extension.rest.warp.spi.CapturePolicy;
+import org.jboss.arquillian.extension.rest.warp.spi.CapturedEntityImpl;
+import org.jboss.arquillian.extension.rest.warp.spi.RestContextBuilder.Phase;
+import org.jboss.arquillian.extension.rest.warp.spi.StreamTimelineImpl;
+import org.jboss.arquillian.extension.rest.warp.spi.WarpRestCommons;
+import org.jboss.arquillian.warp.spi.WarpCommons;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.ext.Provider;
+import java.io.InputStream;
+import java.io.OutputStream;
 
 import static org.jboss.arquillian.extension.rest.warp.impl.cxf.interceptor.CxfContextBuilder.buildContext;
 
@@ -56,11 +67,24 @@ public class WarpCxfInterceptor implements RequestHandler, ResponseHandler {
     @Override
     public Response handleRequest(Message message, ClassResourceInfo classResourceInfo) {
 
+        // skips the requests that aren't captured
+        if (!isCaptured(messageContext.getHttpServletRequest())) {
+            return null;
+        }
+
+        // captures the bytes of the entity while it is being read, unless the object itself is captured
+        CapturedEntityImpl capturedEntity = CapturePolicy.getInstance().captureEntity();
+        if (capturedEntity != null && message.getContent(InputStream.class) != null) {
+            message.setContent(InputStream.class, capturedEntity.wrap(message.getContent(InputStream.class)));
+        }
+
         // captures the request message
         buildContext(messageContext.getHttpServletRequest())
+            .mark(Mark.REQUEST)
             .setMessageContext(messageContext)
             .setRequestMessage(message)
-            .build();
+            .setCapturedRequestEntity(capturedEntity)
+            .build(Phase.REQUEST);
 
         // returns null, indicating that the request should be proceeded
         return null;
@@ -72,14 +96,60 @@ public class WarpCxfInterceptor implements RequestHandler, ResponseHandler {
     @Override
     public Response handleResponse(Message message, OperationResourceInfo operationResourceInfo, Response response) {
 
+        // skips the requests that aren't captured
+        if (!isCaptured(messageContext.getHttpServletRequest())) {
+            return null;
+        }
+
+        // records the chunks of the streamed response, without buffering it
+        Object contentType = response != null ? response.getMetadata().getFirst(HttpHeaders.CONTENT_TYPE) : null;
+        StreamTimelineImpl streamTimeline = CapturePolicy.getInstance().captureStream(
+            response != null ? response.getEntity() : null, contentType != null ? contentType.toString() : null);
+        if (streamTimeline != null && message.getContent(OutputStream.class) != null) {
+            message.setContent(OutputStream.class, streamTimeline.wrap(message.getContent(OutputStream.class)));
+        }
+
+        // captures the bytes of the entity while it is being written, which happens after the response handlers
+        CapturedEntityImpl capturedEntity = CapturePolicy.getInstance().captureEntity();
+        if (capturedEntity != null && message.getContent(OutputStream.class) != null) {
+            message.setContent(OutputStream.class, capturedEntity.wrap(message.getContent(OutputStream.class)));
+        }
+
         // sets the response
         buildContext(messageContext.getHttpServletRequest())
+            .mark(Mark.RESPONSE)
             .setMessageContext(messageContext)
             .setResponseMessage(message)
             .setResponse(response)
-            .build();
+            .setCapturedResponseEntity(capturedEntity)
+            .setStreamTimeline(streamTimeline)
+            .build(Phase.RESPONSE);
 
         // returns null, indicating that the request should be proceeded
         return null;
     }
+
+    /**
+     * Returns whether the context of the request is captured, deciding it on the first call for the request.
+     *
+     * @param servletRequest
+     *     the servlet request
+     *
+     * @return true if the context is captured
+     */
+    private boolean isCaptured(HttpServletRequest servletRequest) {
+
+        Boolean captured = (Boolean) servletRequest.getAttribute(WarpRestCommons.CAPTURE_ATTRIBUTE);
+
+        if (captured == null) {
+
+            captured = CapturePolicy.getInstance().shouldCapture(
+                servletRequest.getHeader(WarpCommons.ENRICHMENT_REQUEST),
+                servletRequest.getMethod(),
+                messageContext.getUriInfo().getPath());
+            servletRequest.setAttribute(WarpRestCommons.CAPTURE_ATTRIBUTE, captured);
+        }
+
+        return captured;
+    }
 }
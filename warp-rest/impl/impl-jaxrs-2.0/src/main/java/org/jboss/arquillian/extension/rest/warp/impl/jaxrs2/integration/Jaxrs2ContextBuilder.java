@@ -1,26 +1,10 @@
 package org.jboss.arquillian.extension.rest.warp.impl.jaxrs2.integration;
 
-import org.jboss.arquillian.container.spi.client.deployment.Validate;
-import org.jboss.arquillian.extension.rest.warp.api.HttpMethod;
-import org.jboss.arquillian.extension.rest.warp.api.HttpRequest;
-import org.jboss.arquillian.extension.rest.warp.api.HttpResponse;
-import org.jboss.arquillian.extension.rest.warp.api.SecurityContext;
-import org.jboss.arquillian.extension.rest.warp.spi.HttpRequestImpl;
-import org.jboss.arquillian.extension.rest.warp.spi.HttpResponseImpl;
-import org.jboss.arquillian.extension.rest.warp.spi.MultivaluedMapImpl;
-import org.jboss.arquillian.extension.rest.warp.spi.RestContextBuilder;
-import org.jboss.arquillian.extension.rest.warp.spi.RestContextImpl;
-import org.jboss.arquillian.extension.rest.warp.spi.SecurityContextImpl;
-import org.jboss.arquillian.extension.rest.warp.spi.WarpRestCommons;
+import org.jboss.arquillian.extension.rest.warp.spi.AbstractRestContextBuilder;
 
 import javax.ws.rs.container.ContainerRequestContext;
 import javax.ws.rs.container.ContainerResponseContext;
-import javax.ws.rs.core.MediaType;
-import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.ext.InterceptorContext;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
 
 /**
  * The JAX-RS 2.0 specific {@link org.jboss.arquillian.extension.rest.warp.api.RestContext} builder.
@@ -29,22 +13,7 @@ import java.util.Map;
  *
  * @author <a href="mailto:jmnarloch@gmail.com">Jakub Narloch</a>
  */
-public final class Jaxrs2ContextBuilder implements RestContextBuilder {
-
-    /**
-     * Represents the name of the attribute used for storing the builder in the context.
-     */
-    private static final String BUILDER_ATTRIBUTE_NAME = Jaxrs2ContextBuilder.class.getName();
-
-    /**
-     * Represents the servlet request.
-     */
-    private final ExecutionContext executionContext;
-
-    /**
-     * Represents the rest context.
-     */
-    private final RestContextImpl restContext;
+public final class Jaxrs2ContextBuilder extends AbstractRestContextBuilder<Jaxrs2ContextBuilder> {
 
     /**
      * Container request context.
@@ -69,17 +38,14 @@ public final class Jaxrs2ContextBuilder implements RestContextBuilder {
     /**
      * Creates new instance of {@link Jaxrs2ContextBuilder} class.
      *
-     * @param executionContext
-     *     the execution context
+     * @param attributes
+     *     the attributes of the request
      *
      * @throws IllegalArgumentException
-     *     if servlet request is null
+     *     if attributes is null
      */
-    private Jaxrs2ContextBuilder(ExecutionContext executionContext) {
-        Validate.notNull(executionContext, "The 'executionContext' can not be null.");
-
-        this.executionContext = executionContext;
-        this.restContext = getRestContext();
+    private Jaxrs2ContextBuilder(Attributes attributes) {
+        super(attributes);
     }
 
     /**
@@ -95,7 +61,7 @@ public final class Jaxrs2ContextBuilder implements RestContextBuilder {
      */
     public static Jaxrs2ContextBuilder buildContext(ContainerRequestContext containerRequestContext) {
 
-        return getJaxrsContextBuilder(new RequestExecutionContext(containerRequestContext));
+        return getJaxrsContextBuilder(new RequestAttributes(containerRequestContext));
     }
 
     /**
@@ -111,7 +77,7 @@ public final class Jaxrs2ContextBuilder implements RestContextBuilder {
      */
     public static Jaxrs2ContextBuilder buildContext(InterceptorContext interceptorContext) {
 
-        return getJaxrsContextBuilder(new InterceptionExecutionContext(interceptorContext));
+        return getJaxrsContextBuilder(new InterceptorAttributes(interceptorContext));
     }
 
     /**
@@ -170,208 +136,123 @@ public final class Jaxrs2ContextBuilder implements RestContextBuilder {
      * {@inheritDoc}
      */
     @Override
-    public void build() {
-
-        restContext.setHttpRequest(buildHttpRequest());
-        restContext.setHttpResponse(buildHttpResponse());
-        // TODO there is now way to access directly the Response object
-        // restContext.setResponse();
-        restContext.setSecurityContext(buildSecurityContext());
-    }
-
-    /**
-     * Builds the {@link HttpRequest}.
-     *
-     * @return the {@link HttpRequest}
-     */
-    private HttpRequest buildHttpRequest() {
-
-        HttpRequestImpl httpRequest = new HttpRequestImpl();
-
-        if (containerRequestContext != null) {
-
-            httpRequest.setMethod(getHttpMethod(containerRequestContext.getMethod()));
-            httpRequest.setHeaders(new MultivaluedMapImpl<String, String>(containerRequestContext.getHeaders()));
-
-            httpRequest.setContentType(getMediaTypeName(containerRequestContext.getMediaType()));
-            // makes a shallow copy preventing from allowing the original map from being modified
-            httpRequest.setEntity(requestEntity);
-        }
-
-        return httpRequest;
-    }
-
-    /**
-     * Builds the {@link HttpResponse}.
-     *
-     * @return the {@link HttpResponse}
-     */
-    private HttpResponse buildHttpResponse() {
-
-        HttpResponseImpl httpResponse = new HttpResponseImpl();
-
-        if (containerResponseContext != null) {
-
-            httpResponse.setStatusCode(containerResponseContext.getStatus());
-            httpResponse.setHeaders(containerResponseContext.getHeaders());
-
-            httpResponse.setContentType(getMediaTypeName(containerResponseContext.getMediaType()));
-            httpResponse.setEntity(responseEntity);
-        }
-
-        return httpResponse;
-    }
-
-    /**
-     * Builds the {@link SecurityContext}.
-     *
-     * @return the {@link SecurityContext}
-     */
-    private SecurityContext buildSecurityContext() {
-
-        SecurityContextImpl securityContext = new SecurityContextImpl();
-
-        if (containerRequestContext != null && containerRequestContext.getSecurityContext() != null) {
-            securityContext.setAuthenticationScheme(
-                containerRequestContext.getSecurityContext().getAuthenticationScheme());
-            securityContext.setPrincipal(containerRequestContext.getSecurityContext().getUserPrincipal());
-        }
-
-        return securityContext;
-    }
-
-    /**
-     * Retrieves the content type or null if it is not set.
-     *
-     * @param mediaType
-     *     the media type
-     *
-     * @return the content type/mime name
-     */
-    private static String getMediaTypeName(MediaType mediaType) {
-
-        return mediaType != null ? mediaType.toString() : null;
-    }
-
-    /**
-     * Maps the http method name into corresponding {@link org.jboss.arquillian.extension.rest.warp.api.HttpMethod}.
-     *
-     * @param methodName
-     *     the http method name
-     *
-     * @return the {@link org.jboss.arquillian.extension.rest.warp.api.HttpMethod}
-     */
-    private static HttpMethod getHttpMethod(String methodName) {
-
-        return Enum.valueOf(HttpMethod.class, methodName.toUpperCase());
-    }
-
-    /**
-     * Returns list of http headers values.
-     *
-     * @param values
-     *     the list of values
-     *
-     * @return the list of values
-     */
-    private List<String> getHttpValueList(List<Object> values) {
-
-        List<String> result = new ArrayList<String>();
-        for (Object val : values) {
-            result.add(val.toString());
+    public void build(Phase phase) {
+
+        switch (phase) {
+            case REQUEST:
+                if (containerRequestContext != null) {
+                    captureRequest(containerRequestContext.getMethod(), containerRequestContext.getMediaType(),
+                        containerRequestContext.getHeaders());
+                    captureSecurityContext(containerRequestContext.getSecurityContext());
+                }
+                break;
+            case REQUEST_ENTITY:
+                captureRequestEntity(requestEntity);
+                break;
+            case RESPONSE:
+                // TODO there is now way to access directly the Response object
+                // restContext.setResponse();
+                if (containerResponseContext != null) {
+                    captureResponse(containerResponseContext.getStatus(), containerResponseContext.getMediaType(),
+                        containerResponseContext.getHeaders());
+                }
+                break;
+            case RESPONSE_ENTITY:
+                captureResponseEntity(responseEntity);
+                break;
         }
-        return result;
     }
 
     /**
      * Retrieves the builder from the request.
      *
-     * @param executionContext
-     *     the execution context
+     * @param attributes
+     *     the attributes of the request
      *
      * @return the {@link Jaxrs2ContextBuilder} instance
      */
-    private static Jaxrs2ContextBuilder getJaxrsContextBuilder(ExecutionContext executionContext) {
-
-        Jaxrs2ContextBuilder jaxrsContextBuilder = (Jaxrs2ContextBuilder)
-            executionContext.getProperty(BUILDER_ATTRIBUTE_NAME);
+    private static Jaxrs2ContextBuilder getJaxrsContextBuilder(Attributes attributes) {
 
-        if (jaxrsContextBuilder == null) {
-
-            jaxrsContextBuilder = new Jaxrs2ContextBuilder(executionContext);
-            executionContext.setProperty(BUILDER_ATTRIBUTE_NAME, jaxrsContextBuilder);
-        }
+        Jaxrs2ContextBuilder jaxrsContextBuilder = findBuilder(attributes, Jaxrs2ContextBuilder.class);
 
-        return jaxrsContextBuilder;
+        return jaxrsContextBuilder != null ? jaxrsContextBuilder : new Jaxrs2ContextBuilder(attributes);
     }
 
     /**
-     * Retrieves the {@link org.jboss.arquillian.extension.rest.warp.api.RestContext} stored in the request.
-     * <p/>
-     * If non exists, then new one is being created.
-     *
-     * @return the rest context
+     * The attributes stored in the properties of the container request context.
      */
-    private RestContextImpl getRestContext() {
-
-        RestContextImpl restContext = (RestContextImpl)
-            executionContext.getProperty(WarpRestCommons.WARP_REST_ATTRIBUTE);
-
-        if (restContext == null) {
-
-            restContext = new RestContextImpl();
-            executionContext.setProperty(WarpRestCommons.WARP_REST_ATTRIBUTE, restContext);
-        }
-
-        return restContext;
-    }
-
-    public static interface ExecutionContext {
-
-        void setProperty(String name, Object value);
-
-        Object getProperty(String name);
-    }
-
-    private static class RequestExecutionContext implements ExecutionContext {
+    private static final class RequestAttributes implements Attributes {
 
+        /**
+         * Represents the container request context.
+         */
         private final ContainerRequestContext containerRequestContext;
 
-        private RequestExecutionContext(ContainerRequestContext containerRequestContext) {
+        /**
+         * Creates new instance of {@link RequestAttributes} class.
+         *
+         * @param containerRequestContext
+         *     the container request context
+         */
+        private RequestAttributes(ContainerRequestContext containerRequestContext) {
             this.containerRequestContext = containerRequestContext;
         }
 
+        /**
+         * {@inheritDoc}
+         */
         @Override
-        public void setProperty(String name, Object value) {
+        public Object getAttribute(String name) {
 
-            containerRequestContext.setProperty(name, value);
+            return containerRequestContext.getProperty(name);
         }
 
+        /**
+         * {@inheritDoc}
+         */
         @Override
-        public Object getProperty(String name) {
+        public void setAttribute(String name, Object value) {
 
-            return containerRequestContext.getProperty(name);
+            containerRequestContext.setProperty(name, value);
         }
     }
 
-    private static class InterceptionExecutionContext implements ExecutionContext {
+    /**
+     * The attributes stored in the properties of the interceptor context.
+     */
+    private static final class InterceptorAttributes implements Attributes {
 
+        /**
+         * Represents the interceptor context.
+         */
         private final InterceptorContext interceptorContext;
 
-        private InterceptionExecutionContext(InterceptorContext interceptorContext) {
+        /**
+         * Creates new instance of {@link InterceptorAttributes} class.
+         *
+         * @param interceptorContext
+         *     the interceptor context
+         */
+        private InterceptorAttributes(InterceptorContext interceptorContext) {
             this.interceptorContext = interceptorContext;
         }
 
+        /**
+         * {@inheritDoc}
+         */
         @Override
-        public void setProperty(String name, Object value) {
+        public Object getAttribute(String name) {
 
-            interceptorContext.setProperty(name, value);
+            return interceptorContext.getProperty(name);
         }
 
+        /**
+         * {@inheritDoc}
+         */
         @Override
-        public Object getProperty(String name) {
+        public void setAttribute(String name, Object value) {
 
-            return interceptorContext.getProperty(name);
+            interceptorContext.setProperty(name, value);
         }
     }
 }
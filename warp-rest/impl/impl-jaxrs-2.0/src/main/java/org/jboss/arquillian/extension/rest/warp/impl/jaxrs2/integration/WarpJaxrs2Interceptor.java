@@ -1,5 +1,13 @@
 package org.jboss.arquillian.extension.rest.warp.impl.jaxrs2.integration;
 
+import org.jboss.arquillian.extension.rest.warp.api.Timing.Mark;
+import org.jboss.arquillian.extension.rest.warp.spi.CapturePolicy;
+import org.jboss.arquillian.extension.rest.warp.spi.CapturedEntityImpl;
+import org.jboss.arquillian.extension.rest.warp.spi.RestContextBuilder.Phase;
+import org.jboss.arquillian.extension.rest.warp.spi.StreamTimelineImpl;
+import org.jboss.arquillian.extension.rest.warp.spi.WarpRestCommons;
+import org.jboss.arquillian.warp.spi.WarpCommons;
+
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.container.ContainerRequestContext;
@@ -40,10 +48,16 @@ public class WarpJaxrs2Interceptor implements ContainerRequestFilter, ContainerR
     @Override
     public void filter(ContainerRequestContext containerRequestContext) throws IOException {
 
+        // skips the requests that aren't captured
+        if (!isCaptured(containerRequestContext)) {
+            return;
+        }
+
         // captures the request
         buildContext(containerRequestContext)
+            .mark(Mark.REQUEST)
             .setContainerRequestContext(containerRequestContext)
-            .build();
+            .build(Phase.REQUEST);
     }
 
     /**
@@ -53,11 +67,17 @@ public class WarpJaxrs2Interceptor implements ContainerRequestFilter, ContainerR
     public void filter(ContainerRequestContext containerRequestContext, ContainerResponseContext containerResponseContext)
         throws IOException {
 
+        // skips the requests that aren't captured
+        if (!isCaptured(containerRequestContext)) {
+            return;
+        }
+
         // captures the response
         buildContext(containerRequestContext)
+            .mark(Mark.RESPONSE)
             .setContainerRequestContext(containerRequestContext)
             .setContainerResponseContext(containerResponseContext)
-            .build();
+            .build(Phase.RESPONSE);
     }
 
     /**
@@ -67,13 +87,28 @@ public class WarpJaxrs2Interceptor implements ContainerRequestFilter, ContainerR
     public Object aroundReadFrom(ReaderInterceptorContext readerInterceptorContext)
         throws IOException, WebApplicationException {
 
+        // skips the requests that aren't captured
+        if (!isCaptured(readerInterceptorContext)) {
+            return readerInterceptorContext.proceed();
+        }
+
+        // times the reading of the entity
+        Jaxrs2ContextBuilder builder = buildContext(readerInterceptorContext).mark(Mark.REQUEST_ENTITY_START);
+
+        // captures the bytes of the entity while it is being read, unless the object itself is captured
+        CapturedEntityImpl capturedEntity = CapturePolicy.getInstance().captureEntity();
+        if (capturedEntity != null) {
+            readerInterceptorContext.setInputStream(capturedEntity.wrap(readerInterceptorContext.getInputStream()));
+        }
+
         // reads the request entity
         Object requestEntity = readerInterceptorContext.proceed();
 
         // stores the unmarshalled object
-        buildContext(readerInterceptorContext)
-            .setRequestEntity(requestEntity)
-            .build();
+        builder.mark(Mark.REQUEST_ENTITY_END)
+            .setRequestEntity(capturedEntity == null ? requestEntity : null)
+            .setCapturedRequestEntity(capturedEntity)
+            .build(Phase.REQUEST_ENTITY);
 
         return requestEntity;
     }
@@ -85,12 +120,100 @@ public class WarpJaxrs2Interceptor implements ContainerRequestFilter, ContainerR
     public void aroundWriteTo(WriterInterceptorContext writerInterceptorContext)
         throws IOException, WebApplicationException {
 
+        // skips the requests that aren't captured
+        if (!isCaptured(writerInterceptorContext)) {
+            writerInterceptorContext.proceed();
+            return;
+        }
+
+        // times the writing of the entity
+        Jaxrs2ContextBuilder builder = buildContext(writerInterceptorContext).mark(Mark.RESPONSE_ENTITY_START);
+
+        // records the chunks of the streamed response, without buffering it
+        StreamTimelineImpl streamTimeline = getStreamTimeline(writerInterceptorContext);
+        if (streamTimeline != null) {
+            writerInterceptorContext.setOutputStream(streamTimeline.wrap(writerInterceptorContext.getOutputStream()));
+        }
+
+        // captures the bytes of the entity while it is being written, unless the object itself is captured
+        CapturedEntityImpl capturedEntity = CapturePolicy.getInstance().captureEntity();
+        if (capturedEntity != null) {
+            writerInterceptorContext.setOutputStream(capturedEntity.wrap(writerInterceptorContext.getOutputStream()));
+        }
+
         // proceeds with the context invocation
         writerInterceptorContext.proceed();
 
-        // captures the response entity
-        buildContext(writerInterceptorContext)
-            .setResponseEntity(writerInterceptorContext.getEntity())
-            .build();
+        // captures the response entity, which is opaque when streamed
+        builder.mark(Mark.RESPONSE_ENTITY_END)
+            .setResponseEntity(capturedEntity == null && streamTimeline == null
+                ? writerInterceptorContext.getEntity() : null)
+            .setCapturedResponseEntity(capturedEntity)
+            .setStreamTimeline(streamTimeline)
+            .build(Phase.RESPONSE_ENTITY);
+    }
+
+    /**
+     * Returns whether the context of the request is captured, deciding it on the first call for the request.
+     *
+     * @param containerRequestContext
+     *     the container request context
+     *
+     * @return true if the context is captured
+     */
+    private static boolean isCaptured(ContainerRequestContext containerRequestContext) {
+
+        Boolean captured = (Boolean) containerRequestContext.getProperty(WarpRestCommons.CAPTURE_ATTRIBUTE);
+
+        if (captured == null) {
+
+            captured = CapturePolicy.getInstance().shouldCapture(
+                containerRequestContext.getHeaderString(WarpCommons.ENRICHMENT_REQUEST),
+                containerRequestContext.getMethod(),
+                containerRequestContext.getUriInfo().getPath());
+            containerRequestContext.setProperty(WarpRestCommons.CAPTURE_ATTRIBUTE, captured);
+        }
+
+        return captured;
+    }
+
+    /**
+     * Retrieves the timeline of the response stream, starting it when the first streamed entity of the request is
+     * written, so that all the events written for the request share the timeline.
+     *
+     * @param writerInterceptorContext
+     *     the writer interceptor context
+     *
+     * @return the stream timeline or null if the response isn't streamed
+     */
+    private static StreamTimelineImpl getStreamTimeline(WriterInterceptorContext writerInterceptorContext) {
+
+        StreamTimelineImpl streamTimeline = (StreamTimelineImpl)
+            writerInterceptorContext.getProperty(WarpRestCommons.STREAM_TIMELINE_ATTRIBUTE);
+
+        if (streamTimeline == null) {
+
+            streamTimeline = CapturePolicy.getInstance().captureStream(writerInterceptorContext.getEntity(),
+                writerInterceptorContext.getMediaType() != null ? writerInterceptorContext.getMediaType().toString()
+                    : null);
+            if (streamTimeline != null) {
+                writerInterceptorContext.setProperty(WarpRestCommons.STREAM_TIMELINE_ATTRIBUTE, streamTimeline);
+            }
+        }
+
+        return streamTimeline;
+    }
+
+    /**
+     * Returns whether the context of the request has been chosen for capturing by the request filters.
+     *
+     * @param interceptorContext
+     *     the interceptor context
+     *
+     * @return true if the context is captured
+     */
+    private static boolean isCaptured(InterceptorContext interceptorContext) {
+
+        return Boolean.TRUE.equals(interceptorContext.getProperty(WarpRestCommons.CAPTURE_ATTRIBUTE));
     }
 }
@@ -20,25 +20,10 @@ package org.jboss.arquillian.extension.rest.warp.impl.jersey.integration;
 import com.sun.jersey.spi.container.ContainerRequest;
 import com.sun.jersey.spi.container.ContainerResponse;
 import org.jboss.arquillian.container.spi.client.deployment.Validate;
-import org.jboss.arquillian.extension.rest.warp.api.HttpMethod;
-import org.jboss.arquillian.extension.rest.warp.api.HttpRequest;
-import org.jboss.arquillian.extension.rest.warp.api.HttpResponse;
 import org.jboss.arquillian.extension.rest.warp.api.RestContext;
-import org.jboss.arquillian.extension.rest.warp.api.SecurityContext;
-import org.jboss.arquillian.extension.rest.warp.spi.HttpRequestImpl;
-import org.jboss.arquillian.extension.rest.warp.spi.HttpResponseImpl;
-import org.jboss.arquillian.extension.rest.warp.spi.MultivaluedMapImpl;
-import org.jboss.arquillian.extension.rest.warp.spi.RestContextBuilder;
-import org.jboss.arquillian.extension.rest.warp.spi.RestContextImpl;
-import org.jboss.arquillian.extension.rest.warp.spi.SecurityContextImpl;
-import org.jboss.arquillian.extension.rest.warp.spi.WarpRestCommons;
+import org.jboss.arquillian.extension.rest.warp.spi.AbstractRestContextBuilder;
 
 import javax.servlet.ServletRequest;
-import javax.ws.rs.core.MediaType;
-import javax.ws.rs.core.MultivaluedMap;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
 
 /**
  * The Jersey specific {@link RestContext} builder.
@@ -47,22 +32,7 @@ import java.util.Map;
  *
  * @author <a href="mailto:jmnarloch@gmail.com">Jakub Narloch</a>
  */
-final class JerseyContextBuilder implements RestContextBuilder {
-
-    /**
-     * Represents the name of the attribute used for storing the builder in the context.
-     */
-    private static final String BUILDER_ATTRIBUTE_NAME = JerseyContextBuilder.class.getName();
-
-    /**
-     * Represents the servlet request.
-     */
-    private final ServletRequest servletRequest;
-
-    /**
-     * Represents the rest context.
-     */
-    private final RestContextImpl restContext;
+final class JerseyContextBuilder extends AbstractRestContextBuilder<JerseyContextBuilder> {
 
     /**
      * Represents the container request.
@@ -77,17 +47,11 @@ final class JerseyContextBuilder implements RestContextBuilder {
     /**
      * Creates new instance of {@link JerseyContextBuilder} class.
      *
-     * @param servletRequest
-     *     the servlet request
-     *
-     * @throws IllegalArgumentException
-     *     if servlet request is null
+     * @param attributes
+     *     the attributes of the servlet request
      */
-    private JerseyContextBuilder(ServletRequest servletRequest) {
-        Validate.notNull(servletRequest, "The 'servletRequest' can not be null.");
-
-        this.servletRequest = servletRequest;
-        this.restContext = getRestContext();
+    private JerseyContextBuilder(Attributes attributes) {
+        super(attributes);
     }
 
     /**
@@ -103,7 +67,12 @@ final class JerseyContextBuilder implements RestContextBuilder {
      */
     public static JerseyContextBuilder buildContext(ServletRequest servletRequest) {
 
-        return getJerseyContextBuilder(servletRequest);
+        Validate.notNull(servletRequest, "The 'servletRequest' can not be null.");
+
+        Attributes attributes = new ServletRequestAttributes(servletRequest);
+        JerseyContextBuilder jerseyContextBuilder = findBuilder(attributes, JerseyContextBuilder.class);
+
+        return jerseyContextBuilder != null ? jerseyContextBuilder : new JerseyContextBuilder(attributes);
     }
 
     /**
@@ -138,144 +107,69 @@ final class JerseyContextBuilder implements RestContextBuilder {
      * {@inheritDoc}
      */
     @Override
-    public void build() {
-
-        restContext.setHttpRequest(buildHttpRequest());
-        restContext.setHttpResponse(buildHttpResponse());
-        restContext.setResponse(containerResponse != null ? containerResponse.getResponse() : null);
-        restContext.setSecurityContext(buildSecurityContext());
-    }
-
-    /**
-     * Builds the {@link HttpRequest}.
-     *
-     * @return the {@link HttpRequest}
-     */
-    private HttpRequest buildHttpRequest() {
-
-        HttpRequestImpl request = new HttpRequestImpl();
-        if (request != null) {
-            request.setContentType(getMediaTypeName(containerRequest.getMediaType()));
-            // TODO accessing the request entity in jersey is bizarre
-            // and requires knowing it's type up front, which is not possible at the current stage
-            // request.setEntity(containerRequest.getEntity(Object.class));
-            request.setMethod(getHttpMethod(containerRequest.getMethod()));
-            request.setHeaders(new MultivaluedMapImpl<String, String>(containerRequest.getRequestHeaders()));
-        }
-        return request;
-    }
-
-    /**
-     * Builds the {@link HttpResponse}.
-     *
-     * @return the {@link HttpResponse}
-     */
-    private HttpResponse buildHttpResponse() {
-
-        HttpResponseImpl response = new HttpResponseImpl();
-
-        if (containerResponse != null) {
-            response.setContentType(getMediaTypeName(containerResponse.getMediaType()));
-            response.setStatusCode(containerResponse.getStatus());
-            response.setEntity(containerResponse.getEntity());
-            response.setHeaders(containerResponse.getHttpHeaders());
-        }
-
-        return response;
-    }
-
-    /**
-     * Builds the {@link SecurityContext}.
-     *
-     * @return the {@link SecurityContext}
-     */
-    private SecurityContext buildSecurityContext() {
-
-        SecurityContextImpl securityContext = new SecurityContextImpl();
-
-        if (containerRequest != null) {
-            securityContext.setPrincipal(containerRequest.getUserPrincipal());
-            securityContext.setAuthenticationScheme(containerRequest.getAuthenticationScheme());
+    public void build(Phase phase) {
+
+        switch (phase) {
+            case REQUEST:
+                if (containerRequest != null) {
+                    captureRequest(containerRequest.getMethod(), containerRequest.getMediaType(),
+                        containerRequest.getRequestHeaders());
+                    // TODO accessing the request entity in jersey is bizarre
+                    // and requires knowing it's type up front, which is not possible at the current stage
+                    captureRequestEntity(null);
+                    captureSecurityContext(containerRequest);
+                }
+                break;
+            case RESPONSE:
+                if (containerResponse != null) {
+                    captureResponse(containerResponse.getStatus(), containerResponse.getMediaType(),
+                        containerResponse.getHttpHeaders());
+                    captureResponseEntity(containerResponse.getEntity());
+                }
+                getRestContext().setResponse(containerResponse != null ? containerResponse.getResponse() : null);
+                break;
+            default:
+                // the entities are captured together with the request and the response
+                break;
         }
-        return securityContext;
-    }
-
-    /**
-     * Retrieves the content mime type name.
-     *
-     * @param mediaType
-     *     the content mime type
-     *
-     * @return the content mime type name
-     */
-    private String getMediaTypeName(MediaType mediaType) {
-        return mediaType != null ? mediaType.toString() : null;
     }
 
     /**
-     * Maps the http method name into correspondng {@link HttpMethod}.
-     *
-     * @param methodName
-     *     the method name
-     *
-     * @return the {@link HttpMethod}
+     * The attributes stored in the servlet request.
      */
-    private static HttpMethod getHttpMethod(String methodName) {
+    private static final class ServletRequestAttributes implements Attributes {
 
-        return Enum.valueOf(HttpMethod.class, methodName.toUpperCase());
-    }
+        /**
+         * Represents the servlet request.
+         */
+        private final ServletRequest servletRequest;
 
-    /**
-     * Returns list of http headers values.
-     *
-     * @param values
-     *     the list of values
-     *
-     * @return the list of values
-     */
-    private List<String> getHttpValueList(List<Object> values) {
-
-        List<String> result = new ArrayList<String>();
-        for (Object val : values) {
-            result.add(val.toString());
+        /**
+         * Creates new instance of {@link ServletRequestAttributes} class.
+         *
+         * @param servletRequest
+         *     the servlet request
+         */
+        private ServletRequestAttributes(ServletRequest servletRequest) {
+            this.servletRequest = servletRequest;
         }
-        return result;
-    }
-
-    /**
-     * Retrieves the builder from the request.
-     *
-     * @return the {@link JerseyContextBuilder} instance
-     */
-    private static JerseyContextBuilder getJerseyContextBuilder(ServletRequest servletRequest) {
-
-        JerseyContextBuilder jerseyContextBuilder = (JerseyContextBuilder)
-            servletRequest.getAttribute(BUILDER_ATTRIBUTE_NAME);
 
-        if (jerseyContextBuilder == null) {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Object getAttribute(String name) {
 
-            jerseyContextBuilder = new JerseyContextBuilder(servletRequest);
-            servletRequest.setAttribute(BUILDER_ATTRIBUTE_NAME, jerseyContextBuilder);
+            return servletRequest.getAttribute(name);
         }
 
-        return jerseyContextBuilder;
-    }
-
-    /**
-     * Retrieves the {@link RestContext} stored in the request. <p/> If non exists, then new one is being created.
-     *
-     * @return the rest context
-     */
-    private RestContextImpl getRestContext() {
-
-        RestContextImpl restContext = (RestContextImpl) servletRequest.getAttribute(WarpRestCommons.WARP_REST_ATTRIBUTE);
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setAttribute(String name, Object value) {
 
-        if (restContext == null) {
-
-            restContext = new RestContextImpl();
-            servletRequest.setAttribute(WarpRestCommons.WARP_REST_ATTRIBUTE, restContext);
+            servletRequest.setAttribute(name, value);
         }
-
-        return restContext;
     }
 }
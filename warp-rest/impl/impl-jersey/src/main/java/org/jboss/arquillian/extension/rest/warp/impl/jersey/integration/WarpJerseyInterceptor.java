@@ -21,11 +21,21 @@ import com.sun.jersey.spi.container.ContainerRequest;
 import com.sun.jersey.spi.container.ContainerRequestFilter;
 import com.sun.jersey.spi.container.ContainerResponse;
 import com.sun.jersey.spi.container.ContainerResponseFilter;
+import com.sun.jersey.spi.container.ContainerResponseWriter;
 import org.jboss.arquillian.extension.rest.warp.api.RestContext;
+import org.jboss.arquillian.extension.rest.warp.api.Timing.Mark;
+import org.jboss.arquillian.extension.rest.warp.spi.CapturePolicy;
+import org.jboss.arquillian.extension.rest.warp.spi.CapturedEntityImpl;
+import org.jboss.arquillian.extension.rest.warp.spi.RestContextBuilder.Phase;
+import org.jboss.arquillian.extension.rest.warp.spi.StreamTimelineImpl;
+import org.jboss.arquillian.extension.rest.warp.spi.WarpRestCommons;
+import org.jboss.arquillian.warp.spi.WarpCommons;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.io.OutputStream;
 
 import static org.jboss.arquillian.extension.rest.warp.impl.jersey.integration.JerseyContextBuilder.buildContext;
 
@@ -58,10 +68,23 @@ public class WarpJerseyInterceptor implements ContainerRequestFilter, ContainerR
     @Override
     public ContainerRequest filter(ContainerRequest containerRequest) {
 
+        // skips the requests that aren't captured
+        if (!isCaptured(containerRequest)) {
+            return containerRequest;
+        }
+
+        // captures the bytes of the entity while it is being read
+        CapturedEntityImpl capturedEntity = CapturePolicy.getInstance().captureEntity();
+        if (capturedEntity != null) {
+            containerRequest.setEntityInputStream(capturedEntity.wrap(containerRequest.getEntityInputStream()));
+        }
+
         // stores the container request
         buildContext(request)
+            .mark(Mark.REQUEST)
             .setContainerRequest(containerRequest)
-            .build();
+            .setCapturedRequestEntity(capturedEntity)
+            .build(Phase.REQUEST);
 
         // returns the result
         return containerRequest;
@@ -73,13 +96,127 @@ public class WarpJerseyInterceptor implements ContainerRequestFilter, ContainerR
     @Override
     public ContainerResponse filter(ContainerRequest containerRequest, ContainerResponse containerResponse) {
 
+        // skips the requests that aren't captured
+        if (!isCaptured(containerRequest)) {
+            return containerResponse;
+        }
+
+        // times the response
+        JerseyContextBuilder builder = buildContext(request).mark(Mark.RESPONSE);
+
+        // times the writing of the entity, records the chunks of the streamed response and captures the bytes of the
+        // entity while it is being written, unless the object itself is captured
+        StreamTimelineImpl streamTimeline = CapturePolicy.getInstance().captureStream(containerResponse.getEntity(),
+            containerResponse.getMediaType() != null ? containerResponse.getMediaType().toString() : null);
+        CapturedEntityImpl capturedEntity = CapturePolicy.getInstance().captureEntity();
+        containerResponse.setContainerResponseWriter(new CapturingResponseWriter(
+            containerResponse.getContainerResponseWriter(), builder, capturedEntity, streamTimeline));
+
         // stores the container request and response
-        buildContext(request)
-            .setContainerRequest(containerRequest)
+        builder.setContainerRequest(containerRequest)
             .setContainerResponse(containerResponse)
-            .build();
+            .setCapturedResponseEntity(capturedEntity)
+            .setStreamTimeline(streamTimeline)
+            .build(Phase.RESPONSE);
 
         // returns the result
         return containerResponse;
     }
+
+    /**
+     * Returns whether the context of the request is captured, deciding it on the first call for the request.
+     *
+     * @param containerRequest
+     *     the container request
+     *
+     * @return true if the context is captured
+     */
+    private boolean isCaptured(ContainerRequest containerRequest) {
+
+        Boolean captured = (Boolean) request.getAttribute(WarpRestCommons.CAPTURE_ATTRIBUTE);
+
+        if (captured == null) {
+
+            captured = CapturePolicy.getInstance().shouldCapture(
+                containerRequest.getHeaderValue(WarpCommons.ENRICHMENT_REQUEST),
+                containerRequest.getMethod(),
+                containerRequest.getPath());
+            request.setAttribute(WarpRestCommons.CAPTURE_ATTRIBUTE, captured);
+        }
+
+        return captured;
+    }
+
+    /**
+     * The {@link ContainerResponseWriter} that times the writing of the response entity and captures its bytes and
+     * timeline.
+     */
+    private static final class CapturingResponseWriter implements ContainerResponseWriter {
+
+        /**
+         * Represents the response writer of the container.
+         */
+        private final ContainerResponseWriter delegate;
+
+        /**
+         * Represents the context builder of the request.
+         */
+        private final JerseyContextBuilder builder;
+
+        /**
+         * Represents the captured entity, null if the entity object is captured.
+         */
+        private final CapturedEntityImpl capturedEntity;
+
+        /**
+         * Represents the timeline of the response stream, null if the response isn't streamed.
+         */
+        private final StreamTimelineImpl streamTimeline;
+
+        /**
+         * Creates new instance of {@link CapturingResponseWriter} class.
+         *
+         * @param delegate
+         *     the response writer of the container
+         * @param builder
+         *     the context builder of the request
+         * @param capturedEntity
+         *     the captured entity, may be null
+         * @param streamTimeline
+         *     the stream timeline, may be null
+         */
+        private CapturingResponseWriter(ContainerResponseWriter delegate, JerseyContextBuilder builder,
+                                        CapturedEntityImpl capturedEntity, StreamTimelineImpl streamTimeline) {
+
+            this.delegate = delegate;
+            this.builder = builder;
+            this.capturedEntity = capturedEntity;
+            this.streamTimeline = streamTimeline;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public OutputStream writeStatusAndHeaders(long contentLength, ContainerResponse response) throws IOException {
+
+            builder.mark(Mark.RESPONSE_ENTITY_START);
+
+            OutputStream outputStream = delegate.writeStatusAndHeaders(contentLength, response);
+            if (streamTimeline != null) {
+                outputStream = streamTimeline.wrap(outputStream);
+            }
+            return capturedEntity != null ? capturedEntity.wrap(outputStream) : outputStream;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void finish() throws IOException {
+
+            delegate.finish();
+            builder.mark(Mark.RESPONSE_ENTITY_END);
+        }
+    }
 }
@@ -18,23 +18,13 @@
 package org.jboss.arquillian.extension.rest.warp.impl.resteasy.integration;
 
 import org.jboss.arquillian.container.spi.client.deployment.Validate;
-import org.jboss.arquillian.extension.rest.warp.api.HttpMethod;
-import org.jboss.arquillian.extension.rest.warp.api.HttpRequest;
-import org.jboss.arquillian.extension.rest.warp.api.HttpResponse;
 import org.jboss.arquillian.extension.rest.warp.api.RestContext;
-import org.jboss.arquillian.extension.rest.warp.api.SecurityContext;
-import org.jboss.arquillian.extension.rest.warp.spi.HttpRequestImpl;
-import org.jboss.arquillian.extension.rest.warp.spi.HttpResponseImpl;
-import org.jboss.arquillian.extension.rest.warp.spi.MultivaluedMapImpl;
-import org.jboss.arquillian.extension.rest.warp.spi.RestContextBuilder;
-import org.jboss.arquillian.extension.rest.warp.spi.RestContextImpl;
-import org.jboss.arquillian.extension.rest.warp.spi.SecurityContextImpl;
-import org.jboss.arquillian.extension.rest.warp.spi.WarpRestCommons;
+import org.jboss.arquillian.extension.rest.warp.spi.AbstractRestContextBuilder;
 import org.jboss.resteasy.core.ServerResponse;
+import org.jboss.resteasy.spi.interception.MessageBodyReaderContext;
+import org.jboss.resteasy.spi.interception.MessageBodyWriterContext;
 
 import javax.ws.rs.core.MediaType;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * The RestEasy specific {@link RestContext} builder.
@@ -43,7 +33,7 @@ import java.util.List;
  *
  * @author <a href="mailto:jmnarloch@gmail.com">Jakub Narloch</a>
  */
-final class ResteasyContextBuilder implements RestContextBuilder {
+final class ResteasyContextBuilder extends AbstractRestContextBuilder<ResteasyContextBuilder> {
 
     /**
      * Represents the name of the attribute used for storing the builder in the context.
@@ -55,11 +45,6 @@ final class ResteasyContextBuilder implements RestContextBuilder {
      */
     private final org.jboss.resteasy.spi.HttpRequest httpRequest;
 
-    /**
-     * Represents the build rest context.
-     */
-    private final RestContextImpl restContext;
-
     /**
      * The entity that has been send to the service.
      */
@@ -85,16 +70,11 @@ final class ResteasyContextBuilder implements RestContextBuilder {
      *
      * @param httpRequest
      *     the http request
-     *
-     * @throws IllegalArgumentException
-     *     if httpRequest is null
      */
     private ResteasyContextBuilder(org.jboss.resteasy.spi.HttpRequest httpRequest) {
-
-        Validate.notNull(httpRequest, "The 'httpRequest' can not be null.");
+        super(new RequestAttributes(httpRequest));
 
         this.httpRequest = httpRequest;
-        this.restContext = getRestContext();
     }
 
     /**
@@ -110,7 +90,50 @@ final class ResteasyContextBuilder implements RestContextBuilder {
      */
     public static ResteasyContextBuilder buildContext(org.jboss.resteasy.spi.HttpRequest httpRequest) {
 
-        return getRestContextBuilder(httpRequest);
+        Validate.notNull(httpRequest, "The 'httpRequest' can not be null.");
+
+        ResteasyContextBuilder resteasyContextBuilder = findContext(httpRequest);
+
+        return resteasyContextBuilder != null ? resteasyContextBuilder : new ResteasyContextBuilder(httpRequest);
+    }
+
+    /**
+     * Retrieves the builder of the request, if its context is being captured.
+     *
+     * @param httpRequest
+     *     the http request, may be null
+     *
+     * @return the builder or null if the context of the request isn't captured
+     */
+    public static ResteasyContextBuilder findContext(org.jboss.resteasy.spi.HttpRequest httpRequest) {
+
+        return httpRequest != null ? (ResteasyContextBuilder) httpRequest.getAttribute(BUILDER_ATTRIBUTE_NAME) : null;
+    }
+
+    /**
+     * Retrieves the builder of the request read by the given context, if its context is being captured.
+     *
+     * @param context
+     *     the message body reader context
+     *
+     * @return the builder or null if the context of the request isn't captured
+     */
+    public static ResteasyContextBuilder findContext(MessageBodyReaderContext context) {
+
+        return (ResteasyContextBuilder) context.getAttribute(BUILDER_ATTRIBUTE_NAME);
+    }
+
+    /**
+     * Retrieves the builder of the request written by the given context, if its context is being captured.
+     *
+     * @param context
+     *     the message body writer context
+     *
+     * @return the builder or null if the context of the request isn't captured
+     */
+    public static ResteasyContextBuilder findContext(MessageBodyWriterContext context) {
+
+        return (ResteasyContextBuilder) context.getAttribute(BUILDER_ATTRIBUTE_NAME);
     }
 
     /**
@@ -173,142 +196,68 @@ final class ResteasyContextBuilder implements RestContextBuilder {
      * {@inheritDoc}
      */
     @Override
-    public void build() {
-
-        restContext.setHttpRequest(buildHttpRequest());
-        restContext.setHttpResponse(buildHttpResponse());
-        restContext.setResponse(serverResponse);
-        restContext.setSecurityContext(buildSecurityContext());
-    }
-
-    /**
-     * Builds the {@link HttpRequest}.
-     *
-     * @return the {@link HttpRequest}
-     */
-    private HttpRequest buildHttpRequest() {
-
-        HttpRequestImpl request = new HttpRequestImpl();
-        if (httpRequest != null) {
-            request.setContentType(getMediaTypeName(httpRequest.getHttpHeaders().getMediaType()));
-            request.setEntity(this.requestEntity);
-            request.setMethod(getHttpMethod(httpRequest.getHttpMethod()));
-            request.setHeaders(new MultivaluedMapImpl<String, String>(httpRequest.getHttpHeaders().getRequestHeaders()));
-        }
-        return request;
-    }
-
-    /**
-     * Builds the {@link HttpResponse}.
-     *
-     * @return the {@link HttpResponse}
-     */
-    private HttpResponse buildHttpResponse() {
-
-        HttpResponseImpl response = new HttpResponseImpl();
-        if (serverResponse != null) {
-            response.setContentType(getMediaTypeName(responseMediaType));
-            response.setStatusCode(serverResponse.getStatus());
-            response.setEntity(serverResponse.getEntity());
-            response.setHeaders(serverResponse.getMetadata());
+    public void build(Phase phase) {
+
+        switch (phase) {
+            case REQUEST:
+                captureRequest(httpRequest.getHttpMethod(), httpRequest.getHttpHeaders().getMediaType(),
+                    httpRequest.getHttpHeaders().getRequestHeaders());
+                captureSecurityContext(securityContext);
+                break;
+            case REQUEST_ENTITY:
+                captureRequestEntity(requestEntity);
+                break;
+            case RESPONSE:
+                if (serverResponse != null) {
+                    captureResponse(serverResponse.getStatus(), responseMediaType, serverResponse.getMetadata());
+                    captureResponseEntity(serverResponse.getEntity());
+                }
+                getRestContext().setResponse(serverResponse);
+                break;
+            case RESPONSE_ENTITY:
+                // the content type is known only once the response entity has been written
+                getCapturedResponse().setContentType(getMediaTypeName(responseMediaType));
+                captureResponseEntity(getCapturedResponse().getEntity());
+                break;
         }
-        return response;
     }
 
     /**
-     * Builds the {@link SecurityContext}.
-     *
-     * @return the {@link SecurityContext}
+     * The attributes stored in the http request.
      */
-    private SecurityContext buildSecurityContext() {
-
-        SecurityContextImpl securityContext = new SecurityContextImpl();
-        if (this.securityContext != null) {
-            securityContext.setPrincipal(this.securityContext.getUserPrincipal());
-            securityContext.setAuthenticationScheme(this.securityContext.getAuthenticationScheme());
+    private static final class RequestAttributes implements Attributes {
+
+        /**
+         * Represents the http request.
+         */
+        private final org.jboss.resteasy.spi.HttpRequest httpRequest;
+
+        /**
+         * Creates new instance of {@link RequestAttributes} class.
+         *
+         * @param httpRequest
+         *     the http request
+         */
+        private RequestAttributes(org.jboss.resteasy.spi.HttpRequest httpRequest) {
+            this.httpRequest = httpRequest;
         }
-        return securityContext;
-    }
 
-    /**
-     * Retrieves the content type or null if it is not set.
-     *
-     * @param mediaType
-     *     the media type
-     *
-     * @return the content type/mime name
-     */
-    private static String getMediaTypeName(MediaType mediaType) {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Object getAttribute(String name) {
 
-        return mediaType != null ? mediaType.toString() : null;
-    }
-
-    /**
-     * Maps the http method name into corresponding {@link HttpMethod}.
-     *
-     * @param methodName
-     *     the http method name
-     *
-     * @return the {@link HttpMethod}
-     */
-    private static HttpMethod getHttpMethod(String methodName) {
-
-        return Enum.valueOf(HttpMethod.class, methodName.toUpperCase());
-    }
-
-    /**
-     * Returns list of http headers values.
-     *
-     * @param values
-     *     the list of values
-     *
-     * @return the list of values
-     */
-    private List<String> getHttpValueList(List<Object> values) {
-
-        List<String> result = new ArrayList<String>();
-        for (Object val : values) {
-            result.add(val.toString());
-        }
-        return result;
-    }
-
-    /**
-     * Retrieves the builder from the request.
-     *
-     * @return the {@link ResteasyContextBuilder} instance
-     */
-    private static ResteasyContextBuilder getRestContextBuilder(org.jboss.resteasy.spi.HttpRequest httpRequest) {
-
-        ResteasyContextBuilder resteasyContextBuilder = (ResteasyContextBuilder)
-            httpRequest.getAttribute(BUILDER_ATTRIBUTE_NAME);
-
-        if (resteasyContextBuilder == null) {
-
-            resteasyContextBuilder = new ResteasyContextBuilder(httpRequest);
-            httpRequest.setAttribute(BUILDER_ATTRIBUTE_NAME, resteasyContextBuilder);
+            return httpRequest.getAttribute(name);
         }
 
-        return resteasyContextBuilder;
-    }
-
-    /**
-     * Retrieves the {@link RestContext} stored in the request.
-     * <p/>
-     * If non exists, then new one is being created.
-     *
-     * @return the rest context
-     */
-    private RestContextImpl getRestContext() {
-
-        RestContextImpl restContext = (RestContextImpl) httpRequest.getAttribute(WarpRestCommons.WARP_REST_ATTRIBUTE);
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setAttribute(String name, Object value) {
 
-        if (restContext == null) {
-
-            restContext = new RestContextImpl();
-            httpRequest.setAttribute(WarpRestCommons.WARP_REST_ATTRIBUTE, restContext);
+            httpRequest.setAttribute(name, value);
         }
-
-        return restContext;
     }
 }
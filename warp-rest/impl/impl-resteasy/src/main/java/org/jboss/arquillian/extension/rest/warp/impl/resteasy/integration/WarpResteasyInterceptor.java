@@ -18,11 +18,19 @@
 package org.jboss.arquillian.extension.rest.warp.impl.resteasy.integration;
 
 import org.jboss.arquillian.extension.rest.warp.api.RestContext;
+import org.jboss.arquillian.extension.rest.warp.api.Timing.Mark;
+import org.jboss.arquillian.extension.rest.warp.spi.CapturePolicy;
+import org.jboss.arquillian.extension.rest.warp.spi.CapturedEntityImpl;
+import org.jboss.arquillian.extension.rest.warp.spi.RestContextBuilder.Phase;
+import org.jboss.arquillian.extension.rest.warp.spi.StreamTimelineImpl;
+import org.jboss.arquillian.extension.rest.warp.spi.WarpRestCommons;
+import org.jboss.arquillian.warp.spi.WarpCommons;
 import org.jboss.resteasy.annotations.interception.ServerInterceptor;
 import org.jboss.resteasy.core.ResourceMethodInvoker;
 import org.jboss.resteasy.core.ServerResponse;
 import org.jboss.resteasy.spi.Failure;
 import org.jboss.resteasy.spi.HttpRequest;
+import org.jboss.resteasy.spi.ResteasyProviderFactory;
 import org.jboss.resteasy.spi.interception.MessageBodyReaderContext;
 import org.jboss.resteasy.spi.interception.MessageBodyReaderInterceptor;
 import org.jboss.resteasy.spi.interception.MessageBodyWriterContext;
@@ -31,12 +39,12 @@ import org.jboss.resteasy.spi.interception.PostProcessInterceptor;
 import org.jboss.resteasy.spi.interception.PreProcessInterceptor;
 
 import javax.ws.rs.WebApplicationException;
-import javax.ws.rs.core.Context;
 import javax.ws.rs.core.SecurityContext;
 import javax.ws.rs.ext.Provider;
 import java.io.IOException;
 
 import static org.jboss.arquillian.extension.rest.warp.impl.resteasy.integration.ResteasyContextBuilder.buildContext;
+import static org.jboss.arquillian.extension.rest.warp.impl.resteasy.integration.ResteasyContextBuilder.findContext;
 
 /**
  * RestEasy interceptor. This class implements {@link PreProcessInterceptor}, {@link PostProcessInterceptor} {@link
@@ -46,8 +54,9 @@ import static org.jboss.arquillian.extension.rest.warp.impl.resteasy.integration
  * Implementation captures the state and stores it the {@link RestContext} which is being bound to
  * executing request.
  * <p>
- * <p><strong>Thread-safety:</strong>This class can be considered as a thread safe. The class is mutable, but since
- * it's using {@link ThreadLocal} field for storing it's context it can be considered as a thread safe.</p>
+ * <p><strong>Thread-safety:</strong>This class is immutable and thread safe. The state of each request is kept in the
+ * request attributes, so it is released together with the request and follows the request when it is suspended and
+ * resumed on another thread.</p>
  *
  * @author <a href="mailto:jmnarloch@gmail.com">Jakub Narloch</a>
  */
@@ -56,28 +65,6 @@ import static org.jboss.arquillian.extension.rest.warp.impl.resteasy.integration
 public class WarpResteasyInterceptor implements PreProcessInterceptor, PostProcessInterceptor,
     MessageBodyReaderInterceptor, MessageBodyWriterInterceptor {
 
-    /**
-     * Stores the http request within the worker thread.
-     */
-    private static final ThreadLocal<HttpRequest> request = new ThreadLocal<HttpRequest>();
-
-    /**
-     * Stores the security context withing the worker thread.
-     */
-    private static final ThreadLocal<SecurityContext> securityContext = new ThreadLocal<SecurityContext>();
-
-    /**
-     * Sets the security context.
-     *
-     * @param securityContext
-     *     the security context
-     */
-    @Context
-    public void setSecurityContext(SecurityContext securityContext) {
-
-        this.securityContext.set(securityContext);
-    }
-
     /**
      * {@inheritDoc}
      */
@@ -85,13 +72,16 @@ public class WarpResteasyInterceptor implements PreProcessInterceptor, PostProce
     public ServerResponse preProcess(HttpRequest httpRequest, ResourceMethodInvoker resourceMethod)
         throws Failure, WebApplicationException {
 
-        // stores the http request
-        request.set(httpRequest);
+        // skips the requests that aren't captured
+        if (!isCaptured(httpRequest)) {
+            return null;
+        }
 
         // initialize the context
-        buildContext(request.get())
-            .setSecurityContext(securityContext.get())
-            .build();
+        buildContext(httpRequest)
+            .mark(Mark.REQUEST)
+            .setSecurityContext(ResteasyProviderFactory.getContextData(SecurityContext.class))
+            .build(Phase.REQUEST);
 
         // returns null, does not overrides the original server response
         return null;
@@ -103,13 +93,29 @@ public class WarpResteasyInterceptor implements PreProcessInterceptor, PostProce
     @Override
     public Object read(MessageBodyReaderContext context) throws IOException, WebApplicationException {
 
+        // skips the requests that aren't captured
+        ResteasyContextBuilder builder = findContext(context);
+        if (builder == null) {
+            return context.proceed();
+        }
+
+        // times the reading of the entity
+        builder.mark(Mark.REQUEST_ENTITY_START);
+
+        // captures the bytes of the entity while it is being read, unless the object itself is captured
+        CapturedEntityImpl capturedEntity = CapturePolicy.getInstance().captureEntity();
+        if (capturedEntity != null) {
+            context.setInputStream(capturedEntity.wrap(context.getInputStream()));
+        }
+
         // reads the entity from the request
         Object result = context.proceed();
 
         // appends the entity to the context
-        buildContext(request.get())
-            .setRequestEntity(result)
-            .build();
+        builder.mark(Mark.REQUEST_ENTITY_END)
+            .setRequestEntity(capturedEntity == null ? result : null)
+            .setCapturedRequestEntity(capturedEntity)
+            .build(Phase.REQUEST_ENTITY);
 
         // returns the entity for farther processing
         return result;
@@ -122,10 +128,12 @@ public class WarpResteasyInterceptor implements PreProcessInterceptor, PostProce
     public void postProcess(ServerResponse serverResponse) {
 
         // captures the server response
-        buildContext(request.get())
-            .setServerResponse(serverResponse)
-            .setSecurityContext(securityContext.get())
-            .build();
+        ResteasyContextBuilder builder = findContext(ResteasyProviderFactory.getContextData(HttpRequest.class));
+        if (builder != null) {
+            builder.mark(Mark.RESPONSE)
+                .setServerResponse(serverResponse)
+                .build(Phase.RESPONSE);
+        }
     }
 
     /**
@@ -134,12 +142,86 @@ public class WarpResteasyInterceptor implements PreProcessInterceptor, PostProce
     @Override
     public void write(MessageBodyWriterContext context) throws IOException, WebApplicationException {
 
+        // skips the requests that aren't captured
+        ResteasyContextBuilder builder = findContext(context);
+        if (builder == null) {
+            context.proceed();
+            return;
+        }
+
+        // times the writing of the entity
+        builder.mark(Mark.RESPONSE_ENTITY_START);
+
+        // records the chunks of the streamed response, without buffering it
+        StreamTimelineImpl streamTimeline = getStreamTimeline(context);
+        if (streamTimeline != null) {
+            context.setOutputStream(streamTimeline.wrap(context.getOutputStream()));
+        }
+
+        // captures the bytes of the entity while it is being written, unless the object itself is captured
+        CapturedEntityImpl capturedEntity = CapturePolicy.getInstance().captureEntity();
+        if (capturedEntity != null) {
+            context.setOutputStream(capturedEntity.wrap(context.getOutputStream()));
+        }
+
         // writes the response
         context.proceed();
 
         // retrieves the response content type
-        buildContext(request.get())
+        builder.mark(Mark.RESPONSE_ENTITY_END)
             .setResponseMediaType(context.getMediaType())
-            .build();
+            .setCapturedResponseEntity(capturedEntity)
+            .setStreamTimeline(streamTimeline)
+            .build(Phase.RESPONSE_ENTITY);
+    }
+
+    /**
+     * Retrieves the timeline of the response stream, starting it when the first streamed entity of the request is
+     * written, so that all the events written for the request share the timeline.
+     *
+     * @param context
+     *     the message body writer context
+     *
+     * @return the stream timeline or null if the response isn't streamed
+     */
+    private static StreamTimelineImpl getStreamTimeline(MessageBodyWriterContext context) {
+
+        StreamTimelineImpl streamTimeline = (StreamTimelineImpl)
+            context.getAttribute(WarpRestCommons.STREAM_TIMELINE_ATTRIBUTE);
+
+        if (streamTimeline == null) {
+
+            streamTimeline = CapturePolicy.getInstance().captureStream(context.getEntity(),
+                context.getMediaType() != null ? context.getMediaType().toString() : null);
+            if (streamTimeline != null) {
+                context.setAttribute(WarpRestCommons.STREAM_TIMELINE_ATTRIBUTE, streamTimeline);
+            }
+        }
+
+        return streamTimeline;
+    }
+
+    /**
+     * Returns whether the context of the request is captured, deciding it on the first call for the request.
+     *
+     * @param httpRequest
+     *     the http request
+     *
+     * @return true if the context is captured
+     */
+    private static boolean isCaptured(HttpRequest httpRequest) {
+
+        Boolean captured = (Boolean) httpRequest.getAttribute(WarpRestCommons.CAPTURE_ATTRIBUTE);
+
+        if (captured == null) {
+
+            captured = CapturePolicy.getInstance().shouldCapture(
+                httpRequest.getHttpHeaders().getRequestHeaders().getFirst(WarpCommons.ENRICHMENT_REQUEST),
+                httpRequest.getHttpMethod(),
+                httpRequest.getUri().getPath());
+            httpRequest.setAttribute(WarpRestCommons.CAPTURE_ATTRIBUTE, captured);
+        }
+
+        return captured;
     }
 }
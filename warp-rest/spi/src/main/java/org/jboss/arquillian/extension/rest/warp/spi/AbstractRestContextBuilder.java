@@ -0,0 +1,387 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.warp.spi;
+
+import org.jboss.arquillian.extension.rest.warp.api.CapturedEntity;
+import org.jboss.arquillian.extension.rest.warp.api.StreamTimeline;
+import org.jboss.arquillian.extension.rest.warp.api.Timing;
+
+import javax.ws.rs.core.SecurityContext;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The base class of the framework specific {@link RestContextBuilder}s.
+ * <p/>
+ * Keeps the parts of the context that every framework captures the same way: the builder and the
+ * {@link RestContextImpl} stored in the request attributes, the captured request, response and security context
+ * updated in place, the lazy header views, the captured entity bytes, the stream timeline and the timing. The
+ * framework specific builders only translate their request and response objects into the protected capture methods
+ * within {@link #build(Phase)}.
+ * <p/>
+ * <p><strong>Thread-safety:</strong>This class is mutable and not thread safe.</p>
+ *
+ * @param <T> the type of the builder, returned by the fluent setters
+ */
+public abstract class AbstractRestContextBuilder<T extends AbstractRestContextBuilder<T>>
+    implements RestContextBuilder {
+
+    /**
+     * Represents the rest context.
+     */
+    private final RestContextImpl restContext;
+
+    /**
+     * Represents the captured http request, updated in place.
+     */
+    private final HttpRequestImpl capturedRequest = new HttpRequestImpl();
+
+    /**
+     * Represents the captured http response, updated in place.
+     */
+    private final HttpResponseImpl capturedResponse = new HttpResponseImpl();
+
+    /**
+     * Represents the captured security context, updated in place.
+     */
+    private final SecurityContextImpl capturedSecurityContext = new SecurityContextImpl();
+
+    /**
+     * Represents the timing of the request, updated in place.
+     */
+    private final TimingImpl timing = new TimingImpl();
+
+    /**
+     * Represents the captured bytes of the request entity.
+     */
+    private CapturedEntity capturedRequestEntity;
+
+    /**
+     * Represents the captured bytes of the response entity.
+     */
+    private CapturedEntity capturedResponseEntity;
+
+    /**
+     * Represents the timeline of the response stream.
+     */
+    private StreamTimeline streamTimeline;
+
+    /**
+     * Represents the lazy view of the request headers, reused for as long as the request headers stay the same.
+     */
+    private LazyMultivaluedMap<String> requestHeaders;
+
+    /**
+     * Represents the lazy view of the response headers, reused for as long as the response headers stay the same.
+     */
+    private LazyMultivaluedMap<Object> responseHeaders;
+
+    /**
+     * Creates new instance of {@link AbstractRestContextBuilder} class and stores it in the given attributes, so that
+     * it can be retrieved through {@link #findBuilder(Attributes, Class)} for the rest of the request.
+     *
+     * @param attributes
+     *     the attributes of the request
+     *
+     * @throws IllegalArgumentException
+     *     if attributes is null
+     */
+    protected AbstractRestContextBuilder(Attributes attributes) {
+
+        if (attributes == null) {
+            throw new IllegalArgumentException("The 'attributes' can not be null.");
+        }
+
+        this.restContext = getRestContext(attributes);
+        this.restContext.setHttpRequest(capturedRequest);
+        this.restContext.setHttpResponse(capturedResponse);
+        this.restContext.setSecurityContext(capturedSecurityContext);
+        this.restContext.setTiming(timing);
+        attributes.setAttribute(getClass().getName(), this);
+    }
+
+    /**
+     * Retrieves the builder of the given type stored in the attributes.
+     *
+     * @param attributes
+     *     the attributes of the request
+     * @param type
+     *     the type of the builder
+     * @param <T>
+     *     the type of the builder
+     *
+     * @return the builder or null if none has been created for the request yet
+     */
+    protected static <T extends AbstractRestContextBuilder<T>> T findBuilder(Attributes attributes, Class<T> type) {
+
+        return type.cast(attributes.getAttribute(type.getName()));
+    }
+
+    /**
+     * Sets the captured bytes of the request entity.
+     *
+     * @param capturedRequestEntity
+     *     the captured request entity
+     *
+     * @return the rest context builder
+     */
+    public T setCapturedRequestEntity(CapturedEntity capturedRequestEntity) {
+
+        this.capturedRequestEntity = capturedRequestEntity;
+        return self();
+    }
+
+    /**
+     * Sets the captured bytes of the response entity.
+     *
+     * @param capturedResponseEntity
+     *     the captured response entity
+     *
+     * @return the rest context builder
+     */
+    public T setCapturedResponseEntity(CapturedEntity capturedResponseEntity) {
+
+        this.capturedResponseEntity = capturedResponseEntity;
+        return self();
+    }
+
+    /**
+     * Sets the timeline of the response stream.
+     *
+     * @param streamTimeline
+     *     the stream timeline
+     *
+     * @return the rest context builder
+     */
+    public T setStreamTimeline(StreamTimeline streamTimeline) {
+
+        this.streamTimeline = streamTimeline;
+        return self();
+    }
+
+    /**
+     * Records the given timing mark at the current time.
+     *
+     * @param mark
+     *     the timing mark
+     *
+     * @return the rest context builder
+     */
+    public T mark(Timing.Mark mark) {
+
+        timing.mark(mark);
+        return self();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void build() {
+
+        for (Phase phase : Phase.values()) {
+            build(phase);
+        }
+    }
+
+    /**
+     * Retrieves the rest context.
+     *
+     * @return the rest context
+     */
+    protected RestContextImpl getRestContext() {
+        return restContext;
+    }
+
+    /**
+     * Retrieves the captured http request.
+     *
+     * @return the captured http request
+     */
+    protected HttpRequestImpl getCapturedRequest() {
+        return capturedRequest;
+    }
+
+    /**
+     * Retrieves the captured http response.
+     *
+     * @return the captured http response
+     */
+    protected HttpResponseImpl getCapturedResponse() {
+        return capturedResponse;
+    }
+
+    /**
+     * Returns whether the bytes of the request entity are captured in place of the entity object.
+     *
+     * @return true if the request entity bytes are captured
+     */
+    protected boolean isRequestEntityCaptured() {
+        return capturedRequestEntity != null;
+    }
+
+    /**
+     * Captures the method, content type and headers of the request.
+     *
+     * @param methodName
+     *     the name of the http method
+     * @param mediaType
+     *     the content type, either a string or a media type, may be null
+     * @param headers
+     *     the request headers, may be null
+     */
+    protected void captureRequest(String methodName, Object mediaType, Map<String, ? extends List<String>> headers) {
+
+        capturedRequest.setMethodName(methodName);
+        capturedRequest.setContentType(getMediaTypeName(mediaType));
+        requestHeaders = LazyMultivaluedMap.reuse(requestHeaders, headers);
+        capturedRequest.setHeaders(requestHeaders);
+    }
+
+    /**
+     * Captures the request entity. The entity object is dropped when its bytes are captured.
+     *
+     * @param entity
+     *     the request entity, may be null
+     */
+    protected void captureRequestEntity(Object entity) {
+
+        capturedRequest.setEntity(capturedRequestEntity == null ? entity : null);
+        capturedRequest.setCapturedEntity(capturedRequestEntity);
+    }
+
+    /**
+     * Captures the status, content type and headers of the response. The header values are captured as the strings
+     * they are sent as.
+     *
+     * @param statusCode
+     *     the status code
+     * @param mediaType
+     *     the content type, either a string or a media type, may be null
+     * @param headers
+     *     the response headers, may be null
+     */
+    protected void captureResponse(int statusCode, Object mediaType,
+                                   Map<String, ? extends List<?>> headers) {
+
+        capturedResponse.setStatusCode(statusCode);
+        capturedResponse.setContentType(getMediaTypeName(mediaType));
+        responseHeaders = LazyMultivaluedMap.reuseHeaderStrings(responseHeaders, headers);
+        capturedResponse.setHeaders(responseHeaders);
+    }
+
+    /**
+     * Captures the response entity. The entity object is dropped when its bytes or its stream timeline are captured.
+     *
+     * @param entity
+     *     the response entity, may be null
+     */
+    protected void captureResponseEntity(Object entity) {
+
+        capturedResponse.setEntity(capturedResponseEntity == null && streamTimeline == null ? entity : null);
+        capturedResponse.setCapturedEntity(capturedResponseEntity);
+        capturedResponse.setStreamTimeline(streamTimeline);
+    }
+
+    /**
+     * Captures the security context.
+     *
+     * @param securityContext
+     *     the security context, may be null
+     */
+    protected void captureSecurityContext(SecurityContext securityContext) {
+
+        if (securityContext != null) {
+            capturedSecurityContext.setPrincipal(securityContext.getUserPrincipal());
+            capturedSecurityContext.setAuthenticationScheme(securityContext.getAuthenticationScheme());
+        }
+    }
+
+    /**
+     * Retrieves the content type or null if it is not set.
+     *
+     * @param mediaType
+     *     the media type
+     *
+     * @return the content type/mime name
+     */
+    protected static String getMediaTypeName(Object mediaType) {
+
+        return mediaType != null ? mediaType.toString() : null;
+    }
+
+    /**
+     * Returns this builder.
+     *
+     * @return this builder
+     */
+    @SuppressWarnings("unchecked")
+    private T self() {
+
+        return (T) this;
+    }
+
+    /**
+     * Retrieves the {@link org.jboss.arquillian.extension.rest.warp.api.RestContext} stored in the attributes.
+     * <p/>
+     * If non exists, then new one is being created.
+     *
+     * @param attributes
+     *     the attributes of the request
+     *
+     * @return the rest context
+     */
+    private static RestContextImpl getRestContext(Attributes attributes) {
+
+        RestContextImpl restContext = (RestContextImpl) attributes.getAttribute(WarpRestCommons.WARP_REST_ATTRIBUTE);
+
+        if (restContext == null) {
+
+            restContext = new RestContextImpl();
+            attributes.setAttribute(WarpRestCommons.WARP_REST_ATTRIBUTE, restContext);
+        }
+
+        return restContext;
+    }
+
+    /**
+     * The attributes of the request, in which the builder and the rest context are stored.
+     */
+    public interface Attributes {
+
+        /**
+         * Retrieves the attribute.
+         *
+         * @param name
+         *     the attribute name
+         *
+         * @return the attribute value or null if it is not set
+         */
+        Object getAttribute(String name);
+
+        /**
+         * Sets the attribute.
+         *
+         * @param name
+         *     the attribute name
+         * @param value
+         *     the attribute value
+         */
+        void setAttribute(String name, Object value);
+    }
+}
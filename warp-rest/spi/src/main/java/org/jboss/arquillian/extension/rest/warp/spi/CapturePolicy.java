@@ -0,0 +1,763 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.warp.spi;
+
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Decides which requests have their {@link org.jboss.arquillian.extension.rest.warp.api.RestContext} captured.
+ * <p/>
+ * By default only the requests carrying a Warp inspection are captured, all the other traffic of the deployment passes
+ * the interceptors untouched. The policy is configured through the {@code warp-rest} extension block of arquillian.xml:
+ * <pre>
+ * &lt;extension qualifier="warp-rest"&gt;
+ *     &lt;property name="inspectedOnly"&gt;true&lt;/property&gt;
+ *     &lt;property name="include"&gt;GET stocks/*, POST stocks&lt;/property&gt;
+ *     &lt;property name="exclude"&gt;stocks/health&lt;/property&gt;
+ *     &lt;property name="samplingRate"&gt;0.1&lt;/property&gt;
+ *     &lt;property name="entityCapture"&gt;truncated&lt;/property&gt;
+ *     &lt;property name="entityCaptureLimit"&gt;4096&lt;/property&gt;
+ *     &lt;property name="entityDigestAlgorithm"&gt;SHA-256&lt;/property&gt;
+ *     &lt;property name="streamChunkLimit"&gt;1000&lt;/property&gt;
+ *     &lt;property name="streamHeadLimit"&gt;1024&lt;/property&gt;
+ * &lt;/extension&gt;
+ * </pre>
+ * The rules are separated by commas, each consists of an optional http method and an optional path relative to the
+ * application root, in which {@code *} matches any sequence of characters. A request is captured if it matches any of
+ * the include rules, if given, none of the exclude rules, and either carries a Warp inspection or falls within the
+ * sampling rate. The sampling only thins out the traffic which isn't inspected, let through with
+ * {@code inspectedOnly} set to false, an inspected request always gets its context.
+ * <p/>
+ * The {@link EntityCapture} decides whether the entities are kept as objects, as it is by default, or whether their
+ * bytes are captured instead while they stream through, up to the given limit, together with their size and digest.
+ * Streamed responses additionally have the timeline of their chunks recorded, bounded by the stream limits.
+ * <p/>
+ * Each property can be overridden in the container by a system property prefixed with {@code arquillian.warp.rest.}.
+ * <p/>
+ * <p><strong>Thread-safety:</strong>This class is immutable and thread safe.</p>
+ */
+public final class CapturePolicy {
+
+    /**
+     * Represents the qualifier of the extension configuration.
+     */
+    public static final String EXTENSION_QUALIFIER = "warp-rest";
+
+    /**
+     * Represents the resource holding the configuration within the deployment.
+     */
+    public static final String CONFIGURATION_RESOURCE = "META-INF/arquillian-warp-rest.properties";
+
+    /**
+     * Represents the prefix of the system properties overriding the configuration.
+     */
+    public static final String SYSTEM_PROPERTY_PREFIX = "arquillian.warp.rest.";
+
+    /**
+     * Represents the name of the property restricting the capture to the inspected requests.
+     */
+    public static final String INSPECTED_ONLY = "inspectedOnly";
+
+    /**
+     * Represents the name of the property holding the include rules.
+     */
+    public static final String INCLUDE = "include";
+
+    /**
+     * Represents the name of the property holding the exclude rules.
+     */
+    public static final String EXCLUDE = "exclude";
+
+    /**
+     * Represents the name of the property holding the sampling rate.
+     */
+    public static final String SAMPLING_RATE = "samplingRate";
+
+    /**
+     * Represents the name of the property holding the entity capture.
+     */
+    public static final String ENTITY_CAPTURE = "entityCapture";
+
+    /**
+     * Represents the name of the property holding the maximum number of captured entity bytes.
+     */
+    public static final String ENTITY_CAPTURE_LIMIT = "entityCaptureLimit";
+
+    /**
+     * Represents the name of the property holding the entity digest algorithm.
+     */
+    public static final String ENTITY_DIGEST_ALGORITHM = "entityDigestAlgorithm";
+
+    /**
+     * Represents the name of the property holding the maximum number of recorded chunks of a streamed response.
+     */
+    public static final String STREAM_CHUNK_LIMIT = "streamChunkLimit";
+
+    /**
+     * Represents the name of the property holding the maximum number of captured bytes of a streamed response.
+     */
+    public static final String STREAM_HEAD_LIMIT = "streamHeadLimit";
+
+    /**
+     * Represents the default maximum number of captured entity bytes.
+     */
+    public static final int DEFAULT_ENTITY_CAPTURE_LIMIT = 64 * 1024;
+
+    /**
+     * Represents the default entity digest algorithm.
+     */
+    public static final String DEFAULT_ENTITY_DIGEST_ALGORITHM = "SHA-256";
+
+    /**
+     * Represents the default maximum number of recorded chunks of a streamed response.
+     */
+    public static final int DEFAULT_STREAM_CHUNK_LIMIT = 1000;
+
+    /**
+     * Represents the default maximum number of captured bytes of a streamed response.
+     */
+    public static final int DEFAULT_STREAM_HEAD_LIMIT = 1024;
+
+    /**
+     * Represents the media type of the server-sent events.
+     */
+    private static final String EVENT_STREAM_MEDIA_TYPE = "text/event-stream";
+
+    /**
+     * Represents the names of all the properties.
+     */
+    private static final String[] PROPERTIES = {INSPECTED_ONLY, INCLUDE, EXCLUDE, SAMPLING_RATE, ENTITY_CAPTURE,
+        ENTITY_CAPTURE_LIMIT, ENTITY_DIGEST_ALGORITHM, STREAM_CHUNK_LIMIT, STREAM_HEAD_LIMIT};
+
+    /**
+     * Represents the policy of the deployment, loaded on first use.
+     */
+    private static volatile CapturePolicy instance;
+
+    /**
+     * Represents whether only the inspected requests are captured.
+     */
+    private final boolean inspectedOnly;
+
+    /**
+     * Represents the include rules.
+     */
+    private final List<Rule> includes;
+
+    /**
+     * Represents the exclude rules.
+     */
+    private final List<Rule> excludes;
+
+    /**
+     * Represents the fraction of the requests being captured.
+     */
+    private final double samplingRate;
+
+    /**
+     * Represents how the entities are captured.
+     */
+    private final EntityCapture entityCapture;
+
+    /**
+     * Represents the maximum number of captured entity bytes.
+     */
+    private final int entityCaptureLimit;
+
+    /**
+     * Represents the entity digest algorithm.
+     */
+    private final String entityDigestAlgorithm;
+
+    /**
+     * Represents the maximum number of recorded chunks of a streamed response.
+     */
+    private final int streamChunkLimit;
+
+    /**
+     * Represents the maximum number of captured bytes of a streamed response.
+     */
+    private final int streamHeadLimit;
+
+    /**
+     * Creates new instance of {@link CapturePolicy} class.
+     *
+     * @param inspectedOnly
+     *     whether only the inspected requests are captured
+     * @param includes
+     *     the include rules
+     * @param excludes
+     *     the exclude rules
+     * @param samplingRate
+     *     the fraction of the requests being captured
+     * @param entityCapture
+     *     how the entities are captured
+     * @param entityCaptureLimit
+     *     the maximum number of captured entity bytes
+     * @param entityDigestAlgorithm
+     *     the entity digest algorithm
+     * @param streamChunkLimit
+     *     the maximum number of recorded chunks of a streamed response
+     * @param streamHeadLimit
+     *     the maximum number of captured bytes of a streamed response
+     */
+    private CapturePolicy(boolean inspectedOnly, List<Rule> includes, List<Rule> excludes, double samplingRate,
+                          EntityCapture entityCapture, int entityCaptureLimit, String entityDigestAlgorithm,
+                          int streamChunkLimit, int streamHeadLimit) {
+
+        this.inspectedOnly = inspectedOnly;
+        this.includes = includes;
+        this.excludes = excludes;
+        this.samplingRate = samplingRate;
+        this.entityCapture = entityCapture;
+        this.entityCaptureLimit = entityCaptureLimit;
+        this.entityDigestAlgorithm = entityDigestAlgorithm;
+        this.streamChunkLimit = streamChunkLimit;
+        this.streamHeadLimit = streamHeadLimit;
+    }
+
+    /**
+     * Retrieves the policy of the deployment, read from the {@link #CONFIGURATION_RESOURCE} and the system properties.
+     *
+     * @return the capture policy
+     *
+     * @throws IllegalArgumentException
+     *     if the configuration is invalid
+     */
+    public static CapturePolicy getInstance() {
+
+        CapturePolicy policy = instance;
+
+        if (policy == null) {
+
+            Properties properties = loadConfiguration();
+            for (String name : PROPERTIES) {
+                String value = System.getProperty(SYSTEM_PROPERTY_PREFIX + name);
+                if (value != null) {
+                    properties.setProperty(name, value);
+                }
+            }
+
+            policy = fromProperties(properties);
+            instance = policy;
+        }
+
+        return policy;
+    }
+
+    /**
+     * Creates the policy from the given configuration.
+     *
+     * @param properties
+     *     the configuration
+     *
+     * @return the capture policy
+     *
+     * @throws IllegalArgumentException
+     *     if the configuration is invalid
+     */
+    public static CapturePolicy fromProperties(Properties properties) {
+
+        String inspectedOnly = properties.getProperty(INSPECTED_ONLY);
+        String samplingRate = properties.getProperty(SAMPLING_RATE);
+        String entityCapture = properties.getProperty(ENTITY_CAPTURE);
+        String entityCaptureLimit = properties.getProperty(ENTITY_CAPTURE_LIMIT);
+        String entityDigestAlgorithm = properties.getProperty(ENTITY_DIGEST_ALGORITHM);
+        String streamChunkLimit = properties.getProperty(STREAM_CHUNK_LIMIT);
+        String streamHeadLimit = properties.getProperty(STREAM_HEAD_LIMIT);
+
+        return new CapturePolicy(
+            inspectedOnly == null || Boolean.parseBoolean(inspectedOnly.trim()),
+            parseRules(properties.getProperty(INCLUDE)),
+            parseRules(properties.getProperty(EXCLUDE)),
+            samplingRate != null ? parseSamplingRate(samplingRate) : 1.0,
+            entityCapture != null ? parseEntityCapture(entityCapture) : EntityCapture.FULL,
+            entityCaptureLimit != null ? parseLimit(ENTITY_CAPTURE_LIMIT, entityCaptureLimit)
+                : DEFAULT_ENTITY_CAPTURE_LIMIT,
+            entityDigestAlgorithm != null ? parseDigestAlgorithm(entityDigestAlgorithm)
+                : DEFAULT_ENTITY_DIGEST_ALGORITHM,
+            streamChunkLimit != null ? parseLimit(STREAM_CHUNK_LIMIT, streamChunkLimit) : DEFAULT_STREAM_CHUNK_LIMIT,
+            streamHeadLimit != null ? parseLimit(STREAM_HEAD_LIMIT, streamHeadLimit) : DEFAULT_STREAM_HEAD_LIMIT);
+    }
+
+    /**
+     * Returns whether the context of the given request should be captured.
+     * <p/>
+     * The check is meant to be done once per request, as it includes a random draw when sampling. Inspected requests
+     * are never sampled out, their inspections depend on the captured context.
+     *
+     * @param inspectionMarker
+     *     the Warp inspection header of the request, null if the request isn't inspected
+     * @param method
+     *     the http method
+     * @param path
+     *     the request path relative to the application root
+     *
+     * @return true if the context should be captured
+     */
+    public boolean shouldCapture(String inspectionMarker, String method, String path) {
+
+        if (inspectedOnly && inspectionMarker == null) {
+            return false;
+        }
+
+        String relativePath = stripLeadingSlash(path);
+
+        if (!includes.isEmpty() && !matchesAny(includes, method, relativePath)) {
+            return false;
+        }
+
+        if (matchesAny(excludes, method, relativePath)) {
+            return false;
+        }
+
+        if (inspectionMarker != null) {
+            return true;
+        }
+
+        return samplingRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < samplingRate;
+    }
+
+    /**
+     * Returns whether only the inspected requests are captured.
+     *
+     * @return true if only the inspected requests are captured
+     */
+    public boolean isInspectedOnly() {
+
+        return inspectedOnly;
+    }
+
+    /**
+     * Retrieves the fraction of the requests being captured.
+     *
+     * @return the sampling rate
+     */
+    public double getSamplingRate() {
+
+        return samplingRate;
+    }
+
+    /**
+     * Retrieves how the entities are captured.
+     *
+     * @return the entity capture
+     */
+    public EntityCapture getEntityCapture() {
+
+        return entityCapture;
+    }
+
+    /**
+     * Retrieves the maximum number of captured entity bytes, used when the entities are truncated.
+     *
+     * @return the entity capture limit
+     */
+    public int getEntityCaptureLimit() {
+
+        return entityCaptureLimit;
+    }
+
+    /**
+     * Retrieves the entity digest algorithm.
+     *
+     * @return the digest algorithm
+     */
+    public String getEntityDigestAlgorithm() {
+
+        return entityDigestAlgorithm;
+    }
+
+    /**
+     * Retrieves the maximum number of recorded chunks of a streamed response.
+     *
+     * @return the stream chunk limit
+     */
+    public int getStreamChunkLimit() {
+
+        return streamChunkLimit;
+    }
+
+    /**
+     * Retrieves the maximum number of captured bytes of a streamed response.
+     *
+     * @return the stream head limit
+     */
+    public int getStreamHeadLimit() {
+
+        return streamHeadLimit;
+    }
+
+    /**
+     * Starts recording the timeline of the response stream, if the response entity is streamed.
+     * <p/>
+     * The response is considered streamed when the entity is a {@link StreamingOutput} or when it is sent as
+     * server-sent events.
+     *
+     * @param entity
+     *     the response entity
+     * @param mediaType
+     *     the media type of the response, may be null
+     *
+     * @return the stream timeline, to be filled by wrapping the response stream, or null if the entity isn't streamed
+     */
+    public StreamTimelineImpl captureStream(Object entity, String mediaType) {
+
+        if (entity instanceof StreamingOutput
+            || mediaType != null && mediaType.toLowerCase(Locale.ENGLISH).startsWith(EVENT_STREAM_MEDIA_TYPE)) {
+            return new StreamTimelineImpl(streamChunkLimit, streamHeadLimit);
+        }
+
+        return null;
+    }
+
+    /**
+     * Starts capturing the bytes of an entity, unless the entity objects are captured.
+     *
+     * @return the captured entity, to be filled by wrapping the entity stream, or null if the entity object should be
+     * captured instead
+     */
+    public CapturedEntityImpl captureEntity() {
+
+        switch (entityCapture) {
+            case TRUNCATED:
+                return new CapturedEntityImpl(entityCaptureLimit, entityDigestAlgorithm);
+            case HASH:
+                return new CapturedEntityImpl(0, entityDigestAlgorithm);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Loads the configuration packaged with the deployment.
+     *
+     * @return the configuration, empty if none has been packaged
+     */
+    private static Properties loadConfiguration() {
+
+        Properties properties = new Properties();
+        InputStream inputStream = CapturePolicy.class.getClassLoader().getResourceAsStream(CONFIGURATION_RESOURCE);
+
+        if (inputStream != null) {
+            try {
+                properties.load(inputStream);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not read " + CONFIGURATION_RESOURCE, e);
+            } finally {
+                closeQuietly(inputStream);
+            }
+        }
+
+        return properties;
+    }
+
+    /**
+     * Parses the sampling rate.
+     *
+     * @param value
+     *     the property value
+     *
+     * @return the sampling rate
+     *
+     * @throws IllegalArgumentException
+     *     if the value isn't a number between 0 and 1
+     */
+    private static double parseSamplingRate(String value) {
+
+        double samplingRate;
+        try {
+            samplingRate = Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Property " + SAMPLING_RATE + " of extension " + EXTENSION_QUALIFIER
+                + " must be a number, was " + value, e);
+        }
+
+        if (samplingRate < 0 || samplingRate > 1) {
+            throw new IllegalArgumentException("Property " + SAMPLING_RATE + " of extension " + EXTENSION_QUALIFIER
+                + " must be between 0 and 1, was " + value);
+        }
+
+        return samplingRate;
+    }
+
+    /**
+     * Parses the entity capture.
+     *
+     * @param value
+     *     the property value
+     *
+     * @return the entity capture
+     *
+     * @throws IllegalArgumentException
+     *     if the value isn't one of the {@link EntityCapture} values
+     */
+    private static EntityCapture parseEntityCapture(String value) {
+
+        try {
+            return EntityCapture.valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Property " + ENTITY_CAPTURE + " of extension " + EXTENSION_QUALIFIER
+                + " must be one of " + Arrays.toString(EntityCapture.values()) + ", was " + value, e);
+        }
+    }
+
+    /**
+     * Parses the limit held by the given property.
+     *
+     * @param name
+     *     the property name
+     * @param value
+     *     the property value
+     *
+     * @return the limit
+     *
+     * @throws IllegalArgumentException
+     *     if the value isn't a non negative number
+     */
+    private static int parseLimit(String name, String value) {
+
+        int limit;
+        try {
+            limit = Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Property " + name + " of extension "
+                + EXTENSION_QUALIFIER + " must be a number, was " + value, e);
+        }
+
+        if (limit < 0) {
+            throw new IllegalArgumentException("Property " + name + " of extension "
+                + EXTENSION_QUALIFIER + " must not be negative, was " + value);
+        }
+
+        return limit;
+    }
+
+    /**
+     * Parses the entity digest algorithm.
+     *
+     * @param value
+     *     the property value
+     *
+     * @return the digest algorithm
+     *
+     * @throws IllegalArgumentException
+     *     if the algorithm isn't supported
+     */
+    private static String parseDigestAlgorithm(String value) {
+
+        String algorithm = value.trim();
+        try {
+            MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalArgumentException("Property " + ENTITY_DIGEST_ALGORITHM + " of extension "
+                + EXTENSION_QUALIFIER + " must be a supported digest algorithm, was " + value, e);
+        }
+
+        return algorithm;
+    }
+
+    /**
+     * Parses the comma separated rules.
+     *
+     * @param value
+     *     the property value, may be null
+     *
+     * @return the list of rules
+     */
+    private static List<Rule> parseRules(String value) {
+
+        if (value == null || value.trim().length() == 0) {
+            return Collections.emptyList();
+        }
+
+        List<Rule> rules = new ArrayList<Rule>();
+        for (String rule : value.split(",")) {
+
+            String[] tokens = rule.trim().split("\\s+", 2);
+            if (tokens[0].length() == 0) {
+                continue;
+            }
+
+            if (tokens.length == 1 && (tokens[0].indexOf('/') >= 0 || tokens[0].indexOf('*') >= 0
+                || !tokens[0].equals(tokens[0].toUpperCase(Locale.ENGLISH)))) {
+                rules.add(new Rule(null, tokens[0]));
+            } else {
+                rules.add(new Rule(tokens[0], tokens.length > 1 ? tokens[1] : null));
+            }
+        }
+
+        return Collections.unmodifiableList(rules);
+    }
+
+    /**
+     * Returns whether any of the rules matches the request.
+     *
+     * @param rules
+     *     the rules
+     * @param method
+     *     the http method
+     * @param path
+     *     the request path
+     *
+     * @return true if any of the rules matches
+     */
+    private static boolean matchesAny(List<Rule> rules, String method, String path) {
+
+        for (Rule rule : rules) {
+            if (rule.matches(method, path)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Removes the leading slash of the path.
+     *
+     * @param path
+     *     the path, may be null
+     *
+     * @return the path without leading slash
+     */
+    private static String stripLeadingSlash(String path) {
+
+        if (path == null) {
+            return "";
+        }
+
+        return path.startsWith("/") ? path.substring(1) : path;
+    }
+
+    /**
+     * Closes the stream, ignoring any error.
+     *
+     * @param inputStream
+     *     the stream
+     */
+    private static void closeQuietly(InputStream inputStream) {
+
+        try {
+            inputStream.close();
+        } catch (IOException e) {
+            // ignores exception
+        }
+    }
+
+    /**
+     * The ways of capturing the entities.
+     */
+    public enum EntityCapture {
+
+        /**
+         * The entity objects are captured.
+         */
+        FULL,
+
+        /**
+         * The entity bytes are captured up to the limit, together with their size and digest.
+         */
+        TRUNCATED,
+
+        /**
+         * Only the size and the digest of the entity bytes are captured.
+         */
+        HASH
+    }
+
+    /**
+     * A single include or exclude rule.
+     */
+    private static final class Rule {
+
+        /**
+         * Represents the http method, null if any method matches.
+         */
+        private final String method;
+
+        /**
+         * Represents the path pattern, null if any path matches.
+         */
+        private final Pattern path;
+
+        /**
+         * Creates new instance of {@link Rule} class.
+         *
+         * @param method
+         *     the http method, may be null
+         * @param path
+         *     the path pattern, may be null
+         */
+        private Rule(String method, String path) {
+
+            this.method = method;
+            this.path = path != null ? compile(stripLeadingSlash(path.trim())) : null;
+        }
+
+        /**
+         * Returns whether the rule matches the request.
+         *
+         * @param method
+         *     the http method
+         * @param path
+         *     the request path
+         *
+         * @return true if the rule matches
+         */
+        private boolean matches(String method, String path) {
+
+            return (this.method == null || this.method.equalsIgnoreCase(method))
+                && (this.path == null || this.path.matcher(path).matches());
+        }
+
+        /**
+         * Compiles the path pattern in which {@code *} matches any sequence of characters.
+         *
+         * @param path
+         *     the path pattern
+         *
+         * @return the compiled pattern
+         */
+        private static Pattern compile(String path) {
+
+            StringBuilder regex = new StringBuilder();
+            int start = 0;
+            int wildcard;
+            while ((wildcard = path.indexOf('*', start)) >= 0) {
+                regex.append(Pattern.quote(path.substring(start, wildcard))).append(".*");
+                start = wildcard + 1;
+            }
+            regex.append(Pattern.quote(path.substring(start)));
+
+            return Pattern.compile(regex.toString());
+        }
+    }
+}
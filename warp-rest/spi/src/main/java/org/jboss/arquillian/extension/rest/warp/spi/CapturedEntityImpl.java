@@ -0,0 +1,339 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.warp.spi;
+
+import org.jboss.arquillian.extension.rest.warp.api.CapturedEntity;
+
+import java.io.Externalizable;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * The default implementation of {@link CapturedEntity}, filled by the bytes going through the wrapped entity stream.
+ * <p/>
+ * The bytes are copied into a buffer bounded by the capture limit and fed to a streaming digest, so the memory used
+ * doesn't depend on the entity size.
+ * <p/>
+ * Only the captured bytes, the size and the digest are transferred, the entity is no longer captured once deserialized.
+ * <p/>
+ * <p><strong>Thread-safety:</strong>This class is mutable, but all of its methods are synchronized, so the entity can
+ * be inspected by another thread than the one streaming it.</p>
+ */
+public final class CapturedEntityImpl implements CapturedEntity, Externalizable {
+
+    /**
+     * Represents the serial version uid.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Represents the hexadecimal digits.
+     */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * Represents the maximum number of captured bytes.
+     */
+    private int limit;
+
+    /**
+     * Represents the streaming digest, null once the digest has been computed.
+     */
+    private MessageDigest messageDigest;
+
+    /**
+     * Represents the name of the digest algorithm.
+     */
+    private String digestAlgorithm;
+
+    /**
+     * Represents the captured bytes.
+     */
+    private byte[] content;
+
+    /**
+     * Represents the number of captured bytes.
+     */
+    private int count;
+
+    /**
+     * Represents the number of bytes that went through the stream.
+     */
+    private long size;
+
+    /**
+     * Represents the computed digest.
+     */
+    private String digest;
+
+    /**
+     * Creates new instance of {@link CapturedEntityImpl} class, used by the deserialization.
+     */
+    public CapturedEntityImpl() {
+        // empty constructor
+    }
+
+    /**
+     * Creates new instance of {@link CapturedEntityImpl} class.
+     *
+     * @param limit
+     *     the maximum number of captured bytes, zero if only the digest is captured
+     * @param digestAlgorithm
+     *     the name of the digest algorithm
+     *
+     * @throws IllegalArgumentException
+     *     if the digest algorithm isn't supported
+     */
+    public CapturedEntityImpl(int limit, String digestAlgorithm) {
+
+        try {
+            this.messageDigest = MessageDigest.getInstance(digestAlgorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalArgumentException("Unsupported digest algorithm " + digestAlgorithm, e);
+        }
+
+        this.limit = limit;
+        this.digestAlgorithm = digestAlgorithm;
+        this.content = new byte[Math.min(limit, 512)];
+    }
+
+    /**
+     * Wraps the entity input stream, capturing the bytes being read.
+     *
+     * @param inputStream
+     *     the entity input stream
+     *
+     * @return the wrapped stream
+     */
+    public InputStream wrap(InputStream inputStream) {
+
+        return new FilterInputStream(inputStream) {
+
+            @Override
+            public int read() throws IOException {
+
+                int b = super.read();
+                if (b >= 0) {
+                    update(b);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+
+                int read = super.read(b, off, len);
+                if (read > 0) {
+                    update(b, off, read);
+                }
+                return read;
+            }
+
+            @Override
+            public boolean markSupported() {
+
+                // the bytes read again after reset would be captured twice
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Wraps the entity output stream, capturing the bytes being written.
+     *
+     * @param outputStream
+     *     the entity output stream
+     *
+     * @return the wrapped stream
+     */
+    public OutputStream wrap(OutputStream outputStream) {
+
+        return new FilterOutputStream(outputStream) {
+
+            @Override
+            public void write(int b) throws IOException {
+
+                out.write(b);
+                update(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+
+                out.write(b, off, len);
+                update(b, off, len);
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized byte[] getContent() {
+
+        return Arrays.copyOf(content, count);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized long getSize() {
+
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized boolean isTruncated() {
+
+        return size > count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDigestAlgorithm() {
+
+        return digestAlgorithm;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The digest is computed on the first call, the bytes that go through the stream afterwards are no longer
+     * captured.
+     */
+    @Override
+    public synchronized String getDigest() {
+
+        if (digest == null) {
+
+            byte[] bytes = messageDigest.digest();
+            messageDigest = null;
+
+            char[] hex = new char[bytes.length * 2];
+            for (int i = 0; i < bytes.length; i++) {
+                hex[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0x0f];
+                hex[2 * i + 1] = HEX_DIGITS[bytes[i] & 0x0f];
+            }
+            digest = new String(hex);
+        }
+
+        return digest;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void writeExternal(ObjectOutput out) throws IOException {
+
+        CompactCodec.Writer writer = new CompactCodec.Writer(out);
+        writer.writeString(digestAlgorithm);
+        writer.writeString(getDigest());
+        writer.writeBytes(getContent());
+        out.writeLong(size);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+
+        CompactCodec.Reader reader = new CompactCodec.Reader(in);
+        digestAlgorithm = reader.readString();
+        digest = reader.readString();
+        content = reader.readBytes();
+        count = content.length;
+        limit = count;
+        size = in.readLong();
+    }
+
+    /**
+     * Captures a single byte.
+     *
+     * @param b
+     *     the byte
+     */
+    private synchronized void update(int b) {
+
+        if (messageDigest == null) {
+            return;
+        }
+
+        messageDigest.update((byte) b);
+        if (count < limit) {
+            ensureCapacity(count + 1);
+            content[count++] = (byte) b;
+        }
+        size++;
+    }
+
+    /**
+     * Captures the given bytes.
+     *
+     * @param b
+     *     the bytes
+     * @param off
+     *     the offset of the first byte
+     * @param len
+     *     the number of bytes
+     */
+    private synchronized void update(byte[] b, int off, int len) {
+
+        if (messageDigest == null) {
+            return;
+        }
+
+        messageDigest.update(b, off, len);
+        int captured = (int) Math.min(len, limit - count);
+        if (captured > 0) {
+            ensureCapacity(count + captured);
+            System.arraycopy(b, off, content, count, captured);
+            count += captured;
+        }
+        size += len;
+    }
+
+    /**
+     * Grows the buffer up to the limit so that it holds the given number of bytes.
+     *
+     * @param capacity
+     *     the required capacity
+     */
+    private void ensureCapacity(int capacity) {
+
+        if (capacity > content.length) {
+            content = Arrays.copyOf(content, (int) Math.min(limit, Math.max(capacity, 2L * content.length)));
+        }
+    }
+}
@@ -0,0 +1,894 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.warp.spi;
+
+import javax.ws.rs.core.MultivaluedMap;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * A compact {@link MultivaluedMap} of http headers, which names are compared ignoring their case.
+ * <p/>
+ * The names, their hashes and the values are kept in parallel arrays addressed by linear probing, so a header costs
+ * no node and no boxed entry. A header with a single value, which is the case of almost every header, keeps the value
+ * directly in the array, the list of the values is created only once the header gets a second value or its list is
+ * requested through {@link #get(Object)} or {@link #entrySet()}. {@link #getFirst(String)} never creates the list.
+ * <p/>
+ * The names are hashed and compared ignoring their case in place, no lower case copy is made, neither when a header
+ * is added nor when it is looked up. A header looked up under the very name it was added with, which is the common
+ * case, is found through the hash {@link String} caches for itself, so only other spellings of the name and absent
+ * headers pay for hashing the name ignoring its case. The map keeps the name
+ * under which a header was added first. Because of that the map is not symmetrically equal to a case sensitive map
+ * holding the same headers under different names.
+ * <p/>
+ * The map is transferred in the compact format of {@link CompactCodec}.
+ * <p/>
+ * <p><strong>Thread-safety:</strong>This class is mutable and not thread safe.</p>
+ *
+ * @param <V> the value type
+ */
+public final class CaseInsensitiveMultivaluedMap<V> extends AbstractMap<String, List<V>>
+    implements MultivaluedMap<String, V>, Externalizable {
+
+    /**
+     * Represents the serial version uid.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Represents the default number of headers.
+     */
+    private static final int DEFAULT_SIZE = 8;
+
+    /**
+     * Represents the name of a removed header, which doesn't end the probe sequence. A distinct instance, compared by
+     * identity only.
+     */
+    @SuppressWarnings("RedundantStringConstructorCall")
+    private static final String REMOVED = new String("");
+
+    /**
+     * Represents the header names, indexed by slot.
+     */
+    private String[] names;
+
+    /**
+     * Represents the hashes of the header names, indexed by slot, compared before the names themselves.
+     */
+    private int[] hashes;
+
+    /**
+     * Represents the slots of the headers plus one, indexed by the case sensitive {@link String#hashCode()} of their
+     * names, 0 marks a free entry.
+     */
+    private int[] exactSlots;
+
+    /**
+     * Represents the header values, indexed by slot. Either the single value of the header or its {@link Values}.
+     */
+    private Object[] values;
+
+    /**
+     * Represents the number of headers.
+     */
+    private int size;
+
+    /**
+     * Represents the number of used slots, including the removed ones.
+     */
+    private int used;
+
+    /**
+     * Represents the number of structural modifications.
+     */
+    private int modCount;
+
+    /**
+     * Represents the entry set view, created on first access.
+     */
+    private EntrySet entrySet;
+
+    /**
+     * Creates new instance of {@link CaseInsensitiveMultivaluedMap} class.
+     */
+    public CaseInsensitiveMultivaluedMap() {
+
+        this(DEFAULT_SIZE);
+    }
+
+    /**
+     * Creates new instance of {@link CaseInsensitiveMultivaluedMap} class.
+     *
+     * @param expectedSize
+     *     the expected number of headers
+     */
+    public CaseInsensitiveMultivaluedMap(int expectedSize) {
+
+        int capacity = capacityFor(expectedSize);
+        names = new String[capacity];
+        hashes = new int[capacity];
+        exactSlots = new int[capacity];
+        values = new Object[capacity];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putSingle(String key, V value) {
+
+        int index = insert(key);
+        values[index] = value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void add(String key, V value) {
+
+        int index = indexOf(key);
+        if (index < 0) {
+            index = insertAbsent(key);
+            values[index] = value;
+        } else if (values[index] instanceof Values) {
+            ((Values<V>) values[index]).add(value);
+        } else {
+            Values<V> list = new Values<V>(2);
+            list.add((V) values[index]);
+            list.add(value);
+            values[index] = list;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V getFirst(String key) {
+
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+
+        Object value = values[index];
+        if (value instanceof Values) {
+            Values<V> list = (Values<V>) value;
+            return list.isEmpty() ? null : list.get(0);
+        }
+        return (V) value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsKey(Object key) {
+
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<V> get(Object key) {
+
+        int index = indexOf(key);
+
+        return index >= 0 ? list(index) : null;
+    }
+
+    /**
+     * Associates the given values with the header. The values are copied, later changes of the given list are not
+     * reflected by the map.
+     *
+     * @param key
+     *     the header name
+     * @param value
+     *     the header values, null is treated as an empty list
+     *
+     * @return the previous values of the header or null if there were none
+     */
+    @Override
+    public List<V> put(String key, List<V> value) {
+
+        int index = indexOf(key);
+        List<V> previous = index >= 0 ? list(index) : null;
+
+        if (index < 0) {
+            index = insertAbsent(key);
+        }
+        if (value != null && value.size() == 1) {
+            values[index] = value.get(0);
+        } else {
+            Values<V> list = new Values<V>(value != null ? value.size() : 0);
+            if (value != null) {
+                list.addAll(value);
+            }
+            values[index] = list;
+        }
+        return previous;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<V> remove(Object key) {
+
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+
+        List<V> previous = list(index);
+        removeAt(index);
+        return previous;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+
+        Arrays.fill(names, null);
+        Arrays.fill(hashes, 0);
+        Arrays.fill(exactSlots, 0);
+        Arrays.fill(values, null);
+        size = 0;
+        used = 0;
+        modCount++;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Entry<String, List<V>>> entrySet() {
+
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+
+        new CompactCodec.Writer(out).writeMap(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+
+        clear();
+        new CompactCodec.Reader(in).readMap(this);
+    }
+
+    /**
+     * Retrieves the slot of the given header.
+     *
+     * @param key
+     *     the header name
+     *
+     * @return the slot or -1 if the map doesn't contain the header
+     */
+    private int indexOf(Object key) {
+
+        if (!(key instanceof String)) {
+            return -1;
+        }
+
+        String name = (String) key;
+        int mask = names.length - 1;
+        int exactHash = name.hashCode();
+        int exactIndex = spread(exactHash) & mask;
+
+        int slot;
+        while ((slot = exactSlots[exactIndex]) != 0) {
+            String current = names[slot - 1];
+            if (current == name || current.hashCode() == exactHash && current.equals(name)) {
+                return slot - 1;
+            }
+            exactIndex = (exactIndex + 1) & mask;
+        }
+
+        int hash = hash(name);
+        int index = hash & mask;
+
+        String current;
+        while ((current = names[index]) != null) {
+            if (hashes[index] == hash && current != REMOVED
+                && (current.equals(name) || current.equalsIgnoreCase(name))) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Retrieves the slot of the given header, adding the header if the map doesn't contain it yet.
+     *
+     * @param key
+     *     the header name
+     *
+     * @return the slot of the header
+     *
+     * @throws IllegalArgumentException
+     *     if key is null
+     */
+    private int insert(String key) {
+
+        int index = indexOf(key);
+
+        return index >= 0 ? index : insertAbsent(key);
+    }
+
+    /**
+     * Adds the header, which the map doesn't contain yet.
+     *
+     * @param key
+     *     the header name
+     *
+     * @return the slot of the header
+     *
+     * @throws IllegalArgumentException
+     *     if key is null
+     */
+    private int insertAbsent(String key) {
+
+        if (key == null) {
+            throw new IllegalArgumentException("The header name can not be null.");
+        }
+
+        if ((used + 1) * 4 > names.length * 3) {
+            resize(capacityFor(size + 1));
+        }
+
+        int hash = hash(key);
+        int mask = names.length - 1;
+        int index = hash & mask;
+        while (names[index] != null && names[index] != REMOVED) {
+            index = (index + 1) & mask;
+        }
+
+        if (names[index] == null) {
+            used++;
+        }
+        names[index] = key;
+        hashes[index] = hash;
+        values[index] = null;
+        link(index);
+        size++;
+        modCount++;
+        return index;
+    }
+
+    /**
+     * Removes the header at the given slot. The slot stays marked as used, so the probe sequences passing through it
+     * are not broken. Removing a header is rare, so the case sensitive index is simply built again.
+     *
+     * @param index
+     *     the slot
+     */
+    private void removeAt(int index) {
+
+        names[index] = REMOVED;
+        values[index] = null;
+        relink();
+        size--;
+        modCount++;
+    }
+
+    /**
+     * Moves the headers into new arrays of the given capacity, dropping the removed slots.
+     *
+     * @param capacity
+     *     the new capacity
+     */
+    private void resize(int capacity) {
+
+        String[] oldNames = names;
+        int[] oldHashes = hashes;
+        Object[] oldValues = values;
+
+        names = new String[capacity];
+        hashes = new int[capacity];
+        exactSlots = new int[capacity];
+        values = new Object[capacity];
+        used = size;
+
+        int mask = capacity - 1;
+        for (int i = 0; i < oldNames.length; i++) {
+            if (oldNames[i] != null && oldNames[i] != REMOVED) {
+
+                int index = oldHashes[i] & mask;
+                while (names[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                names[index] = oldNames[i];
+                hashes[index] = oldHashes[i];
+                values[index] = oldValues[i];
+                link(index);
+            }
+        }
+    }
+
+    /**
+     * Adds the header at the given slot to the case sensitive index.
+     *
+     * @param index
+     *     the slot
+     */
+    private void link(int index) {
+
+        int mask = exactSlots.length - 1;
+        int exactIndex = spread(names[index].hashCode()) & mask;
+        while (exactSlots[exactIndex] != 0) {
+            exactIndex = (exactIndex + 1) & mask;
+        }
+        exactSlots[exactIndex] = index + 1;
+    }
+
+    /**
+     * Builds the case sensitive index of the headers again.
+     */
+    private void relink() {
+
+        Arrays.fill(exactSlots, 0);
+        for (int i = 0; i < names.length; i++) {
+            if (names[i] != null && names[i] != REMOVED) {
+                link(i);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the list of the values at the given slot, replacing the single value by a list if necessary.
+     *
+     * @param index
+     *     the slot
+     *
+     * @return the list of the values
+     */
+    @SuppressWarnings("unchecked")
+    private Values<V> list(int index) {
+
+        Object value = values[index];
+        if (value instanceof Values) {
+            return (Values<V>) value;
+        }
+
+        Values<V> list = new Values<V>(1);
+        list.add((V) value);
+        values[index] = list;
+        return list;
+    }
+
+    /**
+     * Computes the hash of the header name ignoring its case.
+     * <p/>
+     * Only the length and four characters spread over the name are hashed, so that the lookup cost doesn't grow with
+     * the length of the name. The names of the headers of a single request differ in these almost always, the rare
+     * collisions are resolved by the probing.
+     *
+     * @param name
+     *     the header name
+     *
+     * @return the hash
+     */
+    private static int hash(String name) {
+
+        int length = name.length();
+        if (length == 0) {
+            return 0;
+        }
+
+        int hash = length;
+        hash = 31 * hash + fold(name.charAt(0));
+        hash = 31 * hash + fold(name.charAt(length >> 2));
+        hash = 31 * hash + fold(name.charAt(length >> 1));
+        hash = 31 * hash + fold(name.charAt(length - 1));
+        return spread(hash);
+    }
+
+    /**
+     * Spreads the higher bits of the hash to the lower ones, which address the slots.
+     *
+     * @param hash
+     *     the hash
+     *
+     * @return the spread hash
+     */
+    private static int spread(int hash) {
+
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Folds the case of the character the way {@link String#equalsIgnoreCase(String)} compares it.
+     *
+     * @param c
+     *     the character
+     *
+     * @return the folded character
+     */
+    private static char fold(char c) {
+
+        if (c < 128) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * Computes the capacity of the arrays holding the given number of headers.
+     *
+     * @param size
+     *     the number of headers
+     *
+     * @return the capacity, a power of two
+     */
+    private static int capacityFor(int size) {
+
+        int capacity = 4;
+        while (capacity * 3 < Math.max(size, 1) * 4 + 4) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * The list of the values of a header.
+     *
+     * @param <V> the value type
+     */
+    private static final class Values<V> extends AbstractList<V> implements RandomAccess {
+
+        /**
+         * Represents the values.
+         */
+        private Object[] elements;
+
+        /**
+         * Represents the number of the values.
+         */
+        private int size;
+
+        /**
+         * Creates new instance of {@link Values} class.
+         *
+         * @param capacity
+         *     the initial capacity
+         */
+        private Values(int capacity) {
+
+            elements = new Object[Math.max(capacity, 1)];
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public V get(int index) {
+
+            checkIndex(index, size);
+            return (V) elements[index];
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public V set(int index, V element) {
+
+            checkIndex(index, size);
+            V previous = (V) elements[index];
+            elements[index] = element;
+            return previous;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void add(int index, V element) {
+
+            checkIndex(index, size + 1);
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, size * 2);
+            }
+            System.arraycopy(elements, index, elements, index + 1, size - index);
+            elements[index] = element;
+            size++;
+            modCount++;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public V remove(int index) {
+
+            checkIndex(index, size);
+            V previous = (V) elements[index];
+            System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+            elements[--size] = null;
+            modCount++;
+            return previous;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Validates the index.
+         *
+         * @param index
+         *     the index
+         * @param limit
+         *     the exclusive upper bound of the index
+         *
+         * @throws IndexOutOfBoundsException
+         *     if index is out of the bounds
+         */
+        private static void checkIndex(int index, int limit) {
+
+            if (index < 0 || index >= limit) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + limit);
+            }
+        }
+    }
+
+    /**
+     * The entry set view of the map.
+     */
+    private final class EntrySet extends AbstractSet<Entry<String, List<V>>> {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Iterator<Entry<String, List<V>>> iterator() {
+
+            return new EntryIterator();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int size() {
+            return size;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void clear() {
+
+            CaseInsensitiveMultivaluedMap.this.clear();
+        }
+    }
+
+    /**
+     * The iterator over the headers of the map.
+     */
+    private final class EntryIterator implements Iterator<Entry<String, List<V>>> {
+
+        /**
+         * Represents the slot of the next header.
+         */
+        private int next;
+
+        /**
+         * Represents the slot of the header returned last, or -1.
+         */
+        private int current = -1;
+
+        /**
+         * Represents the expected number of structural modifications.
+         */
+        private int expectedModCount = modCount;
+
+        /**
+         * Creates new instance of {@link EntryIterator} class.
+         */
+        private EntryIterator() {
+
+            advance();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean hasNext() {
+
+            return next < names.length;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Entry<String, List<V>> next() {
+
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            current = next++;
+            advance();
+            return new SlotEntry(current);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void remove() {
+
+            if (current < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+
+            removeAt(current);
+            current = -1;
+            expectedModCount = modCount;
+        }
+
+        /**
+         * Moves to the next used slot.
+         */
+        private void advance() {
+
+            while (next < names.length && (names[next] == null || names[next] == REMOVED)) {
+                next++;
+            }
+        }
+    }
+
+    /**
+     * The header at a slot of the map.
+     */
+    private final class SlotEntry implements Entry<String, List<V>> {
+
+        /**
+         * Represents the slot.
+         */
+        private final int index;
+
+        /**
+         * Creates new instance of {@link SlotEntry} class.
+         *
+         * @param index
+         *     the slot
+         */
+        private SlotEntry(int index) {
+            this.index = index;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getKey() {
+
+            return names[index];
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public List<V> getValue() {
+
+            return list(index);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public List<V> setValue(List<V> value) {
+
+            return put(getKey(), value);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(Object o) {
+
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            return getKey().equals(entry.getKey()) && getValue().equals(entry.getValue());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode() {
+
+            return getKey().hashCode() ^ getValue().hashCode();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+
+            return getKey() + "=" + getValue();
+        }
+    }
+}
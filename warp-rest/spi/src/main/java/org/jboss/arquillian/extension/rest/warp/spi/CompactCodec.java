@@ -0,0 +1,384 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.warp.spi;
+
+import javax.ws.rs.core.MultivaluedMap;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The compact binary format of the captured context, used by the {@link java.io.Externalizable} implementations of
+ * this package.
+ * <p/>
+ * The strings are written as length-prefixed UTF-8 and interned: each distinct string is written once per object, any
+ * further occurrence is written as the index of the first one. Since the same header names and values repeat across
+ * the requests and responses, this keeps the transferred context small. The lengths, counts and indexes are written as
+ * variable-length integers, so that the small values take a single byte.
+ * <p/>
+ * Values other than strings are written through the Java serialization and have to be {@link Serializable}, the
+ * response header values are captured as strings for that reason.
+ * <p/>
+ * <p><strong>Thread-safety:</strong>This class is not thread safe, an instance is used by a single object being
+ * written or read.</p>
+ */
+final class CompactCodec {
+
+    /**
+     * Represents the charset of the strings.
+     */
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * Represents the tag of the null value.
+     */
+    private static final int NULL = 0;
+
+    /**
+     * Represents the tag of the string written for the first time.
+     */
+    private static final int STRING = 1;
+
+    /**
+     * Represents the tag of the serialized object.
+     */
+    private static final int OBJECT = 2;
+
+    /**
+     * Represents the first tag referring to the string written before.
+     */
+    private static final int REFERENCE = 3;
+
+    /**
+     * Creates new instance of {@link CompactCodec} class.
+     */
+    private CompactCodec() {
+        // empty constructor
+    }
+
+    /**
+     * Writes the values of the compact format.
+     */
+    static final class Writer {
+
+        /**
+         * Represents the output.
+         */
+        private final ObjectOutput out;
+
+        /**
+         * Represents the indexes of the strings written so far.
+         */
+        private final Map<String, Integer> strings = new HashMap<String, Integer>();
+
+        /**
+         * Creates new instance of {@link Writer} class.
+         *
+         * @param out
+         *     the output
+         */
+        Writer(ObjectOutput out) {
+
+            this.out = out;
+        }
+
+        /**
+         * Writes the non negative integer.
+         *
+         * @param value
+         *     the value
+         *
+         * @throws IOException
+         *     if any error occurs
+         */
+        void writeInt(int value) throws IOException {
+
+            while ((value & ~0x7f) != 0) {
+                out.writeByte((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte(value);
+        }
+
+        /**
+         * Writes the string, which may be null.
+         *
+         * @param value
+         *     the string
+         *
+         * @throws IOException
+         *     if any error occurs
+         */
+        void writeString(String value) throws IOException {
+
+            writeValue(value);
+        }
+
+        /**
+         * Writes the value, which may be null.
+         *
+         * @param value
+         *     the value
+         *
+         * @throws NotSerializableException
+         *     if the value is neither a string nor serializable
+         * @throws IOException
+         *     if any error occurs
+         */
+        void writeValue(Object value) throws IOException {
+
+            if (value == null) {
+                writeInt(NULL);
+            } else if (value instanceof String) {
+
+                String string = (String) value;
+                Integer index = strings.get(string);
+                if (index != null) {
+                    writeInt(REFERENCE + index);
+                } else {
+                    strings.put(string, strings.size());
+                    byte[] bytes = string.getBytes(UTF_8);
+                    writeInt(STRING);
+                    writeInt(bytes.length);
+                    out.write(bytes);
+                }
+            } else if (value instanceof Serializable) {
+                writeInt(OBJECT);
+                out.writeObject(value);
+            } else {
+                throw new NotSerializableException(value.getClass().getName());
+            }
+        }
+
+        /**
+         * Writes the bytes, which may be null.
+         *
+         * @param bytes
+         *     the bytes
+         *
+         * @throws IOException
+         *     if any error occurs
+         */
+        void writeBytes(byte[] bytes) throws IOException {
+
+            if (bytes == null) {
+                writeInt(0);
+            } else {
+                writeInt(bytes.length + 1);
+                out.write(bytes);
+            }
+        }
+
+        /**
+         * Writes the multivalued map, which may be null.
+         *
+         * @param map
+         *     the map
+         *
+         * @throws IOException
+         *     if any error occurs
+         */
+        void writeMap(Map<?, ? extends List<?>> map) throws IOException {
+
+            if (map == null) {
+                writeInt(0);
+                return;
+            }
+
+            writeInt(map.size() + 1);
+            for (Map.Entry<?, ? extends List<?>> entry : map.entrySet()) {
+                writeValue(entry.getKey());
+
+                List<?> values = entry.getValue();
+                writeInt(values != null ? values.size() : 0);
+                if (values != null) {
+                    for (Object value : values) {
+                        writeValue(value);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the values of the compact format.
+     */
+    static final class Reader {
+
+        /**
+         * Represents the input.
+         */
+        private final ObjectInput in;
+
+        /**
+         * Represents the strings read so far.
+         */
+        private final List<String> strings = new ArrayList<String>();
+
+        /**
+         * Creates new instance of {@link Reader} class.
+         *
+         * @param in
+         *     the input
+         */
+        Reader(ObjectInput in) {
+
+            this.in = in;
+        }
+
+        /**
+         * Reads the non negative integer.
+         *
+         * @return the value
+         *
+         * @throws IOException
+         *     if any error occurs
+         */
+        int readInt() throws IOException {
+
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = in.readUnsignedByte();
+                value |= (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed integer in the captured context");
+        }
+
+        /**
+         * Reads the string, which may be null.
+         *
+         * @return the string
+         *
+         * @throws IOException
+         *     if any error occurs
+         * @throws ClassNotFoundException
+         *     if the class of a serialized value can not be found
+         */
+        String readString() throws IOException, ClassNotFoundException {
+
+            Object value = readValue();
+            if (value != null && !(value instanceof String)) {
+                throw new IOException("Expected a string in the captured context, was " + value.getClass().getName());
+            }
+            return (String) value;
+        }
+
+        /**
+         * Reads the value, which may be null.
+         *
+         * @return the value
+         *
+         * @throws IOException
+         *     if any error occurs
+         * @throws ClassNotFoundException
+         *     if the class of a serialized value can not be found
+         */
+        Object readValue() throws IOException, ClassNotFoundException {
+
+            int tag = readInt();
+            switch (tag) {
+                case NULL:
+                    return null;
+                case STRING:
+                    byte[] bytes = new byte[readInt()];
+                    in.readFully(bytes);
+                    String string = new String(bytes, UTF_8);
+                    strings.add(string);
+                    return string;
+                case OBJECT:
+                    return in.readObject();
+                default:
+                    if (tag - REFERENCE >= strings.size()) {
+                        throw new IOException("Unknown string reference in the captured context: " + tag);
+                    }
+                    return strings.get(tag - REFERENCE);
+            }
+        }
+
+        /**
+         * Reads the bytes, which may be null.
+         *
+         * @return the bytes
+         *
+         * @throws IOException
+         *     if any error occurs
+         */
+        byte[] readBytes() throws IOException {
+
+            int length = readInt();
+            if (length == 0) {
+                return null;
+            }
+
+            byte[] bytes = new byte[length - 1];
+            in.readFully(bytes);
+            return bytes;
+        }
+
+        /**
+         * Reads the multivalued map into the given one.
+         *
+         * @param map
+         *     the map to fill
+         * @param <K>
+         *     the key type
+         * @param <V>
+         *     the value type
+         * @param <M>
+         *     the map type
+         *
+         * @return the filled map or null if null was written
+         *
+         * @throws IOException
+         *     if any error occurs
+         * @throws ClassNotFoundException
+         *     if the class of a serialized value can not be found
+         */
+        @SuppressWarnings("unchecked")
+        <K, V, M extends MultivaluedMap<K, V>> M readMap(M map) throws IOException, ClassNotFoundException {
+
+            int size = readInt();
+            if (size == 0) {
+                return null;
+            }
+
+            for (int i = 0; i < size - 1; i++) {
+                K key = (K) readValue();
+
+                int count = readInt();
+                if (count == 0) {
+                    map.put(key, new ArrayList<V>());
+                }
+                for (int j = 0; j < count; j++) {
+                    map.add(key, (V) readValue());
+                }
+            }
+            return map;
+        }
+    }
+}
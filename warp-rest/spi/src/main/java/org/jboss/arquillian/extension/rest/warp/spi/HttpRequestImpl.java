@@ -17,23 +17,40 @@
  */
 package org.jboss.arquillian.extension.rest.warp.spi;
 
+import org.jboss.arquillian.extension.rest.warp.api.CapturedEntity;
 import org.jboss.arquillian.extension.rest.warp.api.HttpMethod;
 import org.jboss.arquillian.extension.rest.warp.api.HttpRequest;
 
 import javax.ws.rs.core.MultivaluedMap;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 
 /**
  * The default implementation of {@link HttpRequest}.
+ * <p/>
+ * The request is transferred in the compact format of {@link CompactCodec}, the entities have to be serializable.
  *
  * @author <a href="mailto:jmnarloch@gmail.com">Jakub Narloch</a>
  */
-public class HttpRequestImpl implements HttpRequest {
+public class HttpRequestImpl implements HttpRequest, Externalizable {
+
+    /**
+     * Represents the serial version uid.
+     */
+    private static final long serialVersionUID = 1L;
 
     /**
      * Represents the http method.
      */
     private HttpMethod httpMethod;
 
+    /**
+     * Represents the http method name.
+     */
+    private String methodName;
+
     /**
      * Represents the content type.
      */
@@ -44,6 +61,11 @@ public class HttpRequestImpl implements HttpRequest {
      */
     private Object entity;
 
+    /**
+     * Represents the captured bytes of the request entity.
+     */
+    private CapturedEntity capturedEntity;
+
     /**
      * Represents the map of http headers.
      */
@@ -72,6 +94,26 @@ public class HttpRequestImpl implements HttpRequest {
      */
     public void setMethod(HttpMethod httpMethod) {
         this.httpMethod = httpMethod;
+        this.methodName = httpMethod != null ? httpMethod.name() : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getMethodName() {
+        return methodName;
+    }
+
+    /**
+     * Sets the http method name, together with the corresponding {@link HttpMethod} if the method is a known one.
+     *
+     * @param methodName
+     *     the http method name
+     */
+    public void setMethodName(String methodName) {
+        this.methodName = methodName;
+        this.httpMethod = HttpMethod.fromName(methodName);
     }
 
     /**
@@ -110,6 +152,24 @@ public class HttpRequestImpl implements HttpRequest {
         this.entity = entity;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CapturedEntity getCapturedEntity() {
+        return capturedEntity;
+    }
+
+    /**
+     * Sets the captured bytes of the request entity.
+     *
+     * @param capturedEntity
+     *     the captured entity
+     */
+    public void setCapturedEntity(CapturedEntity capturedEntity) {
+        this.capturedEntity = capturedEntity;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -127,4 +187,32 @@ public class HttpRequestImpl implements HttpRequest {
     public void setHeaders(MultivaluedMap<String, String> headers) {
         this.headers = headers;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+
+        CompactCodec.Writer writer = new CompactCodec.Writer(out);
+        writer.writeString(methodName);
+        writer.writeString(contentType);
+        writer.writeMap(headers);
+        out.writeObject(entity);
+        out.writeObject(capturedEntity);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+
+        CompactCodec.Reader reader = new CompactCodec.Reader(in);
+        setMethodName(reader.readString());
+        contentType = reader.readString();
+        headers = reader.readMap(new CaseInsensitiveMultivaluedMap<String>());
+        entity = in.readObject();
+        capturedEntity = (CapturedEntity) in.readObject();
+    }
 }
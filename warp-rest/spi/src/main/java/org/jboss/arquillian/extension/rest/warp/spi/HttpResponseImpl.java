@@ -17,16 +17,30 @@
  */
 package org.jboss.arquillian.extension.rest.warp.spi;
 
+import org.jboss.arquillian.extension.rest.warp.api.CapturedEntity;
 import org.jboss.arquillian.extension.rest.warp.api.HttpResponse;
+import org.jboss.arquillian.extension.rest.warp.api.StreamTimeline;
 
 import javax.ws.rs.core.MultivaluedMap;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 
 /**
  * The default implementation of {@link HttpResponse}.
+ * <p/>
+ * The response is transferred in the compact format of {@link CompactCodec}, the header values and the entities have to
+ * be serializable.
  *
  * @author <a href="mailto:jmnarloch@gmail.com">Jakub Narloch</a>
  */
-public class HttpResponseImpl implements HttpResponse {
+public class HttpResponseImpl implements HttpResponse, Externalizable {
+
+    /**
+     * Represents the serial version uid.
+     */
+    private static final long serialVersionUID = 1L;
 
     /**
      * Represents the status code.
@@ -43,6 +57,16 @@ public class HttpResponseImpl implements HttpResponse {
      */
     private Object entity;
 
+    /**
+     * Represents the captured bytes of the response entity.
+     */
+    private CapturedEntity capturedEntity;
+
+    /**
+     * Represents the timeline of the response stream.
+     */
+    private StreamTimeline streamTimeline;
+
     /**
      * Represents the http headers.
      */
@@ -109,6 +133,42 @@ public class HttpResponseImpl implements HttpResponse {
         this.entity = entity;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CapturedEntity getCapturedEntity() {
+        return capturedEntity;
+    }
+
+    /**
+     * Sets the captured bytes of the response entity.
+     *
+     * @param capturedEntity
+     *     the captured entity
+     */
+    public void setCapturedEntity(CapturedEntity capturedEntity) {
+        this.capturedEntity = capturedEntity;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StreamTimeline getStreamTimeline() {
+        return streamTimeline;
+    }
+
+    /**
+     * Sets the timeline of the response stream.
+     *
+     * @param streamTimeline
+     *     the stream timeline
+     */
+    public void setStreamTimeline(StreamTimeline streamTimeline) {
+        this.streamTimeline = streamTimeline;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -126,4 +186,34 @@ public class HttpResponseImpl implements HttpResponse {
     public void setHeaders(MultivaluedMap<String, Object> headers) {
         this.headers = headers;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+
+        CompactCodec.Writer writer = new CompactCodec.Writer(out);
+        writer.writeInt(statusCode);
+        writer.writeString(contentType);
+        writer.writeMap(headers);
+        out.writeObject(entity);
+        out.writeObject(capturedEntity);
+        out.writeObject(streamTimeline);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+
+        CompactCodec.Reader reader = new CompactCodec.Reader(in);
+        statusCode = reader.readInt();
+        contentType = reader.readString();
+        headers = reader.readMap(new CaseInsensitiveMultivaluedMap<Object>());
+        entity = in.readObject();
+        capturedEntity = (CapturedEntity) in.readObject();
+        streamTimeline = (StreamTimeline) in.readObject();
+    }
 }
@@ -0,0 +1,366 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.warp.spi;
+
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.RuntimeDelegate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A copy-on-read view of the headers of a request or response.
+ * <p/>
+ * Creating the view doesn't copy anything, the headers of the underlying framework are copied into a
+ * {@link CaseInsensitiveMultivaluedMap} on the first access only and all further access goes to that copy. Requests which headers
+ * are never inspected therefore cost a single small object, no matter how many times the context is built.
+ * <p/>
+ * The view is not a snapshot taken when the context is built. Until the first access it refers to the live headers of
+ * the framework and any change the framework makes to them shows up in the copy, afterwards none does. The first
+ * access is either the inspection reading the headers on the server, or at the latest the serialization of the context
+ * once the request has been processed. The view therefore relies on the framework keeping its header map, unmodified
+ * by other requests, until then, which holds for the supported frameworks as the maps belong to their per request
+ * objects.
+ * The views of the response headers copy the values as the strings they are sent as, so the test sees the same
+ * values on the server and on the client, no matter whether the framework keeps them as strings or as objects.
+ * <p/>
+ * <p><strong>Thread-safety:</strong>The copy is created under the view's lock, the copied map itself is not thread
+ * safe.</p>
+ *
+ * @param <V> the value type
+ */
+public final class LazyMultivaluedMap<V> implements MultivaluedMap<String, V> {
+
+    /**
+     * Represents the headers of the underlying framework.
+     */
+    private final Map<String, ? extends List<? extends V>> source;
+
+    /**
+     * Represents whether the values are copied as the strings they are sent as.
+     */
+    private final boolean headerStrings;
+
+    /**
+     * Represents the copy of the headers, created on first access.
+     */
+    private CaseInsensitiveMultivaluedMap<V> copy;
+
+    /**
+     * Creates new instance of {@link LazyMultivaluedMap} class.
+     *
+     * @param source
+     *     the headers to copy on first access
+     * @param headerStrings
+     *     whether the values are copied as the strings they are sent as
+     */
+    private LazyMultivaluedMap(Map<String, ? extends List<? extends V>> source, boolean headerStrings) {
+
+        this.source = source;
+        this.headerStrings = headerStrings;
+    }
+
+    /**
+     * Creates a view of the given headers.
+     *
+     * @param source
+     *     the headers, may be null
+     * @param <V>
+     *     the value type
+     *
+     * @return the view or null if no headers were given
+     */
+    public static <V> LazyMultivaluedMap<V> of(Map<String, ? extends List<? extends V>> source) {
+
+        return source != null ? new LazyMultivaluedMap<V>(source, false) : null;
+    }
+
+    /**
+     * Creates a view of the given headers which copies the values as the strings they are sent as.
+     *
+     * @param source
+     *     the headers, may be null
+     *
+     * @return the view or null if no headers were given
+     */
+    public static LazyMultivaluedMap<Object> ofHeaderStrings(Map<String, ? extends List<?>> source) {
+
+        return source != null ? new LazyMultivaluedMap<Object>(source, true) : null;
+    }
+
+    /**
+     * Returns the given view if it is a view of the given headers, otherwise creates a new one, so that building the
+     * context repeatedly for the same request doesn't allocate a view each time.
+     *
+     * @param view
+     *     the view created before, may be null
+     * @param source
+     *     the headers, may be null
+     * @param <V>
+     *     the value type
+     *
+     * @return the view of the given headers or null if no headers were given
+     */
+    public static <V> LazyMultivaluedMap<V> reuse(LazyMultivaluedMap<V> view,
+                                                        Map<String, ? extends List<? extends V>> source) {
+
+        return view != null && view.source == source && !view.headerStrings ? view : of(source);
+    }
+
+    /**
+     * Returns the given view if it is a view of the given headers, otherwise creates a new one, which copies the values
+     * as the strings they are sent as.
+     *
+     * @param view
+     *     the view created before, may be null
+     * @param source
+     *     the headers, may be null
+     *
+     * @return the view of the given headers or null if no headers were given
+     */
+    public static LazyMultivaluedMap<Object> reuseHeaderStrings(LazyMultivaluedMap<Object> view,
+                                                                Map<String, ? extends List<?>> source) {
+
+        return view != null && view.source == source && view.headerStrings ? view : ofHeaderStrings(source);
+    }
+
+    /**
+     * Returns whether the headers have been copied already.
+     *
+     * @return true if the headers have been accessed
+     */
+    public synchronized boolean isCopied() {
+
+        return copy != null;
+    }
+
+    /**
+     * Retrieves the copy of the headers, creating it on first access.
+     *
+     * @return the copy of the headers
+     */
+    private synchronized CaseInsensitiveMultivaluedMap<V> copy() {
+
+        if (copy == null) {
+            copy = new CaseInsensitiveMultivaluedMap<V>(source.size());
+            for (Map.Entry<String, ? extends List<? extends V>> entry : source.entrySet()) {
+                if (entry.getValue() == null || entry.getValue().isEmpty()) {
+                    copy.put(entry.getKey(), Collections.<V>emptyList());
+                } else {
+                    for (V value : entry.getValue()) {
+                        copy.add(entry.getKey(), headerStrings ? toHeaderString(value) : value);
+                    }
+                }
+            }
+        }
+
+        return copy;
+    }
+
+    /**
+     * Converts the value to the string it is sent as, through the header delegate of the JAX-RS implementation if
+     * there is one for its type.
+     *
+     * @param value
+     *     the value, may be null
+     *
+     * @return the string, typed as the value type of this map, or null if the value is null
+     */
+    @SuppressWarnings("unchecked")
+    private V toHeaderString(V value) {
+
+        if (value == null || value instanceof String) {
+            return value;
+        }
+
+        try {
+            RuntimeDelegate.HeaderDelegate<V> delegate =
+                (RuntimeDelegate.HeaderDelegate<V>) RuntimeDelegate.getInstance().createHeaderDelegate(value.getClass());
+            if (delegate != null) {
+                return (V) delegate.toString(value);
+            }
+        } catch (RuntimeException e) {
+            // there is no delegate for the type, the string representation is what is sent then
+        }
+        return (V) value.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putSingle(String key, V value) {
+
+        copy().putSingle(key, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void add(String key, V value) {
+
+        copy().add(key, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V getFirst(String key) {
+
+        return copy().getFirst(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+
+        return copy().size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEmpty() {
+
+        return copy().isEmpty();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsKey(Object key) {
+
+        return copy().containsKey(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsValue(Object value) {
+
+        return copy().containsValue(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<V> get(Object key) {
+
+        return copy().get(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<V> put(String key, List<V> value) {
+
+        return copy().put(key, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<V> remove(Object key) {
+
+        return copy().remove(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putAll(Map<? extends String, ? extends List<V>> map) {
+
+        copy().putAll(map);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+
+        copy().clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<String> keySet() {
+
+        return copy().keySet();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<List<V>> values() {
+
+        return copy().values();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Entry<String, List<V>>> entrySet() {
+
+        return copy().entrySet();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object o) {
+
+        return this == o || copy().equals(o instanceof LazyMultivaluedMap ? ((LazyMultivaluedMap<?>) o).copy() : o);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+
+        return copy().hashCode();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+
+        return copy().toString();
+    }
+}
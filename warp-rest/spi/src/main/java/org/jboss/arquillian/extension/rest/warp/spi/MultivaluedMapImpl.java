@@ -18,6 +18,10 @@
 package org.jboss.arquillian.extension.rest.warp.spi;
 
 import javax.ws.rs.core.MultivaluedMap;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -25,10 +29,17 @@ import java.util.Map;
 
 /**
  * Implementation of {@link MultivaluedMap}.
+ * <p/>
+ * The map is transferred in the compact format of {@link CompactCodec}.
  *
  * @author <a href="mailto:jmnarloch@gmail.com">Jakub Narloch</a>
  */
-public class MultivaluedMapImpl<K, V> extends HashMap<K, List<V>> implements MultivaluedMap<K, V> {
+public class MultivaluedMapImpl<K, V> extends HashMap<K, List<V>> implements MultivaluedMap<K, V>, Externalizable {
+
+    /**
+     * Represents the serial version uid.
+     */
+    private static final long serialVersionUID = 1L;
 
     /**
      * Creates new instance of {@link MultivaluedMapImpl} class.
@@ -79,6 +90,25 @@ public class MultivaluedMapImpl<K, V> extends HashMap<K, List<V>> implements Mul
         return list != null ? list.get(0) : null;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+
+        new CompactCodec.Writer(out).writeMap(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+
+        clear();
+        new CompactCodec.Reader(in).readMap(this);
+    }
+
     /**
      * Adds all elements of given map.
      *
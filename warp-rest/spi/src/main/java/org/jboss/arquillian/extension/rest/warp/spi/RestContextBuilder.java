@@ -19,13 +19,50 @@ package org.jboss.arquillian.extension.rest.warp.spi;
 
 /**
  * Rest context builder.
+ * <p/>
+ * The context is built incrementally, each interceptor of the request processing chain updates only the part of the
+ * context that it has captured, identified by the {@link Phase}.
  *
  * @author <a href="mailto:jmnarloch@gmail.com">Jakub Narloch</a>
  */
 public interface RestContextBuilder {
 
     /**
-     * Builds the context.
+     * Builds the context, updating all of its parts.
      */
     void build();
+
+    /**
+     * Updates the part of the context captured in the given phase, leaving the rest of the context unchanged.
+     *
+     * @param phase
+     *     the request processing phase
+     */
+    void build(Phase phase);
+
+    /**
+     * The phases of the request processing, in the order in which they occur.
+     */
+    enum Phase {
+
+        /**
+         * The request has been received, the method, headers and security context are known.
+         */
+        REQUEST,
+
+        /**
+         * The request entity has been read.
+         */
+        REQUEST_ENTITY,
+
+        /**
+         * The resource has been invoked, the response status and headers are known.
+         */
+        RESPONSE,
+
+        /**
+         * The response entity has been written.
+         */
+        RESPONSE_ENTITY
+    }
 }
@@ -21,15 +21,29 @@ import org.jboss.arquillian.extension.rest.warp.api.HttpRequest;
 import org.jboss.arquillian.extension.rest.warp.api.HttpResponse;
 import org.jboss.arquillian.extension.rest.warp.api.RestContext;
 import org.jboss.arquillian.extension.rest.warp.api.SecurityContext;
+import org.jboss.arquillian.extension.rest.warp.api.Timing;
 
 import javax.ws.rs.core.Response;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 
 /**
  * The default implementation of {@link RestContext}.
+ * <p/>
+ * The framework specific {@link Response} isn't transferred, since it is rarely serializable and its status, headers
+ * and entity are already captured by the {@link HttpResponse}, so {@link #getResponse()} returns null once the context
+ * has been deserialized.
  *
  * @author <a href="mailto:jmnarloch@gmail.com">Jakub Narloch</a>
  */
-public class RestContextImpl implements RestContext {
+public class RestContextImpl implements RestContext, Externalizable {
+
+    /**
+     * Represents the serial version uid.
+     */
+    private static final long serialVersionUID = 1L;
 
     /**
      * Represents the http request.
@@ -51,6 +65,11 @@ public class RestContextImpl implements RestContext {
      */
     private SecurityContext securityContext;
 
+    /**
+     * Represents the timing.
+     */
+    private Timing timing;
+
     /**
      * Creates new instance of {@link RestContextImpl} class.
      */
@@ -129,4 +148,46 @@ public class RestContextImpl implements RestContext {
     public void setSecurityContext(SecurityContext securityContext) {
         this.securityContext = securityContext;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Timing getTiming() {
+        return timing;
+    }
+
+    /**
+     * Sets the timing.
+     *
+     * @param timing
+     *     the timing
+     */
+    public void setTiming(Timing timing) {
+        this.timing = timing;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+
+        out.writeObject(httpRequest);
+        out.writeObject(httpResponse);
+        out.writeObject(securityContext);
+        out.writeObject(timing);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+
+        httpRequest = (HttpRequest) in.readObject();
+        httpResponse = (HttpResponse) in.readObject();
+        securityContext = (SecurityContext) in.readObject();
+        timing = (Timing) in.readObject();
+    }
 }
@@ -19,14 +19,26 @@ package org.jboss.arquillian.extension.rest.warp.spi;
 
 import org.jboss.arquillian.extension.rest.warp.api.SecurityContext;
 
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.Serializable;
 import java.security.Principal;
 
 /**
  * The default implementation of {@link SecurityContext}.
+ * <p/>
+ * A principal that isn't serializable is transferred by its name only.
  *
  * @author <a href="mailto:jmnarloch@gmail.com">Jakub Narloch</a>
  */
-public class SecurityContextImpl implements SecurityContext {
+public class SecurityContextImpl implements SecurityContext, Externalizable {
+
+    /**
+     * Represents the serial version uid.
+     */
+    private static final long serialVersionUID = 1L;
 
     /**
      * Represents the principal.
@@ -80,4 +92,68 @@ public class SecurityContextImpl implements SecurityContext {
     public void setAuthenticationScheme(String authenticationScheme) {
         this.authenticationScheme = authenticationScheme;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+
+        out.writeObject(principal == null || principal instanceof Serializable ? principal
+            : new NamedPrincipal(principal.getName()));
+        new CompactCodec.Writer(out).writeString(authenticationScheme);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+
+        principal = (Principal) in.readObject();
+        authenticationScheme = new CompactCodec.Reader(in).readString();
+    }
+
+    /**
+     * The principal transferred in place of the one that isn't serializable.
+     */
+    private static final class NamedPrincipal implements Principal, Serializable {
+
+        /**
+         * Represents the serial version uid.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Represents the name of the principal.
+         */
+        private final String name;
+
+        /**
+         * Creates new instance of {@link NamedPrincipal} class.
+         *
+         * @param name
+         *     the name of the principal
+         */
+        private NamedPrincipal(String name) {
+
+            this.name = name;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
 }
@@ -0,0 +1,392 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.warp.spi;
+
+import org.jboss.arquillian.extension.rest.warp.api.StreamTimeline;
+
+import java.io.Externalizable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The default implementation of {@link StreamTimeline}, filled by the bytes going through the wrapped response stream.
+ * <p/>
+ * Each write and flush is passed to the underlying stream right away, the timeline only counts the bytes, keeps the
+ * first of them and records the time of each flush, so capturing it doesn't change how the response is streamed. The
+ * memory used is bounded by the chunk and head limits.
+ * <p/>
+ * <p><strong>Thread-safety:</strong>This class is mutable, but all of its methods are synchronized, so the timeline can
+ * be inspected while the response is still being streamed.</p>
+ */
+public final class StreamTimelineImpl implements StreamTimeline, Externalizable {
+
+    /**
+     * Represents the serial version uid.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Represents the maximum number of recorded chunks.
+     */
+    private int chunkLimit;
+
+    /**
+     * Represents the time the stream was opened at, in nanoseconds.
+     */
+    private long start;
+
+    /**
+     * Represents the time of the last chunk, relative to the start.
+     */
+    private long lastChunkTime;
+
+    /**
+     * Represents the times of the recorded chunks, relative to the start.
+     */
+    private long[] chunkTimes = new long[0];
+
+    /**
+     * Represents the sizes of the recorded chunks.
+     */
+    private long[] chunkSizes = new long[0];
+
+    /**
+     * Represents the number of flushed chunks.
+     */
+    private long chunkCount;
+
+    /**
+     * Represents the number of bytes written since the last chunk.
+     */
+    private long pending;
+
+    /**
+     * Represents the number of bytes written to the stream.
+     */
+    private long size;
+
+    /**
+     * Represents the longest interval between the chunks.
+     */
+    private long maxInterval;
+
+    /**
+     * Represents the first bytes of the stream.
+     */
+    private byte[] head = new byte[0];
+
+    /**
+     * Represents the number of captured bytes.
+     */
+    private int headCount;
+
+    /**
+     * Creates new instance of {@link StreamTimelineImpl} class, used by the deserialization.
+     */
+    public StreamTimelineImpl() {
+        // empty constructor
+    }
+
+    /**
+     * Creates new instance of {@link StreamTimelineImpl} class.
+     *
+     * @param chunkLimit
+     *     the maximum number of recorded chunks
+     * @param headLimit
+     *     the maximum number of captured bytes
+     */
+    public StreamTimelineImpl(int chunkLimit, int headLimit) {
+
+        this.chunkLimit = chunkLimit;
+        this.head = new byte[headLimit];
+        this.start = System.nanoTime();
+    }
+
+    /**
+     * Wraps the response stream, recording the bytes being written and the flushes.
+     * <p/>
+     * The same timeline can wrap several streams of the response, as when the events are written one by one.
+     *
+     * @param outputStream
+     *     the response stream
+     *
+     * @return the wrapped stream
+     */
+    public OutputStream wrap(OutputStream outputStream) {
+
+        return new FilterOutputStream(outputStream) {
+
+            @Override
+            public void write(int b) throws IOException {
+
+                out.write(b);
+                written(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+
+                out.write(b, off, len);
+                written(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+
+                out.flush();
+                chunk();
+            }
+
+            @Override
+            public void close() throws IOException {
+
+                try {
+                    out.close();
+                } finally {
+                    chunk();
+                }
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized long getChunkCount() {
+
+        return chunkCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized long getSize() {
+
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized long getMaxInterval() {
+
+        return maxInterval;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized List<Chunk> getChunks() {
+
+        int recorded = (int) Math.min(chunkCount, chunkTimes.length);
+        List<Chunk> chunks = new ArrayList<Chunk>(recorded);
+        for (int i = 0; i < recorded; i++) {
+            chunks.add(new ChunkImpl(chunkTimes[i], chunkSizes[i]));
+        }
+        return Collections.unmodifiableList(chunks);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized boolean isTruncated() {
+
+        return chunkCount > chunkTimes.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized byte[] getHead() {
+
+        return Arrays.copyOf(head, headCount);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void writeExternal(ObjectOutput out) throws IOException {
+
+        int recorded = (int) Math.min(chunkCount, chunkTimes.length);
+        CompactCodec.Writer writer = new CompactCodec.Writer(out);
+        out.writeLong(chunkCount);
+        out.writeLong(size);
+        out.writeLong(maxInterval);
+        writer.writeInt(recorded);
+        for (int i = 0; i < recorded; i++) {
+            out.writeLong(chunkTimes[i]);
+            out.writeLong(chunkSizes[i]);
+        }
+        writer.writeBytes(getHead());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+
+        CompactCodec.Reader reader = new CompactCodec.Reader(in);
+        chunkCount = in.readLong();
+        size = in.readLong();
+        maxInterval = in.readLong();
+        int recorded = reader.readInt();
+        chunkTimes = new long[recorded];
+        chunkSizes = new long[recorded];
+        for (int i = 0; i < recorded; i++) {
+            chunkTimes[i] = in.readLong();
+            chunkSizes[i] = in.readLong();
+        }
+        chunkLimit = recorded;
+        head = reader.readBytes();
+        headCount = head.length;
+    }
+
+    /**
+     * Records the byte written to the stream.
+     *
+     * @param b
+     *     the byte
+     */
+    private synchronized void written(int b) {
+
+        if (headCount < head.length) {
+            head[headCount++] = (byte) b;
+        }
+
+        pending++;
+        size++;
+    }
+
+    /**
+     * Records the bytes written to the stream.
+     *
+     * @param b
+     *     the bytes
+     * @param off
+     *     the offset of the first byte
+     * @param len
+     *     the number of bytes
+     */
+    private synchronized void written(byte[] b, int off, int len) {
+
+        int captured = Math.min(len, head.length - headCount);
+        if (captured > 0) {
+            System.arraycopy(b, off, head, headCount, captured);
+            headCount += captured;
+        }
+
+        pending += len;
+        size += len;
+    }
+
+    /**
+     * Closes the current chunk, if any bytes have been written since the previous one.
+     */
+    private synchronized void chunk() {
+
+        if (pending == 0) {
+            return;
+        }
+
+        long time = System.nanoTime() - start;
+        maxInterval = Math.max(maxInterval, time - lastChunkTime);
+        lastChunkTime = time;
+
+        if (chunkCount < chunkLimit) {
+            if (chunkCount == chunkTimes.length) {
+                int capacity = (int) Math.min(chunkLimit, Math.max(16, 2L * chunkTimes.length));
+                chunkTimes = Arrays.copyOf(chunkTimes, capacity);
+                chunkSizes = Arrays.copyOf(chunkSizes, capacity);
+            }
+            chunkTimes[(int) chunkCount] = time;
+            chunkSizes[(int) chunkCount] = pending;
+        }
+
+        chunkCount++;
+        pending = 0;
+    }
+
+    /**
+     * The default implementation of {@link Chunk}.
+     */
+    private static final class ChunkImpl implements Chunk {
+
+        /**
+         * Represents the time of the chunk.
+         */
+        private final long time;
+
+        /**
+         * Represents the size of the chunk.
+         */
+        private final long size;
+
+        /**
+         * Creates new instance of {@link ChunkImpl} class.
+         *
+         * @param time
+         *     the time of the chunk
+         * @param size
+         *     the size of the chunk
+         */
+        private ChunkImpl(long time, long size) {
+
+            this.time = time;
+            this.size = size;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long getTime() {
+            return time;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return size + " bytes at " + time + " ns";
+        }
+    }
+}
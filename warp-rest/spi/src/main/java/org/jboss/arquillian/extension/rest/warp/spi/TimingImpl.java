@@ -0,0 +1,227 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.warp.spi;
+
+import org.jboss.arquillian.extension.rest.warp.api.Timing;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * The default implementation of {@link Timing}.
+ * <p/>
+ * Recording a mark costs a single {@link System#nanoTime()} call. The start marks keep the first recorded time and the
+ * end marks keep the last one, so that a response written as several events is timed from its first to its last
+ * event.
+ * <p/>
+ * <p><strong>Thread-safety:</strong>This class is mutable, but all of its methods are synchronized, so the timing can
+ * be inspected by another thread than the one processing the request.</p>
+ */
+public final class TimingImpl implements Timing, Externalizable {
+
+    /**
+     * Represents the serial version uid.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Represents the marks.
+     */
+    private static final Mark[] MARKS = Mark.values();
+
+    /**
+     * Represents the recorded timestamps, indexed by the mark ordinal.
+     */
+    private final long[] timestamps = new long[MARKS.length];
+
+    /**
+     * Represents the bit set of the recorded marks.
+     */
+    private int recorded;
+
+    /**
+     * Creates new instance of {@link TimingImpl} class.
+     */
+    public TimingImpl() {
+        // empty constructor
+    }
+
+    /**
+     * Records the given mark at the current time.
+     *
+     * @param mark
+     *     the mark
+     */
+    public void mark(Mark mark) {
+
+        mark(mark, System.nanoTime());
+    }
+
+    /**
+     * Records the given mark at the given time.
+     *
+     * @param mark
+     *     the mark
+     * @param timestamp
+     *     the timestamp in nanoseconds
+     */
+    public synchronized void mark(Mark mark, long timestamp) {
+
+        int bit = 1 << mark.ordinal();
+        if ((recorded & bit) == 0 || isEnd(mark)) {
+            timestamps[mark.ordinal()] = timestamp;
+            recorded |= bit;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized long getTimestamp(Mark mark) {
+
+        return isRecorded(mark) ? timestamps[mark.ordinal()] : -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized long getDeserializationTime() {
+
+        return between(Mark.REQUEST_ENTITY_START, Mark.REQUEST_ENTITY_END);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized long getResourceTime() {
+
+        return between(isRecorded(Mark.REQUEST_ENTITY_END) ? Mark.REQUEST_ENTITY_END : Mark.REQUEST, Mark.RESPONSE);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized long getSerializationTime() {
+
+        return between(Mark.RESPONSE_ENTITY_START, Mark.RESPONSE_ENTITY_END);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized long getTotalTime() {
+
+        if (!isRecorded(Mark.REQUEST)) {
+            return -1;
+        }
+
+        long last = timestamps[Mark.REQUEST.ordinal()];
+        for (Mark mark : MARKS) {
+            if (isRecorded(mark)) {
+                last = Math.max(last, timestamps[mark.ordinal()]);
+            }
+        }
+        return last - timestamps[Mark.REQUEST.ordinal()];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void writeExternal(ObjectOutput out) throws IOException {
+
+        out.writeByte(recorded);
+        for (Mark mark : MARKS) {
+            if (isRecorded(mark)) {
+                out.writeLong(timestamps[mark.ordinal()]);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+
+        recorded = in.readUnsignedByte();
+        for (Mark mark : MARKS) {
+            if (isRecorded(mark)) {
+                timestamps[mark.ordinal()] = in.readLong();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized String toString() {
+
+        return "Timing[deserialization=" + getDeserializationTime() + "ns, resource=" + getResourceTime()
+            + "ns, serialization=" + getSerializationTime() + "ns, total=" + getTotalTime() + "ns]";
+    }
+
+    /**
+     * Retrieves the time between the given marks.
+     *
+     * @param start
+     *     the start mark
+     * @param end
+     *     the end mark
+     *
+     * @return the duration in nanoseconds or -1 if any of the marks hasn't been recorded
+     */
+    private long between(Mark start, Mark end) {
+
+        return isRecorded(start) && isRecorded(end) ? timestamps[end.ordinal()] - timestamps[start.ordinal()] : -1;
+    }
+
+    /**
+     * Returns whether the given mark has been recorded.
+     *
+     * @param mark
+     *     the mark
+     *
+     * @return true if the mark has been recorded
+     */
+    private boolean isRecorded(Mark mark) {
+
+        return (recorded & (1 << mark.ordinal())) != 0;
+    }
+
+    /**
+     * Returns whether the given mark ends a phase.
+     *
+     * @param mark
+     *     the mark
+     *
+     * @return true if the mark ends a phase
+     */
+    private static boolean isEnd(Mark mark) {
+
+        return mark == Mark.REQUEST_ENTITY_END || mark == Mark.RESPONSE_ENTITY_END;
+    }
+}
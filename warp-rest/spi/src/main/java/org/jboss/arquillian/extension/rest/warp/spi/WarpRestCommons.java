@@ -29,4 +29,18 @@ public class WarpRestCommons {
      * org.jboss.arquillian.extension.rest.warp.api.RestContext} in the servlet request.
      */
     public static final String WARP_REST_ATTRIBUTE = "org.jboss.arquillian.warp.extension.jaxrs.spi.WARP_REST_ATTRIBUTE";
+
+    /**
+     * Represents the name of the attribute which is used for storing whether the {@link
+     * org.jboss.arquillian.extension.rest.warp.api.RestContext} of the request is being captured, as decided by the
+     * {@link CapturePolicy}.
+     */
+    public static final String CAPTURE_ATTRIBUTE = "org.jboss.arquillian.warp.extension.jaxrs.spi.CAPTURE_ATTRIBUTE";
+
+    /**
+     * Represents the name of the attribute which is used for storing the {@link StreamTimelineImpl} of the request, so
+     * that all the events written to the response are recorded in the same timeline.
+     */
+    public static final String STREAM_TIMELINE_ATTRIBUTE =
+        "org.jboss.arquillian.warp.extension.jaxrs.spi.STREAM_TIMELINE_ATTRIBUTE";
 }
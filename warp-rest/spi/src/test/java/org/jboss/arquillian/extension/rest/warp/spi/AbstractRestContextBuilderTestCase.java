@@ -0,0 +1,195 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.warp.spi;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * Tests the {@link AbstractRestContextBuilder} class.
+ */
+public class AbstractRestContextBuilderTestCase {
+
+    /**
+     * Represents the attributes of the request.
+     */
+    private MapAttributes attributes;
+
+    /**
+     * Sets up the test environment.
+     */
+    @Before
+    public void setUp() {
+
+        attributes = new MapAttributes();
+    }
+
+    /**
+     * Tests that the builder and the context are stored in the attributes.
+     */
+    @Test
+    public void shouldStoreBuilderAndContextInAttributes() {
+
+        // when
+        TestContextBuilder instance = TestContextBuilder.buildContext(attributes);
+
+        // then
+        assertThat(TestContextBuilder.buildContext(attributes)).isSameAs(instance);
+        assertThat(attributes.getAttribute(WarpRestCommons.WARP_REST_ATTRIBUTE)).isSameAs(instance.getRestContext());
+        assertThat(instance.getRestContext().getHttpRequest()).isSameAs(instance.getCapturedRequest());
+        assertThat(instance.getRestContext().getHttpResponse()).isSameAs(instance.getCapturedResponse());
+    }
+
+    /**
+     * Tests that the request is captured.
+     */
+    @Test
+    public void shouldCaptureRequest() {
+
+        // given
+        Map<String, List<String>> headers = new HashMap<String, List<String>>();
+        headers.put("Accept", Arrays.asList("application/json"));
+
+        // when
+        TestContextBuilder instance = TestContextBuilder.buildContext(attributes);
+        instance.captureRequest("PATCH", "application/json", headers);
+        instance.captureRequestEntity("entity");
+
+        // then
+        assertThat(instance.getCapturedRequest().getMethodName()).isEqualTo("PATCH");
+        assertThat(instance.getCapturedRequest().getContentType()).isEqualTo("application/json");
+        assertThat(instance.getCapturedRequest().getHeaders().getFirst("Accept")).isEqualTo("application/json");
+        assertThat(instance.getCapturedRequest().getEntity()).isEqualTo("entity");
+    }
+
+    /**
+     * Tests that the response header values are captured as the strings they are sent as.
+     */
+    @Test
+    public void shouldCaptureResponseHeadersAsStrings() {
+
+        // given
+        Map<String, List<Object>> headers = new HashMap<String, List<Object>>();
+        headers.put("Content-Length", Arrays.<Object>asList(15));
+        headers.put("Content-Language", Arrays.<Object>asList("en"));
+
+        // when
+        TestContextBuilder instance = TestContextBuilder.buildContext(attributes);
+        instance.captureResponse(200, "application/json", headers);
+
+        // then
+        assertThat(instance.getCapturedResponse().getHeaders().getFirst("Content-Length")).isEqualTo("15");
+        assertThat(instance.getCapturedResponse().getHeaders().getFirst("Content-Language")).isEqualTo("en");
+    }
+
+    /**
+     * Tests that the entity object is dropped when its bytes are captured.
+     */
+    @Test
+    public void shouldDropEntityWhenBytesAreCaptured() {
+
+        // given
+        CapturedEntityImpl capturedEntity = new CapturedEntityImpl(16, "SHA-256");
+
+        // when
+        TestContextBuilder instance = TestContextBuilder.buildContext(attributes)
+            .setCapturedResponseEntity(capturedEntity);
+        instance.captureResponse(200, null, Collections.<String, List<Object>>emptyMap());
+        instance.captureResponseEntity("entity");
+
+        // then
+        assertThat(instance.getCapturedResponse().getStatusCode()).isEqualTo(200);
+        assertThat(instance.getCapturedResponse().getEntity()).isNull();
+        assertThat(instance.getCapturedResponse().getCapturedEntity()).isSameAs(capturedEntity);
+    }
+
+    /**
+     * The builder used for testing.
+     */
+    private static final class TestContextBuilder extends AbstractRestContextBuilder<TestContextBuilder> {
+
+        /**
+         * Creates new instance of {@link TestContextBuilder} class.
+         *
+         * @param attributes
+         *     the attributes of the request
+         */
+        private TestContextBuilder(Attributes attributes) {
+            super(attributes);
+        }
+
+        /**
+         * Retrieves the builder of the request.
+         *
+         * @param attributes
+         *     the attributes of the request
+         *
+         * @return the builder
+         */
+        private static TestContextBuilder buildContext(Attributes attributes) {
+
+            TestContextBuilder builder = findBuilder(attributes, TestContextBuilder.class);
+            return builder != null ? builder : new TestContextBuilder(attributes);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void build(Phase phase) {
+            // empty method
+        }
+    }
+
+    /**
+     * The attributes stored in a map.
+     */
+    private static final class MapAttributes implements AbstractRestContextBuilder.Attributes {
+
+        /**
+         * Represents the attributes.
+         */
+        private final Map<String, Object> attributes = new HashMap<String, Object>();
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Object getAttribute(String name) {
+
+            return attributes.get(name);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setAttribute(String name, Object value) {
+
+            attributes.put(name, value);
+        }
+    }
+}
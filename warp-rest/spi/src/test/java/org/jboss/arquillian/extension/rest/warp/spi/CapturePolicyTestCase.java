@@ -0,0 +1,193 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.warp.spi;
+
+import org.junit.Test;
+
+import javax.ws.rs.core.StreamingOutput;
+import java.io.OutputStream;
+import java.util.Properties;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * Tests the {@link CapturePolicy} class.
+ */
+public class CapturePolicyTestCase {
+
+    /**
+     * Represents the value of the Warp inspection header.
+     */
+    private static final String MARKER = "inspection";
+
+    /**
+     * Tests that by default only the inspected requests are captured.
+     */
+    @Test
+    public void shouldCaptureOnlyInspectedRequestsByDefault() {
+
+        // given
+        CapturePolicy instance = CapturePolicy.fromProperties(new Properties());
+
+        // then
+        assertThat(instance.isInspectedOnly()).isTrue();
+        assertThat(instance.shouldCapture(MARKER, "GET", "stocks")).isTrue();
+        assertThat(instance.shouldCapture(null, "GET", "stocks")).isFalse();
+    }
+
+    /**
+     * Tests that the requests are filtered by the include and exclude rules.
+     */
+    @Test
+    public void shouldApplyIncludeAndExcludeRules() {
+
+        // given
+        Properties properties = new Properties();
+        properties.setProperty(CapturePolicy.INSPECTED_ONLY, "false");
+        properties.setProperty(CapturePolicy.INCLUDE, "GET /stocks/*, POST");
+        properties.setProperty(CapturePolicy.EXCLUDE, "stocks/health");
+
+        // when
+        CapturePolicy instance = CapturePolicy.fromProperties(properties);
+
+        // then
+        assertThat(instance.shouldCapture(null, "GET", "/stocks/1")).isTrue();
+        assertThat(instance.shouldCapture(null, "POST", "/orders")).isTrue();
+        assertThat(instance.shouldCapture(null, "DELETE", "/stocks/1")).isFalse();
+        assertThat(instance.shouldCapture(null, "GET", "/stocks/health")).isFalse();
+    }
+
+    /**
+     * Tests that no request without an inspection is captured with zero sampling rate.
+     */
+    @Test
+    public void shouldNotCaptureWithZeroSamplingRate() {
+
+        // given
+        Properties properties = new Properties();
+        properties.setProperty(CapturePolicy.INSPECTED_ONLY, "false");
+        properties.setProperty(CapturePolicy.SAMPLING_RATE, "0");
+
+        // when
+        CapturePolicy instance = CapturePolicy.fromProperties(properties);
+
+        // then
+        assertThat(instance.getSamplingRate()).isEqualTo(0.0);
+        assertThat(instance.shouldCapture(null, "GET", "stocks")).isFalse();
+    }
+
+    /**
+     * Tests that an inspected request is captured whatever the sampling rate.
+     */
+    @Test
+    public void shouldCaptureInspectedRequestWithZeroSamplingRate() {
+
+        // given
+        Properties properties = new Properties();
+        properties.setProperty(CapturePolicy.SAMPLING_RATE, "0");
+
+        // when
+        CapturePolicy instance = CapturePolicy.fromProperties(properties);
+
+        // then
+        assertThat(instance.shouldCapture(MARKER, "GET", "stocks")).isTrue();
+    }
+
+    /**
+     * Tests that an invalid sampling rate is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectSamplingRateAboveOne() {
+
+        // given
+        Properties properties = new Properties();
+        properties.setProperty(CapturePolicy.SAMPLING_RATE, "1.5");
+
+        // when
+        CapturePolicy.fromProperties(properties);
+    }
+
+    /**
+     * Tests that the entity objects are captured by default.
+     */
+    @Test
+    public void shouldCaptureEntityObjectsByDefault() {
+
+        // given
+        CapturePolicy instance = CapturePolicy.fromProperties(new Properties());
+
+        // then
+        assertThat(instance.getEntityCapture()).isEqualTo(CapturePolicy.EntityCapture.FULL);
+        assertThat(instance.captureEntity()).isNull();
+    }
+
+    /**
+     * Tests that only the digest is captured in the hash mode.
+     */
+    @Test
+    public void shouldCaptureOnlyDigestInHashMode() {
+
+        // given
+        Properties properties = new Properties();
+        properties.setProperty(CapturePolicy.ENTITY_CAPTURE, "hash");
+        properties.setProperty(CapturePolicy.ENTITY_DIGEST_ALGORITHM, "MD5");
+
+        // when
+        CapturedEntityImpl result = CapturePolicy.fromProperties(properties).captureEntity();
+
+        // then
+        assertThat(result).isNotNull();
+        assertThat(result.getDigestAlgorithm()).isEqualTo("MD5");
+        assertThat(result.getContent()).isEmpty();
+    }
+
+    /**
+     * Tests that an unknown digest algorithm is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnknownDigestAlgorithm() {
+
+        // given
+        Properties properties = new Properties();
+        properties.setProperty(CapturePolicy.ENTITY_DIGEST_ALGORITHM, "CRC-7");
+
+        // when
+        CapturePolicy.fromProperties(properties);
+    }
+
+    /**
+     * Tests that only the streamed responses have their timeline recorded.
+     */
+    @Test
+    public void shouldRecordTimelineOfStreamedResponses() {
+
+        // given
+        CapturePolicy instance = CapturePolicy.fromProperties(new Properties());
+
+        // then
+        assertThat(instance.captureStream(new StreamingOutput() {
+            @Override
+            public void write(OutputStream output) {
+                // empty method
+            }
+        }, "application/octet-stream")).isNotNull();
+        assertThat(instance.captureStream("data: 1", "text/event-stream;charset=UTF-8")).isNotNull();
+        assertThat(instance.captureStream("{}", "application/json")).isNull();
+        assertThat(instance.captureStream(null, null)).isNull();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.warp.spi;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * Tests the {@link CapturedEntityImpl} class.
+ */
+public class CapturedEntityImplTestCase {
+
+    /**
+     * Represents the test entity.
+     */
+    private static final byte[] ENTITY = "{\"name\":\"Acme\",\"value\":\"123\"}".getBytes();
+
+    /**
+     * Represents the SHA-256 digest of the test entity.
+     */
+    private static final String ENTITY_DIGEST = "c23ff121f720dd5a9ea46bdfb92938de90a804824c7e76c5e19aa8bb6e01ba2b";
+
+    /**
+     * Tests that the whole entity is captured when it fits within the limit.
+     */
+    @Test
+    public void shouldCaptureEntityWrittenToStream() throws Exception {
+
+        // given
+        CapturedEntityImpl instance = new CapturedEntityImpl(1024, "SHA-256");
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+
+        // when
+        OutputStream outputStream = instance.wrap(target);
+        outputStream.write(ENTITY, 0, 10);
+        outputStream.write(ENTITY[10]);
+        outputStream.write(ENTITY, 11, ENTITY.length - 11);
+
+        // then
+        assertThat(target.toByteArray()).isEqualTo(ENTITY);
+        assertThat(instance.getContent()).isEqualTo(ENTITY);
+        assertThat(instance.getSize()).isEqualTo(ENTITY.length);
+        assertThat(instance.isTruncated()).isFalse();
+        assertThat(instance.getDigest()).isEqualTo(ENTITY_DIGEST);
+    }
+
+    /**
+     * Tests that the entity is truncated to the limit, while the size and digest cover the whole entity.
+     */
+    @Test
+    public void shouldTruncateEntityReadFromStream() throws Exception {
+
+        // given
+        CapturedEntityImpl instance = new CapturedEntityImpl(4, "SHA-256");
+        InputStream inputStream = instance.wrap(new ByteArrayInputStream(ENTITY));
+
+        // when
+        byte[] buffer = new byte[7];
+        while (inputStream.read(buffer) >= 0) {
+            inputStream.read();
+        }
+
+        // then
+        assertThat(instance.getContent()).isEqualTo("{\"na".getBytes());
+        assertThat(instance.getSize()).isEqualTo(ENTITY.length);
+        assertThat(instance.isTruncated()).isTrue();
+        assertThat(instance.getDigest()).isEqualTo(ENTITY_DIGEST);
+    }
+}
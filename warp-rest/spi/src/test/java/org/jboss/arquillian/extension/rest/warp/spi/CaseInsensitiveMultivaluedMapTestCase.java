@@ -0,0 +1,201 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.warp.spi;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * Tests the {@link CaseInsensitiveMultivaluedMap} class.
+ */
+public class CaseInsensitiveMultivaluedMapTestCase {
+
+    /**
+     * Tests that the headers are retrieved ignoring the case of their names.
+     */
+    @Test
+    public void shouldIgnoreCaseOfNames() {
+
+        // given
+        CaseInsensitiveMultivaluedMap<String> instance = new CaseInsensitiveMultivaluedMap<String>();
+
+        // when
+        instance.add("Content-Type", "application/json");
+        instance.add("ACCEPT", "application/xml");
+        instance.add("accept", "text/plain");
+
+        // then
+        assertThat(instance.size()).isEqualTo(2);
+        assertThat(instance.getFirst("content-type")).isEqualTo("application/json");
+        assertThat(instance.get("Accept")).isEqualTo(Arrays.asList("application/xml", "text/plain"));
+        assertThat(instance.containsKey("CONTENT-TYPE")).isTrue();
+        assertThat(instance.keySet()).containsOnly("Content-Type", "ACCEPT");
+    }
+
+    /**
+     * Tests that the lists returned by the map are backed by the map.
+     */
+    @Test
+    public void shouldReturnLiveLists() {
+
+        // given
+        CaseInsensitiveMultivaluedMap<String> instance = new CaseInsensitiveMultivaluedMap<String>();
+        instance.putSingle("Cookie", "a=1");
+
+        // when
+        instance.get("cookie").add("b=2");
+        instance.add("Cookie", "c=3");
+
+        // then
+        assertThat(instance.get("Cookie")).isEqualTo(Arrays.asList("a=1", "b=2", "c=3"));
+        assertThat(instance.getFirst("Cookie")).isEqualTo("a=1");
+    }
+
+    /**
+     * Tests that the map grows and keeps its headers when they are removed.
+     */
+    @Test
+    public void shouldGrowAndRemoveHeaders() {
+
+        // given
+        CaseInsensitiveMultivaluedMap<String> instance = new CaseInsensitiveMultivaluedMap<String>(1);
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            instance.putSingle("X-Header-" + i, Integer.toString(i));
+        }
+        for (int i = 0; i < 100; i += 2) {
+            instance.remove("x-header-" + i);
+        }
+
+        // then
+        assertThat(instance.size()).isEqualTo(50);
+        for (int i = 0; i < 100; i++) {
+            assertThat(instance.getFirst("X-HEADER-" + i)).isEqualTo(i % 2 == 0 ? null : Integer.toString(i));
+        }
+    }
+
+    /**
+     * Tests that the headers are found under the names they were added with after other headers were removed.
+     */
+    @Test
+    public void shouldFindHeadersUnderAddedNamesAfterRemoval() {
+
+        // given
+        CaseInsensitiveMultivaluedMap<String> instance = new CaseInsensitiveMultivaluedMap<String>(1);
+        for (int i = 0; i < 100; i++) {
+            instance.putSingle("X-Header-" + i, Integer.toString(i));
+        }
+
+        // when
+        for (int i = 0; i < 100; i += 2) {
+            instance.remove("X-Header-" + i);
+        }
+        instance.putSingle("x-header-0", "again");
+
+        // then
+        for (int i = 1; i < 100; i += 2) {
+            assertThat(instance.getFirst("X-Header-" + i)).isEqualTo(Integer.toString(i));
+        }
+        assertThat(instance.getFirst("X-Header-2")).isNull();
+        assertThat(instance.getFirst("x-header-0")).isEqualTo("again");
+        assertThat(instance.getFirst("X-Header-0")).isEqualTo("again");
+    }
+
+    /**
+     * Tests that the headers are removed through the iterator.
+     */
+    @Test
+    public void shouldRemoveHeadersThroughIterator() {
+
+        // given
+        CaseInsensitiveMultivaluedMap<String> instance = new CaseInsensitiveMultivaluedMap<String>();
+        instance.putSingle("Accept", "application/json");
+        instance.putSingle("Host", "localhost");
+
+        // when
+        Iterator<Map.Entry<String, List<String>>> iterator = instance.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getKey().equals("Host")) {
+                iterator.remove();
+            }
+        }
+
+        // then
+        assertThat(instance.size()).isEqualTo(1);
+        assertThat(instance.containsKey("host")).isFalse();
+        assertThat(instance.getFirst("accept")).isEqualTo("application/json");
+    }
+
+    /**
+     * Tests that the map is equal to a map holding the same headers.
+     */
+    @Test
+    public void shouldBeEqualToMapWithSameHeaders() {
+
+        // given
+        Map<String, List<String>> expected = new HashMap<String, List<String>>();
+        expected.put("Accept", Arrays.asList("application/json", "application/xml"));
+        expected.put("Host", Arrays.asList("localhost"));
+
+        // when
+        CaseInsensitiveMultivaluedMap<String> instance = new CaseInsensitiveMultivaluedMap<String>();
+        instance.putAll(expected);
+
+        // then
+        assertThat(instance).isEqualTo(expected);
+        assertThat(instance.hashCode()).isEqualTo(expected.hashCode());
+    }
+
+    /**
+     * Tests that the map survives the serialization.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldSerializeMap() throws Exception {
+
+        // given
+        CaseInsensitiveMultivaluedMap<String> instance = new CaseInsensitiveMultivaluedMap<String>();
+        instance.add("Accept", "application/json");
+        instance.add("Accept", "application/xml");
+        instance.putSingle("Host", "localhost");
+
+        // when
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream output = new ObjectOutputStream(bytes);
+        output.writeObject(instance);
+        output.close();
+        CaseInsensitiveMultivaluedMap<String> result = (CaseInsensitiveMultivaluedMap<String>)
+            new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+
+        // then
+        assertThat(result).isEqualTo(instance);
+        assertThat(result.getFirst("HOST")).isEqualTo("localhost");
+    }
+}
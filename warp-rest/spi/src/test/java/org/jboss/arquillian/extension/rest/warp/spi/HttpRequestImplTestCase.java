@@ -0,0 +1,80 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.warp.spi;
+
+import org.jboss.arquillian.extension.rest.warp.api.HttpMethod;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * Tests the {@link HttpRequestImpl} class.
+ */
+public class HttpRequestImplTestCase {
+
+    /**
+     * Tests that the known methods are mapped to {@link HttpMethod}.
+     */
+    @Test
+    public void shouldMapKnownMethods() {
+
+        // given
+        HttpRequestImpl instance = new HttpRequestImpl();
+
+        // when
+        instance.setMethodName("PATCH");
+
+        // then
+        assertThat(instance.getMethod()).isEqualTo(HttpMethod.PATCH);
+        assertThat(instance.getMethodName()).isEqualTo("PATCH");
+    }
+
+    /**
+     * Tests that the methods sent in lower case are mapped as well.
+     */
+    @Test
+    public void shouldMapLowerCaseMethods() {
+
+        // given
+        HttpRequestImpl instance = new HttpRequestImpl();
+
+        // when
+        instance.setMethodName("options");
+
+        // then
+        assertThat(instance.getMethod()).isEqualTo(HttpMethod.OPTIONS);
+        assertThat(instance.getMethodName()).isEqualTo("options");
+    }
+
+    /**
+     * Tests that the unknown methods are kept by name.
+     */
+    @Test
+    public void shouldKeepUnknownMethods() {
+
+        // given
+        HttpRequestImpl instance = new HttpRequestImpl();
+
+        // when
+        instance.setMethodName("PROPFIND");
+
+        // then
+        assertThat(instance.getMethod()).isNull();
+        assertThat(instance.getMethodName()).isEqualTo("PROPFIND");
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.warp.spi;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * Tests the {@link LazyMultivaluedMap} class.
+ */
+public class LazyMultivaluedMapTestCase {
+
+    /**
+     * Tests that the headers are copied on the first access only.
+     */
+    @Test
+    public void shouldCopyHeadersOnce() {
+
+        // given
+        CountingMap source = new CountingMap();
+        source.put("Content-Type", Arrays.asList("application/json"));
+        source.put("Accept", Arrays.asList("application/xml", "text/plain"));
+        LazyMultivaluedMap<String> instance = LazyMultivaluedMap.of(source);
+
+        // when
+        boolean copiedBefore = instance.isCopied();
+        String contentType = instance.getFirst("content-type");
+        List<String> accept = instance.get("ACCEPT");
+        int size = instance.size();
+
+        // then
+        assertThat(copiedBefore).isFalse();
+        assertThat(instance.isCopied()).isTrue();
+        assertThat(source.copies).isEqualTo(1);
+        assertThat(contentType).isEqualTo("application/json");
+        assertThat(accept).isEqualTo(Arrays.asList("application/xml", "text/plain"));
+        assertThat(size).isEqualTo(2);
+    }
+
+    /**
+     * Tests that a header without values is copied as an empty list.
+     */
+    @Test
+    public void shouldCopyHeaderWithoutValues() {
+
+        // given
+        Map<String, List<String>> source = new HashMap<String, List<String>>();
+        source.put("Pragma", Collections.<String>emptyList());
+
+        // when
+        LazyMultivaluedMap<String> instance = LazyMultivaluedMap.of(source);
+
+        // then
+        assertThat(instance.containsKey("pragma")).isTrue();
+        assertThat(instance.get("pragma")).isEmpty();
+        assertThat(instance.getFirst("pragma")).isNull();
+    }
+
+    /**
+     * Tests that no view is created without headers.
+     */
+    @Test
+    public void shouldReturnNullWithoutHeaders() {
+
+        // when
+        LazyMultivaluedMap<String> instance = LazyMultivaluedMap.of(null);
+
+        // then
+        assertThat(instance).isNull();
+        assertThat(LazyMultivaluedMap.reuse(LazyMultivaluedMap.of(new HashMap<String, List<String>>()), null))
+            .isNull();
+    }
+
+    /**
+     * Tests that the view is reused for the same headers only.
+     */
+    @Test
+    public void shouldReuseViewOfSameHeaders() {
+
+        // given
+        Map<String, List<String>> source = new HashMap<String, List<String>>();
+        Map<String, List<String>> other = new HashMap<String, List<String>>();
+        LazyMultivaluedMap<String> view = LazyMultivaluedMap.of(source);
+
+        // when
+        LazyMultivaluedMap<String> same = LazyMultivaluedMap.reuse(view, source);
+        LazyMultivaluedMap<String> different = LazyMultivaluedMap.reuse(view, other);
+        LazyMultivaluedMap<String> created = LazyMultivaluedMap.reuse(null, source);
+
+        // then
+        assertThat(same).isSameAs(view);
+        assertThat(different).isNotSameAs(view);
+        assertThat(created).isNotNull().isNotSameAs(view);
+    }
+
+    /**
+     * Tests that the changes made to the headers before the first access show up in the copy.
+     */
+    @Test
+    public void shouldCopyHeadersAtFirstAccess() {
+
+        // given
+        Map<String, List<String>> source = new HashMap<String, List<String>>();
+        source.put("Content-Type", Arrays.asList("text/plain"));
+        LazyMultivaluedMap<String> instance = LazyMultivaluedMap.of(source);
+
+        // when
+        source.put("Content-Type", Arrays.asList("application/json"));
+        source.put("ETag", Arrays.asList("\"1\""));
+
+        // then
+        assertThat(instance.getFirst("content-type")).isEqualTo("application/json");
+        assertThat(instance.getFirst("etag")).isEqualTo("\"1\"");
+    }
+
+    /**
+     * Tests that the copy is not affected by later changes of the headers and doesn't change them.
+     */
+    @Test
+    public void shouldIsolateCopyFromHeaders() {
+
+        // given
+        Map<String, List<String>> source = new HashMap<String, List<String>>();
+        source.put("Host", Arrays.asList("localhost"));
+        LazyMultivaluedMap<String> instance = LazyMultivaluedMap.of(source);
+        instance.getFirst("Host");
+
+        // when
+        source.put("Host", Arrays.asList("example.com"));
+        source.put("Cookie", Arrays.asList("a=1"));
+        instance.add("Accept", "application/json");
+
+        // then
+        assertThat(instance.getFirst("host")).isEqualTo("localhost");
+        assertThat(instance.containsKey("cookie")).isFalse();
+        assertThat(source.containsKey("Accept")).isFalse();
+        assertThat(source).hasSize(2);
+    }
+
+    /**
+     * Headers counting how many times they are iterated.
+     */
+    private static class CountingMap extends HashMap<String, List<String>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private int copies;
+
+        @Override
+        public Set<Entry<String, List<String>>> entrySet() {
+
+            copies++;
+            return super.entrySet();
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.warp.spi;
+
+import org.jboss.arquillian.extension.rest.warp.api.HttpMethod;
+import org.jboss.arquillian.extension.rest.warp.api.RestContext;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * Tests the serialization of the {@link RestContextImpl} class.
+ */
+public class RestContextImplTestCase {
+
+    /**
+     * Tests that the captured context survives the serialization.
+     */
+    @Test
+    public void shouldSerializeContext() throws Exception {
+
+        // given
+        MultivaluedMapImpl<String, String> requestHeaders = new MultivaluedMapImpl<String, String>();
+        requestHeaders.add("Accept", "application/json");
+        requestHeaders.add("Accept-Language", "en");
+        requestHeaders.add("Accept-Language", "pl");
+
+        HttpRequestImpl request = new HttpRequestImpl();
+        request.setMethod(HttpMethod.POST);
+        request.setContentType("application/json");
+        request.setEntity("{\"name\":\"Acme\"}");
+        request.setHeaders(LazyMultivaluedMap.of(requestHeaders));
+
+        MultivaluedMapImpl<String, Object> responseHeaders = new MultivaluedMapImpl<String, Object>();
+        responseHeaders.add("Content-Type", new HeaderValue("application/json"));
+        responseHeaders.add("Content-Length", 15);
+
+        CapturedEntityImpl capturedEntity = new CapturedEntityImpl(4, "SHA-256");
+        capturedEntity.wrap(new ByteArrayOutputStream()).write("{\"name\":\"Acme\"}".getBytes());
+
+        HttpResponseImpl response = new HttpResponseImpl();
+        response.setStatusCode(201);
+        response.setContentType("application/json");
+        response.setHeaders(LazyMultivaluedMap.ofHeaderStrings(responseHeaders));
+        response.setCapturedEntity(capturedEntity);
+
+        SecurityContextImpl securityContext = new SecurityContextImpl();
+        securityContext.setPrincipal(new Principal() {
+            @Override
+            public String getName() {
+                return "admin";
+            }
+        });
+
+        RestContextImpl instance = new RestContextImpl();
+        instance.setHttpRequest(request);
+        instance.setHttpResponse(response);
+        instance.setSecurityContext(securityContext);
+
+        // when
+        RestContext result = (RestContext) deserialize(serialize(instance));
+
+        // then
+        assertThat(result.getHttpRequest().getMethod()).isEqualTo(HttpMethod.POST);
+        assertThat(result.getHttpRequest().getContentType()).isEqualTo("application/json");
+        assertThat(result.getHttpRequest().getEntity()).isEqualTo("{\"name\":\"Acme\"}");
+        assertThat(result.getHttpRequest().getHeaders()).isEqualTo(requestHeaders);
+        assertThat(result.getHttpResponse().getStatusCode()).isEqualTo(201);
+        assertThat(result.getHttpResponse().getHeaders().getFirst("Content-Type")).isEqualTo("application/json");
+        assertThat(result.getHttpResponse().getHeaders().getFirst("Content-Length")).isEqualTo("15");
+        assertThat(result.getHttpResponse().getCapturedEntity().getContent()).isEqualTo("{\"na".getBytes());
+        assertThat(result.getHttpResponse().getCapturedEntity().getSize()).isEqualTo(15);
+        assertThat(result.getHttpResponse().getCapturedEntity().getDigest()).isEqualTo(capturedEntity.getDigest());
+        assertThat(result.getSecurityContext().getPrincipal().getName()).isEqualTo("admin");
+        assertThat(result.getResponse()).isNull();
+    }
+
+    /**
+     * Tests that the repeated header values are written once.
+     */
+    @Test
+    public void shouldWriteRepeatedHeadersOnce() throws Exception {
+
+        // given
+        MultivaluedMapImpl<String, String> instance = new MultivaluedMapImpl<String, String>();
+        Map<String, List<String>> plain = new HashMap<String, List<String>>();
+        for (int i = 0; i < 50; i++) {
+            instance.add("X-Header-" + i, "application/vnd.acme.stocks+json; charset=UTF-8");
+            plain.put("X-Header-" + i, new ArrayList<String>(
+                Arrays.asList("application/vnd.acme.stocks+json; charset=UTF-8")));
+        }
+
+        // when
+        byte[] result = serialize(instance);
+
+        // then
+        assertThat(deserialize(result)).isEqualTo(instance);
+        assertThat(result.length).isLessThan(serialize(plain).length);
+    }
+
+    /**
+     * Tests that a value which is neither a string nor serializable is rejected instead of being changed.
+     */
+    @Test(expected = NotSerializableException.class)
+    public void shouldRejectValueThatIsNotSerializable() throws Exception {
+
+        // given
+        MultivaluedMapImpl<String, Object> instance = new MultivaluedMapImpl<String, Object>();
+        instance.add("Content-Type", new HeaderValue("application/json"));
+
+        // when
+        serialize(instance);
+    }
+
+    /**
+     * Serializes the given object.
+     *
+     * @param object
+     *     the object
+     *
+     * @return the serialized object
+     */
+    private static byte[] serialize(Object object) throws Exception {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(object);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Deserializes the given object.
+     *
+     * @param bytes
+     *     the serialized object
+     *
+     * @return the object
+     */
+    private static Object deserialize(byte[] bytes) throws Exception {
+
+        return new ObjectInputStream(new ByteArrayInputStream(bytes)).readObject();
+    }
+
+    /**
+     * A header value that isn't serializable.
+     */
+    private static final class HeaderValue {
+
+        /**
+         * Represents the value.
+         */
+        private final String value;
+
+        /**
+         * Creates new instance of {@link HeaderValue} class.
+         *
+         * @param value
+         *     the value
+         */
+        private HeaderValue(String value) {
+
+            this.value = value;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return value;
+        }
+    }
+}
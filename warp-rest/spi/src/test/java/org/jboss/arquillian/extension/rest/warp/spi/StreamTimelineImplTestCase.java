@@ -0,0 +1,131 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.warp.spi;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * Tests the {@link StreamTimelineImpl} class.
+ */
+public class StreamTimelineImplTestCase {
+
+    /**
+     * Tests that each flush closes a chunk and the stream isn't buffered.
+     */
+    @Test
+    public void shouldRecordChunkOnEachFlush() throws Exception {
+
+        // given
+        StreamTimelineImpl instance = new StreamTimelineImpl(10, 8);
+        FlushCountingStream target = new FlushCountingStream();
+        OutputStream outputStream = instance.wrap(target);
+
+        // when
+        outputStream.write("data: 1\n\n".getBytes());
+        outputStream.flush();
+        outputStream.write('d');
+        outputStream.write("ata: 2\n\n".getBytes());
+        outputStream.flush();
+        outputStream.flush();
+        outputStream.close();
+
+        // then
+        assertThat(target.toString()).isEqualTo("data: 1\n\ndata: 2\n\n");
+        assertThat(target.flushes).isEqualTo(3);
+        assertThat(instance.getChunkCount()).isEqualTo(2);
+        assertThat(instance.getSize()).isEqualTo(18);
+        assertThat(instance.getChunks()).hasSize(2);
+        assertThat(instance.getChunks().get(0).getSize()).isEqualTo(9);
+        assertThat(instance.getChunks().get(1).getSize()).isEqualTo(9);
+        assertThat(instance.getChunks().get(1).getTime()).isGreaterThanOrEqualTo(
+            instance.getChunks().get(0).getTime());
+        assertThat(instance.getHead()).isEqualTo("data: 1\n".getBytes());
+        assertThat(instance.isTruncated()).isFalse();
+    }
+
+    /**
+     * Tests that a stream which is never flushed is recorded as a single chunk.
+     */
+    @Test
+    public void shouldRecordSingleChunkWithoutFlush() throws Exception {
+
+        // given
+        StreamTimelineImpl instance = new StreamTimelineImpl(10, 0);
+        OutputStream outputStream = instance.wrap(new ByteArrayOutputStream());
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            outputStream.write(new byte[10]);
+        }
+        outputStream.close();
+
+        // then
+        assertThat(instance.getChunkCount()).isEqualTo(1);
+        assertThat(instance.getChunks().get(0).getSize()).isEqualTo(1000);
+        assertThat(instance.getHead()).isEmpty();
+    }
+
+    /**
+     * Tests that only the first chunks are recorded, while all are counted.
+     */
+    @Test
+    public void shouldLimitRecordedChunks() throws Exception {
+
+        // given
+        StreamTimelineImpl instance = new StreamTimelineImpl(3, 0);
+        OutputStream outputStream = instance.wrap(new ByteArrayOutputStream());
+
+        // when
+        for (int i = 0; i < 5; i++) {
+            outputStream.write(i);
+            outputStream.flush();
+        }
+
+        // then
+        assertThat(instance.getChunkCount()).isEqualTo(5);
+        assertThat(instance.getChunks()).hasSize(3);
+        assertThat(instance.isTruncated()).isTrue();
+    }
+
+    /**
+     * The stream counting the flushes.
+     */
+    private static final class FlushCountingStream extends ByteArrayOutputStream {
+
+        /**
+         * Represents the number of flushes.
+         */
+        private int flushes;
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void flush() throws IOException {
+
+            flushes++;
+            super.flush();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @authors tag. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.arquillian.extension.rest.warp.spi;
+
+import org.jboss.arquillian.extension.rest.warp.api.Timing.Mark;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+/**
+ * Tests the {@link TimingImpl} class.
+ */
+public class TimingImplTestCase {
+
+    /**
+     * Tests that the phase durations are computed from the recorded marks.
+     */
+    @Test
+    public void shouldComputePhaseDurations() {
+
+        // given
+        TimingImpl instance = new TimingImpl();
+
+        // when
+        instance.mark(Mark.REQUEST, 100);
+        instance.mark(Mark.REQUEST_ENTITY_START, 110);
+        instance.mark(Mark.REQUEST_ENTITY_END, 130);
+        instance.mark(Mark.RESPONSE, 200);
+        instance.mark(Mark.RESPONSE_ENTITY_START, 210);
+        instance.mark(Mark.RESPONSE_ENTITY_END, 250);
+
+        // then
+        assertThat(instance.getDeserializationTime()).isEqualTo(20);
+        assertThat(instance.getResourceTime()).isEqualTo(70);
+        assertThat(instance.getSerializationTime()).isEqualTo(40);
+        assertThat(instance.getTotalTime()).isEqualTo(150);
+    }
+
+    /**
+     * Tests that the start marks keep the first time and the end marks the last one.
+     */
+    @Test
+    public void shouldSpanRepeatedPhases() {
+
+        // given
+        TimingImpl instance = new TimingImpl();
+
+        // when
+        instance.mark(Mark.RESPONSE_ENTITY_START, 10);
+        instance.mark(Mark.RESPONSE_ENTITY_END, 20);
+        instance.mark(Mark.RESPONSE_ENTITY_START, 30);
+        instance.mark(Mark.RESPONSE_ENTITY_END, 40);
+
+        // then
+        assertThat(instance.getSerializationTime()).isEqualTo(30);
+    }
+
+    /**
+     * Tests that the phases without marks have no duration.
+     */
+    @Test
+    public void shouldReturnNoDurationForMissingMarks() {
+
+        // given
+        TimingImpl instance = new TimingImpl();
+
+        // when
+        instance.mark(Mark.REQUEST, 100);
+        instance.mark(Mark.RESPONSE, 180);
+
+        // then
+        assertThat(instance.getTimestamp(Mark.REQUEST_ENTITY_START)).isEqualTo(-1);
+        assertThat(instance.getDeserializationTime()).isEqualTo(-1);
+        assertThat(instance.getSerializationTime()).isEqualTo(-1);
+        assertThat(instance.getResourceTime()).isEqualTo(80);
+        assertThat(instance.getTotalTime()).isEqualTo(80);
+    }
+}